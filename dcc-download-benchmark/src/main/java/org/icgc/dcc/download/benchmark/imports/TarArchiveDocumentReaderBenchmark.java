@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.benchmark.imports;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.icgc.dcc.dcc.common.es.model.Document;
+import org.icgc.dcc.download.imports.core.RawDocument;
+import org.icgc.dcc.download.imports.io.TarArchiveDocumentReader;
+import org.icgc.dcc.download.imports.io.TarArchiveEntryCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Compares reading a synthetic donor archive into parsed documents ({@code tree}) with the raw-bytes passthrough
+ * ({@code raw}) used when documents are not filtered by project. Each operation reads the whole archive.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TarArchiveDocumentReaderBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final String INDEX_NAME = "icgc21-0-0";
+  private static final String DOCUMENT_TYPE = "donor";
+
+  /**
+   * Configuration.
+   */
+  @Param({ "tree", "raw" })
+  private String mode;
+  @Param({ "10000" })
+  private int documents;
+
+  /**
+   * State.
+   */
+  private byte[] archive;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.archive = createArchive(documents);
+  }
+
+  @Benchmark
+  public void read(Blackhole blackhole) throws IOException {
+    val reader = new TarArchiveDocumentReader(new GZIPInputStream(new ByteArrayInputStream(archive)));
+    reader.read(new ConsumingCallback(blackhole, "raw".equals(mode)));
+  }
+
+  private static byte[] createArchive(int documents) throws IOException {
+    val random = new Random(1);
+    val bytes = new ByteArrayOutputStream();
+    try (val tar = new TarArchiveOutputStream(new GZIPOutputStream(bytes))) {
+      for (int i = 0; i < documents; i++) {
+        val id = "DO" + i;
+        val source = createDonor(id, random).getBytes(UTF_8);
+        val entry = new TarArchiveEntry(INDEX_NAME + "/" + DOCUMENT_TYPE + "/" + id);
+        entry.setSize(source.length);
+
+        tar.putArchiveEntry(entry);
+        tar.write(source);
+        tar.closeArchiveEntry();
+      }
+    }
+
+    return bytes.toByteArray();
+  }
+
+  private static String createDonor(String id, Random random) {
+    val donor = new StringBuilder()
+        .append("{\"_donor_id\":\"").append(id).append("\",")
+        .append("\"_project_id\":\"TST").append(random.nextInt(10)).append("-CA\",")
+        .append("\"donor_age_at_diagnosis\":").append(random.nextInt(90)).append(",")
+        .append("\"specimen\":[");
+    for (int i = 0; i < 10; i++) {
+      donor.append(i == 0 ? "" : ",")
+          .append("{\"_specimen_id\":\"SP").append(random.nextInt(1_000_000)).append("\",")
+          .append("\"specimen_type\":\"Primary tumour - solid tissue\",")
+          .append("\"sample\":[{\"_sample_id\":\"SA").append(random.nextInt(1_000_000)).append("\"}]}");
+    }
+
+    return donor.append("]}").toString();
+  }
+
+  @RequiredArgsConstructor
+  private static class ConsumingCallback implements TarArchiveEntryCallback {
+
+    private final Blackhole blackhole;
+    private final boolean raw;
+
+    @Override
+    public void onSettings(ObjectNode settings) {
+      blackhole.consume(settings);
+    }
+
+    @Override
+    public void onMapping(String mappingTypeName, ObjectNode mapping) {
+      blackhole.consume(mapping);
+    }
+
+    @Override
+    public void onDocument(Document document) {
+      blackhole.consume(document);
+    }
+
+    @Override
+    public boolean isRawDocumentSupported() {
+      return raw;
+    }
+
+    @Override
+    public void onRawDocument(RawDocument document) {
+      blackhole.consume(document);
+    }
+
+    @Override
+    public void close() {
+    }
+
+  }
+
+}
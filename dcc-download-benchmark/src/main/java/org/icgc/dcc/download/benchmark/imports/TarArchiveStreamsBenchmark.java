@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.benchmark.imports;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import lombok.Cleanup;
+import lombok.val;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.icgc.dcc.download.imports.util.TarArchiveStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Reads every entry of a synthetic gzipped document archive of {@code sizeMb} uncompressed megabytes through the plain
+ * {@code FileInputStream}/{@code GZIPInputStream} stack ({@code default}) and through {@link TarArchiveStreams}
+ * ({@code tuned}), which adds large buffers and a read-ahead decompression thread.
+ * <p>
+ * The archive is generated once per trial in {@code java.io.tmpdir}, so the default size needs a few GB of free space.
+ */
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TarArchiveStreamsBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final String ENTRY_PREFIX = "icgc21-0-0/donor/DO";
+  private static final int DOCUMENT_SIZE = 4 * 1024;
+
+  /**
+   * Configuration.
+   */
+  @Param({ "default", "tuned" })
+  private String mode;
+  @Param({ "4096" })
+  private int sizeMb;
+
+  /**
+   * State.
+   */
+  private File archive;
+
+  @Setup
+  public void setUp() throws IOException {
+    archive = File.createTempFile("benchmark-", ".tar.gz");
+    createArchive(archive, sizeMb * 1024L * 1024L);
+  }
+
+  @TearDown
+  public void tearDown() {
+    archive.delete();
+  }
+
+  @Benchmark
+  public long read(Blackhole blackhole) throws IOException {
+    @Cleanup
+    val archiveStream = "tuned".equals(mode) ?
+        TarArchiveStreams.getTarGzInputStream(archive) :
+        new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(archive)));
+
+    val buffer = new byte[DOCUMENT_SIZE];
+    long bytes = 0;
+    TarArchiveEntry entry;
+    while ((entry = archiveStream.getNextTarEntry()) != null) {
+      ByteStreams.readFully(archiveStream, buffer, 0, (int) entry.getSize());
+      blackhole.consume(buffer);
+      bytes += entry.getSize();
+    }
+
+    return bytes;
+  }
+
+  private static void createArchive(File file, long size) throws IOException {
+    val random = new Random(1);
+    @Cleanup
+    val tar = new TarArchiveOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file))));
+
+    long written = 0;
+    for (int i = 0; written < size; i++) {
+      val source = createDocument(i, random);
+      val entry = new TarArchiveEntry(ENTRY_PREFIX + i);
+      entry.setSize(source.length);
+
+      tar.putArchiveEntry(entry);
+      tar.write(source);
+      tar.closeArchiveEntry();
+      written += source.length;
+    }
+  }
+
+  /**
+   * Compresses about as well as real documents: repeated field names with random values.
+   */
+  private static byte[] createDocument(int id, Random random) {
+    val document = new StringBuilder(DOCUMENT_SIZE)
+        .append("{\"_donor_id\":\"DO").append(id).append("\",\"observation\":[");
+    while (document.length() < DOCUMENT_SIZE - 128) {
+      document
+          .append("{\"_mutation_id\":\"MU").append(random.nextInt(10_000_000))
+          .append("\",\"chromosome_start\":").append(random.nextInt(250_000_000))
+          .append(",\"mutated_to_allele\":\"").append("ACGT".charAt(random.nextInt(4)))
+          .append("\"},");
+    }
+
+    document.setLength(document.length() - 1);
+    return document.append("]}").toString().getBytes(UTF_8);
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.benchmark.jwt;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.val;
+
+import org.icgc.dcc.download.core.jwt.DefaultJwtService;
+import org.icgc.dcc.download.core.jwt.JwtConfig;
+import org.icgc.dcc.download.core.model.TokenPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DefaultJwtService#parseToken(String)} throughput for a token which is parsed repeatedly, as it is
+ * for reconnecting download managers and range requests, and {@link DefaultJwtService#createToken(String, String)}
+ * throughput for issuing download tokens.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final String AES_KEY = "0123456789123456";
+  private static final String SECRET = "01234567891234560123456789123456789012345";
+
+  /**
+   * Configuration.
+   */
+  @Param({ "0", "10000" })
+  private int tokenCacheSize;
+
+  /**
+   * State.
+   */
+  private DefaultJwtService service;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    val config = new JwtConfig(SECRET, AES_KEY, 1);
+    config.setTokenCacheSize(tokenCacheSize);
+
+    this.service = new DefaultJwtService(config);
+    this.token = service.createToken("zzz123", "ollie.operator");
+  }
+
+  @Benchmark
+  public TokenPayload parseToken() {
+    return service.parseToken(token);
+  }
+
+  @Benchmark
+  public String createToken() {
+    return service.createToken("zzz123", "ollie.operator");
+  }
+
+}
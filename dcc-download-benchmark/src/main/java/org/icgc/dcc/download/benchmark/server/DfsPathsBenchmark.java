@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.benchmark.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import lombok.val;
+
+import org.icgc.dcc.download.server.utils.DfsPaths;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Measures the {@link DfsPaths} parsing and validation done for every file system listing and file download request.
+ * Each operation processes the same set of release, project and summary paths.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class DfsPathsBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final List<String> PATHS = ImmutableList.of(
+      "/release_21",
+      "/release_21/README.txt",
+      "/release_21/Projects",
+      "/release_21/Projects/TST1-CA",
+      "/release_21/Summary",
+      "/current/Summary/README.txt");
+  private static final List<String> FILE_PATHS = ImmutableList.of(
+      "/release_21/Projects/TST1-CA/donor.TST1-CA.tsv.gz",
+      "/release_21/Projects/TST1-CA/simple_somatic_mutation.open.TST1-CA.tsv.gz",
+      "/release_21/Projects/AML-US/copy_number_somatic_mutation.AML-US.tsv.gz",
+      "/current/Summary/sample.all_projects.tsv.gz",
+      "/release_21/Summary/donor.all_projects.tsv.gz");
+
+  @Benchmark
+  public void validatePath() {
+    for (val path : PATHS) {
+      DfsPaths.validatePath(path);
+    }
+
+    for (val path : FILE_PATHS) {
+      DfsPaths.validatePath(path);
+    }
+  }
+
+  @Benchmark
+  public void getRelease(Blackhole blackhole) {
+    for (val path : FILE_PATHS) {
+      blackhole.consume(DfsPaths.getRelease(path));
+    }
+  }
+
+  @Benchmark
+  public void getProject(Blackhole blackhole) {
+    for (val path : FILE_PATHS) {
+      blackhole.consume(DfsPaths.getProject(path));
+    }
+  }
+
+  @Benchmark
+  public void getDownloadDataType(Blackhole blackhole) {
+    for (val path : FILE_PATHS) {
+      blackhole.consume(DfsPaths.getDownloadDataType(path));
+    }
+  }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.benchmark.server;
+
+import static java.util.stream.Collectors.toSet;
+import static org.icgc.dcc.common.core.model.DownloadDataType.CLINICAL;
+import static org.icgc.dcc.common.hadoop.fs.FileSystems.getDefaultLocalFileSystem;
+import static org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.DEFAULT_RELEASE_NAME;
+import static org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.getProjectId;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import lombok.val;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.icgc.dcc.common.core.model.DownloadDataType;
+import org.icgc.dcc.download.server.config.Properties;
+import org.icgc.dcc.download.server.fs.DownloadFilesReader;
+import org.icgc.dcc.download.server.fs.PathResolver;
+import org.icgc.dcc.download.server.model.DataTypeFile;
+import org.icgc.dcc.download.server.service.FileSystemService;
+import org.icgc.dcc.download.test.io.SyntheticReleaseDirectory;
+import org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.DonorFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
+
+/**
+ * Measures the {@link FileSystemService} lookups behind download size estimates and archive streaming on an in-memory
+ * index of a {@link SyntheticReleaseDirectory} of {@code donorsPerProject} donors in each of {@code projects}
+ * projects.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FileSystemServiceBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final long SEED = 1;
+  private static final double DATA_TYPE_RATIO = 0.4;
+  private static final int PART_FILES = 5;
+  private static final int ROWS_PER_PART_FILE = 50_000;
+  // Approximate gzipped size of a synthetic row
+  private static final long ROW_BYTES = 80;
+
+  /**
+   * Configuration.
+   */
+  @Param({ "260" })
+  private int donorsPerProject;
+  @Param({ "70" })
+  private int projects;
+
+  /**
+   * State.
+   */
+  private FileSystemService service;
+  private Collection<String> allDonors;
+  private Collection<String> projectDonors;
+  private List<DownloadDataType> allDataTypes;
+  private String project;
+
+  @Setup
+  public void setUp() {
+    val properties = new Properties.JobProperties();
+    properties.setInputDir("/tmp");
+    val pathResolver = new PathResolver(properties);
+    val release = new SyntheticReleaseDirectory(DEFAULT_RELEASE_NAME, projects, donorsPerProject,
+        ImmutableList.copyOf(DownloadDataType.values()), DATA_TYPE_RATIO, PART_FILES, ROWS_PER_PART_FILE, SEED);
+    val donorFileTypes = createDonorFileTypes(release.getDonorFiles());
+
+    this.service = new FileSystemService(createReader(getDefaultLocalFileSystem(), pathResolver, donorFileTypes));
+    this.allDonors = ImmutableSet.copyOf(donorFileTypes.rowKeySet());
+    this.allDataTypes = Arrays.asList(DownloadDataType.values());
+    this.project = getProjectId(0);
+    this.projectDonors = donorFileTypes.column(DownloadDataType.DONOR).entrySet().stream()
+        .filter(entry -> entry.getValue().getPath().startsWith(project + "/"))
+        .map(entry -> entry.getKey())
+        .collect(toSet());
+  }
+
+  @Benchmark
+  public List<DataTypeFile> getDataTypeFiles_allDonors() {
+    return service.getDataTypeFiles(DEFAULT_RELEASE_NAME, allDonors, allDataTypes);
+  }
+
+  @Benchmark
+  public List<DataTypeFile> getDataTypeFiles_project() {
+    return service.getDataTypeFiles(DEFAULT_RELEASE_NAME, projectDonors, CLINICAL);
+  }
+
+  @Benchmark
+  public List<DataTypeFile> getUnsortedDataTypeFiles_allDonors() {
+    return service.getUnsortedDataTypeFiles(DEFAULT_RELEASE_NAME, allDonors, allDataTypes);
+  }
+
+  @Benchmark
+  public List<DataTypeFile> getUnsortedDataTypeFiles_project() {
+    return service.getUnsortedDataTypeFiles(DEFAULT_RELEASE_NAME, projectDonors, CLINICAL);
+  }
+
+  @Benchmark
+  public Map<DownloadDataType, Long> getProjectSizes() {
+    return service.getProjectSizes(DEFAULT_RELEASE_NAME, project);
+  }
+
+  /**
+   * @return donor - download data type - data type file table as read by {@link DownloadFilesReader}
+   */
+  private static Table<String, DownloadDataType, DataTypeFile> createDonorFileTypes(List<DonorFile> donorFiles) {
+    val table = HashBasedTable.<String, DownloadDataType, DataTypeFile> create();
+    for (val donorFile : donorFiles) {
+      val indices = ImmutableList.<Short> builder();
+      long size = 0;
+      for (short i = 0; i < donorFile.getPartFileRows().size(); i++) {
+        indices.add(i);
+        size += donorFile.getPartFileRows().get(i) * ROW_BYTES;
+      }
+
+      table.put(donorFile.getDonorId(), donorFile.getDataType(),
+          new DataTypeFile(donorFile.getPath(), indices.build(), size));
+    }
+
+    return table;
+  }
+
+  /**
+   * @return reader which serves {@code donorFileTypes} without touching the file system
+   */
+  private static DownloadFilesReader createReader(FileSystem fileSystem, PathResolver pathResolver,
+      Table<String, DownloadDataType, DataTypeFile> donorFileTypes) {
+    val releaseDonorFileTypes = ImmutableMap.of(DEFAULT_RELEASE_NAME, donorFileTypes);
+
+    return new DownloadFilesReader(fileSystem, pathResolver) {
+
+      @Override
+      public Map<String, Table<String, DownloadDataType, DataTypeFile>> getReleaseDonorFileTypes() {
+        return releaseDonorFileTypes;
+      }
+
+      @Override
+      public Map<String, Multimap<String, String>> getReleaseProjectDonors() {
+        return DownloadFilesReader.getReleaseProjectDonors(releaseDonorFileTypes);
+      }
+
+      @Override
+      public Map<String, Long> getReleaseTimes() {
+        return ImmutableMap.of(DEFAULT_RELEASE_NAME, 0L);
+      }
+
+    };
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.benchmark.server;
+
+import static org.icgc.dcc.common.core.model.DownloadDataType.SSM_OPEN;
+import static org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.DEFAULT_RELEASE_NAME;
+import static org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.getDataTypeFilePath;
+import static org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.getDonorId;
+import static org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.getProjectId;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import lombok.val;
+
+import org.icgc.dcc.download.server.config.Properties;
+import org.icgc.dcc.download.server.fs.PathResolver;
+import org.icgc.dcc.download.server.model.DataTypeFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Measures {@link PathResolver#getPartFilePaths(String, DataTypeFile)}, called for every data type file of a streamed
+ * archive, for a data type file of {@code partFiles} part files.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class PathResolverBenchmark {
+
+  /**
+   * Configuration.
+   */
+  @Param({ "1", "100" })
+  private int partFiles;
+
+  /**
+   * State.
+   */
+  private PathResolver pathResolver;
+  private DataTypeFile dataTypeFile;
+
+  @Setup
+  public void setUp() {
+    val properties = new Properties.JobProperties();
+    properties.setInputDir("/icgc/download/dynamic");
+    this.pathResolver = new PathResolver(properties);
+
+    val indices = ImmutableList.<Short> builder();
+    for (short i = 0; i < partFiles; i++) {
+      indices.add(i);
+    }
+
+    val path = getDataTypeFilePath(getProjectId(0), getDonorId(0), SSM_OPEN);
+    this.dataTypeFile = new DataTypeFile(path, indices.build(), partFiles);
+  }
+
+  @Benchmark
+  public List<String> getPartFilePaths() {
+    return pathResolver.getPartFilePaths(DEFAULT_RELEASE_NAME, dataTypeFile);
+  }
+
+}
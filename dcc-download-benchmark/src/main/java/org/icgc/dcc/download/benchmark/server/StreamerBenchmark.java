@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.benchmark.server;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.reverseOrder;
+import static org.icgc.dcc.common.core.model.DownloadDataType.DONOR;
+import static org.icgc.dcc.common.core.model.DownloadDataType.SAMPLE;
+import static org.icgc.dcc.common.core.model.DownloadDataType.SSM_OPEN;
+import static org.icgc.dcc.common.hadoop.fs.FileSystems.getDefaultLocalFileSystem;
+import static org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.DEFAULT_RELEASE_NAME;
+import static org.icgc.dcc.download.test.io.SyntheticReleaseDirectory.getDataTypeDirName;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import lombok.val;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.icgc.dcc.common.core.model.DownloadDataType;
+import org.icgc.dcc.download.server.config.Properties;
+import org.icgc.dcc.download.server.fs.PathResolver;
+import org.icgc.dcc.download.server.io.GzipStreamer;
+import org.icgc.dcc.download.server.io.ParallelFetcher;
+import org.icgc.dcc.download.server.io.TarStreamer;
+import org.icgc.dcc.download.server.model.DataTypeFile;
+import org.icgc.dcc.download.test.io.SyntheticReleaseDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Measures {@link GzipStreamer} and {@link TarStreamer} streaming a {@link SyntheticReleaseDirectory} written to the
+ * local file system: the {@code donor}, {@code sample} and {@code ssm_open} data types of {@code donorsPerProject}
+ * donors in each of 10 projects, each stored in {@code partFiles} part files of about {@code rowsPerPartFile} rows.
+ * Each operation streams all of them to a discarding output and returns the number of bytes streamed.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class StreamerBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final List<DownloadDataType> DATA_TYPES = ImmutableList.of(DONOR, SAMPLE, SSM_OPEN);
+  private static final int PROJECTS = 10;
+
+  /**
+   * Configuration.
+   */
+  @Param({ "10" })
+  private int donorsPerProject;
+  @Param({ "2" })
+  private int partFiles;
+  // About 256 KB gzipped
+  @Param({ "3000" })
+  private int rowsPerPartFile;
+  // 0 streams the part files sequentially
+  @Param({ "0", "8" })
+  private int fetchConcurrency;
+
+  /**
+   * State.
+   */
+  private File rootDir;
+  private FileSystem fileSystem;
+  private PathResolver pathResolver;
+  private List<DataTypeFile> downloadFiles;
+  private Map<DownloadDataType, Long> fileSizes;
+  private Map<DownloadDataType, String> headers;
+  private ParallelFetcher parallelFetcher;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.rootDir = Files.createTempDirectory("streamer-benchmark").toFile();
+    val release = new SyntheticReleaseDirectory(DEFAULT_RELEASE_NAME, PROJECTS, donorsPerProject, DATA_TYPES, 1,
+        partFiles, rowsPerPartFile, 1);
+    val releaseDir = release.write(rootDir);
+    val donorFiles = release.getDonorFiles();
+
+    val files = ImmutableList.<DataTypeFile> builder();
+    val sizes = ImmutableMap.<DownloadDataType, Long> builder();
+    val headerPaths = ImmutableMap.<DownloadDataType, String> builder();
+    for (val dataType : DATA_TYPES) {
+      val header = new File(releaseDir, "headers/" + getDataTypeDirName(dataType) + ".tsv.gz");
+      headerPaths.put(dataType, header.getAbsolutePath());
+
+      // Grouped by data type, as returned by FileSystemService.getDataTypeFiles
+      long dataTypeSize = 0;
+      for (val donorFile : donorFiles) {
+        if (donorFile.getDataType() != dataType) {
+          continue;
+        }
+
+        val indices = ImmutableList.<Short> builder();
+        long size = 0;
+        for (short part = 0; part < donorFile.getPartFileRows().size(); part++) {
+          indices.add(part);
+          size += new File(releaseDir, String.format("data/%s/part-%05d.gz", donorFile.getPath(), part)).length();
+        }
+
+        files.add(new DataTypeFile(donorFile.getPath(), indices.build(), size));
+        dataTypeSize += size;
+      }
+
+      sizes.put(dataType, dataTypeSize);
+    }
+
+    val properties = new Properties.JobProperties();
+    properties.setInputDir(rootDir.getAbsolutePath());
+
+    this.fileSystem = getDefaultLocalFileSystem();
+    this.pathResolver = new PathResolver(properties);
+    this.downloadFiles = files.build();
+    this.fileSizes = sizes.build();
+    this.headers = headerPaths.build();
+
+    val fetchProperties = new Properties.FetchProperties();
+    fetchProperties.setEnabled(fetchConcurrency > 0);
+    fetchProperties.setConcurrency(fetchConcurrency);
+    this.parallelFetcher = new ParallelFetcher(fetchProperties);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    parallelFetcher.shutdown();
+    try (val paths = Files.walk(rootDir.toPath())) {
+      for (val path : (Iterable<Path>) paths.sorted(reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public long gzipStream() throws IOException {
+    val output = new CountingOutputStream(ByteStreams.nullOutputStream());
+    val streamer = createGzipStreamer(output);
+    while (streamer.hasNext()) {
+      streamer.streamEntry();
+    }
+
+    return output.getCount();
+  }
+
+  @Benchmark
+  public long tarStream() throws IOException {
+    val output = new CountingOutputStream(ByteStreams.nullOutputStream());
+    val tarOutput = new TarArchiveOutputStream(output);
+    tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+    tarOutput.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+    val streamer = new TarStreamer(tarOutput, createGzipStreamer(tarOutput));
+    streamer.stream();
+
+    return output.getCount();
+  }
+
+  private GzipStreamer createGzipStreamer(OutputStream output) {
+    return new GzipStreamer(fileSystem, downloadFiles, fileSizes, headers, output, pathResolver, DEFAULT_RELEASE_NAME,
+        emptyMap(), parallelFetcher);
+  }
+
+}
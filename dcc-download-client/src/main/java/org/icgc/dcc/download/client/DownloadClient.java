@@ -17,16 +17,19 @@
  */
 package org.icgc.dcc.download.client;
 
+import java.io.Closeable;
+import java.io.File;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.icgc.dcc.common.core.model.DownloadDataType;
 import org.icgc.dcc.download.core.model.DownloadFile;
 import org.icgc.dcc.download.core.model.JobUiInfo;
 import org.icgc.dcc.download.core.response.JobResponse;
 
-public interface DownloadClient {
+public interface DownloadClient extends Closeable {
 
   JobResponse getJob(String jobId);
 
@@ -38,4 +41,40 @@ public interface DownloadClient {
 
   Collection<DownloadFile> listFiles(String path);
 
+  /**
+   * Downloads the job archive identified by the download {@code token} to the {@code target} file.
+   * 
+   * @return {@code false} if the server rejected the request
+   */
+  boolean download(String token, File target, DownloadProgressListener listener);
+
+  /**
+   * Downloads the static file identified by the static download {@code token} to the {@code target} file.
+   * 
+   * @return {@code false} if the server rejected the request
+   */
+  boolean downloadStatic(String token, File target, DownloadProgressListener listener);
+
+  // Asynchronous variants
+
+  CompletableFuture<JobResponse> getJobAsync(String jobId);
+
+  CompletableFuture<Map<DownloadDataType, Long>> getSizesAsync(Set<String> donorIds);
+
+  CompletableFuture<Boolean> isServiceAvailableAsync();
+
+  CompletableFuture<String> submitJobAsync(Set<String> donorIds, Set<DownloadDataType> dataTypes, JobUiInfo jobInfo);
+
+  CompletableFuture<Collection<DownloadFile>> listFilesAsync(String path);
+
+  CompletableFuture<Boolean> downloadAsync(String token, File target, DownloadProgressListener listener);
+
+  CompletableFuture<Boolean> downloadStaticAsync(String token, File target, DownloadProgressListener listener);
+
+  /**
+   * Releases the connection pool and the threads of the asynchronous variants.
+   */
+  @Override
+  void close();
+
 }
@@ -31,4 +31,25 @@ public class DownloadClientConfig {
   private boolean strictSSLCertificates = true;
   private boolean requestLoggingEnabled;
 
+  /**
+   * Connection pool.
+   */
+  private int maxConnections = 100;
+  private int maxConnectionsPerRoute = 20;
+  private int connectTimeoutMillis = 5000;
+  private int readTimeoutMillis = 60000;
+  private long keepAliveMillis = 30000;
+
+  /**
+   * Maximum number of concurrent ranged requests per downloaded file.
+   */
+  private int downloadConnections = 4;
+
+  /**
+   * Files smaller than this aren't split into several ranged requests.
+   */
+  private long downloadMinSegmentSize = 16L * 1024 * 1024;
+
+  private int downloadBufferSize = 1024 * 1024;
+
 }
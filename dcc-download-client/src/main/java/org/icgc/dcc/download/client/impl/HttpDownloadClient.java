@@ -22,21 +22,31 @@ import static com.google.common.net.HttpHeaders.CONTENT_ENCODING;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.MediaType.GZIP;
 import static com.google.common.net.MediaType.JSON_UTF_8;
+import static com.sun.jersey.api.client.config.ClientConfig.PROPERTY_CONNECT_TIMEOUT;
+import static com.sun.jersey.api.client.config.ClientConfig.PROPERTY_READ_TIMEOUT;
+import static com.sun.jersey.client.apache4.config.ApacheHttpClient4Config.PROPERTY_CONNECTION_MANAGER;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.http.client.params.ClientPNames.CONN_MANAGER_TIMEOUT;
 import static org.icgc.dcc.common.core.model.DownloadDataType.CLINICAL;
 import static org.icgc.dcc.common.core.model.DownloadDataType.DONOR;
 import static org.icgc.dcc.download.core.util.Endpoints.DOWNLOADS_PATH;
 import static org.icgc.dcc.download.core.util.Endpoints.HEALTH_PATH;
 import static org.icgc.dcc.download.core.util.Endpoints.LIST_FILES_PATH;
+import static org.icgc.dcc.download.core.util.Endpoints.STATIC_DOWNLOADS_PATH;
 
+import java.io.File;
 import java.net.ConnectException;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 
-import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSession;
 import javax.net.ssl.TrustManager;
 
 import lombok.NonNull;
@@ -44,11 +54,19 @@ import lombok.SneakyThrows;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.codehaus.jackson.jaxrs.JacksonJsonProvider;
 import org.icgc.dcc.common.core.model.DownloadDataType;
 import org.icgc.dcc.common.core.security.DumbX509TrustManager;
 import org.icgc.dcc.download.client.DownloadClient;
 import org.icgc.dcc.download.client.DownloadClientConfig;
+import org.icgc.dcc.download.client.DownloadProgressListener;
 import org.icgc.dcc.download.client.response.HealthResponse;
 import org.icgc.dcc.download.core.DownloadServiceUnavailableException;
 import org.icgc.dcc.download.core.model.DownloadFile;
@@ -59,19 +77,20 @@ import org.icgc.dcc.download.core.response.DataTypeSizesResponse;
 import org.icgc.dcc.download.core.response.JobResponse;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientHandlerException;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.GenericType;
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.ClientConfig;
-import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import com.sun.jersey.api.client.filter.LoggingFilter;
 import com.sun.jersey.api.core.ResourceConfig;
 import com.sun.jersey.api.json.JSONConfiguration;
-import com.sun.jersey.client.urlconnection.HTTPSProperties;
+import com.sun.jersey.client.apache4.ApacheHttpClient4;
+import com.sun.jersey.client.apache4.config.DefaultApacheHttpClient4Config;
 
 @Slf4j
 public class HttpDownloadClient implements DownloadClient {
@@ -79,11 +98,25 @@ public class HttpDownloadClient implements DownloadClient {
   /**
    * Dependencies.
    */
+  private final ClientConnectionManager connectionManager;
+  private final Client jerseyClient;
   private final WebResource resource;
+  private final RangedFileDownloader downloader;
+  private final ExecutorService executor;
 
   public HttpDownloadClient(@NonNull DownloadClientConfig config) {
-    val jerseyClient = configureHttpClient(config);
+    this.connectionManager = createConnectionManager(config);
+    this.jerseyClient = configureHttpClient(config, connectionManager);
     this.resource = jerseyClient.resource(config.baseUrl());
+    this.downloader = new RangedFileDownloader(config);
+    this.executor = createExecutor(config.maxConnectionsPerRoute());
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    jerseyClient.destroy();
+    connectionManager.shutdown();
   }
 
   @Override
@@ -119,11 +152,16 @@ public class HttpDownloadClient implements DownloadClient {
           .header(CONTENT_TYPE, JSON_UTF_8)
           .post(ClientResponse.class, submitJobRequest);
 
-      if (!isSuccessful(response)) {
-        return null;
-      }
+      try {
+        if (!isSuccessful(response)) {
+          return null;
+        }
 
-      return response.getEntity(String.class);
+        return response.getEntity(String.class);
+      } finally {
+        // Error bodies are never read, so return their pooled connection explicitly
+        response.close();
+      }
     } catch (ClientHandlerException e) {
       return rethrowConnectionRefused(e);
     }
@@ -139,11 +177,15 @@ public class HttpDownloadClient implements DownloadClient {
       val request = resource.path(DOWNLOADS_PATH).path(jobId).path("info");
       val response = request.get(ClientResponse.class);
 
-      if (!isSuccessful(response)) {
-        return null;
-      }
+      try {
+        if (!isSuccessful(response)) {
+          return null;
+        }
 
-      return response.getEntity(JobResponse.class);
+        return response.getEntity(JobResponse.class);
+      } finally {
+        response.close();
+      }
     } catch (ClientHandlerException e) {
       return rethrowConnectionRefused(e);
     }
@@ -158,11 +200,15 @@ public class HttpDownloadClient implements DownloadClient {
           .header(CONTENT_ENCODING, GZIP)
           .post(ClientResponse.class, body);
 
-      if (!isSuccessful(response)) {
-        return null;
-      }
+      try {
+        if (!isSuccessful(response)) {
+          return null;
+        }
 
-      return response.getEntity(DataTypeSizesResponse.class).getSizes();
+        return response.getEntity(DataTypeSizesResponse.class).getSizes();
+      } finally {
+        response.close();
+      }
     } catch (ClientHandlerException e) {
       return rethrowConnectionRefused(e);
     }
@@ -174,16 +220,85 @@ public class HttpDownloadClient implements DownloadClient {
       val response = resource.path(LIST_FILES_PATH).path(path)
           .get(ClientResponse.class);
 
-      if (!isSuccessful(response)) {
-        return null;
+      try {
+        if (!isSuccessful(response)) {
+          return null;
+        }
+
+        return response.getEntity(new GenericType<Collection<DownloadFile>>() {});
+      } finally {
+        response.close();
       }
+    } catch (ClientHandlerException e) {
+      return rethrowConnectionRefused(e);
+    }
+  }
+
+  @Override
+  public boolean download(@NonNull String token, @NonNull File target, @NonNull DownloadProgressListener listener) {
+    try {
+      val request = resource.path(DOWNLOADS_PATH).queryParam("token", token);
+
+      return downloader.download(request, target, listener);
+    } catch (ClientHandlerException e) {
+      return rethrowConnectionRefused(e);
+    }
+  }
 
-      return response.getEntity(new GenericType<Collection<DownloadFile>>() {});
+  @Override
+  public boolean downloadStatic(@NonNull String token, @NonNull File target,
+      @NonNull DownloadProgressListener listener) {
+    try {
+      val request = resource.path(STATIC_DOWNLOADS_PATH).queryParam("token", token);
+
+      return downloader.download(request, target, listener);
     } catch (ClientHandlerException e) {
       return rethrowConnectionRefused(e);
     }
   }
 
+  // Asynchronous variants. Requests can't exceed the connection pool anyway, so the executor is sized to it.
+
+  @Override
+  public CompletableFuture<Boolean> isServiceAvailableAsync() {
+    return supplyAsync(this::isServiceAvailable, executor);
+  }
+
+  @Override
+  public CompletableFuture<String> submitJobAsync(
+      @NonNull Set<String> donorIds,
+      @NonNull Set<DownloadDataType> dataTypes,
+      @NonNull JobUiInfo jobInfo) {
+    return supplyAsync(() -> submitJob(donorIds, dataTypes, jobInfo), executor);
+  }
+
+  @Override
+  public CompletableFuture<JobResponse> getJobAsync(@NonNull String jobId) {
+    return supplyAsync(() -> getJob(jobId), executor);
+  }
+
+  @Override
+  public CompletableFuture<Map<DownloadDataType, Long>> getSizesAsync(@NonNull Set<String> donorIds) {
+    return supplyAsync(() -> getSizes(donorIds), executor);
+  }
+
+  @Override
+  public CompletableFuture<Collection<DownloadFile>> listFilesAsync(String path) {
+    return supplyAsync(() -> listFiles(path), executor);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> downloadAsync(@NonNull String token, @NonNull File target,
+      @NonNull DownloadProgressListener listener) {
+    return supplyAsync(() -> download(token, target, listener), executor);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> downloadStaticAsync(@NonNull String token, @NonNull File target,
+      @NonNull DownloadProgressListener listener) {
+    return supplyAsync(() -> downloadStatic(token, target, listener), executor);
+  }
+
   private static Set<DownloadDataType> resolveSubmitDataTypes(Set<DownloadDataType> dataTypes) {
     return dataTypes.contains(DONOR) ?
         ImmutableSet.<DownloadDataType> builder()
@@ -195,13 +310,24 @@ public class HttpDownloadClient implements DownloadClient {
 
   // HttpClient configuration
 
-  private static Client configureHttpClient(DownloadClientConfig config) {
-    ClientConfig clientConfig = getClientConfig();
+  private static ExecutorService createExecutor(int threads) {
+    val executor = new ThreadPoolExecutor(threads, threads, 60, SECONDS, new LinkedBlockingQueue<>(),
+        new ThreadFactoryBuilder()
+            .setNameFormat("download-client-%d")
+            .setDaemon(true)
+            .build());
+    executor.allowCoreThreadTimeOut(true);
 
-    // Configure SSL
-    clientConfig = config.strictSSLCertificates() ? configureSSLCertificatesHandling(clientConfig) : clientConfig;
+    return executor;
+  }
+
+  private static Client configureHttpClient(DownloadClientConfig config, ClientConnectionManager connectionManager) {
+    val clientConfig = getClientConfig(config, connectionManager);
+
+    val jerseyClient = ApacheHttpClient4.create(clientConfig);
+    configureKeepAlive(jerseyClient, config.keepAliveMillis());
+    configurePoolTimeout(jerseyClient, config.connectTimeoutMillis());
 
-    val jerseyClient = Client.create(clientConfig);
     // Configure auth
     if (isAuthEnabled(config)) {
       jerseyClient.addFilter(new HTTPBasicAuthFilter(config.user(), config.password()));
@@ -215,33 +341,66 @@ public class HttpDownloadClient implements DownloadClient {
     return jerseyClient;
   }
 
-  private static ClientConfig getClientConfig() {
-    ClientConfig config = new DefaultClientConfig();
+  private static ClientConfig getClientConfig(DownloadClientConfig downloadConfig,
+      ClientConnectionManager connectionManager) {
+    ClientConfig config = new DefaultApacheHttpClient4Config();
     config.getFeatures().put(JSONConfiguration.FEATURE_POJO_MAPPING, Boolean.TRUE);
     config.getClasses().add(JacksonJsonProvider.class);
     config.getProperties()
         .put(ResourceConfig.PROPERTY_CONTAINER_REQUEST_FILTERS, GZIPContentEncodingFilter.class.getName());
 
+    // Configure connection pooling and timeouts
+    config.getProperties().put(PROPERTY_CONNECTION_MANAGER, connectionManager);
+    config.getProperties().put(PROPERTY_CONNECT_TIMEOUT, downloadConfig.connectTimeoutMillis());
+    config.getProperties().put(PROPERTY_READ_TIMEOUT, downloadConfig.readTimeoutMillis());
+
     return config;
   }
 
+  private static ClientConnectionManager createConnectionManager(DownloadClientConfig config) {
+    val schemeRegistry = SchemeRegistryFactory.createDefault();
+
+    // Configure SSL
+    if (config.strictSSLCertificates()) {
+      schemeRegistry.register(new Scheme("https", 443, createSSLSocketFactory()));
+    }
+
+    val connectionManager = new ThreadSafeClientConnManager(schemeRegistry);
+    connectionManager.setMaxTotal(config.maxConnections());
+    connectionManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute());
+
+    return connectionManager;
+  }
+
   @SneakyThrows
-  private static ClientConfig configureSSLCertificatesHandling(ClientConfig config) {
+  private static SSLSocketFactory createSSLSocketFactory() {
     val context = SSLContext.getInstance("TLS");
     context.init(null, new TrustManager[] { new DumbX509TrustManager() }, null);
 
-    config.getProperties().put(HTTPSProperties.PROPERTY_HTTPS_PROPERTIES, new HTTPSProperties(
-        new HostnameVerifier() {
-
-          @Override
-          public boolean verify(String hostname, SSLSession sslSession) {
-            return true;
-          }
+    return new SSLSocketFactory(context, SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+  }
 
-        }, context
-        ));
+  /**
+   * Keeps idle pooled connections for at most {@code keepAliveMillis}, or less if the server asks for it.
+   */
+  private static void configureKeepAlive(ApacheHttpClient4 jerseyClient, long keepAliveMillis) {
+    val httpClient = jerseyClient.getClientHandler().getHttpClient();
+    if (httpClient instanceof AbstractHttpClient) {
+      val serverStrategy = new DefaultConnectionKeepAliveStrategy();
+      ((AbstractHttpClient) httpClient).setKeepAliveStrategy((response, context) -> {
+        val serverKeepAlive = serverStrategy.getKeepAliveDuration(response, context);
+
+        return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+      });
+    }
+  }
 
-    return config;
+  /**
+   * Fails a request that waits longer than {@code timeoutMillis} for a pooled connection instead of blocking forever.
+   */
+  private static void configurePoolTimeout(ApacheHttpClient4 jerseyClient, long timeoutMillis) {
+    val httpClient = jerseyClient.getClientHandler().getHttpClient();
+    httpClient.getParams().setLongParameter(CONN_MANAGER_TIMEOUT, timeoutMillis);
   }
 
   private static boolean isAuthEnabled(DownloadClientConfig config) {
@@ -250,7 +409,8 @@ public class HttpDownloadClient implements DownloadClient {
 
   private static <T> T rethrowConnectionRefused(ClientHandlerException exception) {
     val cause = exception.getCause();
-    if (cause instanceof ConnectException && "Connection refused".equals(cause.getMessage())) {
+    // Connection refusals surface as HttpHostConnectException, a ConnectException, in the pooled client
+    if (cause instanceof ConnectException) {
       return throwServiceUnavailableException();
     } else {
       throw exception;
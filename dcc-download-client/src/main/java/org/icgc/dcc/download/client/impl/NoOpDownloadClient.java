@@ -17,12 +17,15 @@
  */
 package org.icgc.dcc.download.client.impl;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.icgc.dcc.common.core.model.DownloadDataType;
 import org.icgc.dcc.download.client.DownloadClient;
+import org.icgc.dcc.download.client.DownloadProgressListener;
 import org.icgc.dcc.download.core.model.DownloadFile;
 import org.icgc.dcc.download.core.model.JobUiInfo;
 import org.icgc.dcc.download.core.response.JobResponse;
@@ -54,4 +57,56 @@ public class NoOpDownloadClient implements DownloadClient {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public boolean download(String token, File target, DownloadProgressListener listener) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean downloadStatic(String token, File target, DownloadProgressListener listener) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public CompletableFuture<Boolean> isServiceAvailableAsync() {
+    return CompletableFuture.completedFuture(false);
+  }
+
+  @Override
+  public CompletableFuture<Map<DownloadDataType, Long>> getSizesAsync(Set<String> donorIds) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public CompletableFuture<String> submitJobAsync(Set<String> donorIds, Set<DownloadDataType> dataTypes,
+      JobUiInfo jobInfo) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public CompletableFuture<JobResponse> getJobAsync(String jobId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public CompletableFuture<Collection<DownloadFile>> listFilesAsync(String path) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public CompletableFuture<Boolean> downloadAsync(String token, File target, DownloadProgressListener listener) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public CompletableFuture<Boolean> downloadStaticAsync(String token, File target,
+      DownloadProgressListener listener) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void close() {
+    // No resources
+  }
+
 }
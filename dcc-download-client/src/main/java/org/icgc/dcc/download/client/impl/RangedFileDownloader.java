@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.client.impl;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.CONTENT_RANGE;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_RANGE;
+import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
+import static com.google.common.net.HttpHeaders.RANGE;
+import static com.sun.jersey.api.client.ClientResponse.Status.OK;
+import static com.sun.jersey.api.client.ClientResponse.Status.PARTIAL_CONTENT;
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.download.client.DownloadClientConfig;
+import org.icgc.dcc.download.client.DownloadProgressListener;
+import org.icgc.dcc.download.core.DownloadException;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource;
+
+/**
+ * Streams a download to a local file.
+ * <p>
+ * If the server honours {@code Range} requests, the file is split into up to
+ * {@link DownloadClientConfig#downloadConnections()} segments which are fetched concurrently into {@code .part} files
+ * next to the target. The part files survive failures, so a repeated download only fetches the missing bytes.
+ * <p>
+ * Part files are only resumed if the server identifies the file version by a strong {@code ETag} or a
+ * {@code Last-Modified} header. The validator is stored next to the part files and sent as {@code If-Range}, so a file
+ * changed on the server restarts the download instead of being merged with stale bytes.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class RangedFileDownloader {
+
+  /**
+   * Constants.
+   */
+  private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("^bytes (\\d+)-\\d+/(\\d+)$");
+  private static final String PART_FILE_EXTENSION = ".part";
+  private static final String VALIDATOR_FILE_EXTENSION = ".validator";
+  private static final String WEAK_ETAG_PREFIX = "W/";
+  private static final int MAX_ATTEMPTS = 2;
+  private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final DownloadClientConfig config;
+
+  /**
+   * @return {@code false} if the server rejected the request
+   */
+  public boolean download(@NonNull WebResource resource, @NonNull File target,
+      @NonNull DownloadProgressListener listener) {
+    for (int attempt = 1;; attempt++) {
+      // Asks for a single byte, so the probe is cheap to discard when ranges are supported
+      val probe = resource.header(RANGE, "bytes=0-0").get(ClientResponse.class);
+      val status = probe.getClientResponseStatus();
+      if (status == PARTIAL_CONTENT) {
+        val totalBytes = getContentRange(probe).getTotalBytes();
+        val validator = getValidator(probe);
+        probe.close();
+        if (downloadRanges(resource, target, totalBytes, validator, listener)) {
+          return true;
+        }
+
+        if (attempt == MAX_ATTEMPTS) {
+          throw new DownloadException(format("'%s' keeps changing on the server during the download", target));
+        }
+
+        log.warn("'{}' changed on the server during the download. Restarting...", target);
+      } else if (status == OK) {
+        log.debug("Server ignored the range request. Downloading '{}' in a single stream...", target);
+        downloadStream(probe, target, listener);
+
+        return true;
+      } else {
+        log.warn("Failed to download '{}'. Response status: {}", target, probe.getStatus());
+        probe.close();
+
+        return false;
+      }
+    }
+  }
+
+  @SneakyThrows
+  private void downloadStream(ClientResponse response, File target, DownloadProgressListener listener) {
+    val partFile = getPartFile(target, 0, 1);
+    val progress = new Progress(listener, getContentLength(response), 0);
+    try (InputStream input = response.getEntityInputStream(); OutputStream output = new FileOutputStream(partFile)) {
+      copy(input, output, progress);
+    }
+
+    Files.move(partFile.toPath(), target.toPath(), REPLACE_EXISTING);
+    progress.report();
+  }
+
+  /**
+   * @return {@code false} if the file changed on the server. The part files are then discarded.
+   */
+  @SneakyThrows
+  private boolean downloadRanges(WebResource resource, File target, long totalBytes, String validator,
+      DownloadProgressListener listener) {
+    if (totalBytes == 0) {
+      Files.write(target.toPath(), new byte[0]);
+      return true;
+    }
+
+    val segments = createSegments(target, totalBytes, validator);
+    val resumedBytes = segments.stream().mapToLong(Segment::getDownloadedBytes).sum();
+    log.debug("Downloading '{}' of {} bytes in {} segments. Resuming from {} bytes...", target, totalBytes,
+        segments.size(), resumedBytes);
+
+    val progress = new Progress(listener, totalBytes, resumedBytes);
+    val executor = newFixedThreadPool(segments.size(), new ThreadFactoryBuilder()
+        .setNameFormat("download-segment-%d")
+        .setDaemon(true)
+        .build());
+    try {
+      val futures = segments.stream()
+          .map(segment -> CompletableFuture.runAsync(() -> downloadSegment(resource, segment, validator, progress),
+              executor))
+          .toArray(CompletableFuture[]::new);
+      CompletableFuture.allOf(futures).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof FileChangedException) {
+        deletePartFiles(segments, target);
+
+        return false;
+      }
+
+      throw new DownloadException(format("Failed to download '%s'", target), e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    merge(segments, target);
+    progress.report();
+
+    return true;
+  }
+
+  @SneakyThrows
+  private void downloadSegment(WebResource resource, Segment segment, String validator, Progress progress) {
+    val downloaded = segment.getDownloadedBytes();
+    if (downloaded == segment.getLength()) {
+      return;
+    }
+
+    val offset = segment.getStart() + downloaded;
+    val range = format("bytes=%d-%d", offset, segment.getEnd());
+    val request = resource.header(RANGE, range);
+    if (validator != null) {
+      request.header(IF_RANGE, validator);
+    }
+
+    val response = request.get(ClientResponse.class);
+    val status = response.getClientResponseStatus();
+    if (status == OK && validator != null) {
+      // The If-Range validator no longer matches, so the server sent the whole new version
+      response.close();
+      throw new FileChangedException();
+    }
+
+    if (status != PARTIAL_CONTENT) {
+      response.close();
+      throw new DownloadException(format("Unexpected response status %s for range %s", response.getStatus(), range));
+    }
+
+    val start = getContentRange(response).getStart();
+    if (start != offset) {
+      response.close();
+      throw new DownloadException(format("Unexpected %s start %d for range %s", CONTENT_RANGE, start, range));
+    }
+
+    try (InputStream input = response.getEntityInputStream();
+        OutputStream output = new FileOutputStream(segment.getPartFile(), true)) {
+      copy(input, output, progress);
+    }
+
+    if (segment.getDownloadedBytes() != segment.getLength()) {
+      throw new DownloadException(format("Incomplete range %s. Received %d of %d bytes", range,
+          segment.getDownloadedBytes(), segment.getLength()));
+    }
+  }
+
+  private void copy(InputStream input, OutputStream output, Progress progress) throws IOException {
+    val buffer = new byte[config.downloadBufferSize()];
+    int n;
+    while ((n = input.read(buffer)) != -1) {
+      output.write(buffer, 0, n);
+      progress.add(n);
+    }
+  }
+
+  @SneakyThrows
+  private List<Segment> createSegments(File target, long totalBytes, String validator) {
+    val segmentCount = getSegmentCount(totalBytes);
+    val segmentLength = (totalBytes + segmentCount - 1) / segmentCount;
+
+    // Part files are only resumed if they were downloaded from the same file version
+    val validatorFile = getValidatorFile(target);
+    val resumable = validator != null && validator.equals(readValidator(validatorFile));
+    if (!resumable) {
+      log.debug("Discarding part files of '{}' from an unknown file version", target);
+    }
+
+    val segments = IntStream.range(0, segmentCount)
+        .mapToObj(i -> {
+          long start = i * segmentLength;
+          long end = Math.min(start + segmentLength, totalBytes) - 1;
+          Segment segment = new Segment(start, end, getPartFile(target, i, segmentCount));
+          if (!resumable || segment.getDownloadedBytes() > segment.getLength()) {
+            segment.getPartFile().delete();
+          }
+
+          return segment;
+        })
+        .collect(toList());
+
+    if (validator == null) {
+      validatorFile.delete();
+    } else {
+      Files.write(validatorFile.toPath(), validator.getBytes(UTF_8));
+    }
+
+    return segments;
+  }
+
+  private int getSegmentCount(long totalBytes) {
+    val maxSegments = (totalBytes + config.downloadMinSegmentSize() - 1) / config.downloadMinSegmentSize();
+
+    return (int) Math.max(1, Math.min(config.downloadConnections(), maxSegments));
+  }
+
+  @SneakyThrows
+  private static void merge(List<Segment> segments, File target) {
+    getValidatorFile(target).delete();
+    if (segments.size() == 1) {
+      Files.move(segments.get(0).getPartFile().toPath(), target.toPath(), REPLACE_EXISTING);
+      return;
+    }
+
+    try (FileChannel output = FileChannel.open(target.toPath(), CREATE, WRITE, TRUNCATE_EXISTING)) {
+      for (val segment : segments) {
+        try (FileChannel input = FileChannel.open(segment.getPartFile().toPath(), READ)) {
+          val size = input.size();
+          long position = 0;
+          while (position < size) {
+            position += input.transferTo(position, size - position, output);
+          }
+        }
+      }
+    }
+
+    for (val segment : segments) {
+      segment.getPartFile().delete();
+    }
+  }
+
+  private static void deletePartFiles(List<Segment> segments, File target) {
+    for (val segment : segments) {
+      segment.getPartFile().delete();
+    }
+
+    getValidatorFile(target).delete();
+  }
+
+  @SneakyThrows
+  private static String readValidator(File validatorFile) {
+    return validatorFile.exists() ? new String(Files.readAllBytes(validatorFile.toPath()), UTF_8) : null;
+  }
+
+  private static File getValidatorFile(File target) {
+    return new File(target.getAbsoluteFile().getParentFile(), target.getName() + VALIDATOR_FILE_EXTENSION);
+  }
+
+  private static File getPartFile(File target, int index, int segmentCount) {
+    val name = segmentCount == 1 ?
+        target.getName() + PART_FILE_EXTENSION :
+        format("%s.%d-of-%d%s", target.getName(), index, segmentCount, PART_FILE_EXTENSION);
+
+    return new File(target.getAbsoluteFile().getParentFile(), name);
+  }
+
+  private static long getContentLength(ClientResponse response) {
+    val contentLength = response.getHeaders().getFirst(CONTENT_LENGTH);
+
+    return contentLength == null ? -1 : Long.parseLong(contentLength);
+  }
+
+  private static ContentRange getContentRange(ClientResponse response) {
+    val contentRange = response.getHeaders().getFirst(CONTENT_RANGE);
+    val matcher = contentRange == null ? null : CONTENT_RANGE_PATTERN.matcher(contentRange);
+    if (matcher == null || !matcher.matches()) {
+      response.close();
+      throw new DownloadException(format("Unsupported %s header: %s", CONTENT_RANGE, contentRange));
+    }
+
+    return new ContentRange(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)));
+  }
+
+  /**
+   * @return the strong {@code ETag} or the {@code Last-Modified} date of the file, or {@code null} if the server sent
+   * neither. Weak ETags are not allowed in {@code If-Range}.
+   */
+  private static String getValidator(ClientResponse response) {
+    val etag = response.getHeaders().getFirst(ETAG);
+    if (etag != null && !etag.startsWith(WEAK_ETAG_PREFIX)) {
+      return etag;
+    }
+
+    return response.getHeaders().getFirst(LAST_MODIFIED);
+  }
+
+  @Value
+  private static class ContentRange {
+
+    long start;
+    long totalBytes;
+
+  }
+
+  /**
+   * The file changed on the server since the download started.
+   */
+  private static class FileChangedException extends RuntimeException {
+  }
+
+  @Value
+  private static class Segment {
+
+    long start;
+    long end;
+    File partFile;
+
+    long getLength() {
+      return end - start + 1;
+    }
+
+    long getDownloadedBytes() {
+      return partFile.length();
+    }
+
+  }
+
+  @RequiredArgsConstructor
+  private static class Progress {
+
+    private final DownloadProgressListener listener;
+    private final long totalBytes;
+    private final long resumedBytes;
+
+    private final long startTime = System.nanoTime();
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private final AtomicLong lastReportTime = new AtomicLong(System.currentTimeMillis());
+
+    void add(long bytes) {
+      transferredBytes.addAndGet(bytes);
+
+      val now = System.currentTimeMillis();
+      val last = lastReportTime.get();
+      if (now - last >= PROGRESS_INTERVAL_MILLIS && lastReportTime.compareAndSet(last, now)) {
+        report();
+      }
+    }
+
+    void report() {
+      val bytes = transferredBytes.get();
+      val seconds = (System.nanoTime() - startTime) / 1e9;
+      val bytesPerSecond = seconds > 0 ? bytes / seconds : 0;
+
+      listener.onProgress(resumedBytes + bytes, totalBytes, bytesPerSecond);
+    }
+
+  }
+
+}
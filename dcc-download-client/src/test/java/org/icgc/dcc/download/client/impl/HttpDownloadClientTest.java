@@ -18,12 +18,19 @@
 package org.icgc.dcc.download.client.impl;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.net.HttpHeaders.CONTENT_RANGE;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_RANGE;
+import static com.google.common.net.HttpHeaders.RANGE;
 import static com.google.common.net.MediaType.JSON_UTF_8;
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,31 +39,46 @@ import static org.icgc.dcc.common.core.model.DownloadDataType.SAMPLE;
 import static org.icgc.dcc.common.core.model.DownloadDataType.SPECIMEN;
 import static org.icgc.dcc.common.core.model.DownloadDataType.SSM_CONTROLLED;
 
+import java.io.File;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
 
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
 import org.icgc.dcc.download.client.DownloadClientConfig;
 import org.icgc.dcc.download.client.util.AbstractHttpTest;
+import org.icgc.dcc.download.core.DownloadException;
 import org.icgc.dcc.download.core.DownloadServiceUnavailableException;
 import org.icgc.dcc.download.core.model.JobUiInfo;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
 
 @Slf4j
 @RunWith(MockitoJUnitRunner.class)
 public class HttpDownloadClientTest extends AbstractHttpTest {
 
   private static final String JOB_ID = "job123";
+  private static final String TOKEN = "token123";
+  private static final String DOWNLOAD_URL = "/downloads?token=" + TOKEN;
+  private static final String CONTENT = "0123456789";
+  private static final String ETAG_VALUE = "\"v1\"";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
 
   HttpDownloadClient downloadClient;
   HttpDownloadClient connectionRefusedDownloadClient;
+  HttpDownloadClient rangedDownloadClient;
 
   @Before
   public void setUp() {
@@ -66,6 +88,15 @@ public class HttpDownloadClientTest extends AbstractHttpTest {
     connectionRefusedDownloadClient = new HttpDownloadClient(config);
   }
 
+  @After
+  public void tearDown() {
+    downloadClient.close();
+    connectionRefusedDownloadClient.close();
+    if (rangedDownloadClient != null) {
+      rangedDownloadClient.close();
+    }
+  }
+
   @Test
   public void testSubmitClinicalJob() throws Exception {
     // Setup
@@ -110,6 +141,14 @@ public class HttpDownloadClientTest extends AbstractHttpTest {
     assertThat(sizes).isEqualTo(ImmutableMap.of(DONOR, 1L, SSM_CONTROLLED, 2L, SAMPLE, 0L, SPECIMEN, 1L));
   }
 
+  @Test
+  public void testGetSizesAsync() throws Exception {
+    stubGetSizesRequest();
+
+    val sizes = downloadClient.getSizesAsync(Collections.singleton("DO1")).get();
+    assertThat(sizes).isEqualTo(ImmutableMap.of(DONOR, 1L, SSM_CONTROLLED, 2L, SAMPLE, 0L, SPECIMEN, 1L));
+  }
+
   @Test
   public void testGetSizes_badRequest() throws Exception {
     stubFor(post(urlEqualTo("/downloads/size")).withRequestBody(equalToJson("{\"donorIds\":[\"DO1\"]}"))
@@ -141,6 +180,147 @@ public class HttpDownloadClientTest extends AbstractHttpTest {
         ));
   }
 
+  @Test
+  public void testDownload_singleStream() throws Exception {
+    stubFor(get(urlEqualTo(DOWNLOAD_URL))
+        .willReturn(aResponse()
+            .withBody(CONTENT)
+        ));
+
+    val target = new File(tmp.getRoot(), "download.tar");
+    val transferred = new AtomicLong();
+    val success = downloadClient.download(TOKEN, target, (bytes, total, rate) -> transferred.set(bytes));
+
+    assertThat(success).isTrue();
+    assertThat(Files.toString(target, UTF_8)).isEqualTo(CONTENT);
+    assertThat(transferred.get()).isEqualTo(CONTENT.length());
+  }
+
+  @Test
+  public void testDownload_ranged() throws Exception {
+    stubRangeRequests();
+    val target = new File(tmp.getRoot(), "download.tar");
+    val transferred = new AtomicLong();
+    val success = createRangedDownloadClient().download(TOKEN, target, (bytes, total, rate) -> transferred.set(bytes));
+
+    assertThat(success).isTrue();
+    assertThat(Files.toString(target, UTF_8)).isEqualTo(CONTENT);
+    assertThat(transferred.get()).isEqualTo(CONTENT.length());
+    assertThat(tmp.getRoot().list()).containsOnly("download.tar");
+  }
+
+  @Test
+  public void testDownload_resume() throws Exception {
+    stubRangeRequests();
+    stubRangeRequest("bytes=3-4", "34", "bytes 3-4/10");
+    val target = new File(tmp.getRoot(), "download.tar");
+    Files.write("012", new File(tmp.getRoot(), "download.tar.0-of-2.part"), UTF_8);
+    Files.write(ETAG_VALUE, new File(tmp.getRoot(), "download.tar.validator"), UTF_8);
+
+    val success = createRangedDownloadClient().download(TOKEN, target, (bytes, total, rate) -> {});
+
+    assertThat(success).isTrue();
+    assertThat(Files.toString(target, UTF_8)).isEqualTo(CONTENT);
+    assertThat(tmp.getRoot().list()).containsOnly("download.tar");
+  }
+
+  @Test
+  public void testDownload_resumeOtherVersion() throws Exception {
+    stubRangeRequests();
+    val target = new File(tmp.getRoot(), "download.tar");
+    Files.write("abc", new File(tmp.getRoot(), "download.tar.0-of-2.part"), UTF_8);
+    Files.write("\"v0\"", new File(tmp.getRoot(), "download.tar.validator"), UTF_8);
+
+    val success = createRangedDownloadClient().download(TOKEN, target, (bytes, total, rate) -> {});
+
+    assertThat(success).isTrue();
+    assertThat(Files.toString(target, UTF_8)).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void testDownload_changedDuringDownload() throws Exception {
+    // The first probe sees v0, which the server no longer has by the time the segments are requested
+    stubFor(get(urlEqualTo(DOWNLOAD_URL)).withHeader(RANGE, equalTo("bytes=0-0"))
+        .inScenario("changed").whenScenarioStateIs(STARTED).willSetStateTo("v1")
+        .willReturn(aResponse()
+            .withStatus(206)
+            .withHeader(CONTENT_RANGE, "bytes 0-0/10")
+            .withHeader(ETAG, "\"v0\"")
+            .withBody("0")
+        ));
+    stubFor(get(urlEqualTo(DOWNLOAD_URL)).withHeader(RANGE, equalTo("bytes=0-0"))
+        .inScenario("changed").whenScenarioStateIs("v1")
+        .willReturn(aResponse()
+            .withStatus(206)
+            .withHeader(CONTENT_RANGE, "bytes 0-0/10")
+            .withHeader(ETAG, ETAG_VALUE)
+            .withBody("0")
+        ));
+    stubRangeRequest("bytes=0-4", "01234", "bytes 0-4/10");
+    stubRangeRequest("bytes=5-9", "56789", "bytes 5-9/10");
+    // Added last, so it takes precedence over the range stubs
+    stubFor(get(urlEqualTo(DOWNLOAD_URL)).withHeader(IF_RANGE, equalTo("\"v0\""))
+        .willReturn(aResponse()
+            .withBody(CONTENT)
+        ));
+    val target = new File(tmp.getRoot(), "download.tar");
+
+    val success = createRangedDownloadClient().download(TOKEN, target, (bytes, total, rate) -> {});
+
+    assertThat(success).isTrue();
+    assertThat(Files.toString(target, UTF_8)).isEqualTo(CONTENT);
+    assertThat(tmp.getRoot().list()).containsOnly("download.tar");
+  }
+
+  @Test(expected = DownloadException.class)
+  public void testDownload_unexpectedRange() throws Exception {
+    stubRangeRequest("bytes=0-0", "0", "bytes 0-0/10");
+    stubRangeRequest("bytes=0-4", "01234", "bytes 0-4/10");
+    stubRangeRequest("bytes=5-9", "01234", "bytes 0-4/10");
+    val target = new File(tmp.getRoot(), "download.tar");
+
+    createRangedDownloadClient().download(TOKEN, target, (bytes, total, rate) -> {});
+  }
+
+  @Test
+  public void testDownload_notFound() throws Exception {
+    stubFor(get(urlEqualTo(DOWNLOAD_URL))
+        .willReturn(aResponse()
+            .withStatus(400)
+        ));
+
+    val target = new File(tmp.getRoot(), "download.tar");
+    val success = downloadClient.download(TOKEN, target, (bytes, total, rate) -> {});
+
+    assertThat(success).isFalse();
+    assertThat(target).doesNotExist();
+  }
+
+  private HttpDownloadClient createRangedDownloadClient() {
+    rangedDownloadClient = new HttpDownloadClient(new DownloadClientConfig()
+        .baseUrl(getServerUrl())
+        .downloadConnections(2)
+        .downloadMinSegmentSize(4));
+
+    return rangedDownloadClient;
+  }
+
+  private static void stubRangeRequests() {
+    stubRangeRequest("bytes=0-0", "0", "bytes 0-0/10");
+    stubRangeRequest("bytes=0-4", "01234", "bytes 0-4/10");
+    stubRangeRequest("bytes=5-9", "56789", "bytes 5-9/10");
+  }
+
+  private static void stubRangeRequest(String range, String body, String contentRange) {
+    stubFor(get(urlEqualTo(DOWNLOAD_URL)).withHeader(RANGE, equalTo(range))
+        .willReturn(aResponse()
+            .withStatus(206)
+            .withHeader(CONTENT_RANGE, contentRange)
+            .withHeader(ETAG, ETAG_VALUE)
+            .withBody(body)
+        ));
+  }
+
   @Test
   public void testGetJob_notFound() throws Exception {
     stubFor(get(urlEqualTo(format("/downloads/%s/info", JOB_ID)))
@@ -151,6 +331,31 @@ public class HttpDownloadClientTest extends AbstractHttpTest {
     assertThat(info).isNull();
   }
 
+  @Test(timeout = 10000)
+  public void testGetJob_notFoundReleasesConnections() throws Exception {
+    stubFor(get(urlEqualTo(format("/downloads/%s/info", JOB_ID)))
+        .willReturn(aResponse()
+            .withStatus(404)
+            .withBody("Not found")
+        ));
+    stubGetSizesRequest();
+    val client = new HttpDownloadClient(new DownloadClientConfig()
+        .baseUrl(getServerUrl())
+        .maxConnections(2)
+        .maxConnectionsPerRoute(2));
+
+    try {
+      for (int i = 0; i < 5; i++) {
+        assertThat(client.getJob(JOB_ID)).isNull();
+      }
+
+      val sizes = client.getSizes(Collections.singleton("DO1"));
+      assertThat(sizes).containsEntry(DONOR, 1L);
+    } finally {
+      client.close();
+    }
+  }
+
   @Test
   public void testIsServiceAvailable() throws Exception {
     val available = connectionRefusedDownloadClient.isServiceAvailable();
@@ -27,9 +27,11 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import lombok.NonNull;
 import lombok.SneakyThrows;
+import lombok.Value;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,6 +41,10 @@ import org.icgc.dcc.download.core.jwt.exception.InvalidJwtTokenException;
 import org.icgc.dcc.download.core.model.TokenPayload;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.nimbusds.jose.EncryptionMethod;
 import com.nimbusds.jose.JWEAlgorithm;
 import com.nimbusds.jose.JWEHeader;
@@ -91,6 +97,13 @@ public class DefaultJwtService implements JwtService {
 
   private final int ttlHours;
 
+  /**
+   * State.
+   * <p>
+   * Already verified tokens keyed by the SHA-256 hash of the serialized token. {@code null} if caching is disabled.
+   */
+  private final Cache<HashCode, VerifiedToken> verifiedTokens;
+
   @SneakyThrows
   public DefaultJwtService(@NonNull JwtConfig config) {
     val secret = config.getSharedSecret();
@@ -102,6 +115,7 @@ public class DefaultJwtService implements JwtService {
     this.encrypter = new DirectEncrypter(aesKey.getBytes(UTF_8));
     this.decrypter = new DirectDecrypter(aesKey.getBytes(UTF_8));
     this.ttlHours = config.getTtlHours();
+    this.verifiedTokens = createTokenCache(config.getTokenCacheSize(), ttlHours);
   }
 
   @Override
@@ -123,17 +137,41 @@ public class DefaultJwtService implements JwtService {
   }
 
   @Override
-  @SneakyThrows
   public TokenPayload parseToken(@NonNull String token) {
+    if (verifiedTokens == null) {
+      return verifyToken(token).getPayload();
+    }
+
+    val key = Hashing.sha256().hashString(token, UTF_8);
+    val cached = verifiedTokens.getIfPresent(key);
+    if (cached != null) {
+      if (cached.isExpired()) {
+        log.warn("Token '{}' is expired.", cached.getPayload());
+        verifiedTokens.invalidate(key);
+        throw new ExpiredJwtTokenException();
+      }
+
+      return copy(cached.getPayload());
+    }
+
+    val verified = verifyToken(token);
+    verifiedTokens.put(key, verified);
+
+    return copy(verified.getPayload());
+  }
+
+  /**
+   * Decrypts the {@code token} and verifies its signature, expiration and TTL.
+   */
+  @SneakyThrows
+  private VerifiedToken verifyToken(String token) {
     val jweObject = JWEObject.parse(token);
     jweObject.decrypt(decrypter);
 
     val signedJWT = jweObject.getPayload().toSignedJWT();
     val verified = signedJWT.verify(verifier);
     if (verified) {
-      val tokenPayload = getPayload(signedJWT);
-
-      return tokenPayload;
+      return getPayload(signedJWT);
     }
 
     throw new InvalidJwtTokenException(token);
@@ -177,13 +215,15 @@ public class DefaultJwtService implements JwtService {
   }
 
   @SneakyThrows
-  private TokenPayload getPayload(SignedJWT jweObject) {
+  private VerifiedToken getPayload(SignedJWT jweObject) {
     val payload = jweObject.getPayload();
     val json = Jackson.DEFAULT.readValue(payload.toBytes(), ObjectNode.class);
     verifyExpiration(json);
     verifyTtl(json);
 
-    return convert(json);
+    val expiration = Instant.ofEpochSecond(getTokenLongValue(json, "exp"));
+
+    return new VerifiedToken(convert(json), expiration);
   }
 
   private void verifyTtl(ObjectNode payload) {
@@ -222,12 +262,31 @@ public class DefaultJwtService implements JwtService {
     return new TokenPayload(downloadId, user, path);
   }
 
+  /**
+   * {@link TokenPayload} is mutable, so every caller gets its own copy of the cached payload.
+   */
+  private static TokenPayload copy(TokenPayload payload) {
+    return new TokenPayload(payload.getId(), payload.getUser(), payload.getPath());
+  }
+
   private static void checkArguments(String secret, String aesKey) {
     val aesKeyLength = aesKey.getBytes(UTF_8).length;
     checkArgument(aesKeyLength == AES_KEY_LENGTH, "Expected AES Key length is %s bytes, but got %s", AES_KEY_LENGTH,
         aesKeyLength);
   }
 
+  private static Cache<HashCode, VerifiedToken> createTokenCache(int size, int ttlHours) {
+    if (size <= 0) {
+      return null;
+    }
+
+    // Entries never outlive a token, so the cache doesn't keep expired tokens around
+    return CacheBuilder.newBuilder()
+        .maximumSize(size)
+        .expireAfterWrite(ttlHours, TimeUnit.HOURS)
+        .build();
+  }
+
   private static JWEHeader createJweHeader() {
     return new JWEHeader.Builder(JWEAlgorithm.DIR, EncryptionMethod.A128GCM)
         .contentType("JWT") // required to signal nested JWT
@@ -251,4 +310,16 @@ public class DefaultJwtService implements JwtService {
     return null;
   }
 
+  @Value
+  private static class VerifiedToken {
+
+    TokenPayload payload;
+    Instant expiration;
+
+    boolean isExpired() {
+      return expiration.isBefore(Instant.now());
+    }
+
+  }
+
 }
@@ -17,12 +17,10 @@
  */
 package org.icgc.dcc.download.core.jwt;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class JwtConfig {
 
@@ -30,4 +28,15 @@ public class JwtConfig {
   private String aesKey;
   private int ttlHours = 1;
 
+  /**
+   * Maximum number of verified tokens to keep in memory. {@code 0} disables the cache.
+   */
+  private int tokenCacheSize = 10_000;
+
+  public JwtConfig(String sharedSecret, String aesKey, int ttlHours) {
+    this.sharedSecret = sharedSecret;
+    this.aesKey = aesKey;
+    this.ttlHours = ttlHours;
+  }
+
 }
@@ -70,6 +70,32 @@ public class DefaultJwtServiceTest {
     assertThat(tokenPayload.getPath()).isEqualTo("/some/download/path");
   }
 
+  @Test
+  public void parseTokenTest_cached() {
+    val token = service.createToken("zzz123", "ollie.operator");
+    val first = service.parseToken(token);
+    first.setUser("mallory");
+    val second = service.parseToken(token);
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.getId()).isEqualTo("zzz123");
+    assertThat(second.getUser()).isEqualTo("ollie.operator");
+  }
+
+  @Test
+  public void parseTokenTest_cacheDisabled() {
+    val config = createConfig();
+    config.setTokenCacheSize(0);
+    service = new DefaultJwtService(config);
+
+    val token = service.createToken("zzz123", "ollie.operator");
+    val first = service.parseToken(token);
+    val second = service.parseToken(token);
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(second).isEqualTo(first);
+  }
+
   @Test(expected = InvalidJwtTokenException.class)
   public void invalidTokenTest_sharedKey() {
     val token = service.createToken("zzz123", "ollie.operator");
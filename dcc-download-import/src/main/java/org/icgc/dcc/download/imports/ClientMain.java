@@ -22,15 +22,24 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.base.Strings.repeat;
 import static java.lang.System.err;
 import static java.lang.System.out;
+import static org.icgc.dcc.download.imports.core.ArchiveFileType.getFileNames;
+import static org.icgc.dcc.download.imports.util.Files.resolveInputFiles;
+
+import java.io.File;
+import java.util.List;
+
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
+import org.icgc.dcc.download.imports.command.BenchmarkClientCommand;
 import org.icgc.dcc.download.imports.command.ClientCommand;
 import org.icgc.dcc.download.imports.command.IndexClientCommand;
 import org.icgc.dcc.download.imports.conf.ClientOptions;
+import org.icgc.dcc.download.imports.core.DownloadImportException;
 import org.icgc.dcc.download.imports.io.TarArchiveDocumentReaderFactory;
 import org.icgc.dcc.download.imports.io.TarArchiveEntryCallbackFactory;
 import org.icgc.dcc.download.imports.load.FileLoaderFactory;
+import org.icgc.dcc.download.imports.load.ImportCheckpoint;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
@@ -43,6 +52,7 @@ public class ClientMain {
    */
   private static final String APPLICATION_NAME = "dcc-download-import";
   private static final int FAILURE_STATUS_CODE = 1;
+  private static final String CHECKPOINT_FILE_EXTENSION = ".checkpoint";
 
   public static void main(String... args) {
     val options = new ClientOptions();
@@ -61,16 +71,26 @@ public class ClientMain {
         return;
       }
 
-      if (options.inputFile == null) {
+      if (options.inputFiles.isEmpty()) {
         err.println("The input index file is unset.");
         return;
       }
 
-      if (isNullOrEmpty(options.esUrl)) {
+      if (isNullOrEmpty(options.esUrl) && !options.benchmark) {
         err.println("Elastisticsearch cluster URL is unset.");
         return;
       }
 
+      if (options.threads < 1) {
+        err.println("The number of threads must be positive.");
+        return;
+      }
+
+      if (options.parallelFiles < 1) {
+        err.println("The number of parallel files must be positive.");
+        return;
+      }
+
       execute(options);
     } catch (ParameterException e) {
       log.error("Invalid parameter(s): ", e);
@@ -91,12 +111,54 @@ public class ClientMain {
   }
 
   private static ClientCommand resolveCommand(ClientOptions options) {
+    val inputFiles = resolveInputFiles(options.inputFiles);
+    if (inputFiles.isEmpty()) {
+      throw new DownloadImportException("No index files found in %s. Valid files: %s", options.inputFiles,
+          getFileNames());
+    }
+
+    if (options.checkpointFile != null && inputFiles.size() > 1) {
+      throw new DownloadImportException("A checkpoint file can only be set for a single input file");
+    }
+
+    if (options.benchmark) {
+      return resolveBenchmarkCommand(options, inputFiles);
+    }
+
+    val callbackFactory =
+        TarArchiveEntryCallbackFactory.create(options.esUrl, options.threads, options.bulkLoad, options.resume);
     val fileLoaderFactory = new FileLoaderFactory(
         options.project,
-        TarArchiveEntryCallbackFactory.create(options.esUrl),
-        TarArchiveDocumentReaderFactory.create());
+        callbackFactory,
+        TarArchiveDocumentReaderFactory.create(options.threads));
+
+    return new IndexClientCommand(
+        inputFiles,
+        options.parallelFiles,
+        fileLoaderFactory,
+        callbackFactory,
+        inputFile -> ImportCheckpoint.create(resolveCheckpointFile(options, inputFile), inputFile, options.resume));
+  }
+
+  private static ClientCommand resolveBenchmarkCommand(ClientOptions options, List<File> inputFiles) {
+    val sinkDir = options.benchmarkSinkDir;
+    if (sinkDir != null && !sinkDir.isDirectory() && !sinkDir.mkdirs()) {
+      throw new DownloadImportException("Failed to create benchmark sink directory '%s'", sinkDir);
+    }
+
+    val callbackFactory = TarArchiveEntryCallbackFactory.createBenchmark(options.threads, sinkDir);
+    val readerFactory = TarArchiveDocumentReaderFactory.create(options.threads);
+    val fileLoaderFactory = new FileLoaderFactory(options.project, callbackFactory, readerFactory);
+
+    return new BenchmarkClientCommand(inputFiles, fileLoaderFactory, callbackFactory, readerFactory);
+  }
+
+  private static File resolveCheckpointFile(ClientOptions options, File inputFile) {
+    if (options.checkpointFile != null) {
+      return options.checkpointFile;
+    }
 
-    return new IndexClientCommand(options.inputFile, fileLoaderFactory);
+    return new File(inputFile.getPath() + CHECKPOINT_FILE_EXTENSION);
   }
 
   private static void banner(String message, Object... args) {
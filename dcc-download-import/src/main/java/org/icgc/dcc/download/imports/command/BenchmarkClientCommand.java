@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.command;
+
+import static com.google.common.base.Strings.repeat;
+import static org.icgc.dcc.download.imports.core.ArchiveFileType.RELEASE;
+import static org.icgc.dcc.download.imports.util.TarArchiveStreams.BUFFER_SIZE;
+import static org.icgc.dcc.download.imports.util.TarArchiveStreams.closeShield;
+import static org.icgc.dcc.download.imports.util.TarArchiveStreams.decompress;
+import static org.icgc.dcc.download.imports.util.TarArchiveStreams.getTarInputStream;
+import static org.icgc.dcc.download.imports.util.TarArchiveStreams.openFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.icgc.dcc.dcc.common.es.model.Document;
+import org.icgc.dcc.download.imports.command.StageMeter.StageResult;
+import org.icgc.dcc.download.imports.core.ArchiveFileType;
+import org.icgc.dcc.download.imports.io.TarArchiveDocumentReaderFactory;
+import org.icgc.dcc.download.imports.io.TarArchiveEntryCallback;
+import org.icgc.dcc.download.imports.io.TarArchiveEntryCallbackFactory;
+import org.icgc.dcc.download.imports.load.FileLoaderFactory;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Measures the import pipeline without an Elasticsearch cluster. The input files are processed by each stage in turn:
+ * <ul>
+ * <li>{@code decompress} - reads the bytes of every document</li>
+ * <li>{@code parse} - additionally parses every document into a tree</li>
+ * <li>{@code import} - runs the loaders with the project filter and writes the documents to the benchmark sink of
+ * {@code callbackFactory}</li>
+ * </ul>
+ * Rates are computed from the uncompressed document bytes of the input, so the stages are directly comparable.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BenchmarkClientCommand implements ClientCommand {
+
+  /**
+   * Constants.
+   */
+  private static final String SUMMARY_FORMAT = "%-12s %12s %10s %10s %12s %10s %10s %12s";
+  private static final String SETTINGS_FILE_NAME = "_settings";
+  private static final String MAPPING_FILE_NAME = "_mapping";
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final List<File> inputFiles;
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final FileLoaderFactory fileLoaderFactory;
+  @NonNull
+  private final TarArchiveEntryCallbackFactory callbackFactory;
+  @NonNull
+  private final TarArchiveDocumentReaderFactory readerFactory;
+
+  @Override
+  public void execute() {
+    logSummary(run());
+  }
+
+  List<StageResult> run() {
+    val decompressed = benchmarkDecompress();
+    val bytes = decompressed.getBytes();
+
+    return ImmutableList.of(decompressed, benchmarkParse(bytes), benchmarkImport(bytes));
+  }
+
+  @SneakyThrows
+  private StageResult benchmarkDecompress() {
+    log.info("Benchmarking decompression of {} file(s)...", inputFiles.size());
+    @Cleanup
+    val meter = new StageMeter();
+    val documents = new LongAdder();
+    val bytes = new LongAdder();
+    val buffer = new byte[BUFFER_SIZE];
+    for (val inputFile : inputFiles) {
+      forEachTypeArchive(inputFile, inputStream -> {
+        @Cleanup
+        val tarInput = new TarArchiveInputStream(decompress(inputStream));
+        TarArchiveEntry entry;
+        while ((entry = tarInput.getNextTarEntry()) != null) { // NOPMD
+          if (entry.isDirectory() || isIndexMetadata(entry.getName())) {
+            continue;
+          }
+
+          documents.increment();
+          int read;
+          while ((read = tarInput.read(buffer)) != -1) { // NOPMD
+            bytes.add(read);
+          }
+        }
+      });
+    }
+
+    return meter.stop("decompress", documents.sum(), bytes.sum());
+  }
+
+  @SneakyThrows
+  private StageResult benchmarkParse(long bytes) {
+    log.info("Benchmarking parsing of {} file(s)...", inputFiles.size());
+    @Cleanup
+    val meter = new StageMeter();
+    val callback = new CountingTarArchiveEntryCallback();
+    for (val inputFile : inputFiles) {
+      forEachTypeArchive(inputFile, inputStream -> {
+        @Cleanup
+        val reader = readerFactory.createReader(inputStream);
+        reader.read(callback);
+      });
+    }
+
+    return meter.stop("parse", callback.documents.sum(), bytes);
+  }
+
+  @SneakyThrows
+  private StageResult benchmarkImport(long bytes) {
+    log.info("Benchmarking import of {} file(s)...", inputFiles.size());
+    @Cleanup
+    val meter = new StageMeter();
+    val startDocuments = callbackFactory.getSinkDocuments();
+    for (val inputFile : inputFiles) {
+      val indexName = fileLoaderFactory.getFileLoader(inputFile).loadFile(inputFile);
+      callbackFactory.finish(indexName);
+    }
+
+    return meter.stop("import", callbackFactory.getSinkDocuments() - startDocuments, bytes);
+  }
+
+  /**
+   * Passes every gzipped archive of documents in {@code inputFile} to {@code consumer}.
+   */
+  private static void forEachTypeArchive(File inputFile, TypeArchiveConsumer consumer) throws IOException {
+    if (ArchiveFileType.from(inputFile.getName()) == RELEASE) {
+      @Cleanup
+      val tarInput = getTarInputStream(inputFile);
+      while (tarInput.getNextTarEntry() != null) {
+        consumer.accept(closeShield(tarInput));
+      }
+    } else {
+      @Cleanup
+      val inputStream = openFile(inputFile);
+      consumer.accept(inputStream);
+    }
+  }
+
+  private static boolean isIndexMetadata(String entryName) {
+    return entryName.endsWith(SETTINGS_FILE_NAME) || entryName.endsWith(MAPPING_FILE_NAME);
+  }
+
+  private static void logSummary(List<StageResult> results) {
+    log.info("{}", repeat("-", 100));
+    log.info("{}", String.format(SUMMARY_FORMAT,
+        "Stage", "Documents", "MB", "Seconds", "Docs/s", "MB/s", "GC ms", "Alloc MB/s"));
+    for (val result : results) {
+      log.info("{}", String.format(SUMMARY_FORMAT,
+          result.getStage(),
+          result.getDocuments(),
+          result.getBytes() / (1024 * 1024),
+          String.format("%.1f", result.getMillis() / 1000.0),
+          String.format("%.0f", result.getDocumentsPerSecond()),
+          String.format("%.1f", result.getMegabytesPerSecond()),
+          result.getGcMillis(),
+          String.format("%.1f", result.getAllocatedMegabytesPerSecond())));
+    }
+
+    log.info("{}", repeat("-", 100));
+  }
+
+  private interface TypeArchiveConsumer {
+
+    void accept(InputStream inputStream) throws IOException;
+
+  }
+
+  /**
+   * Counts the parsed documents. Called concurrently by the parse workers of the reader.
+   */
+  private static class CountingTarArchiveEntryCallback implements TarArchiveEntryCallback {
+
+    final LongAdder documents = new LongAdder();
+
+    @Override
+    public void onSettings(ObjectNode settings) {
+      // No-op
+    }
+
+    @Override
+    public void onMapping(String mappingTypeName, ObjectNode mapping) {
+      // No-op
+    }
+
+    @Override
+    public void onDocument(Document document) {
+      documents.increment();
+    }
+
+    @Override
+    public void close() {
+      // No-op
+    }
+
+  }
+
+}
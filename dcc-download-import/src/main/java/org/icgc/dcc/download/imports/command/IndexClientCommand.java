@@ -17,37 +17,205 @@
  */
 package org.icgc.dcc.download.imports.command;
 
+import static com.google.common.base.Strings.repeat;
+import static java.lang.Math.min;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
+import lombok.Value;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
+import org.icgc.dcc.download.imports.core.DownloadImportException;
+import org.icgc.dcc.download.imports.io.TarArchiveEntryCallbackFactory;
+import org.icgc.dcc.download.imports.load.FileLoader;
 import org.icgc.dcc.download.imports.load.FileLoaderFactory;
+import org.icgc.dcc.download.imports.load.ImportCheckpoint;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+/**
+ * Loads the input files on a pool of at most {@code parallelFiles} threads.<br>
+ * <br>
+ * Files of the same index share its settings, which are applied by the first of them, and the index is finished once
+ * all of its files were loaded successfully.
+ */
 @Slf4j
 @RequiredArgsConstructor
 public class IndexClientCommand implements ClientCommand {
 
+  /**
+   * Constants.
+   */
+  private static final String SUMMARY_FORMAT = "%-60s %-30s %-8s %10s";
+
+  /**
+   * Configuration.
+   */
   @NonNull
-  private final File inputFile;
+  private final List<File> inputFiles;
+  private final int parallelFiles;
+
+  /**
+   * Dependencies.
+   */
   @NonNull
   private final FileLoaderFactory fileLoaderFactory;
+  @NonNull
+  private final TarArchiveEntryCallbackFactory callbackFactory;
+  @NonNull
+  private final Function<File, ImportCheckpoint> checkpoints;
 
   @Override
   @SneakyThrows
   public void execute() {
-    log.info("Creating tar reader for file {}", inputFile);
-    val indexWatches = Stopwatch.createStarted();
-    val fileLoader = fileLoaderFactory.getFileLoader(inputFile);
-    fileLoader.loadFile(inputFile);
-    log.info("Finished processing {} in {} seconds.", inputFile, indexWatches.elapsed(SECONDS));
+    val watch = Stopwatch.createStarted();
+    val executor = Executors.newFixedThreadPool(min(parallelFiles, inputFiles.size()),
+        new ThreadFactoryBuilder().setNameFormat("import-file-%d").build());
+
+    val results = ImmutableList.<FileResult> builder();
+    try {
+      val futures = ImmutableList.<Future<FileResult>> builder();
+      for (int i = 0; i < inputFiles.size(); i++) {
+        val inputFile = inputFiles.get(i);
+        val progress = String.format("[%d/%d]", i + 1, inputFiles.size());
+        futures.add(executor.submit(() -> loadFile(inputFile, progress)));
+      }
+
+      for (val future : futures.build()) {
+        results.add(future.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    val fileResults = finishIndices(results.build());
+    logSummary(fileResults);
+    log.info("Finished processing {} file(s) in {} seconds.", inputFiles.size(), watch.elapsed(SECONDS));
+
+    val failures = fileResults.stream().filter(FileResult::isFailed).count();
+    if (failures > 0) {
+      throw new DownloadImportException("Failed to import %s of %s file(s)", failures, fileResults.size());
+    }
+  }
+
+  private FileResult loadFile(File inputFile, String progress) {
+    val watch = Stopwatch.createStarted();
+    FileLoader fileLoader = null;
+    try {
+      val checkpoint = checkpoints.apply(inputFile);
+      fileLoader = fileLoaderFactory.getFileLoader(inputFile, checkpoint);
+
+      log.info("{} Loading file '{}'...", progress, inputFile);
+      val indexName = fileLoader.loadFile(inputFile);
+      checkpoint.delete();
+      log.info("{} Finished loading file '{}' into index '{}' in {} seconds.", progress, inputFile, indexName,
+          watch.elapsed(SECONDS));
+
+      return new FileResult(inputFile, indexName, null, watch.elapsed(SECONDS));
+    } catch (Exception e) { // NOPMD
+      log.error("{} Failed to load file '{}':", progress, inputFile, e);
+
+      // The index of a failed file must not be finished
+      return new FileResult(inputFile, resolveIndexName(fileLoader, inputFile), String.valueOf(e.getMessage()),
+          watch.elapsed(SECONDS));
+    }
+  }
+
+  @Nullable
+  private static String resolveIndexName(@Nullable FileLoader fileLoader, File inputFile) {
+    if (fileLoader == null) {
+      return null;
+    }
+
+    try {
+      return fileLoader.resolveIndexName(inputFile);
+    } catch (Exception e) { // NOPMD
+      log.warn("Failed to resolve index name of file '{}': {}", inputFile, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Finishes every index whose files were all loaded. Files of an index which failed to finish are marked failed.
+   */
+  private List<FileResult> finishIndices(List<FileResult> results) {
+    val indexFailures = new LinkedHashMap<String, String>();
+    for (val result : results) {
+      if (result.getIndexName() != null && result.isFailed()) {
+        indexFailures.put(result.getIndexName(), "Index not finished: another file failed");
+      }
+    }
+
+    for (val result : results) {
+      val indexName = result.getIndexName();
+      if (indexName == null || indexFailures.containsKey(indexName)) {
+        continue;
+      }
+
+      try {
+        callbackFactory.finish(indexName);
+        indexFailures.put(indexName, null);
+      } catch (Exception e) { // NOPMD
+        log.error("Failed to finish index '{}':", indexName, e);
+        indexFailures.put(indexName, String.valueOf(e.getMessage()));
+      }
+    }
+
+    val finished = ImmutableList.<FileResult> builder();
+    for (val result : results) {
+      val indexFailure = result.getIndexName() == null ? null : indexFailures.get(result.getIndexName());
+      finished.add(result.isFailed() || indexFailure == null ? result : result.withError(indexFailure));
+    }
+
+    return finished.build();
+  }
+
+  private static void logSummary(List<FileResult> results) {
+    log.info("{}", repeat("-", 100));
+    log.info("{}", String.format(SUMMARY_FORMAT, "File", "Index", "Status", "Seconds"));
+    for (val result : results) {
+      log.info("{}", String.format(SUMMARY_FORMAT, result.getFile(), result.getIndexName(),
+          result.isFailed() ? "FAILED" : "OK", result.getSeconds()));
+      if (result.isFailed()) {
+        log.info("  {}", result.getError());
+      }
+    }
+
+    log.info("{}", repeat("-", 100));
+  }
+
+  @Value
+  private static class FileResult {
+
+    File file;
+    @Nullable
+    String indexName;
+    @Nullable
+    String error;
+    long seconds;
+
+    boolean isFailed() {
+      return error != null;
+    }
+
+    FileResult withError(String error) {
+      return new FileResult(file, indexName, error, seconds);
+    }
+
   }
 
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.command;
+
+import static com.sun.management.GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION;
+import static java.lang.management.MemoryType.HEAP;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.val;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Measures the wall time, GC time and heap allocation of a benchmark stage.<br>
+ * <br>
+ * Allocation is estimated for the whole JVM, including the reader and writer threads started by the stage, as the
+ * heap growth plus the memory reclaimed by the collections that ran in between.
+ */
+class StageMeter implements NotificationListener, AutoCloseable {
+
+  /**
+   * Constants.
+   */
+  private static final double MEGABYTE = 1024 * 1024;
+
+  /**
+   * State.
+   */
+  private final LongAdder reclaimedBytes = new LongAdder();
+  private final long startTime;
+  private final long startGcMillis;
+  private final long startHeapBytes;
+
+  StageMeter() {
+    for (val gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (gc instanceof NotificationEmitter) {
+        ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+      }
+    }
+
+    this.startGcMillis = getGcMillis();
+    this.startHeapBytes = getHeapBytes();
+    this.startTime = System.nanoTime();
+  }
+
+  /**
+   * @param documents number of documents produced by the stage
+   * @param bytes number of uncompressed bytes consumed by the stage
+   */
+  StageResult stop(@NonNull String stage, long documents, long bytes) {
+    val nanos = System.nanoTime() - startTime;
+    val gcMillis = getGcMillis() - startGcMillis;
+    val allocatedBytes = Math.max(0, getHeapBytes() - startHeapBytes + reclaimedBytes.sum());
+
+    return new StageResult(stage, documents, bytes, NANOSECONDS.toMillis(nanos), gcMillis, allocatedBytes);
+  }
+
+  @Override
+  public void handleNotification(Notification notification, Object handback) {
+    if (!GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+      return;
+    }
+
+    val info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+    reclaimedBytes.add(getUsedBytes(info.getMemoryUsageBeforeGc()) - getUsedBytes(info.getMemoryUsageAfterGc()));
+  }
+
+  @Override
+  @SneakyThrows
+  public void close() {
+    for (val gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (gc instanceof NotificationEmitter) {
+        ((NotificationEmitter) gc).removeNotificationListener(this);
+      }
+    }
+  }
+
+  private static long getGcMillis() {
+    long millis = 0;
+    for (val gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      millis += Math.max(0, gc.getCollectionTime());
+    }
+
+    return millis;
+  }
+
+  private static long getHeapBytes() {
+    long bytes = 0;
+    for (val pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == HEAP) {
+        bytes += pool.getUsage().getUsed();
+      }
+    }
+
+    return bytes;
+  }
+
+  private static long getUsedBytes(Map<String, MemoryUsage> usages) {
+    long bytes = 0;
+    for (val usage : usages.values()) {
+      bytes += usage.getUsed();
+    }
+
+    return bytes;
+  }
+
+  @Value
+  static class StageResult {
+
+    String stage;
+    long documents;
+    long bytes;
+    long millis;
+    long gcMillis;
+    long allocatedBytes;
+
+    double getDocumentsPerSecond() {
+      return perSecond(documents);
+    }
+
+    double getMegabytesPerSecond() {
+      return perSecond(bytes) / MEGABYTE;
+    }
+
+    double getAllocatedMegabytesPerSecond() {
+      return perSecond(allocatedBytes) / MEGABYTE;
+    }
+
+    private double perSecond(long value) {
+      return millis == 0 ? 0 : value * 1000.0 / millis;
+    }
+
+  }
+
+}
@@ -18,6 +18,8 @@
 package org.icgc.dcc.download.imports.conf;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import lombok.ToString;
 
@@ -29,14 +31,49 @@ public class ClientOptions {
   /**
    * Input
    */
-  @Parameter(names = { "-i", "--input-file" }, help = true, description = "The input index file")
-  public File inputFile;
+  @Parameter(names = { "-i", "--input-file" }, help = true, variableArity = true,
+      description = "The input index files or directories containing them")
+  public List<File> inputFiles = new ArrayList<>();
   @Parameter(names = { "-es", "--elasticsearch-url" }, help = true, description = "Target Elastisticsearch cluster URL")
   public String esUrl;
   @Parameter(names = { "-p", "--project" }, help = true, description = "Project to import")
   public String project;
   // TODO: Add delete existing index option.
 
+  /**
+   * Checkpoint
+   */
+  @Parameter(names = { "-r", "--resume" }, help = true,
+      description = "Resume an interrupted import from its checkpoint file")
+  public boolean resume;
+  @Parameter(names = { "-c", "--checkpoint-file" }, help = true,
+      description = "The checkpoint file of a single input file. Defaults to the input file name with the .checkpoint "
+          + "extension")
+  public File checkpointFile;
+
+  /**
+   * Performance
+   */
+  @Parameter(names = { "-t", "--threads" }, help = true,
+      description = "Number of document parse workers and concurrent bulk writers")
+  public int threads = 1;
+  @Parameter(names = { "-f", "--parallel-files" }, help = true,
+      description = "Number of input files loaded concurrently")
+  public int parallelFiles = 1;
+  @Parameter(names = { "-b", "--bulk-load" }, help = true,
+      description = "Load with refresh and replicas disabled and move the alias only once the import has finished")
+  public boolean bulkLoad;
+
+  /**
+   * Benchmark
+   */
+  @Parameter(names = { "--benchmark" }, help = true,
+      description = "Measure the decompression, parse and import throughput of the input files without indexing them")
+  public boolean benchmark;
+  @Parameter(names = { "--benchmark-sink" }, help = true,
+      description = "Directory the benchmark writes the documents to in the bulk API format. Discarded if unset")
+  public File benchmarkSinkDir;
+
   /**
    * Info
    */
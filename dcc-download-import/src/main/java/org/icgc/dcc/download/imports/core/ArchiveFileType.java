@@ -45,6 +45,16 @@ public enum ArchiveFileType {
         ArchiveFileType.class.getSimpleName(), fileName));
   }
 
+  public static boolean isArchiveFile(@NonNull String fileName) {
+    for (val value : values()) {
+      if (value.fileName.equals(fileName)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
   public static Iterable<String> getFileNames() {
     return stream(values())
         .map(fileType -> fileType.fileName)
@@ -17,25 +17,28 @@
  */
 package org.icgc.dcc.download.imports.io;
 
-import static org.icgc.dcc.common.core.util.Formats.formatCount;
-
 import java.io.IOException;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
-import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 
-import org.icgc.dcc.dcc.common.es.core.DocumentWriter;
 import org.icgc.dcc.dcc.common.es.model.Document;
+import org.icgc.dcc.download.imports.core.RawDocument;
 import org.icgc.dcc.download.imports.service.IndexService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-@Slf4j
 @RequiredArgsConstructor
 public class BaseTarArchiveEntryCallback implements TarArchiveEntryCallback {
 
+  /**
+   * Constants.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
   /**
    * Configuration.
    */
@@ -45,14 +48,9 @@ public class BaseTarArchiveEntryCallback implements TarArchiveEntryCallback {
    * Dependencies.
    */
   @NonNull
-  private final DocumentWriter documentWriter;
-  @NonNull
   private final IndexService indexService;
-
-  /**
-   * State.
-   */
-  private int count = 0;
+  @NonNull
+  private final RawDocumentWriter rawDocumentWriter;
 
   @Override
   public void onSettings(ObjectNode settings) {
@@ -69,16 +67,31 @@ public class BaseTarArchiveEntryCallback implements TarArchiveEntryCallback {
   @Override
   @SneakyThrows
   public void onDocument(Document document) {
-    documentWriter.write(document);
+    // Already parsed documents share the adaptive bulk batching of the raw ones
+    val source = MAPPER.writeValueAsBytes(document.getSource());
+    rawDocumentWriter.write(new RawDocument(document.getId(), source, document.getType()));
+  }
 
-    if (++count % 1000 == 0) {
-      log.info("Document count: {}", formatCount(count));
-    }
+  @Override
+  public boolean isRawDocumentSupported() {
+    return true;
+  }
+
+  @Override
+  @SneakyThrows
+  public void onRawDocument(@NonNull RawDocument document) {
+    rawDocumentWriter.write(document);
+  }
+
+  @Override
+  @SneakyThrows
+  public void flush() {
+    rawDocumentWriter.flush();
   }
 
   @Override
   public void close() throws IOException {
-    documentWriter.close();
+    rawDocumentWriter.close();
   }
 
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import lombok.Getter;
+
+/**
+ * Sizes bulk requests by document count and bytes.<br>
+ * <br>
+ * Limits grow while bulk requests complete well within the target latency and shrink when they are slow or rejected
+ * by the cluster. Rejections also yield an exponentially growing back-off delay, which is reset by the next success.
+ */
+@Getter
+class BulkBatchSizer {
+
+  /**
+   * Constants.
+   */
+  static final int MIN_ACTIONS = 100;
+  static final int MAX_ACTIONS = 10_000;
+  static final int INITIAL_ACTIONS = 1000;
+  static final long MIN_BYTES = 1L * 1024 * 1024;
+  static final long MAX_BYTES = 32L * 1024 * 1024;
+  static final long INITIAL_BYTES = 10L * 1024 * 1024;
+  static final long TARGET_LATENCY_MILLIS = 2000;
+  static final long INITIAL_BACKOFF_MILLIS = 200;
+  static final long MAX_BACKOFF_MILLIS = 30_000;
+
+  private static final double INCREASE_FACTOR = 1.25;
+  private static final double DECREASE_FACTOR = 0.75;
+  private static final double REJECTION_FACTOR = 0.5;
+
+  /**
+   * State.
+   */
+  private int maxActions = INITIAL_ACTIONS;
+  private long maxBytes = INITIAL_BYTES;
+  private long backoffMillis = 0;
+
+  public boolean isFull(int actions, long bytes) {
+    return actions >= maxActions || bytes >= maxBytes;
+  }
+
+  public void onSuccess(long latencyMillis) {
+    backoffMillis = 0;
+    if (latencyMillis > TARGET_LATENCY_MILLIS) {
+      scale(DECREASE_FACTOR);
+    } else if (latencyMillis < TARGET_LATENCY_MILLIS / 2) {
+      scale(INCREASE_FACTOR);
+    }
+  }
+
+  /**
+   * @return milliseconds to wait before retrying the rejected documents
+   */
+  public long onRejected() {
+    scale(REJECTION_FACTOR);
+    backoffMillis = backoffMillis == 0 ? INITIAL_BACKOFF_MILLIS : min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+
+    return backoffMillis;
+  }
+
+  private void scale(double factor) {
+    maxActions = (int) max(MIN_ACTIONS, min(MAX_ACTIONS, Math.round(maxActions * factor)));
+    maxBytes = max(MIN_BYTES, min(MAX_BYTES, Math.round(maxBytes * factor)));
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.val;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Pool of document parse workers fed by a bounded queue.
+ * <p>
+ * When the queue is full the submitting thread parses the document itself, which throttles reading to the parse rate.
+ */
+class DocumentParseWorkers implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final int QUEUE_CAPACITY_PER_THREAD = 64;
+
+  /**
+   * State.
+   */
+  private final ThreadPoolExecutor executor;
+  private final Phaser pending = new Phaser(1);
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  DocumentParseWorkers(int threads) {
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, MILLISECONDS,
+        new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD),
+        new ThreadFactoryBuilder().setNameFormat("document-parser-%d").setDaemon(true).build(),
+        new CallerRunsPolicy());
+  }
+
+  public void submit(Runnable task) {
+    checkFailure();
+    pending.register();
+    executor.execute(() -> {
+      try {
+        if (failure.get() == null) {
+          task.run();
+        }
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      } finally {
+        pending.arriveAndDeregister();
+      }
+    });
+  }
+
+  /**
+   * Waits until every submitted task finished.
+   */
+  public void await() {
+    pending.arriveAndAwaitAdvance();
+    checkFailure();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private void checkFailure() {
+    val t = failure.get();
+    if (t != null) {
+      throw Throwables.propagate(t);
+    }
+  }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.elasticsearch.rest.RestStatus.TOO_MANY_REQUESTS;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.icgc.dcc.download.imports.core.DownloadImportException;
+import org.icgc.dcc.download.imports.core.RawDocument;
+
+import com.google.common.base.Stopwatch;
+
+/**
+ * Indexes already serialized documents without parsing them.
+ * <p>
+ * Bulk requests are executed on the writing thread, so concurrency comes from running several writers and a slow or
+ * overloaded cluster blocks the reader instead of failing the import. Batches are sized by {@link BulkBatchSizer} and
+ * documents rejected by the cluster are retried after a back-off delay.
+ */
+@Slf4j
+public class EsRawDocumentWriter implements RawDocumentWriter {
+
+  /**
+   * Constants.
+   */
+  private static final int MAX_REJECTED_ATTEMPTS = 50;
+
+  /**
+   * Configuration.
+   */
+  private final String indexName;
+  private final int maxRejectedAttempts;
+
+  /**
+   * Dependencies.
+   */
+  private final Client client;
+  private final IndexingThroughput throughput;
+
+  /**
+   * State.
+   */
+  private final BulkBatchSizer sizer = new BulkBatchSizer();
+  private final Map<String, Tally> pending = new LinkedHashMap<>();
+  private BulkRequest request = new BulkRequest();
+
+  public EsRawDocumentWriter(@NonNull Client client, @NonNull String indexName) {
+    this(client, indexName, new IndexingThroughput());
+  }
+
+  EsRawDocumentWriter(@NonNull Client client, @NonNull String indexName, @NonNull IndexingThroughput throughput) {
+    this(client, indexName, throughput, MAX_REJECTED_ATTEMPTS);
+  }
+
+  EsRawDocumentWriter(@NonNull Client client, @NonNull String indexName, @NonNull IndexingThroughput throughput,
+      int maxRejectedAttempts) {
+    this.client = client;
+    this.indexName = indexName;
+    this.throughput = throughput;
+    this.maxRejectedAttempts = maxRejectedAttempts;
+  }
+
+  @Override
+  public void write(@NonNull RawDocument document) throws IOException {
+    val type = document.getType().getIndexType();
+    val source = document.getSource();
+    request.add(new IndexRequest(indexName, type, document.getId()).source(source));
+    pending.computeIfAbsent(type, key -> new Tally()).add(source.length);
+
+    if (sizer.isFull(request.numberOfActions(), request.estimatedSizeInBytes())) {
+      flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+    throughput.report();
+  }
+
+  @Override
+  public void flush() {
+    if (request.numberOfActions() == 0) {
+      return;
+    }
+
+    execute(request);
+    for (val entry : pending.entrySet()) {
+      throughput.record(entry.getKey(), entry.getValue().documents, entry.getValue().bytes);
+    }
+
+    pending.clear();
+    request = new BulkRequest();
+  }
+
+  @SneakyThrows
+  private void execute(BulkRequest bulkRequest) {
+    int attempts = 0;
+    while (true) {
+      val batch = bulkRequest;
+      log.debug("Executing bulk request of {} documents ({} bytes)...", batch.numberOfActions(),
+          batch.estimatedSizeInBytes());
+
+      val watch = Stopwatch.createStarted();
+      val response = executeBulk(batch);
+      val rejected = response == null ? batch : getRejected(batch, response);
+      if (rejected.numberOfActions() == 0) {
+        sizer.onSuccess(watch.elapsed(MILLISECONDS));
+        return;
+      }
+
+      if (++attempts >= maxRejectedAttempts) {
+        throw new DownloadImportException("Failed to index documents into '%s': %s documents still rejected after %s "
+            + "attempts", indexName, rejected.numberOfActions(), attempts);
+      }
+
+      val backoff = sizer.onRejected();
+      log.warn("Cluster rejected {} of {} documents. Retrying in {} ms with at most {} documents or {} bytes per "
+          + "request...", rejected.numberOfActions(), batch.numberOfActions(), backoff, sizer.getMaxActions(),
+          sizer.getMaxBytes());
+      MILLISECONDS.sleep(backoff);
+
+      bulkRequest = rejected;
+    }
+  }
+
+  /**
+   * @return {@code null} if the whole request was rejected
+   */
+  private BulkResponse executeBulk(BulkRequest batch) {
+    try {
+      return client.bulk(batch).actionGet();
+    } catch (Exception e) {
+      if (ExceptionsHelper.unwrapCause(e) instanceof EsRejectedExecutionException) {
+        return null;
+      }
+
+      throw e;
+    }
+  }
+
+  /**
+   * @return request of the documents rejected because of a full bulk queue
+   * @throws DownloadImportException if any document failed otherwise
+   */
+  private BulkRequest getRejected(BulkRequest batch, BulkResponse response) {
+    val rejected = new BulkRequest();
+    if (!response.hasFailures()) {
+      return rejected;
+    }
+
+    for (val item : response.getItems()) {
+      if (!item.isFailed()) {
+        continue;
+      }
+
+      if (item.getFailure().getStatus() != TOO_MANY_REQUESTS) {
+        throw new DownloadImportException("Failed to index documents into '%s': %s", indexName,
+            response.buildFailureMessage());
+      }
+
+      rejected.add(batch.requests().get(item.getItemId()));
+    }
+
+    return rejected;
+  }
+
+  private static class Tally {
+
+    long documents;
+    long bytes;
+
+    void add(long size) {
+      documents++;
+      bytes += size;
+    }
+
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.icgc.dcc.common.core.util.Formats.formatBytes;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Indexed documents and bytes per document type, shared by the writers of an archive entry.
+ */
+@Slf4j
+class IndexingThroughput {
+
+  /**
+   * Constants.
+   */
+  private static final long REPORT_INTERVAL_NANOS = SECONDS.toNanos(10);
+
+  /**
+   * State.
+   */
+  private final long startTime = System.nanoTime();
+  private final AtomicLong lastReportTime = new AtomicLong(startTime);
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+  public void record(@NonNull String type, long documents, long bytes) {
+    val counter = counters.computeIfAbsent(type, key -> new Counter());
+    counter.documents.add(documents);
+    counter.bytes.add(bytes);
+
+    val now = System.nanoTime();
+    val lastReport = lastReportTime.get();
+    if (now - lastReport >= REPORT_INTERVAL_NANOS && lastReportTime.compareAndSet(lastReport, now)) {
+      report(now);
+    }
+  }
+
+  /**
+   * Logs the totals and average rates of every document type.
+   */
+  public void report() {
+    val now = System.nanoTime();
+    lastReportTime.set(now);
+    report(now);
+  }
+
+  /**
+   * @return documents recorded for all the types
+   */
+  public long getDocuments() {
+    return counters.values().stream().mapToLong(counter -> counter.documents.sum()).sum();
+  }
+
+  /**
+   * @return bytes recorded for all the types
+   */
+  public long getBytes() {
+    return counters.values().stream().mapToLong(counter -> counter.bytes.sum()).sum();
+  }
+
+  private void report(long now) {
+    val seconds = Math.max(1, NANOSECONDS.toSeconds(now - startTime));
+    for (val entry : counters.entrySet()) {
+      val documents = entry.getValue().documents.sum();
+      val bytes = entry.getValue().bytes.sum();
+      log.info("Indexed {} '{}' documents ({}) at {} docs/s, {}/s",
+          formatCount(documents), entry.getKey(), formatBytes(bytes),
+          formatCount(documents / seconds), formatBytes(bytes / seconds));
+    }
+  }
+
+  private static class Counter {
+
+    final LongAdder documents = new LongAdder();
+    final LongAdder bytes = new LongAdder();
+
+  }
+
+}
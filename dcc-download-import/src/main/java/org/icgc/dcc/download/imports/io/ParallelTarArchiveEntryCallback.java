@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Uninterruptibles.putUninterruptibly;
+import static com.google.common.util.concurrent.Uninterruptibles.takeUninterruptibly;
+import static java.lang.Math.abs;
+import static java.util.concurrent.TimeUnit.DAYS;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.dcc.common.es.model.Document;
+import org.icgc.dcc.download.imports.core.RawDocument;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Fans documents out to several callbacks, each with its own document writer and thread.
+ * <p>
+ * Every writer is fed by a bounded queue, so a slow cluster blocks the producers instead of buffering the archive in
+ * memory. A document is always routed to the same writer by its type and ID, which keeps the order of documents with
+ * the same identity. Settings and mappings are applied through the first callback only after all queued documents were
+ * written.
+ */
+@Slf4j
+public class ParallelTarArchiveEntryCallback implements TarArchiveEntryCallback {
+
+  /**
+   * Constants.
+   */
+  private static final int QUEUE_CAPACITY = 256;
+
+  /**
+   * Dependencies.
+   */
+  private final List<TarArchiveEntryCallback> delegates;
+
+  /**
+   * State.
+   */
+  private final List<BlockingQueue<Optional<Consumer<TarArchiveEntryCallback>>>> queues;
+  private final ExecutorService executor;
+  private final Phaser pending = new Phaser(1);
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  public ParallelTarArchiveEntryCallback(@NonNull List<TarArchiveEntryCallback> delegates) {
+    checkArgument(!delegates.isEmpty(), "At least one delegate callback is required");
+    this.delegates = ImmutableList.copyOf(delegates);
+
+    val queues = ImmutableList.<BlockingQueue<Optional<Consumer<TarArchiveEntryCallback>>>> builder();
+    for (int i = 0; i < delegates.size(); i++) {
+      queues.add(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+    }
+    this.queues = queues.build();
+
+    this.executor = Executors.newFixedThreadPool(delegates.size(), new ThreadFactoryBuilder()
+        .setNameFormat("document-writer-%d")
+        .setDaemon(true)
+        .build());
+    for (int i = 0; i < delegates.size(); i++) {
+      val writer = i;
+      executor.execute(() -> write(writer));
+    }
+  }
+
+  @Override
+  public void onSettings(ObjectNode settings) {
+    awaitDocuments();
+    delegates.get(0).onSettings(settings);
+  }
+
+  @Override
+  public void onMapping(String mappingTypeName, ObjectNode mapping) {
+    awaitDocuments();
+    delegates.get(0).onMapping(mappingTypeName, mapping);
+  }
+
+  @Override
+  public void onDocument(Document document) {
+    dispatch(getWriter(document.getType().getIndexType(), document.getId()), writer -> writer.onDocument(document));
+  }
+
+  @Override
+  public boolean isRawDocumentSupported() {
+    return delegates.stream().allMatch(TarArchiveEntryCallback::isRawDocumentSupported);
+  }
+
+  @Override
+  public void onRawDocument(RawDocument document) {
+    dispatch(getWriter(document.getType().getIndexType(), document.getId()), writer -> writer.onRawDocument(document));
+  }
+
+  @Override
+  public void flush() {
+    // Each writer flushes on its own thread once its queued documents were written
+    for (int i = 0; i < delegates.size(); i++) {
+      dispatch(i, TarArchiveEntryCallback::flush);
+    }
+
+    awaitDocuments();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      for (val queue : queues) {
+        putUninterruptibly(queue, Optional.empty());
+      }
+
+      executor.shutdown();
+      awaitTermination();
+    } finally {
+      for (val delegate : delegates) {
+        delegate.close();
+      }
+    }
+
+    checkFailure();
+  }
+
+  private void write(int writer) {
+    val queue = queues.get(writer);
+    val delegate = delegates.get(writer);
+    while (true) {
+      val next = takeUninterruptibly(queue);
+      if (!next.isPresent()) {
+        return;
+      }
+
+      try {
+        // Keep draining after a failure so the producers never block on a full queue
+        if (failure.get() == null) {
+          next.get().accept(delegate);
+        }
+      } catch (Throwable t) {
+        log.error("Failed to write document:", t);
+        failure.compareAndSet(null, t);
+      } finally {
+        pending.arriveAndDeregister();
+      }
+    }
+  }
+
+  private void awaitDocuments() {
+    pending.arriveAndAwaitAdvance();
+    checkFailure();
+  }
+
+  private void dispatch(int writer, Consumer<TarArchiveEntryCallback> action) {
+    checkFailure();
+    pending.register();
+    putUninterruptibly(queues.get(writer), Optional.of(action));
+  }
+
+  private int getWriter(String type, String id) {
+    val hash = 31 * type.hashCode() + id.hashCode();
+
+    return abs(hash % delegates.size());
+  }
+
+  private void checkFailure() {
+    val t = failure.get();
+    if (t != null) {
+      throw Throwables.propagate(t);
+    }
+  }
+
+  @SneakyThrows
+  private void awaitTermination() {
+    executor.awaitTermination(Long.MAX_VALUE, DAYS);
+  }
+
+}
@@ -18,77 +18,77 @@
 package org.icgc.dcc.download.imports.io;
 
 import static java.lang.String.format;
-import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
-import static org.icgc.dcc.download.imports.util.JsonNodes.getPathValue;
 
-import java.util.Collection;
 import java.util.Optional;
 
 import javax.annotation.Nullable;
 
 import lombok.NonNull;
 import lombok.SneakyThrows;
-import lombok.val;
 
-import org.icgc.dcc.dcc.common.es.core.DocumentWriter;
 import org.icgc.dcc.dcc.common.es.model.Document;
+import org.icgc.dcc.download.imports.core.RawDocument;
 import org.icgc.dcc.download.imports.service.IndexService;
+import org.icgc.dcc.download.imports.util.JsonPathMatcher;
 import org.icgc.dcc.release.core.document.DocumentType;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
-
 public class ReleaseTarArchiveEntryCallback extends BaseTarArchiveEntryCallback {
 
   private final String project;
-  private final DocumentType documentType;
+
+  /**
+   * Matches the project path of {@code documentType}. {@code null} if documents are not filtered.
+   */
+  private final JsonPathMatcher projectMatcher;
 
   public ReleaseTarArchiveEntryCallback(
       boolean applySettings,
-      @NonNull DocumentWriter documentWriter,
       @NonNull IndexService indexService,
+      @NonNull RawDocumentWriter rawDocumentWriter,
       @Nullable String project,
       @NonNull DocumentType documentType) {
-    super(applySettings, documentWriter, indexService);
+    super(applySettings, indexService, rawDocumentWriter);
     this.project = project;
-    this.documentType = documentType;
+    this.projectMatcher = isFiltered(project, documentType) ?
+        JsonPathMatcher.compile(resolveDocumentProjectPath(documentType).get()) :
+        null;
+  }
+
+  /**
+   * Whether documents of {@code documentType} must be checked against {@code project} before indexing.
+   */
+  private static boolean isFiltered(@Nullable String project, @NonNull DocumentType documentType) {
+    return project != null && hasProject(documentType);
   }
 
   @Override
   @SneakyThrows
   public void onDocument(Document document) {
-    val source = document.getSource();
-    if (!isSkipIndexing(source)) {
+    if (!isSkipIndexing(document)) {
       super.onDocument(document);
     }
   }
 
-  private boolean isSkipIndexing(ObjectNode source) {
-    if (project != null && hasProject(documentType)) {
-      val documentProjectPath = resolveDocumentProjectPath(documentType);
-      if (!documentProjectPath.isPresent()) {
-        return false;
-      }
-
-      val documentProject = getDocumentProjects(source, documentProjectPath.get());
-
-      return !documentProject.contains(project);
+  @Override
+  @SneakyThrows
+  public void onRawDocument(RawDocument document) {
+    if (!isSkipIndexing(document)) {
+      super.onRawDocument(document);
     }
+  }
 
-    return false;
+  private boolean isSkipIndexing(Document document) {
+    // Some documents may contain multiple projects. E.g. gene-centric has multiple donors that contain projects
+    return projectMatcher != null && !projectMatcher.matches(document.getSource(), project);
   }
 
-  private static boolean hasProject(DocumentType type) {
-    return resolveDocumentProjectPath(type).isPresent();
+  private boolean isSkipIndexing(RawDocument document) {
+    // Matched on the token stream, so non-matching documents are never materialized
+    return projectMatcher != null && !projectMatcher.matches(document.getSource(), project);
   }
 
-  /**
-   * Returns collection because some documents may contain multiple projects.<br>
-   * For example, {@code gene-centric} has multiple donors that contains projects.
-   */
-  private static Collection<String> getDocumentProjects(ObjectNode source, String documentProjectPath) {
-    return getPathValue(source, documentProjectPath).stream()
-        .map(node -> node.textValue())
-        .collect(toImmutableList());
+  private static boolean hasProject(DocumentType type) {
+    return resolveDocumentProjectPath(type).isPresent();
   }
 
   private static Optional<String> resolveDocumentProjectPath(DocumentType type) {
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import lombok.NonNull;
+import lombok.val;
+
+import org.icgc.dcc.download.imports.core.RawDocument;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes documents to a local file in the bulk API format, or only counts them when there is no file. Used to
+ * benchmark the import pipeline without an Elasticsearch cluster.
+ */
+class SinkRawDocumentWriter implements RawDocumentWriter {
+
+  /**
+   * Constants.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final int BUFFER_SIZE = 1024 * 1024;
+  private static final int RECORD_INTERVAL = 1000;
+
+  /**
+   * Configuration.
+   */
+  private final String indexName;
+
+  /**
+   * Dependencies.
+   */
+  private final OutputStream outputStream;
+  private final IndexingThroughput throughput;
+
+  /**
+   * State.
+   */
+  private final Map<String, Tally> pending = new LinkedHashMap<>();
+  private int count;
+
+  SinkRawDocumentWriter(@NonNull String indexName, @Nullable File sinkFile, @NonNull IndexingThroughput throughput)
+      throws IOException {
+    this.indexName = indexName;
+    this.outputStream = sinkFile == null ? null : new BufferedOutputStream(new FileOutputStream(sinkFile), BUFFER_SIZE);
+    this.throughput = throughput;
+  }
+
+  @Override
+  public void write(@NonNull RawDocument document) throws IOException {
+    val type = document.getType().getIndexType();
+    val source = document.getSource();
+    if (outputStream != null) {
+      writeAction(type, document.getId());
+      outputStream.write(source);
+      outputStream.write('\n');
+    }
+
+    pending.computeIfAbsent(type, key -> new Tally()).add(source.length);
+    if (++count % RECORD_INTERVAL == 0) {
+      record();
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    record();
+    if (outputStream != null) {
+      outputStream.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    record();
+    if (outputStream != null) {
+      outputStream.close();
+    }
+  }
+
+  private void writeAction(String type, String id) throws IOException {
+    val action = MAPPER.createObjectNode();
+    action.putObject("index")
+        .put("_index", indexName)
+        .put("_type", type)
+        .put("_id", id);
+
+    outputStream.write(MAPPER.writeValueAsBytes(action));
+    outputStream.write('\n');
+  }
+
+  private void record() {
+    for (val entry : pending.entrySet()) {
+      throughput.record(entry.getKey(), entry.getValue().documents, entry.getValue().bytes);
+    }
+
+    pending.clear();
+  }
+
+  private static class Tally {
+
+    long documents;
+    long bytes;
+
+    void add(long size) {
+      documents++;
+      bytes += size;
+    }
+
+  }
+
+}
@@ -18,12 +18,16 @@
 package org.icgc.dcc.download.imports.io;
 
 import static com.fasterxml.jackson.core.JsonParser.Feature.AUTO_CLOSE_SOURCE;
+import static com.google.common.base.Preconditions.checkState;
 import static org.icgc.dcc.download.imports.util.TarEntryNames.getDocumentId;
 import static org.icgc.dcc.download.imports.util.TarEntryNames.getDocumentType;
+import static org.icgc.dcc.download.imports.util.TarEntryNames.getIndexName;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 
+import lombok.Cleanup;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -35,18 +39,24 @@ import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.icgc.dcc.dcc.common.es.impl.DocumentType;
 import org.icgc.dcc.dcc.common.es.model.Document;
 import org.icgc.dcc.download.imports.core.DefaultDocumentType;
+import org.icgc.dcc.download.imports.core.RawDocument;
 import org.icgc.dcc.download.imports.util.TarEntryNames;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
 
 /**
  * Reverse engineers the schema from Elasticsearch.
+ * <p>
+ * With more than one thread the reader only reads entry bytes and hands them to a pool of parse workers, which dispatch
+ * documents to the callback concurrently. Settings and mappings are dispatched by the reading thread once all preceding
+ * documents were dispatched, so the callback always sees them in archive order relative to the documents.
  */
 @Slf4j
 @RequiredArgsConstructor
-public class TarArchiveDocumentReader {
+public class TarArchiveDocumentReader implements Closeable {
 
   /**
    * Constants.
@@ -60,13 +70,54 @@ public class TarArchiveDocumentReader {
    */
   @NonNull
   private final InputStream inputStream;
+  private final int threads;
 
+  /**
+   * State.
+   */
+  private TarArchiveInputStream archiveStream;
+  private TarArchiveEntry peekedEntry;
+
+  public TarArchiveDocumentReader(@NonNull InputStream inputStream) {
+    this(inputStream, 1);
+  }
+
+  /**
+   * Resolves the index name from the first archive entry, which is still processed by the subsequent read.
+   */
   @SneakyThrows
+  public String peekIndexName() {
+    if (peekedEntry == null) {
+      peekedEntry = getArchiveStream().getNextTarEntry();
+      checkState(peekedEntry != null, "Failed to resolve index name from an empty archive");
+    }
+
+    return getIndexName(peekedEntry.getName());
+  }
+
+  /**
+   * @param callback must be thread-safe if the reader uses more than one thread
+   */
   public void read(TarArchiveEntryCallback callback) {
-    val archiveStream = readArchiveStream(inputStream);
+    read(callback, 0);
+  }
+
+  /**
+   * Settings and mappings are always dispatched, while the first {@code skipDocuments} documents are skipped without
+   * being read.
+   * 
+   * @param callback must be thread-safe if the reader uses more than one thread
+   * @param skipDocuments number of documents already indexed from this archive
+   */
+  @SneakyThrows
+  public void read(TarArchiveEntryCallback callback, long skipDocuments) {
+    @Cleanup
+    val workers = threads > 1 ? new DocumentParseWorkers(threads) : null;
+    val archiveStream = getArchiveStream();
 
+    long documentOrdinal = 0;
     TarArchiveEntry entry;
-    while ((entry = archiveStream.getNextTarEntry()) != null) { // NOPMD
+    while ((entry = nextEntry()) != null) { // NOPMD
       val entryName = entry.getName();
       log.debug("Processing entry: {}", entryName);
 
@@ -79,22 +130,68 @@ public class TarArchiveDocumentReader {
       if (isSettingsEntry(entry)) {
         val settings = readSource(archiveStream);
 
+        awaitDocuments(workers);
         callback.onSettings(settings);
       } else if (isMappingEntry(entry)) {
         val mapping = readSource(archiveStream);
         val mappingTypeName = getDocumentType(entryName);
 
+        awaitDocuments(workers);
         callback.onMapping(mappingTypeName, mapping);
-      } else {
-        val docId = getDocumentId(entryName);
+      } else if (documentOrdinal++ < skipDocuments) {
+        // The archive stream skips the unread entry bytes when advancing to the next entry
+        continue;
+      } else if (callback.isRawDocumentSupported()) {
+        // No need to parse documents which are indexed as is
+        val source = readBytes(archiveStream, entry);
+        val document = new RawDocument(getDocumentId(entryName), source, resolveDocumentType(entryName)); // NOPMD
+
+        callback.onRawDocument(document);
+      } else if (workers == null) {
         val source = readSource(archiveStream);
-        val documentType = resolveDocumentType(entryName);
-        val document = new Document(docId, source, documentType); // NOPMD
 
         // Dispatch
-        callback.onDocument(document);
+        callback.onDocument(createDocument(entryName, source));
+      } else {
+        // Only the bytes are read here, parsing happens on the workers
+        val bytes = readBytes(archiveStream, entry);
+
+        workers.submit(() -> callback.onDocument(createDocument(entryName, readSource(bytes))));
       }
     }
+
+    awaitDocuments(workers);
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  private TarArchiveInputStream getArchiveStream() {
+    if (archiveStream == null) {
+      archiveStream = new TarArchiveInputStream(inputStream);
+    }
+
+    return archiveStream;
+  }
+
+  private TarArchiveEntry nextEntry() throws IOException {
+    if (peekedEntry != null) {
+      val entry = peekedEntry;
+      peekedEntry = null;
+
+      return entry;
+    }
+
+    return archiveStream.getNextTarEntry();
+  }
+
+  private Document createDocument(String entryName, ObjectNode source) {
+    val docId = getDocumentId(entryName);
+    val documentType = resolveDocumentType(entryName);
+
+    return new Document(docId, source, documentType); // NOPMD
   }
 
   private DocumentType resolveDocumentType(String entryName) {
@@ -116,8 +213,27 @@ public class TarArchiveDocumentReader {
     return (ObjectNode) MAPPER.readTree(inputStream);
   }
 
-  private static TarArchiveInputStream readArchiveStream(InputStream inputStream) throws IOException {
-    return new TarArchiveInputStream(inputStream);
+  private static byte[] readBytes(InputStream inputStream, TarArchiveEntry entry) throws IOException {
+    val size = entry.getSize();
+    if (size < 0 || size > Integer.MAX_VALUE) {
+      return ByteStreams.toByteArray(inputStream);
+    }
+
+    val bytes = new byte[(int) size];
+    ByteStreams.readFully(inputStream, bytes);
+
+    return bytes;
+  }
+
+  @SneakyThrows
+  private static ObjectNode readSource(byte[] bytes) {
+    return (ObjectNode) MAPPER.readTree(bytes);
+  }
+
+  private static void awaitDocuments(DocumentParseWorkers workers) {
+    if (workers != null) {
+      workers.await();
+    }
   }
 
 }
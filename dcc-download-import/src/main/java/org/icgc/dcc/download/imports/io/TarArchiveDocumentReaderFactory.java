@@ -17,21 +17,37 @@
  */
 package org.icgc.dcc.download.imports.io;
 
+import static org.icgc.dcc.download.imports.util.TarArchiveStreams.decompress;
+
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
 
 import lombok.NonNull;
-import lombok.SneakyThrows;
+import lombok.RequiredArgsConstructor;
 
+@RequiredArgsConstructor
 public class TarArchiveDocumentReaderFactory {
 
+  /**
+   * Configuration.
+   */
+  private final int threads;
+
   public static TarArchiveDocumentReaderFactory create() {
-    return new TarArchiveDocumentReaderFactory();
+    return create(1);
+  }
+
+  /**
+   * @param threads number of document parse workers per reader
+   */
+  public static TarArchiveDocumentReaderFactory create(int threads) {
+    return new TarArchiveDocumentReaderFactory(threads);
   }
 
-  @SneakyThrows
+  /**
+   * @param inputStream gzipped archive, closed with the reader
+   */
   public TarArchiveDocumentReader createReader(@NonNull InputStream inputStream) {
-    return new TarArchiveDocumentReader(new GZIPInputStream(inputStream));
+    return new TarArchiveDocumentReader(decompress(inputStream), threads);
   }
 
 }
@@ -20,6 +20,7 @@ package org.icgc.dcc.download.imports.io;
 import java.io.Closeable;
 
 import org.icgc.dcc.dcc.common.es.model.Document;
+import org.icgc.dcc.download.imports.core.RawDocument;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -31,4 +32,22 @@ public interface TarArchiveEntryCallback extends Closeable {
 
   void onDocument(Document document);
 
+  /**
+   * Whether documents may be dispatched to {@link #onRawDocument(RawDocument)} without parsing their source.
+   */
+  default boolean isRawDocumentSupported() {
+    return false;
+  }
+
+  default void onRawDocument(RawDocument document) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Indexes the documents dispatched so far. Returns once the cluster acknowledged them.
+   */
+  default void flush() {
+    // No buffered documents
+  }
+
 }
@@ -21,11 +21,22 @@ import static java.lang.String.format;
 import static org.icgc.dcc.release.job.index.factory.TransportClientFactory.newTransportClient;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.val;
 
-import org.icgc.dcc.dcc.common.es.DocumentWriterConfiguration;
-import org.icgc.dcc.dcc.common.es.DocumentWriterFactory;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.elasticsearch.client.Client;
+import org.icgc.dcc.download.imports.service.EsIndexService;
 import org.icgc.dcc.download.imports.service.IndexService;
+import org.icgc.dcc.download.imports.service.NoOpIndexService;
+
+import com.google.common.collect.ImmutableList;
 
 @RequiredArgsConstructor
 public class TarArchiveEntryCallbackFactory {
@@ -33,64 +44,168 @@ public class TarArchiveEntryCallbackFactory {
   /**
    * Dependencies.
    */
-  @NonNull
+  @Nullable
   private final String esUri;
-  private IndexService indexService;
+  private Client client;
+  private final Map<String, IndexService> indexServices = new HashMap<>();
+
+  /**
+   * Configuration.
+   */
+  private final int writers;
+  private final boolean bulkLoad;
+  private final boolean resume;
+
+  /**
+   * Benchmark mode writes documents to {@code sinkDir}, or discards them if it's {@code null}, instead of indexing
+   * them.
+   */
+  private final boolean benchmark;
+  @Nullable
+  private final File sinkDir;
+
+  /**
+   * State.
+   */
+  private final IndexingThroughput sinkThroughput = new IndexingThroughput();
+  private final AtomicInteger sinkFiles = new AtomicInteger();
 
   public static TarArchiveEntryCallbackFactory create(@NonNull String esUri) {
-    return new TarArchiveEntryCallbackFactory(esUri);
+    return create(esUri, 1);
+  }
+
+  /**
+   * @param writers number of concurrent document writers per callback
+   */
+  public static TarArchiveEntryCallbackFactory create(@NonNull String esUri, int writers) {
+    return create(esUri, writers, false, false);
+  }
+
+  /**
+   * @param writers number of concurrent document writers per callback
+   * @param bulkLoad whether the index is tuned for bulk loading and aliased only by {@link #finish(String)}
+   * @param resume whether an existing index is reused
+   */
+  public static TarArchiveEntryCallbackFactory create(@NonNull String esUri, int writers, boolean bulkLoad,
+      boolean resume) {
+    return new TarArchiveEntryCallbackFactory(esUri, writers, bulkLoad, resume, false, null);
+  }
+
+  /**
+   * Creates a factory whose callbacks don't connect to Elasticsearch.
+   * 
+   * @param writers number of concurrent document writers per callback
+   * @param sinkDir directory the documents are written to in the bulk API format. {@code null} to discard them
+   */
+  public static TarArchiveEntryCallbackFactory createBenchmark(int writers, @Nullable File sinkDir) {
+    return new TarArchiveEntryCallbackFactory(null, writers, false, false, true, sinkDir);
   }
 
   public TarArchiveEntryCallback createCallback(@NonNull TarArchiveEntryContext context) {
+    // Throughput is reported for all the writers of the entry together
+    val throughput = benchmark ? sinkThroughput : new IndexingThroughput();
+    if (writers <= 1) {
+      return createSingleCallback(context, throughput);
+    }
+
+    val callbacks = ImmutableList.<TarArchiveEntryCallback> builder();
+    for (int i = 0; i < writers; i++) {
+      callbacks.add(createSingleCallback(context, throughput));
+    }
+
+    return new ParallelTarArchiveEntryCallback(callbacks.build());
+  }
+
+  /**
+   * Must be called once all the documents of the index have been written and the callbacks closed.
+   */
+  public void finish(@NonNull String indexName) {
+    IndexService indexService;
+    synchronized (this) {
+      indexService = indexServices.get(indexName);
+    }
+
+    if (indexService != null) {
+      indexService.finish();
+    }
+  }
+
+  /**
+   * @return number of documents written so far in benchmark mode
+   */
+  public long getSinkDocuments() {
+    return sinkThroughput.getDocuments();
+  }
+
+  /**
+   * @return number of source bytes written so far in benchmark mode
+   */
+  public long getSinkBytes() {
+    return sinkThroughput.getBytes();
+  }
+
+  private TarArchiveEntryCallback createSingleCallback(TarArchiveEntryContext context,
+      IndexingThroughput throughput) {
     val fileType = context.getFileType();
     switch (fileType) {
     case RELEASE:
-      return createReleaseCallback(context);
+      return createReleaseCallback(context, throughput);
     case REPOSITORY:
-      return createRepositoryCallback(context);
+      return createRepositoryCallback(context, throughput);
     default:
       throw new IllegalArgumentException(format("Failed to resolve %s from file type %s",
           TarArchiveEntryCallback.class.getSimpleName(), fileType));
     }
   }
 
-  private TarArchiveEntryCallback createRepositoryCallback(TarArchiveEntryContext context) {
+  private TarArchiveEntryCallback createRepositoryCallback(TarArchiveEntryContext context,
+      IndexingThroughput throughput) {
     val indexName = context.getIndexName();
-    initializeIndexService(indexName);
+    val indexService = getIndexService(indexName);
 
-    val configuration = new DocumentWriterConfiguration();
-    configuration
-        .esUrl(esUri)
-        .indexName(indexName);
-
-    val esDocumentWriter = DocumentWriterFactory.createDocumentWriter(configuration);
-
-    return new BaseTarArchiveEntryCallback(context.isApplySettings(), esDocumentWriter, indexService);
+    return new BaseTarArchiveEntryCallback(context.isApplySettings(), indexService,
+        createRawDocumentWriter(indexName, throughput));
   }
 
-  private TarArchiveEntryCallback createReleaseCallback(TarArchiveEntryContext context) {
+  private TarArchiveEntryCallback createReleaseCallback(TarArchiveEntryContext context,
+      IndexingThroughput throughput) {
     val indexName = context.getIndexName();
-    initializeIndexService(indexName);
-
-    val configuration = new DocumentWriterConfiguration();
-    configuration
-        .esUrl(esUri)
-        .indexName(indexName);
-
-    val esDocumentWriter = DocumentWriterFactory.createDocumentWriter(configuration);
+    val indexService = getIndexService(indexName);
 
     return new ReleaseTarArchiveEntryCallback(
         context.isApplySettings(),
-        esDocumentWriter,
         indexService,
+        createRawDocumentWriter(indexName, throughput),
         context.getProject(),
         context.getDocumentType());
   }
 
-  private void initializeIndexService(final java.lang.String indexName) {
-    if (indexService == null) {
-      indexService = new IndexService(indexName, newTransportClient(esUri, true));
+  /**
+   * All the documents go through the raw document writer, parsed ones are serialized again by the callback.
+   */
+  @SneakyThrows
+  private RawDocumentWriter createRawDocumentWriter(String indexName, IndexingThroughput throughput) {
+    if (!benchmark) {
+      return new EsRawDocumentWriter(client, indexName, throughput);
     }
+
+    val sinkFile = sinkDir == null ? null : new File(sinkDir, indexName + "-" + sinkFiles.incrementAndGet() + ".json");
+    return new SinkRawDocumentWriter(indexName, sinkFile, throughput);
+  }
+
+  /**
+   * Files may be loaded concurrently, so all the callbacks of an index share its {@link IndexService}.
+   */
+  private synchronized IndexService getIndexService(String indexName) {
+    if (benchmark) {
+      return indexServices.computeIfAbsent(indexName, NoOpIndexService::new);
+    }
+
+    if (client == null) {
+      client = newTransportClient(esUri, true);
+    }
+
+    return indexServices.computeIfAbsent(indexName, name -> new EsIndexService(name, bulkLoad, resume, client));
   }
 
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.load;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lombok.NonNull;
+
+import org.icgc.dcc.dcc.common.es.model.Document;
+import org.icgc.dcc.download.imports.core.RawDocument;
+import org.icgc.dcc.download.imports.io.TarArchiveEntryCallback;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Records the number of indexed documents of an archive entry in the {@link ImportCheckpoint}.
+ * <p>
+ * Dispatched documents may still sit in bulk buffers, so whenever a checkpoint is due the delegate is flushed and the
+ * count is recorded only once the cluster acknowledged all the documents dispatched before it. Parse workers may
+ * dispatch concurrently, so dispatching is held off while flushing.
+ */
+class CheckpointTarArchiveEntryCallback implements TarArchiveEntryCallback {
+
+  /**
+   * Dependencies.
+   */
+  private final TarArchiveEntryCallback delegate;
+  private final ImportCheckpoint checkpoint;
+
+  /**
+   * Configuration.
+   */
+  private final String entry;
+
+  /**
+   * State.
+   */
+  private final AtomicLong documentOrdinal;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  CheckpointTarArchiveEntryCallback(@NonNull TarArchiveEntryCallback delegate, @NonNull ImportCheckpoint checkpoint,
+      @NonNull String entry, long skippedDocuments) {
+    this.delegate = delegate;
+    this.checkpoint = checkpoint;
+    this.entry = entry;
+    this.documentOrdinal = new AtomicLong(skippedDocuments);
+  }
+
+  @Override
+  public void onSettings(ObjectNode settings) {
+    delegate.onSettings(settings);
+  }
+
+  @Override
+  public void onMapping(String mappingTypeName, ObjectNode mapping) {
+    delegate.onMapping(mappingTypeName, mapping);
+  }
+
+  @Override
+  public void onDocument(Document document) {
+    long ordinal;
+    lock.readLock().lock();
+    try {
+      delegate.onDocument(document);
+      ordinal = documentOrdinal.incrementAndGet();
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    onDispatched(ordinal);
+  }
+
+  @Override
+  public boolean isRawDocumentSupported() {
+    return delegate.isRawDocumentSupported();
+  }
+
+  @Override
+  public void onRawDocument(RawDocument document) {
+    long ordinal;
+    lock.readLock().lock();
+    try {
+      delegate.onRawDocument(document);
+      ordinal = documentOrdinal.incrementAndGet();
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    onDispatched(ordinal);
+  }
+
+  @Override
+  public void flush() {
+    delegate.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  private void onDispatched(long ordinal) {
+    if (!checkpoint.isDue(ordinal)) {
+      return;
+    }
+
+    lock.writeLock().lock();
+    try {
+      delegate.flush();
+      checkpoint.onIndexed(entry, documentOrdinal.get());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+}
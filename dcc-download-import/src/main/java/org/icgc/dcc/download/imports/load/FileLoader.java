@@ -21,6 +21,14 @@ import java.io.File;
 
 public interface FileLoader {
 
-  void loadFile(File file);
+  /**
+   * @return name of the index the {@code file} was loaded into
+   */
+  String loadFile(File file);
+
+  /**
+   * @return name of the index the {@code file} is loaded into, without loading it
+   */
+  String resolveIndexName(File file);
 
 }
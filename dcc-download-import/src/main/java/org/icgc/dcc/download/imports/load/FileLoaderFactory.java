@@ -45,14 +45,18 @@ public class FileLoaderFactory {
   private final TarArchiveDocumentReaderFactory readerFactory;
 
   public FileLoader getFileLoader(@NonNull File file) {
+    return getFileLoader(file, ImportCheckpoint.disabled());
+  }
+
+  public FileLoader getFileLoader(@NonNull File file, @NonNull ImportCheckpoint checkpoint) {
     val fileType = resolveArchiveFileType(file);
     log.debug("Resolved file type {} from file '{}'", fileType, file.getAbsolutePath());
 
     switch (fileType) {
     case RELEASE:
-      return new ReleaseFileLoader(project, callbackFactory, readerFactory);
+      return new ReleaseFileLoader(project, callbackFactory, readerFactory, checkpoint);
     case REPOSITORY:
-      return new RepositoryFileLoader(callbackFactory, readerFactory);
+      return new RepositoryFileLoader(callbackFactory, readerFactory, checkpoint);
     default:
       // Won't get here
       throw new IllegalArgumentException();
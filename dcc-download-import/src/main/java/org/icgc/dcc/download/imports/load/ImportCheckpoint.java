@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.load;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static lombok.AccessLevel.PACKAGE;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.annotation.Nullable;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.download.imports.core.Checkpoint;
+import org.icgc.dcc.download.imports.core.DownloadImportException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Records which archive entries, and how many documents of the entry in progress, were indexed so an interrupted
+ * import can be resumed.<br>
+ * <br>
+ * Within an entry the count is only recorded once the cluster acknowledged the documents. Parse workers may dispatch
+ * documents slightly out of archive order, so the persisted count lags by one interval. Resuming re-indexes the
+ * documents of that interval, which is idempotent as they keep their ids.<br>
+ * <br>
+ * Failing to persist the state doesn't fail the import, which then just can't be resumed.
+ */
+@Slf4j
+@RequiredArgsConstructor(access = PACKAGE)
+public class ImportCheckpoint {
+
+  /**
+   * Constants.
+   */
+  public static final long DEFAULT_INTERVAL = 100_000;
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * Configuration.
+   */
+  @Nullable
+  private final File checkpointFile;
+  private final long interval;
+
+  /**
+   * State.
+   */
+  @NonNull
+  private final Checkpoint checkpoint;
+  private boolean saveFailed;
+
+  /**
+   * Creates a checkpoint which is not persisted.
+   */
+  public static ImportCheckpoint disabled() {
+    return new ImportCheckpoint(null, DEFAULT_INTERVAL, new Checkpoint());
+  }
+
+  /**
+   * @param resume whether to continue from the state persisted in {@code checkpointFile}
+   */
+  @SneakyThrows
+  public static ImportCheckpoint create(@NonNull File checkpointFile, @NonNull File inputFile, boolean resume) {
+    val fileName = inputFile.getName();
+    if (!resume || !checkpointFile.exists()) {
+      val checkpoint = new Checkpoint();
+      checkpoint.setFile(fileName);
+
+      return new ImportCheckpoint(checkpointFile, DEFAULT_INTERVAL, checkpoint);
+    }
+
+    val checkpoint = MAPPER.readValue(checkpointFile, Checkpoint.class);
+    if (!fileName.equals(checkpoint.getFile())) {
+      throw new DownloadImportException("Checkpoint '%s' belongs to file '%s', not '%s'",
+          checkpointFile, checkpoint.getFile(), fileName);
+    }
+
+    log.info("Resuming from checkpoint {}", checkpoint);
+    return new ImportCheckpoint(checkpointFile, DEFAULT_INTERVAL, checkpoint);
+  }
+
+  public synchronized boolean isCompleted(@NonNull String entry) {
+    return checkpoint.getCompletedEntries().contains(entry);
+  }
+
+  /**
+   * @return number of documents of {@code entry} which must not be indexed again
+   */
+  public synchronized long getIndexedDocuments(@NonNull String entry) {
+    return entry.equals(checkpoint.getEntry()) ? checkpoint.getDocuments() : 0;
+  }
+
+  /**
+   * @return whether the documents up to {@code documentOrdinal} should be flushed and reported to
+   * {@link #onIndexed(String, long)}
+   */
+  public boolean isDue(long documentOrdinal) {
+    return documentOrdinal % interval == 0;
+  }
+
+  /**
+   * Called once the cluster acknowledged the first {@code documents} dispatched documents of {@code entry}.
+   */
+  public void onIndexed(@NonNull String entry, long documents) {
+    update(entry, documents - interval);
+  }
+
+  public synchronized void complete(@NonNull String entry) {
+    checkpoint.getCompletedEntries().add(entry);
+    checkpoint.setEntry(null);
+    checkpoint.setDocuments(0);
+    save();
+  }
+
+  /**
+   * Removes the persisted state once the import has finished.
+   */
+  @SneakyThrows
+  public void delete() {
+    if (checkpointFile != null) {
+      Files.deleteIfExists(checkpointFile.toPath());
+    }
+  }
+
+  private synchronized void update(String entry, long documents) {
+    // Parallel writers may report ordinals out of order
+    if (entry.equals(checkpoint.getEntry()) && documents <= checkpoint.getDocuments()) {
+      return;
+    }
+
+    checkpoint.setEntry(entry);
+    checkpoint.setDocuments(documents);
+    log.info("Checkpoint: {} documents of '{}'", formatCount(documents), entry);
+    save();
+  }
+
+  private void save() {
+    if (checkpointFile == null || saveFailed) {
+      return;
+    }
+
+    // Write and rename so an interruption never leaves a partial checkpoint behind
+    val tempFile = new File(checkpointFile.getPath() + ".tmp");
+    try {
+      MAPPER.writeValue(tempFile, checkpoint);
+      Files.move(tempFile.toPath(), checkpointFile.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException e) {
+      log.warn("Failed to save checkpoint '{}'. Continuing without checkpoints: {}", checkpointFile, e.getMessage());
+      saveFailed = true;
+      tempFile.delete();
+    }
+  }
+
+}
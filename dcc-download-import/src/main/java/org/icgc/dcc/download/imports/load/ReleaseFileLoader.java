@@ -20,6 +20,7 @@ package org.icgc.dcc.download.imports.load;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.icgc.dcc.download.imports.core.ArchiveFileType.RELEASE;
+import static org.icgc.dcc.download.imports.util.TarArchiveStreams.closeShield;
 import static org.icgc.dcc.download.imports.util.TarArchiveStreams.getTarInputStream;
 
 import java.io.File;
@@ -56,19 +57,49 @@ public class ReleaseFileLoader implements FileLoader {
   private final TarArchiveEntryCallbackFactory callbackFactory;
   @NonNull
   private final TarArchiveDocumentReaderFactory readerFactory;
+  @NonNull
+  private final ImportCheckpoint checkpoint;
+
+  public ReleaseFileLoader(@Nullable String project, @NonNull TarArchiveEntryCallbackFactory callbackFactory,
+      @NonNull TarArchiveDocumentReaderFactory readerFactory) {
+    this(project, callbackFactory, readerFactory, ImportCheckpoint.disabled());
+  }
 
   @Override
   @SneakyThrows
-  public void loadFile(@NonNull File file) {
+  public String loadFile(@NonNull File file) {
     @Cleanup
     val tarInput = getTarInputStream(file);
 
+    String indexName = null;
     TarArchiveEntry tarEntry;
     boolean applySettings = true;
     while ((tarEntry = tarInput.getNextTarEntry()) != null) { // NOPMD
+      val entryName = tarEntry.getName();
+      indexName = resolveIndexName(entryName);
+      if (checkpoint.isCompleted(entryName)) {
+        log.info("File '{}' has already been indexed. Skipping...", entryName);
+        continue;
+      }
+
       processTypeTarEntry(tarInput, tarEntry, applySettings);
+      checkpoint.complete(entryName);
       applySettings = false;
     }
+
+    checkState(indexName != null, "Failed to resolve index name from empty file '%s'", file);
+    return indexName;
+  }
+
+  @Override
+  @SneakyThrows
+  public String resolveIndexName(@NonNull File file) {
+    @Cleanup
+    val tarInput = getTarInputStream(file);
+    val tarEntry = tarInput.getNextTarEntry();
+    checkState(tarEntry != null, "Failed to resolve index name from empty file '%s'", file);
+
+    return resolveIndexName(tarEntry.getName());
   }
 
   private void processTypeTarEntry(InputStream inputStream, TarArchiveEntry tarEntry, boolean applySettings)
@@ -76,7 +107,8 @@ public class ReleaseFileLoader implements FileLoader {
     val entryName = tarEntry.getName();
 
     log.debug("Creating tar document reader for tar entry {}", entryName);
-    val reader = readerFactory.createReader(inputStream);
+    @Cleanup
+    val reader = readerFactory.createReader(closeShield(inputStream));
     val documentType = resolveDocumentType(entryName);
     val indexName = resolveIndexName(entryName);
 
@@ -88,11 +120,17 @@ public class ReleaseFileLoader implements FileLoader {
         .documentType(documentType)
         .project(project)
         .build();
+    val skipDocuments = checkpoint.getIndexedDocuments(entryName);
+    if (skipDocuments > 0) {
+      log.info("Resuming file '{}' after {} documents", entryName, skipDocuments);
+    }
+
     @Cleanup
-    val callback = callbackFactory.createCallback(callbackContext);
+    val callback = new CheckpointTarArchiveEntryCallback(
+        callbackFactory.createCallback(callbackContext), checkpoint, entryName, skipDocuments);
 
     val watch = Stopwatch.createStarted();
-    reader.read(callback);
+    reader.read(callback, skipDocuments);
 
     // Apply index settings only once, but each tar entry contains own settings copy
     log.info("Finished indexing file {} in {} seconds.", entryName, watch.elapsed(SECONDS));
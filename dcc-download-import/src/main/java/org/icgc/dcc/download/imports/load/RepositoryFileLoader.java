@@ -17,13 +17,11 @@
  */
 package org.icgc.dcc.download.imports.load;
 
-import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.icgc.dcc.download.imports.core.ArchiveFileType.REPOSITORY;
-import static org.icgc.dcc.download.imports.util.TarEntryNames.getIndexName;
+import static org.icgc.dcc.download.imports.util.TarArchiveStreams.openFile;
 
 import java.io.File;
-import java.io.FileInputStream;
 
 import lombok.Cleanup;
 import lombok.NonNull;
@@ -35,7 +33,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.icgc.dcc.download.imports.io.TarArchiveDocumentReaderFactory;
 import org.icgc.dcc.download.imports.io.TarArchiveEntryContext;
 import org.icgc.dcc.download.imports.io.TarArchiveEntryCallbackFactory;
-import org.icgc.dcc.download.imports.util.TarArchiveStreams;
 
 import com.google.common.base.Stopwatch;
 
@@ -47,34 +44,58 @@ public class RepositoryFileLoader implements FileLoader {
   private final TarArchiveEntryCallbackFactory callbackFactory;
   @NonNull
   private final TarArchiveDocumentReaderFactory readerFactory;
+  @NonNull
+  private final ImportCheckpoint checkpoint;
+
+  public RepositoryFileLoader(@NonNull TarArchiveEntryCallbackFactory callbackFactory,
+      @NonNull TarArchiveDocumentReaderFactory readerFactory) {
+    this(callbackFactory, readerFactory, ImportCheckpoint.disabled());
+  }
 
+  /**
+   * Reads the archive once, resolving the index name from its first entry.
+   */
   @Override
   @SneakyThrows
-  public void loadFile(@NonNull File file) {
+  public String loadFile(@NonNull File file) {
+    val entryName = file.getName();
+
+    @Cleanup
+    val reader = readerFactory.createReader(openFile(file));
+    val indexName = reader.peekIndexName();
+    if (checkpoint.isCompleted(entryName)) {
+      return indexName;
+    }
+
     val callbackContext = TarArchiveEntryContext.builder()
         .fileType(REPOSITORY)
         .applySettings(true)
-        .indexName(resolveIndexName(file))
+        .indexName(indexName)
         .build();
-    @Cleanup
-    val callback = callbackFactory.createCallback(callbackContext);
+    val skipDocuments = checkpoint.getIndexedDocuments(entryName);
+    if (skipDocuments > 0) {
+      log.info("Resuming file '{}' after {} documents", file, skipDocuments);
+    }
 
-    log.debug("Creating tar document reader for file {}", file);
-    val reader = readerFactory.createReader(new FileInputStream(file));
     val watch = Stopwatch.createStarted();
-    reader.read(callback);
+    try (val callback = new CheckpointTarArchiveEntryCallback(
+        callbackFactory.createCallback(callbackContext), checkpoint, entryName, skipDocuments)) {
+      reader.read(callback, skipDocuments);
+    }
+
+    checkpoint.complete(entryName);
     log.info("Finished indexing file {} in {} seconds.", file, watch.elapsed(SECONDS));
+
+    return indexName;
   }
 
+  @Override
   @SneakyThrows
-  private String resolveIndexName(File file) {
+  public String resolveIndexName(@NonNull File file) {
     @Cleanup
-    val archiveStream = TarArchiveStreams.getTarGzInputStream(file);
-    val entry = archiveStream.getNextTarEntry();
-    checkNotNull(entry, "Failed to resolve index name from file '%s'", file);
-    val entryName = entry.getName();
+    val reader = readerFactory.createReader(openFile(file));
 
-    return getIndexName(entryName);
+    return reader.peekIndexName();
   }
 
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.service;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.String.format;
+import static lombok.AccessLevel.PRIVATE;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.common.settings.Settings;
+import org.icgc.dcc.download.imports.core.DownloadImportException;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link IndexService} backed by an Elasticsearch cluster. Creates and aliases an index.<br>
+ * <br>
+ * In bulk-load mode the index is created with refresh disabled and without replicas and stays unaliased until
+ * {@link #finish()} restores the archive settings, force-merges the index and moves the alias to it.<br>
+ * <br>
+ * When resuming an import the index created by the interrupted run is reused.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class EsIndexService implements IndexService {
+
+  /**
+   * Constants.
+   */
+  private static final String INDEX_SETTING_PREFIX = "index.";
+  private static final String REFRESH_INTERVAL = "index.refresh_interval";
+  private static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+  private static final String DEFAULT_REFRESH_INTERVAL = "1s";
+  private static final String DEFAULT_NUMBER_OF_REPLICAS = "1";
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final String indexName;
+  private final boolean bulkLoad;
+  private final boolean resume;
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final Client client;
+
+  @Getter(lazy = true, value = PRIVATE)
+  private final IndicesAdminClient indexClient = client.admin().indices(); // NOPMD
+
+  /**
+   * State.
+   */
+  private boolean settingsApplied;
+  private Settings restoreSettings;
+
+  public EsIndexService(@NonNull String indexName, @NonNull Client client) {
+    this(indexName, false, false, client);
+  }
+
+  /**
+   * Creates the index once, subsequent calls are ignored. When resuming an import an existing index is reused as is.
+   */
+  @Override
+  public synchronized void applySettings(@NonNull ObjectNode settings) {
+    if (settingsApplied) {
+      log.info("Index '{}' has already been created. Skipping settings...", indexName);
+      return;
+    }
+
+    val client = getIndexClient();
+    val exists = isIndexExists(client);
+    if (exists && !resume) {
+      throw new DownloadImportException("Index '%s' already exists.", indexName);
+    }
+
+    val indexSettings = settingsBuilder()
+        .loadFromSource(settings.toString())
+        .normalizePrefix(INDEX_SETTING_PREFIX)
+        .build();
+    val createSettings = settingsBuilder().put(indexSettings);
+    if (bulkLoad) {
+      restoreSettings = settingsBuilder()
+          .put(REFRESH_INTERVAL, indexSettings.get(REFRESH_INTERVAL, DEFAULT_REFRESH_INTERVAL))
+          .put(NUMBER_OF_REPLICAS, indexSettings.get(NUMBER_OF_REPLICAS, DEFAULT_NUMBER_OF_REPLICAS))
+          .build();
+      createSettings
+          .put(REFRESH_INTERVAL, "-1")
+          .put(NUMBER_OF_REPLICAS, 0);
+    }
+
+    if (exists) {
+      log.info("Index '{}' already exists. Resuming...", indexName);
+      settingsApplied = true;
+      return;
+    }
+
+    log.info("Creating index '{}'{}...", indexName, bulkLoad ? " for bulk load" : "");
+    checkState(client
+        .prepareCreate(indexName)
+        .setSettings(createSettings)
+        .execute()
+        .actionGet()
+        .isAcknowledged(),
+        "Index '%s' creation was not acknowledged!", indexName);
+    settingsApplied = true;
+
+    if (!bulkLoad) {
+      alias();
+    }
+  }
+
+  /**
+   * Completes a bulk load. Does nothing if the service is not in bulk-load mode or the index was not created by it.
+   */
+  @Override
+  public synchronized void finish() {
+    if (restoreSettings == null) {
+      return;
+    }
+
+    val client = getIndexClient();
+    log.info("Restoring index '{}' settings {}...", indexName, restoreSettings.getAsMap());
+    checkState(client
+        .prepareUpdateSettings(indexName)
+        .setSettings(restoreSettings)
+        .execute()
+        .actionGet()
+        .isAcknowledged(),
+        "Index '%s' settings update was not acknowledged!", indexName);
+
+    log.info("Force merging index '{}'...", indexName);
+    val optimizeResponse = client
+        .prepareOptimize(indexName)
+        .setMaxNumSegments(1)
+        .execute()
+        .actionGet();
+    checkState(optimizeResponse.getFailedShards() == 0,
+        "Failed to force merge %s shard(s) of index '%s'", optimizeResponse.getFailedShards(), indexName);
+
+    swapAlias();
+    restoreSettings = null;
+  }
+
+  @Override
+  public void applyMapping(@NonNull String typeName, @NonNull ObjectNode mapping) {
+    val client = getIndexClient();
+    log.info("Creating index '{}' mapping for type '{}'...", indexName, typeName);
+    checkState(client.preparePutMapping(indexName)
+        .setType(typeName)
+        .setSource(mapping.toString())
+        .execute()
+        .actionGet()
+        .isAcknowledged(),
+        "Index '%s' type mapping in index '%s' was not acknowledged for release '%s'!",
+        typeName, indexName);
+  }
+
+  private boolean isIndexExists(IndicesAdminClient client) {
+    log.info("Checking index '{}' for existence...", indexName);
+    return client.prepareExists(indexName)
+        .execute()
+        .actionGet()
+        .isExists();
+  }
+
+  private void alias() {
+    val alias = getAlias();
+    val request = getIndexClient().prepareAliases();
+    request.addAlias(indexName, alias);
+
+    checkState(request
+        .execute()
+        .actionGet()
+        .isAcknowledged(),
+        "Assigning index alias '%s' to index '%s' was not acknowledged!",
+        alias, indexName);
+  }
+
+  /**
+   * Moves the alias from the indices it currently points to in a single atomic request.
+   */
+  private void swapAlias() {
+    val alias = getAlias();
+    val client = getIndexClient();
+    val request = client.prepareAliases();
+
+    val currentIndices = client.prepareGetAliases(alias)
+        .execute()
+        .actionGet()
+        .getAliases()
+        .keysIt();
+    while (currentIndices.hasNext()) {
+      val currentIndex = currentIndices.next();
+      if (!currentIndex.equals(indexName)) {
+        log.info("Removing alias '{}' from index '{}'...", alias, currentIndex);
+        request.removeAlias(currentIndex, alias);
+      }
+    }
+
+    log.info("Assigning alias '{}' to index '{}'...", alias, indexName);
+    request.addAlias(indexName, alias);
+    checkState(request
+        .execute()
+        .actionGet()
+        .isAcknowledged(),
+        "Moving index alias '%s' to index '%s' was not acknowledged!",
+        alias, indexName);
+  }
+
+  private String getAlias() {
+    if (indexName.contains("icgc-repository")) {
+      return "icgc-repository";
+    }
+
+    if (indexName.contains("icgc")) {
+      return "icgc-release";
+    }
+
+    throw new IllegalArgumentException(format("Failed to resolve alias from index name '%s'", indexName));
+  }
+
+}
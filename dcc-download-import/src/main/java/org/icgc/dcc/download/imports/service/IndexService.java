@@ -17,102 +17,26 @@
  */
 package org.icgc.dcc.download.imports.service;
 
-import static com.google.common.base.Preconditions.checkState;
-import static java.lang.String.format;
-import static lombok.AccessLevel.PRIVATE;
-import lombok.Getter;
-import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
-import lombok.val;
-import lombok.extern.slf4j.Slf4j;
-
-import org.elasticsearch.client.Client;
-import org.elasticsearch.client.IndicesAdminClient;
-import org.icgc.dcc.download.imports.core.DownloadImportException;
-
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-@Slf4j
-@RequiredArgsConstructor
-public class IndexService {
+/**
+ * Prepares the index documents of an archive are loaded into.
+ */
+public interface IndexService {
 
   /**
-   * Configuration.
+   * Creates the index with the archive {@code settings}.
    */
-  @NonNull
-  private final String indexName;
+  void applySettings(ObjectNode settings);
 
   /**
-   * Dependencies.
+   * Puts the archive {@code mapping} of {@code typeName}.
    */
-  @NonNull
-  private final Client client;
-
-  @Getter(lazy = true, value = PRIVATE)
-  private final IndicesAdminClient indexClient = client.admin().indices(); // NOPMD
-
-  public void applySettings(@NonNull ObjectNode settings) {
-    val client = getIndexClient();
-    ensureIndexNotExists(client);
-
-    log.info("Creating index '{}'...", indexName);
-    checkState(client
-        .prepareCreate(indexName)
-        .setSettings(settings.toString())
-        .execute()
-        .actionGet()
-        .isAcknowledged(),
-        "Index '%s' creation was not acknowledged!", indexName);
-    alias();
-  }
-
-  public void applyMapping(@NonNull String typeName, @NonNull ObjectNode mapping) {
-    val client = getIndexClient();
-    log.info("Creating index '{}' mapping for type '{}'...", indexName, typeName);
-    checkState(client.preparePutMapping(indexName)
-        .setType(typeName)
-        .setSource(mapping.toString())
-        .execute()
-        .actionGet()
-        .isAcknowledged(),
-        "Index '%s' type mapping in index '%s' was not acknowledged for release '%s'!",
-        typeName, indexName);
-  }
+  void applyMapping(String typeName, ObjectNode mapping);
 
-  private void ensureIndexNotExists(IndicesAdminClient client) {
-    log.info("Checking index '{}' for existence...", indexName);
-    val exists = client.prepareExists(indexName)
-        .execute()
-        .actionGet()
-        .isExists();
-    if (exists) {
-      throw new DownloadImportException("Index '%s' already exists.", indexName);
-    }
-  }
-
-  private void alias() {
-    val alias = getAlias();
-    val request = getIndexClient().prepareAliases();
-    request.addAlias(indexName, alias);
-
-    checkState(request
-        .execute()
-        .actionGet()
-        .isAcknowledged(),
-        "Assigning index alias '%s' to index '%s' was not acknowledged!",
-        alias, indexName);
-  }
-
-  private String getAlias() {
-    if (indexName.contains("icgc-repository")) {
-      return "icgc-repository";
-    }
-
-    if (indexName.contains("icgc")) {
-      return "icgc-release";
-    }
-
-    throw new IllegalArgumentException(format("Failed to resolve alias from index name '%s'", indexName));
-  }
+  /**
+   * Completes the load of the index once all of its documents have been written.
+   */
+  void finish();
 
 }
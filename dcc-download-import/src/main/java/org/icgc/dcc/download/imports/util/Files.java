@@ -19,13 +19,20 @@ package org.icgc.dcc.download.imports.util;
 
 import static java.lang.String.format;
 import static lombok.AccessLevel.PRIVATE;
+import static org.icgc.dcc.download.imports.core.ArchiveFileType.isArchiveFile;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.List;
 
 import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.val;
 
 import org.icgc.dcc.download.imports.core.DownloadImportException;
 
+import com.google.common.collect.ImmutableList;
+
 @NoArgsConstructor(access = PRIVATE)
 public final class Files {
 
@@ -39,4 +46,36 @@ public final class Files {
     }
   }
 
+  /**
+   * Expands directories to the archive files they contain, searching subdirectories in name order.
+   */
+  public static List<File> resolveInputFiles(@NonNull Iterable<File> inputFiles) {
+    val files = ImmutableList.<File> builder();
+    for (val inputFile : inputFiles) {
+      if (inputFile.isDirectory()) {
+        addArchiveFiles(inputFile, files);
+      } else {
+        files.add(inputFile);
+      }
+    }
+
+    return files.build();
+  }
+
+  private static void addArchiveFiles(File dir, ImmutableList.Builder<File> files) {
+    val children = dir.listFiles();
+    if (children == null) {
+      throw new DownloadImportException(format("Input directory '%s' is not readable.", dir));
+    }
+
+    Arrays.sort(children);
+    for (val child : children) {
+      if (child.isDirectory()) {
+        addArchiveFiles(child, files);
+      } else if (isArchiveFile(child.getName())) {
+        files.add(child);
+      }
+    }
+  }
+
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.util;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.END_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_STRING;
+import static lombok.AccessLevel.PRIVATE;
+import static org.icgc.dcc.common.core.util.Splitters.DOT;
+
+import java.io.IOException;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Dotted field path compiled once and matched against a JSON token stream.<br>
+ * <br>
+ * Follows the semantics of {@link JsonNodes#getPathValue(JsonNode, String)}: arrays on the path are traversed
+ * element-wise. Fields off the path are skipped without being materialized and the stream is abandoned as soon as a
+ * matching value is found.
+ */
+@RequiredArgsConstructor(access = PRIVATE)
+public final class JsonPathMatcher {
+
+  /**
+   * Constants.
+   */
+  private static final JsonFactory FACTORY = new JsonFactory();
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final String[] fields;
+
+  public static JsonPathMatcher compile(@NonNull String path) {
+    val fields = DOT.splitToList(path);
+
+    return new JsonPathMatcher(fields.toArray(new String[fields.size()]));
+  }
+
+  /**
+   * @return {@code true} if a text value at the path equals {@code value}
+   */
+  @SneakyThrows
+  public boolean matches(@NonNull byte[] source, @NonNull String value) {
+    @Cleanup
+    val parser = FACTORY.createParser(source);
+
+    return matches(parser, value);
+  }
+
+  @SneakyThrows
+  public boolean matches(@NonNull JsonNode source, @NonNull String value) {
+    @Cleanup
+    val parser = source.traverse();
+
+    return matches(parser, value);
+  }
+
+  public boolean matches(@NonNull JsonParser parser, @NonNull String value) throws IOException {
+    return parser.nextToken() == START_OBJECT && matchObject(parser, 0, value);
+  }
+
+  private boolean matchObject(JsonParser parser, int level, String value) throws IOException {
+    while (parser.nextToken() != END_OBJECT) {
+      val fieldName = parser.getCurrentName();
+      val token = parser.nextToken();
+      if (!fields[level].equals(fieldName)) {
+        parser.skipChildren();
+      } else if (matchValue(parser, token, level, value)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private boolean matchValue(JsonParser parser, JsonToken token, int level, String value) throws IOException {
+    if (token == START_ARRAY) {
+      JsonToken element;
+      while ((element = parser.nextToken()) != END_ARRAY) { // NOPMD
+        if (element == START_ARRAY) {
+          // Nested arrays are not traversed
+          parser.skipChildren();
+        } else if (matchValue(parser, element, level, value)) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    if (isLast(level)) {
+      val matched = token == VALUE_STRING && value.equals(parser.getText());
+      parser.skipChildren();
+
+      return matched;
+    }
+
+    if (token == START_OBJECT) {
+      return matchObject(parser, level + 1, value);
+    }
+
+    return false;
+  }
+
+  private boolean isLast(int level) {
+    return level == fields.length - 1;
+  }
+
+}
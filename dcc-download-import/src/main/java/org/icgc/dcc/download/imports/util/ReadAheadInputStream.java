@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the source stream on a background thread into a bounded number of buffers, so that decompression overlaps
+ * with the processing of the already read data.<br>
+ * <br>
+ * Closing the stream stops the background thread and closes the source once the thread has exited. The source may
+ * read from a stream shared with other consumers, e.g. the stream of an enclosing archive, which must not be read
+ * anymore once the stream is closed. An ongoing read of the source is therefore awaited rather than interrupted.
+ */
+@Slf4j
+class ReadAheadInputStream extends InputStream {
+
+  /**
+   * Constants.
+   */
+  private static final Chunk END = new Chunk(new byte[0], -1);
+  private static final long CLOSE_POLL_MILLIS = 100;
+
+  /**
+   * Dependencies.
+   */
+  private final InputStream source;
+
+  /**
+   * State.
+   */
+  private final BlockingQueue<Chunk> filled;
+  private final BlockingQueue<byte[]> free;
+  private final Thread reader;
+  private volatile IOException failure;
+  private volatile boolean closed;
+  private Chunk current;
+  private int position;
+
+  ReadAheadInputStream(@NonNull InputStream source, int bufferSize, int buffers) {
+    this.source = source;
+    this.filled = new ArrayBlockingQueue<>(buffers + 1);
+    this.free = new ArrayBlockingQueue<>(buffers);
+    for (int i = 0; i < buffers; i++) {
+      free.add(new byte[bufferSize]);
+    }
+
+    this.reader = new Thread(this::readSource, "read-ahead");
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+
+    return current.buffer[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+
+    if (!fill()) {
+      return -1;
+    }
+
+    val count = Math.min(length, current.length - position);
+    System.arraycopy(current.buffer, position, bytes, offset, count);
+    position += count;
+
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return current == null || current == END ? 0 : current.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    if (current != null && current != END) {
+      free.offer(current.buffer);
+    }
+
+    current = END;
+
+    try {
+      // The reader may be waiting for a free buffer or for room to put a chunk, which it only gets from here
+      while (reader.isAlive()) {
+        recycleFilled();
+        reader.join(CLOSE_POLL_MILLIS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the read-ahead to stop");
+    }
+
+    source.close();
+  }
+
+  /**
+   * @return {@code false} at the end of the stream
+   */
+  private boolean fill() throws IOException {
+    if (current == END) {
+      return false;
+    }
+
+    if (current != null && position < current.length) {
+      return true;
+    }
+
+    if (current != null) {
+      free.add(current.buffer);
+    }
+
+    try {
+      current = filled.take();
+      position = 0;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for data");
+    }
+
+    if (current == END && failure != null) {
+      throw failure;
+    }
+
+    return current != END;
+  }
+
+  private void readSource() {
+    try {
+      while (!closed) {
+        val buffer = free.take();
+        if (closed) {
+          break;
+        }
+
+        val length = readFully(buffer);
+        if (length > 0) {
+          filled.put(new Chunk(buffer, length));
+        }
+
+        if (length < buffer.length) {
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      log.debug("Read-ahead stopped");
+      return;
+    } catch (IOException e) {
+      failure = e;
+    }
+
+    // There is always room for the end marker as the queue holds one more chunk than there are buffers
+    filled.offer(END);
+  }
+
+  private int readFully(byte[] buffer) throws IOException {
+    int length = 0;
+    int count;
+    while (!closed && length < buffer.length
+        && (count = source.read(buffer, length, buffer.length - length)) != -1) { // NOPMD
+      length += count;
+    }
+
+    return length;
+  }
+
+  private void recycleFilled() {
+    Chunk chunk;
+    while ((chunk = filled.poll()) != null) { // NOPMD
+      if (chunk != END) {
+        free.offer(chunk.buffer);
+      }
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class Chunk {
+
+    final byte[] buffer;
+    final int length;
+
+  }
+
+}
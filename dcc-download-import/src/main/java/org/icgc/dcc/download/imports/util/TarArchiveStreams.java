@@ -20,11 +20,15 @@ package org.icgc.dcc.download.imports.util;
 import static lombok.AccessLevel.PRIVATE;
 import static org.icgc.dcc.download.imports.util.Files.checkFileReadability;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
 
 import lombok.NoArgsConstructor;
+import lombok.NonNull;
 import lombok.SneakyThrows;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
@@ -32,18 +36,49 @@ import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 @NoArgsConstructor(access = PRIVATE)
 public final class TarArchiveStreams {
 
+  /**
+   * Constants.
+   */
+  public static final int BUFFER_SIZE = 1024 * 1024;
+  public static final int READ_AHEAD_BUFFERS = 8;
+
   @SneakyThrows
   public static TarArchiveInputStream getTarInputStream(File inputFile) {
-    checkFileReadability(inputFile);
-
-    return new TarArchiveInputStream(new FileInputStream(inputFile));
+    return new TarArchiveInputStream(openFile(inputFile));
   }
 
   @SneakyThrows
   public static TarArchiveInputStream getTarGzInputStream(File inputFile) {
+    return new TarArchiveInputStream(decompress(openFile(inputFile)));
+  }
+
+  @SneakyThrows
+  public static InputStream openFile(@NonNull File inputFile) {
     checkFileReadability(inputFile);
 
-    return new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(inputFile)));
+    return new BufferedInputStream(new FileInputStream(inputFile), BUFFER_SIZE);
+  }
+
+  /**
+   * Decompresses a gzipped stream on a read-ahead thread. The returned stream must be closed to stop the thread.
+   */
+  @SneakyThrows
+  public static InputStream decompress(@NonNull InputStream inputStream) {
+    return new ReadAheadInputStream(new GZIPInputStream(inputStream, BUFFER_SIZE), BUFFER_SIZE, READ_AHEAD_BUFFERS);
+  }
+
+  /**
+   * Prevents closing of a stream shared by several consumers, e.g. the stream of an enclosing archive.
+   */
+  public static InputStream closeShield(@NonNull InputStream inputStream) {
+    return new FilterInputStream(inputStream) {
+
+      @Override
+      public void close() {
+        // Owned by the caller
+      }
+
+    };
   }
 
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.command;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import javax.annotation.Nullable;
+
+import lombok.val;
+
+import org.icgc.dcc.download.imports.io.TarArchiveDocumentReaderFactory;
+import org.icgc.dcc.download.imports.io.TarArchiveEntryCallbackFactory;
+import org.icgc.dcc.download.imports.load.FileLoaderFactory;
+import org.icgc.dcc.download.test.io.SyntheticReleaseDirectory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BenchmarkClientCommandTest {
+
+  private static final SyntheticReleaseDirectory RELEASE = SyntheticReleaseDirectory.of(2, 10);
+  private static final String INDEX_NAME = "icgc-test";
+  private static final int GENES = 20;
+  private static final int MUTATIONS_PER_DONOR = 5;
+  private static final long DOCUMENTS = RELEASE.getArchiveDocumentCount(GENES, MUTATIONS_PER_DONOR);
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  File releaseFile;
+
+  @Before
+  public void setUp() throws Exception {
+    releaseFile = RELEASE.writeArchive(new File(tmp.getRoot(), "release.tar"), INDEX_NAME, GENES, MUTATIONS_PER_DONOR);
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    val results = createCommand(null, null).run();
+
+    assertThat(results).extracting("stage").containsExactly("decompress", "parse", "import");
+    for (val result : results) {
+      assertThat(result.getDocuments()).isEqualTo(DOCUMENTS);
+      assertThat(result.getBytes()).isPositive();
+    }
+  }
+
+  @Test
+  public void testRun_project() throws Exception {
+    val results = createCommand(SyntheticReleaseDirectory.getProjectId(1), null).run();
+
+    assertThat(results.get(1).getDocuments()).isEqualTo(DOCUMENTS);
+    assertThat(results.get(2).getDocuments())
+        .isEqualTo(RELEASE.getArchiveProjectDocumentCount(GENES, MUTATIONS_PER_DONOR));
+  }
+
+  @Test
+  public void testRun_sink() throws Exception {
+    val sinkDir = tmp.newFolder("sink");
+    createCommand(null, sinkDir).run();
+
+    long lines = 0;
+    for (val sinkFile : sinkDir.listFiles()) {
+      lines += Files.readAllLines(sinkFile.toPath()).size();
+    }
+
+    // Action and source lines
+    assertThat(lines).isEqualTo(2 * DOCUMENTS);
+  }
+
+  private BenchmarkClientCommand createCommand(@Nullable String project, @Nullable File sinkDir) {
+    val callbackFactory = TarArchiveEntryCallbackFactory.createBenchmark(2, sinkDir);
+    val readerFactory = TarArchiveDocumentReaderFactory.create(2);
+    val fileLoaderFactory = new FileLoaderFactory(project, callbackFactory, readerFactory);
+
+    return new BenchmarkClientCommand(Collections.singletonList(releaseFile), fileLoaderFactory, callbackFactory,
+        readerFactory);
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.INITIAL_ACTIONS;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.INITIAL_BACKOFF_MILLIS;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.INITIAL_BYTES;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.MAX_ACTIONS;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.MAX_BACKOFF_MILLIS;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.MAX_BYTES;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.MIN_ACTIONS;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.MIN_BYTES;
+import static org.icgc.dcc.download.imports.io.BulkBatchSizer.TARGET_LATENCY_MILLIS;
+
+import org.junit.Test;
+
+public class BulkBatchSizerTest {
+
+  BulkBatchSizer sizer = new BulkBatchSizer();
+
+  @Test
+  public void testIsFull() throws Exception {
+    assertThat(sizer.isFull(INITIAL_ACTIONS - 1, INITIAL_BYTES - 1)).isFalse();
+    assertThat(sizer.isFull(INITIAL_ACTIONS, 0)).isTrue();
+    assertThat(sizer.isFull(1, INITIAL_BYTES)).isTrue();
+  }
+
+  @Test
+  public void testOnSuccess_fast() throws Exception {
+    sizer.onSuccess(TARGET_LATENCY_MILLIS / 4);
+    assertThat(sizer.getMaxActions()).isGreaterThan(INITIAL_ACTIONS);
+    assertThat(sizer.getMaxBytes()).isGreaterThan(INITIAL_BYTES);
+
+    for (int i = 0; i < 100; i++) {
+      sizer.onSuccess(0);
+    }
+
+    assertThat(sizer.getMaxActions()).isEqualTo(MAX_ACTIONS);
+    assertThat(sizer.getMaxBytes()).isEqualTo(MAX_BYTES);
+  }
+
+  @Test
+  public void testOnSuccess_target() throws Exception {
+    sizer.onSuccess(TARGET_LATENCY_MILLIS);
+    assertThat(sizer.getMaxActions()).isEqualTo(INITIAL_ACTIONS);
+    assertThat(sizer.getMaxBytes()).isEqualTo(INITIAL_BYTES);
+  }
+
+  @Test
+  public void testOnSuccess_slow() throws Exception {
+    sizer.onSuccess(TARGET_LATENCY_MILLIS * 2);
+    assertThat(sizer.getMaxActions()).isLessThan(INITIAL_ACTIONS);
+    assertThat(sizer.getMaxBytes()).isLessThan(INITIAL_BYTES);
+  }
+
+  @Test
+  public void testOnRejected() throws Exception {
+    assertThat(sizer.onRejected()).isEqualTo(INITIAL_BACKOFF_MILLIS);
+    assertThat(sizer.onRejected()).isEqualTo(INITIAL_BACKOFF_MILLIS * 2);
+    for (int i = 0; i < 100; i++) {
+      sizer.onRejected();
+    }
+
+    assertThat(sizer.getBackoffMillis()).isEqualTo(MAX_BACKOFF_MILLIS);
+    assertThat(sizer.getMaxActions()).isEqualTo(MIN_ACTIONS);
+    assertThat(sizer.getMaxBytes()).isEqualTo(MIN_BYTES);
+
+    sizer.onSuccess(TARGET_LATENCY_MILLIS);
+    assertThat(sizer.getBackoffMillis()).isEqualTo(0);
+  }
+
+}
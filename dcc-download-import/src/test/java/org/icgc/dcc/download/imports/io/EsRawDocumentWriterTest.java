@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.elasticsearch.rest.RestStatus.BAD_REQUEST;
+import static org.elasticsearch.rest.RestStatus.TOO_MANY_REQUESTS;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import lombok.val;
+
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse.Failure;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.rest.RestStatus;
+import org.icgc.dcc.download.imports.core.DefaultDocumentType;
+import org.icgc.dcc.download.imports.core.DownloadImportException;
+import org.icgc.dcc.download.imports.core.RawDocument;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EsRawDocumentWriterTest {
+
+  private static final String INDEX_NAME = "icgc21-0-0";
+  private static final int MAX_REJECTED_ATTEMPTS = 3;
+
+  @Mock
+  Client client;
+  @Mock
+  ActionFuture<BulkResponse> future;
+
+  EsRawDocumentWriter writer;
+
+  @Before
+  public void setUp() {
+    when(client.bulk(any(BulkRequest.class))).thenReturn(future);
+    writer = new EsRawDocumentWriter(client, INDEX_NAME, new IndexingThroughput(), MAX_REJECTED_ATTEMPTS);
+  }
+
+  @Test
+  public void testFlush() throws Exception {
+    val response = createResponse(null, null);
+    when(future.actionGet()).thenReturn(response);
+    writeDocuments();
+    writer.flush();
+
+    val requests = captureRequests(1);
+    assertThat(requests[0].numberOfActions()).isEqualTo(2);
+  }
+
+  @Test
+  public void testFlush_rejected() throws Exception {
+    val rejected = createResponse(null, TOO_MANY_REQUESTS);
+    val indexed = createResponse((RestStatus) null);
+    when(future.actionGet()).thenReturn(rejected, indexed);
+    writeDocuments();
+    writer.flush();
+
+    // Only the rejected document is retried
+    val requests = captureRequests(2);
+    assertThat(requests[1].numberOfActions()).isEqualTo(1);
+    assertThat(((IndexRequest) requests[1].requests().get(0)).id()).isEqualTo("DO2");
+  }
+
+  @Test
+  public void testFlush_queueFull() throws Exception {
+    val response = createResponse(null, null);
+    when(future.actionGet())
+        .thenThrow(new EsRejectedExecutionException("Queue full"))
+        .thenReturn(response);
+    writeDocuments();
+    writer.flush();
+
+    val requests = captureRequests(2);
+    assertThat(requests[1].numberOfActions()).isEqualTo(2);
+  }
+
+  @Test
+  public void testFlush_rejectedAttemptsExhausted() throws Exception {
+    val response = createResponse(null, TOO_MANY_REQUESTS);
+    when(future.actionGet()).thenReturn(response);
+    writeDocuments();
+
+    try {
+      writer.flush();
+      fail("Expected rejected documents to fail the import");
+    } catch (DownloadImportException e) {
+      // Expected
+    }
+
+    captureRequests(MAX_REJECTED_ATTEMPTS);
+  }
+
+  @Test
+  public void testFlush_failed() throws Exception {
+    val response = createResponse(BAD_REQUEST, null);
+    when(future.actionGet()).thenReturn(response);
+    writeDocuments();
+
+    try {
+      writer.flush();
+      fail("Expected failed documents to fail the import");
+    } catch (DownloadImportException e) {
+      // Expected
+    }
+
+    // Failures other than rejections are not retried
+    captureRequests(1);
+  }
+
+  private void writeDocuments() throws Exception {
+    writer.write(createDocument("DO1"));
+    writer.write(createDocument("DO2"));
+  }
+
+  private BulkRequest[] captureRequests(int count) {
+    val requests = ArgumentCaptor.forClass(BulkRequest.class);
+    verify(client, times(count)).bulk(requests.capture());
+
+    return requests.getAllValues().toArray(new BulkRequest[count]);
+  }
+
+  /**
+   * @param statuses status of each item. {@code null} if it succeeded
+   */
+  private static BulkResponse createResponse(RestStatus... statuses) {
+    val items = new BulkItemResponse[statuses.length];
+    boolean failures = false;
+    for (int i = 0; i < statuses.length; i++) {
+      val item = mock(BulkItemResponse.class);
+      when(item.getItemId()).thenReturn(i);
+      if (statuses[i] != null) {
+        val failure = mock(Failure.class);
+        when(failure.getStatus()).thenReturn(statuses[i]);
+        when(item.isFailed()).thenReturn(true);
+        when(item.getFailure()).thenReturn(failure);
+        failures = true;
+      }
+
+      items[i] = item;
+    }
+
+    val response = mock(BulkResponse.class);
+    when(response.getItems()).thenReturn(items);
+    when(response.hasFailures()).thenReturn(failures);
+    when(response.buildFailureMessage()).thenReturn("failure");
+
+    return response;
+  }
+
+  private static RawDocument createDocument(String id) {
+    return new RawDocument(id, "{}".getBytes(UTF_8), new DefaultDocumentType("donor"));
+  }
+
+}
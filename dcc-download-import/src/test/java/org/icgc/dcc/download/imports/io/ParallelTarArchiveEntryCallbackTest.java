@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.test.json.JsonNodes.$;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import lombok.val;
+
+import org.icgc.dcc.dcc.common.es.model.Document;
+import org.icgc.dcc.download.imports.core.DefaultDocumentType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ParallelTarArchiveEntryCallbackTest {
+
+  private static final ObjectNode SETTINGS = (ObjectNode) $("{'index.number_of_shards':1}");
+  private static final ObjectNode SOURCE = (ObjectNode) $("{_donor_id:'DO1'}");
+
+  @Mock
+  TarArchiveEntryCallback first;
+  @Mock
+  TarArchiveEntryCallback second;
+
+  ParallelTarArchiveEntryCallback callback;
+
+  @Before
+  public void setUp() {
+    callback = new ParallelTarArchiveEntryCallback(ImmutableList.of(first, second));
+  }
+
+  @Test
+  public void testOnDocument() throws Exception {
+    callback.onSettings(SETTINGS);
+    for (int i = 0; i < 100; i++) {
+      callback.onDocument(createDocument("DO" + i));
+    }
+    callback.close();
+
+    verify(first).onSettings(SETTINGS);
+    verify(second, never()).onSettings(any());
+    verify(first).close();
+    verify(second).close();
+
+    val firstDocuments = ArgumentCaptor.forClass(Document.class);
+    val secondDocuments = ArgumentCaptor.forClass(Document.class);
+    verify(first, atLeast(0)).onDocument(firstDocuments.capture());
+    verify(second, atLeast(0)).onDocument(secondDocuments.capture());
+
+    val documents = ImmutableList.<Document> builder()
+        .addAll(firstDocuments.getAllValues())
+        .addAll(secondDocuments.getAllValues())
+        .build();
+    assertThat(documents).hasSize(100).doesNotHaveDuplicates();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testOnDocument_failure() throws Exception {
+    doThrow(new IllegalStateException()).when(first).onDocument(any());
+    doThrow(new IllegalStateException()).when(second).onDocument(any());
+
+    callback.onDocument(createDocument("DO1"));
+    callback.close();
+  }
+
+  private static Document createDocument(String id) {
+    return new Document(id, SOURCE, new DefaultDocumentType("donor"));
+  }
+
+}
@@ -17,14 +17,17 @@
  */
 package org.icgc.dcc.download.imports.io;
 
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.icgc.dcc.common.test.json.JsonNodes.$;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import lombok.val;
 
-import org.icgc.dcc.dcc.common.es.core.DocumentWriter;
 import org.icgc.dcc.dcc.common.es.model.Document;
 import org.icgc.dcc.download.imports.core.DefaultDocumentType;
+import org.icgc.dcc.download.imports.core.RawDocument;
 import org.icgc.dcc.download.imports.service.IndexService;
 import org.icgc.dcc.release.core.document.DocumentType;
 import org.junit.Test;
@@ -39,10 +42,10 @@ public class ReleaseTarArchiveEntryCallbackTest {
 
   private static final ObjectNode DO1_SOURCE = (ObjectNode) $("{_donor_id:'DO1',_project_id:'TST1-CA'}");
 
-  @Mock
-  DocumentWriter documentWriter;
   @Mock
   IndexService indexService;
+  @Mock
+  RawDocumentWriter rawDocumentWriter;
 
   ReleaseTarArchiveEntryCallback callback;
 
@@ -50,41 +53,79 @@ public class ReleaseTarArchiveEntryCallbackTest {
   public void testOnDocument_noProject() throws Exception {
     callback = createCallback(null);
 
-    val document = createEsDocument();
-    callback.onDocument(document);
+    callback.onDocument(createEsDocument());
 
-    verify(documentWriter).write(document);
+    verify(rawDocumentWriter).write(any(RawDocument.class));
   }
 
   @Test
   public void testOnDocument_withProject() throws Exception {
     callback = createCallback("TST1-CA");
 
-    val document = createEsDocument();
-    callback.onDocument(document);
+    callback.onDocument(createEsDocument());
 
-    verify(documentWriter).write(document);
+    verify(rawDocumentWriter).write(any(RawDocument.class));
   }
 
   @Test
   public void testOnDocument_otherProject() throws Exception {
     callback = createCallback("fake");
 
-    val document = createEsDocument();
-    callback.onDocument(document);
+    callback.onDocument(createEsDocument());
 
-    verify(documentWriter, times(0)).write(document);
+    verify(rawDocumentWriter, times(0)).write(any(RawDocument.class));
+  }
+
+  @Test
+  public void testIsRawDocumentSupported() throws Exception {
+    assertThat(createCallback(null).isRawDocumentSupported()).isTrue();
+    assertThat(createCallback("TST1-CA").isRawDocumentSupported()).isTrue();
+  }
+
+  @Test
+  public void testOnRawDocument() throws Exception {
+    callback = createCallback(null);
+
+    val document = createRawDocument();
+    callback.onRawDocument(document);
+
+    verify(rawDocumentWriter).write(document);
+  }
+
+  @Test
+  public void testOnRawDocument_withProject() throws Exception {
+    callback = createCallback("TST1-CA");
+
+    val document = createRawDocument();
+    callback.onRawDocument(document);
+
+    verify(rawDocumentWriter).write(document);
+  }
+
+  @Test
+  public void testOnRawDocument_otherProject() throws Exception {
+    callback = createCallback("fake");
+
+    val document = createRawDocument();
+    callback.onRawDocument(document);
+
+    verify(rawDocumentWriter, times(0)).write(document);
   }
 
   private ReleaseTarArchiveEntryCallback createCallback(String project) {
     return new ReleaseTarArchiveEntryCallback(
         false,
-        documentWriter,
         indexService,
+        rawDocumentWriter,
         project,
         DocumentType.DONOR_TYPE);
   }
 
+  private static RawDocument createRawDocument() {
+    return new RawDocument("DO1", DO1_SOURCE.toString().getBytes(UTF_8),
+        new DefaultDocumentType(DocumentType.DONOR_TYPE.getName()));
+  }
+
   private static Document createEsDocument() {
     return new Document("DO1", DO1_SOURCE, new DefaultDocumentType(DocumentType.DONOR_TYPE.getName()));
   }
@@ -17,13 +17,19 @@
  */
 package org.icgc.dcc.download.imports.io;
 
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.icgc.dcc.common.test.json.JsonNodes.$;
 import static org.icgc.dcc.download.imports.util.Tests.REPOSITORY_INPUT_FILE;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.FileInputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.zip.GZIPInputStream;
 
 import lombok.Cleanup;
@@ -31,9 +37,11 @@ import lombok.val;
 
 import org.icgc.dcc.dcc.common.es.model.Document;
 import org.icgc.dcc.download.imports.core.DefaultDocumentType;
+import org.icgc.dcc.download.imports.core.RawDocument;
 import org.icgc.dcc.release.core.document.DocumentType;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -67,6 +75,82 @@ public class TarArchiveDocumentReaderTest {
     verify(callback).onDocument(new Document("G2", G2_NODE, docType));
   }
 
+  @Test
+  public void testPeekIndexName() throws Exception {
+    @Cleanup
+    val input = new GZIPInputStream(new FileInputStream(RELEASE_INPUT_FILE));
+    reader = new TarArchiveDocumentReader(input);
+    assertThat(reader.peekIndexName()).isEqualTo("icgc21-0-0");
+    reader.read(callback);
+
+    // The peeked entry is still processed
+    verify(callback).onSettings(any());
+    verify(callback, times(2)).onDocument(any());
+  }
+
+  @Test
+  public void testRead_skipDocuments() throws Exception {
+    @Cleanup
+    val input = new GZIPInputStream(new FileInputStream(RELEASE_INPUT_FILE));
+    reader = new TarArchiveDocumentReader(input);
+    reader.read(callback, 1);
+
+    val docType = new DefaultDocumentType(TYPE.getName());
+    verify(callback).onSettings(any());
+    verify(callback).onMapping(eq(TYPE.getName()), any());
+    verify(callback, never()).onDocument(new Document("G1", G1_NODE, docType));
+    verify(callback).onDocument(new Document("G2", G2_NODE, docType));
+  }
+
+  @Test
+  public void testRead_parallel() throws Exception {
+    @Cleanup
+    val input = new GZIPInputStream(new FileInputStream(RELEASE_INPUT_FILE));
+    reader = new TarArchiveDocumentReader(input, 4);
+    val documents = new ConcurrentLinkedQueue<Document>();
+    reader.read(new TarArchiveEntryCallback() {
+
+      @Override
+      public void onSettings(ObjectNode settings) {
+      }
+
+      @Override
+      public void onMapping(String mappingTypeName, ObjectNode mapping) {
+      }
+
+      @Override
+      public void onDocument(Document document) {
+        documents.add(document);
+      }
+
+      @Override
+      public void close() {
+      }
+
+    });
+
+    val docType = new DefaultDocumentType(TYPE.getName());
+    assertThat(documents).containsOnly(new Document("G1", G1_NODE, docType), new Document("G2", G2_NODE, docType));
+  }
+
+  @Test
+  public void testRead_raw() throws Exception {
+    @Cleanup
+    val input = new GZIPInputStream(new FileInputStream(RELEASE_INPUT_FILE));
+    reader = new TarArchiveDocumentReader(input);
+    when(callback.isRawDocumentSupported()).thenReturn(true);
+    reader.read(callback);
+
+    val captor = ArgumentCaptor.forClass(RawDocument.class);
+    verify(callback, times(2)).onRawDocument(captor.capture());
+    verify(callback, never()).onDocument(any());
+
+    val first = captor.getAllValues().get(0);
+    assertThat(first.getId()).isEqualTo("G1");
+    assertThat(first.getType()).isEqualTo(new DefaultDocumentType(TYPE.getName()));
+    assertThat($(new String(first.getSource(), UTF_8))).isEqualTo(G1_NODE);
+  }
+
   @Test
   public void testRead_repository() throws Exception {
     @Cleanup
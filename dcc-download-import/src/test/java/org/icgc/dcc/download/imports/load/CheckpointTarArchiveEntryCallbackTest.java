@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.load;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import lombok.val;
+
+import org.icgc.dcc.download.imports.core.Checkpoint;
+import org.icgc.dcc.download.imports.core.DefaultDocumentType;
+import org.icgc.dcc.download.imports.core.DownloadImportException;
+import org.icgc.dcc.download.imports.core.RawDocument;
+import org.icgc.dcc.download.imports.io.TarArchiveEntryCallback;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CheckpointTarArchiveEntryCallbackTest {
+
+  private static final String ENTRY = "icgc21-0-0_donor.tar.gz";
+  private static final RawDocument DOCUMENT =
+      new RawDocument("DO1", "{}".getBytes(UTF_8), new DefaultDocumentType("donor"));
+
+  @Mock
+  TarArchiveEntryCallback delegate;
+
+  ImportCheckpoint checkpoint;
+  CheckpointTarArchiveEntryCallback callback;
+
+  @Before
+  public void setUp() {
+    checkpoint = new ImportCheckpoint(null, 2, new Checkpoint());
+    callback = new CheckpointTarArchiveEntryCallback(delegate, checkpoint, ENTRY, 0);
+  }
+
+  @Test
+  public void testOnRawDocument() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      callback.onRawDocument(DOCUMENT);
+    }
+
+    val order = inOrder(delegate);
+    order.verify(delegate, times(2)).onRawDocument(DOCUMENT);
+    order.verify(delegate).flush();
+    order.verify(delegate, times(2)).onRawDocument(DOCUMENT);
+    order.verify(delegate).flush();
+    verify(delegate, times(5)).onRawDocument(DOCUMENT);
+
+    // Lags by one interval
+    assertThat(checkpoint.getIndexedDocuments(ENTRY)).isEqualTo(2);
+  }
+
+  @Test
+  public void testOnRawDocument_flushFailed() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      callback.onRawDocument(DOCUMENT);
+    }
+
+    doThrow(new DownloadImportException("Rejected")).when(delegate).flush();
+    callback.onRawDocument(DOCUMENT);
+    try {
+      callback.onRawDocument(DOCUMENT);
+      fail("Expected flush to fail");
+    } catch (DownloadImportException e) {
+      // Expected
+    }
+
+    assertThat(checkpoint.getIndexedDocuments(ENTRY)).isEqualTo(2);
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import lombok.val;
+
+import org.icgc.dcc.download.imports.core.Checkpoint;
+import org.icgc.dcc.download.imports.core.DownloadImportException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ImportCheckpointTest {
+
+  private static final File INPUT_FILE = new File("release.tar");
+  private static final String ENTRY = "icgc21-0-0_donor.tar.gz";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  File checkpointFile;
+
+  @Before
+  public void setUp() {
+    checkpointFile = new File(tmp.getRoot(), "release.tar.checkpoint");
+  }
+
+  @Test
+  public void testComplete() throws Exception {
+    ImportCheckpoint.create(checkpointFile, INPUT_FILE, false).complete(ENTRY);
+
+    val checkpoint = ImportCheckpoint.create(checkpointFile, INPUT_FILE, true);
+    assertThat(checkpoint.isCompleted(ENTRY)).isTrue();
+    assertThat(checkpoint.isCompleted("icgc21-0-0_gene.tar.gz")).isFalse();
+  }
+
+  @Test
+  public void testOnIndexed() throws Exception {
+    val checkpoint = new ImportCheckpoint(checkpointFile, 10, new Checkpoint());
+    for (int ordinal = 1; ordinal <= 25; ordinal++) {
+      if (checkpoint.isDue(ordinal)) {
+        checkpoint.onIndexed(ENTRY, ordinal);
+      }
+    }
+
+    // Lags by one interval
+    assertThat(checkpoint.getIndexedDocuments(ENTRY)).isEqualTo(10);
+    assertThat(checkpoint.getIndexedDocuments("other")).isEqualTo(0);
+
+    checkpoint.onIndexed(ENTRY, 10);
+    assertThat(checkpoint.getIndexedDocuments(ENTRY)).isEqualTo(10);
+  }
+
+  @Test
+  public void testComplete_saveFailed() throws Exception {
+    val unwritableFile = new File(new File(tmp.getRoot(), "missing"), "release.tar.checkpoint");
+    val checkpoint = ImportCheckpoint.create(unwritableFile, INPUT_FILE, false);
+    checkpoint.complete(ENTRY);
+
+    assertThat(checkpoint.isCompleted(ENTRY)).isTrue();
+    assertThat(unwritableFile).doesNotExist();
+  }
+
+  @Test
+  public void testCreate_noResume() throws Exception {
+    ImportCheckpoint.create(checkpointFile, INPUT_FILE, false).complete(ENTRY);
+
+    val checkpoint = ImportCheckpoint.create(checkpointFile, INPUT_FILE, false);
+    assertThat(checkpoint.isCompleted(ENTRY)).isFalse();
+  }
+
+  @Test(expected = DownloadImportException.class)
+  public void testCreate_otherFile() throws Exception {
+    ImportCheckpoint.create(checkpointFile, INPUT_FILE, false).complete(ENTRY);
+    ImportCheckpoint.create(checkpointFile, new File("repository.tar.gz"), true);
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    val checkpoint = ImportCheckpoint.create(checkpointFile, INPUT_FILE, false);
+    checkpoint.complete(ENTRY);
+    assertThat(checkpointFile).exists();
+
+    checkpoint.delete();
+    assertThat(checkpointFile).doesNotExist();
+  }
+
+}
@@ -17,19 +17,27 @@
  */
 package org.icgc.dcc.download.imports.load;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.icgc.dcc.download.imports.util.Tests.RELEASE_FILE;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+
+import lombok.val;
+
 import org.icgc.dcc.download.imports.io.TarArchiveDocumentReaderFactory;
 import org.icgc.dcc.download.imports.io.TarArchiveEntryCallback;
 import org.icgc.dcc.download.imports.io.TarArchiveEntryContext;
 import org.icgc.dcc.download.imports.io.TarArchiveEntryCallbackFactory;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -43,6 +51,8 @@ public class ReleaseFileLoaderTest {
   TarArchiveDocumentReaderFactory readerFactory = TarArchiveDocumentReaderFactory.create();
   @Mock
   TarArchiveEntryCallback callback;
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
 
   ReleaseFileLoader loader;
 
@@ -63,4 +73,25 @@ public class ReleaseFileLoaderTest {
     verify(callback, times(2)).close();
   }
 
+  @Test
+  public void testResolveIndexName() throws Exception {
+    assertThat(loader.resolveIndexName(RELEASE_FILE)).isEqualTo("icgc21-0-0");
+  }
+
+  @Test
+  public void testLoadFile_resume() throws Exception {
+    val checkpointFile = new File(tmp.getRoot(), "release.tar.checkpoint");
+    val checkpoint = ImportCheckpoint.create(checkpointFile, RELEASE_FILE, false);
+    checkpoint.complete("icgc21-0-0_donor.tar.gz");
+
+    loader = new ReleaseFileLoader(PROJECT, callbackFactory, readerFactory,
+        ImportCheckpoint.create(checkpointFile, RELEASE_FILE, true));
+    loader.loadFile(RELEASE_FILE);
+
+    verify(callback).onSettings(any());
+    verify(callback, never()).onMapping(eq("donor"), any());
+    verify(callback).onMapping(eq("mutation-centric"), any());
+    verify(callback).close();
+  }
+
 }
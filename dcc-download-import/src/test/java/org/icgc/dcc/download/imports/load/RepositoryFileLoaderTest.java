@@ -17,6 +17,7 @@
  */
 package org.icgc.dcc.download.imports.load;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.icgc.dcc.download.imports.util.Tests.REPOSITORY_FILE;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -60,4 +61,10 @@ public class RepositoryFileLoaderTest {
     verify(callback, times(2)).onDocument(any());
     verify(callback).close();
   }
+
+  @Test
+  public void testResolveIndexName() throws Exception {
+    assertThat(loader.resolveIndexName(REPOSITORY_FILE)).isEqualTo("icgc-repository");
+  }
+
 }
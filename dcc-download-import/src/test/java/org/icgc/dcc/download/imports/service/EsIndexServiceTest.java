@@ -21,6 +21,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.icgc.dcc.common.core.json.Jackson.asObjectNode;
 import static org.icgc.dcc.common.test.json.JsonNodes.$;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
@@ -42,13 +43,18 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.tlrx.elasticsearch.test.annotations.ElasticsearchClient;
 import com.github.tlrx.elasticsearch.test.annotations.ElasticsearchNode;
 import com.github.tlrx.elasticsearch.test.support.junit.runners.ElasticsearchRunner;
+import com.google.common.collect.ImmutableList;
 
 @RunWith(ElasticsearchRunner.class)
-public class IndexServiceTest {
+public class EsIndexServiceTest {
 
   private static final ObjectNode DONOR_MAPPING = asObjectNode($("{donor:{_source:{compress:true}}}"));
   private static final ObjectNode SETTINGS = asObjectNode($("{'index.store.compress.stored':true}"));
+  private static final ObjectNode BULK_LOAD_SETTINGS =
+      asObjectNode($("{index:{refresh_interval:'30s',number_of_replicas:1}}"));
   private static final String INDEX_NAME = "icgc21-test";
+  private static final String PREVIOUS_INDEX_NAME = "icgc20-test";
+  private static final String ALIAS = "icgc-release";
   private static final String INDEX_TYPE = "donor";
 
   @ElasticsearchNode
@@ -56,24 +62,52 @@ public class IndexServiceTest {
   @ElasticsearchClient
   private Client client;
 
-  private IndexService service;
+  private EsIndexService service;
 
   @Before
   public void before() {
-    service = new IndexService(INDEX_NAME, client);
+    service = new EsIndexService(INDEX_NAME, client);
   }
 
   @After
   public void tearDown() throws Exception {
-    client.admin().indices()
+    val indexClient = client.admin().indices();
+    indexClient
         .delete(new DeleteIndexRequest(INDEX_NAME))
         .actionGet();
+
+    if (indexClient.prepareExists(PREVIOUS_INDEX_NAME).get().isExists()) {
+      indexClient
+          .delete(new DeleteIndexRequest(PREVIOUS_INDEX_NAME))
+          .actionGet();
+    }
   }
 
   @Test(expected = DownloadImportException.class)
   public void indexServiceTest_duplicateSettings() {
     service.applySettings(SETTINGS);
+    new EsIndexService(INDEX_NAME, client).applySettings(SETTINGS);
+  }
+
+  @Test
+  public void indexServiceTest_settingsAppliedOnce() throws Exception {
+    service.applySettings(SETTINGS);
+    service.applySettings(asObjectNode($("{'index.store.compress.stored':false}")));
+
+    verifySettings(client.admin().indices());
+  }
+
+  @Test
+  public void indexServiceTest_resume() throws Exception {
+    service.applySettings(SETTINGS);
+
+    service = new EsIndexService(INDEX_NAME, false, true, client);
     service.applySettings(SETTINGS);
+    service.applyMapping(INDEX_TYPE, DONOR_MAPPING);
+
+    val indexClient = client.admin().indices();
+    verifySettings(indexClient);
+    verifyMapping(indexClient);
   }
 
   @Test
@@ -86,6 +120,45 @@ public class IndexServiceTest {
     verifyMapping(indexClient);
   }
 
+  @Test
+  public void indexServiceTest_bulkLoad() throws Exception {
+    val indexClient = client.admin().indices();
+    indexClient.prepareCreate(PREVIOUS_INDEX_NAME).get();
+    indexClient.prepareAliases().addAlias(PREVIOUS_INDEX_NAME, ALIAS).get();
+
+    service = new EsIndexService(INDEX_NAME, true, false, client);
+    service.applySettings(BULK_LOAD_SETTINGS);
+    service.applyMapping(INDEX_TYPE, DONOR_MAPPING);
+
+    // Tuned for loading and not visible yet
+    assertThat(getSetting(indexClient, "index.refresh_interval")).isEqualTo("-1");
+    assertThat(getSetting(indexClient, "index.number_of_replicas")).isEqualTo("0");
+    assertThat(getAliasedIndices(indexClient)).containsOnly(PREVIOUS_INDEX_NAME);
+
+    service.finish();
+
+    assertThat(getSetting(indexClient, "index.refresh_interval")).isEqualTo("30s");
+    assertThat(getSetting(indexClient, "index.number_of_replicas")).isEqualTo("1");
+    assertThat(getAliasedIndices(indexClient)).containsOnly(INDEX_NAME);
+    verifyMapping(indexClient);
+  }
+
+  @Test
+  public void indexServiceTest_finishNotBulkLoad() throws Exception {
+    service.applySettings(SETTINGS);
+    service.finish();
+
+    assertThat(getAliasedIndices(client.admin().indices())).containsOnly(INDEX_NAME);
+  }
+
+  private static String getSetting(IndicesAdminClient indexClient, String name) throws Exception {
+    return indexClient.getSettings(new GetSettingsRequest().indices(INDEX_NAME)).get().getSetting(INDEX_NAME, name);
+  }
+
+  private static List<String> getAliasedIndices(IndicesAdminClient indexClient) {
+    return ImmutableList.copyOf(indexClient.prepareGetAliases(ALIAS).get().getAliases().keysIt());
+  }
+
   private void verifyMapping(IndicesAdminClient indexClient) throws Exception {
     val mappingResponse = indexClient.getMappings(new GetMappingsRequest().indices(INDEX_NAME).types(INDEX_TYPE)).get();
     val mappings = mappingResponse.mappings();
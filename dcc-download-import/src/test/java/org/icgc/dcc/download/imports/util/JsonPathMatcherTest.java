@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.test.json.JsonNodes.$;
+import lombok.val;
+
+import org.junit.Test;
+
+public class JsonPathMatcherTest {
+
+  @Test
+  public void testMatches_empty() throws Exception {
+    val matcher = JsonPathMatcher.compile("path");
+    assertThat(matcher.matches(bytes("{}"), "a")).isFalse();
+  }
+
+  @Test
+  public void testMatches_one_level() throws Exception {
+    val matcher = JsonPathMatcher.compile("path");
+    assertThat(matcher.matches(bytes("{other:'b',path:'a'}"), "a")).isTrue();
+    assertThat(matcher.matches(bytes("{path:'b'}"), "a")).isFalse();
+  }
+
+  @Test
+  public void testMatches_two_levels() throws Exception {
+    val matcher = JsonPathMatcher.compile("nested.path");
+    assertThat(matcher.matches(bytes("{path:'b',nested:{path:'a'}}"), "a")).isTrue();
+    assertThat(matcher.matches(bytes("{path:'a',nested:{other:'a'}}"), "a")).isFalse();
+  }
+
+  @Test
+  public void testMatches_array() throws Exception {
+    val matcher = JsonPathMatcher.compile("nested.path");
+    assertThat(matcher.matches(bytes("{nested:{path:['b','a']}}"), "a")).isTrue();
+    assertThat(matcher.matches(bytes("{nested:{path:['b','c']}}"), "a")).isFalse();
+  }
+
+  @Test
+  public void testMatches_array_in_middle() throws Exception {
+    val matcher = JsonPathMatcher.compile("one.two.three");
+    assertThat(matcher.matches(bytes("{one:{two:[{three:'b'},{},{x:{three:'a'}},{three:'a'}]}}"), "a")).isTrue();
+    assertThat(matcher.matches(bytes("{one:{two:[{three:'b'},{},{x:{three:'a'}}]}}"), "a")).isFalse();
+  }
+
+  @Test
+  public void testMatches_non_text() throws Exception {
+    val matcher = JsonPathMatcher.compile("path");
+    assertThat(matcher.matches(bytes("{path:{a:'a'}}"), "a")).isFalse();
+    assertThat(matcher.matches(bytes("{path:null}"), "null")).isFalse();
+  }
+
+  @Test
+  public void testMatches_node() throws Exception {
+    val matcher = JsonPathMatcher.compile("donor.project._project_id");
+    val source = $("{_gene_id:'G1',donor:[{project:{_project_id:'P1'}},{project:{_project_id:'P2'}}]}");
+    assertThat(matcher.matches(source, "P2")).isTrue();
+    assertThat(matcher.matches(source, "P3")).isFalse();
+  }
+
+  private static byte[] bytes(String json) {
+    return $(json).toString().getBytes(UTF_8);
+  }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.imports.util;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.Cleanup;
+import lombok.val;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class ReadAheadInputStreamTest {
+
+  @Test
+  public void testRead() throws Exception {
+    val bytes = new byte[100_000];
+    new Random(1).nextBytes(bytes);
+
+    @Cleanup
+    val input = new ReadAheadInputStream(new ByteArrayInputStream(bytes), 1024, 4);
+    assertThat(input.read()).isEqualTo(bytes[0] & 0xff);
+    val rest = ByteStreams.toByteArray(input);
+
+    assertThat(rest).hasSize(bytes.length - 1);
+    assertThat(rest[0]).isEqualTo(bytes[1]);
+    assertThat(rest[rest.length - 1]).isEqualTo(bytes[bytes.length - 1]);
+    assertThat(input.read()).isEqualTo(-1);
+  }
+
+  @Test
+  public void testRead_bufferMultiple() throws Exception {
+    @Cleanup
+    val input = new ReadAheadInputStream(new ByteArrayInputStream(new byte[2048]), 1024, 2);
+
+    assertThat(ByteStreams.toByteArray(input)).hasSize(2048);
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_failure() throws Exception {
+    @Cleanup
+    val input = new ReadAheadInputStream(new InputStream() {
+
+      @Override
+      public int read() throws IOException {
+        throw new IOException("Broken");
+      }
+
+    }, 1024, 2);
+
+    input.read();
+  }
+
+  @Test
+  public void testClose_unread() throws Exception {
+    val input = new ReadAheadInputStream(new ByteArrayInputStream(new byte[100_000]), 1024, 2);
+    input.read();
+    input.close();
+  }
+
+  @Test
+  public void testClose_whileReading() throws Exception {
+    val reading = new CountDownLatch(1);
+    val release = new CountDownLatch(1);
+    val sourceClosed = new AtomicBoolean();
+    val closedWhileReading = new AtomicBoolean();
+    InputStream source = new InputStream() {
+
+      volatile boolean inRead;
+
+      @Override
+      public int read() throws IOException {
+        return read(new byte[1], 0, 1);
+      }
+
+      @Override
+      public int read(byte[] bytes, int offset, int length) {
+        inRead = true;
+        reading.countDown();
+        awaitUninterruptibly(release);
+        inRead = false;
+
+        return length;
+      }
+
+      @Override
+      public void close() {
+        closedWhileReading.compareAndSet(false, inRead);
+        sourceClosed.set(true);
+      }
+
+    };
+
+    val input = new ReadAheadInputStream(source, 1024, 2);
+    assertThat(reading.await(10, SECONDS)).isTrue();
+    CompletableFuture<Void> closing = CompletableFuture.runAsync(() -> {
+      try {
+        input.close();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    try {
+      closing.get(200, MILLISECONDS);
+      fail("Closed while the source was being read");
+    } catch (TimeoutException e) {
+      // Expected
+    }
+    assertThat(sourceClosed.get()).isFalse();
+
+    release.countDown();
+    closing.get(10, SECONDS);
+    assertThat(sourceClosed.get()).isTrue();
+    assertThat(closedWhileReading.get()).isFalse();
+  }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+
+/**
+ * Copies a file read sequentially from HDFS to a temporary file of the {@link PartFileCache}. The file is committed to
+ * the cache once it was read to the end. Seeking, skipping or closing before the end abandons the copy.
+ */
+@Slf4j
+class CachingInputStream extends FSInputStream {
+
+  /**
+   * Dependencies.
+   */
+  private final FSDataInputStream delegate;
+  private final PartFileCache cache;
+
+  /**
+   * Configuration.
+   */
+  private final String key;
+  private final File tempFile;
+  private final long length;
+
+  /**
+   * State.
+   */
+  private OutputStream cacheOutput;
+  private long copied;
+
+  CachingInputStream(@NonNull FSDataInputStream delegate, @NonNull PartFileCache cache, @NonNull String key,
+      @NonNull File tempFile, long length) throws IOException {
+    this.delegate = delegate;
+    this.cache = cache;
+    this.key = key;
+    this.tempFile = tempFile;
+    this.length = length;
+    this.cacheOutput = new BufferedOutputStream(new FileOutputStream(tempFile));
+  }
+
+  @Override
+  public int read() throws IOException {
+    int value = delegate.read();
+    if (value < 0) {
+      finish();
+    } else if (cacheOutput != null) {
+      copy(new byte[] { (byte) value }, 0, 1);
+    }
+
+    return value;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    int n = delegate.read(buffer, offset, length);
+    if (n < 0) {
+      finish();
+    } else if (n > 0 && cacheOutput != null) {
+      copy(buffer, offset, n);
+    }
+
+    return n;
+  }
+
+  @Override
+  public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+    return delegate.read(position, buffer, offset, length);
+  }
+
+  @Override
+  public void readFully(long position, byte[] buffer, int offset, int length) throws IOException {
+    delegate.readFully(position, buffer, offset, length);
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (n > 0) {
+      abandon();
+    }
+
+    return delegate.skip(n);
+  }
+
+  @Override
+  public int available() throws IOException {
+    return delegate.available();
+  }
+
+  @Override
+  public void seek(long position) throws IOException {
+    if (position != delegate.getPos()) {
+      abandon();
+    }
+
+    delegate.seek(position);
+  }
+
+  @Override
+  public long getPos() throws IOException {
+    return delegate.getPos();
+  }
+
+  @Override
+  public boolean seekToNewSource(long targetPosition) throws IOException {
+    return delegate.seekToNewSource(targetPosition);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      finish();
+    } finally {
+      delegate.close();
+    }
+  }
+
+  private void copy(byte[] buffer, int offset, int count) {
+    try {
+      cacheOutput.write(buffer, offset, count);
+      copied += count;
+    } catch (IOException e) {
+      log.warn("Failed to write cache file '{}': {}", tempFile, e.getMessage());
+      abandon();
+    }
+  }
+
+  private void finish() {
+    if (cacheOutput == null) {
+      return;
+    }
+
+    if (copied != length) {
+      abandon();
+      return;
+    }
+
+    if (closeCacheOutput()) {
+      cache.commit(key, tempFile, length);
+    } else {
+      cache.abort(key, tempFile);
+    }
+  }
+
+  private void abandon() {
+    if (cacheOutput != null) {
+      closeCacheOutput();
+      cache.abort(key, tempFile);
+    }
+  }
+
+  private boolean closeCacheOutput() {
+    try {
+      cacheOutput.close();
+
+      return true;
+    } catch (IOException e) {
+      log.warn("Failed to close cache file '{}': {}", tempFile, e.getMessage());
+
+      return false;
+    } finally {
+      cacheOutput = null;
+    }
+  }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.cache;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.icgc.dcc.download.server.config.Properties.CacheProperties;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+
+/**
+ * Read-through local disk cache of the files streamed to the downloads, e.g. the part files of the data types.
+ * <p>
+ * Files are keyed by path, length and modification time, so a rewritten file is never served stale. A file is loaded
+ * while it is streamed from HDFS once it was read {@code minAccesses} times within {@code accessWindowMinutes}, so
+ * one-off reads don't evict the hot files. The length of a file is reserved when it starts loading, evicting the least
+ * recently used files, so the cached and the loading files never exceed {@code maxBytes}.<br>
+ * <br>
+ * The index is kept in memory. Files left by a previous run are deleted on startup.
+ */
+@Slf4j
+public class PartFileCache implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "cache.";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final Pattern CACHE_FILE_PATTERN = Pattern.compile("[0-9a-f]{40}(\\" + TEMP_SUFFIX + ")?");
+  private static final int MAX_TRACKED_FILES = 100_000;
+
+  /**
+   * Configuration.
+   */
+  private final boolean enabled;
+  private final File dir;
+  private final long maxBytes;
+  private final long maxFileBytes;
+  private final int minAccesses;
+
+  /**
+   * Dependencies.
+   */
+  private final FileSystem localFileSystem;
+
+  /**
+   * State. Guarded by {@code this}.
+   */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private final Map<String, Long> loading = Maps.newHashMap();
+  private long bytes;
+  private long loadingBytes;
+
+  /**
+   * State.
+   */
+  private final LoadingCache<String, AtomicInteger> accesses;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loaded = new LongAdder();
+  private final LongAdder evicted = new LongAdder();
+  private final LongAdder hitBytes = new LongAdder();
+
+  @SneakyThrows
+  public PartFileCache(@NonNull CacheProperties properties) {
+    this.enabled = properties.isEnabled();
+    this.dir = new File(properties.getDir());
+    this.maxBytes = properties.getMaxBytes();
+    this.maxFileBytes = Math.min(properties.getMaxFileBytes(), properties.getMaxBytes());
+    this.minAccesses = properties.getMinAccesses();
+    this.localFileSystem = FileSystem.getLocal(new Configuration()).getRawFileSystem();
+    this.accesses = CacheBuilder.newBuilder()
+        .maximumSize(MAX_TRACKED_FILES)
+        .expireAfterWrite(properties.getAccessWindowMinutes(), MINUTES)
+        .build(CacheLoader.<String, AtomicInteger> from(key -> new AtomicInteger()));
+
+    if (enabled) {
+      prepareDir();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Opens the file of {@code status} from the cache. On a miss, opens it from {@code fileSystem} and loads it to the
+   * cache while it is read if it is read frequently.
+   */
+  public FSDataInputStream open(@NonNull FileSystem fileSystem, @NonNull FileStatus status, int bufferSize)
+      throws IOException {
+    if (!status.isFile()) {
+      return fileSystem.open(status.getPath(), bufferSize);
+    }
+
+    val key = getKey(status);
+    val cached = openCached(key, bufferSize);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+
+    misses.increment();
+    val input = fileSystem.open(status.getPath(), bufferSize);
+    if (!startLoading(key, status.getLen())) {
+      return input;
+    }
+
+    val tempFile = new File(dir, getFileName(key) + TEMP_SUFFIX);
+    try {
+      return new FSDataInputStream(new CachingInputStream(input, this, key, tempFile, status.getLen()));
+    } catch (IOException e) {
+      log.warn("Failed to create cache file '{}': {}", tempFile, e.getMessage());
+      abort(key, tempFile);
+
+      return input;
+    }
+  }
+
+  /**
+   * Opens the file of {@code status} from the cache if it is cached. A miss is not loaded to the cache, e.g. for the
+   * positional reads of the {@code ParallelFetcher}, which don't read the file sequentially.
+   */
+  public Optional<FSDataInputStream> openCached(@NonNull FileStatus status, int bufferSize) throws IOException {
+    if (!enabled || !status.isFile()) {
+      return Optional.empty();
+    }
+
+    return openCached(getKey(status), bufferSize);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    synchronized (this) {
+      metrics.add(new Metric<Integer>(PREFIX + "files", entries.size()));
+      metrics.add(new Metric<Long>(PREFIX + "bytes", bytes));
+      metrics.add(new Metric<Integer>(PREFIX + "loading", loading.size()));
+      metrics.add(new Metric<Long>(PREFIX + "loadingBytes", loadingBytes));
+    }
+
+    metrics.add(new Metric<Long>(PREFIX + "hits", hits.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "hitBytes", hitBytes.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "misses", misses.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "loaded", loaded.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "evicted", evicted.sum()));
+
+    return metrics.build();
+  }
+
+  /**
+   * Adds the fully read {@code tempFile} to the cache in the room reserved for it when it started loading.
+   */
+  synchronized void commit(String key, File tempFile, long length) {
+    val file = new File(dir, getFileName(key));
+    if (!tempFile.renameTo(file)) {
+      log.warn("Failed to rename cache file '{}' to '{}'", tempFile, file);
+      abort(key, tempFile);
+
+      return;
+    }
+
+    loadingBytes -= loading.remove(key);
+    entries.put(key, new Entry(file, length));
+    bytes += length;
+    loaded.increment();
+    log.debug("Cached '{}' in '{}'", key, file);
+  }
+
+  synchronized void abort(String key, File tempFile) {
+    val reserved = loading.remove(key);
+    if (reserved != null) {
+      loadingBytes -= reserved;
+    }
+
+    tempFile.delete();
+  }
+
+  private Optional<FSDataInputStream> openCached(String key, int bufferSize) throws IOException {
+    val entry = getEntry(key);
+    if (entry == null) {
+      return Optional.empty();
+    }
+
+    try {
+      val input = localFileSystem.open(new Path(entry.getFile().getAbsolutePath()), bufferSize);
+      hits.increment();
+      hitBytes.add(entry.getLength());
+
+      return Optional.of(input);
+    } catch (FileNotFoundException e) {
+      log.debug("'{}' was evicted while opening it", key);
+
+      return Optional.empty();
+    }
+  }
+
+  private synchronized Entry getEntry(String key) {
+    return entries.get(key);
+  }
+
+  private boolean startLoading(String key, long length) {
+    if (!enabled || length > maxFileBytes) {
+      return false;
+    }
+
+    if (accesses.getUnchecked(key).incrementAndGet() < minAccesses) {
+      return false;
+    }
+
+    synchronized (this) {
+      // Loaded by a concurrent read
+      if (entries.containsKey(key) || loading.containsKey(key)) {
+        return false;
+      }
+
+      // Reserves the room of the file, so that the temporary files count against the maximum
+      val iterator = entries.values().iterator();
+      while (bytes + loadingBytes + length > maxBytes && iterator.hasNext()) {
+        evict(iterator);
+      }
+
+      if (bytes + loadingBytes + length > maxBytes) {
+        log.debug("Not caching '{}' as the cache is full of loading files", key);
+
+        return false;
+      }
+
+      loading.put(key, length);
+      loadingBytes += length;
+
+      return true;
+    }
+  }
+
+  private void evict(Iterator<Entry> iterator) {
+    val entry = iterator.next();
+    iterator.remove();
+    bytes -= entry.getLength();
+    evicted.increment();
+
+    // Open readers keep reading the deleted file
+    if (!entry.getFile().delete()) {
+      log.warn("Failed to delete evicted cache file '{}'", entry.getFile());
+    }
+  }
+
+  private void prepareDir() throws IOException {
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Failed to create cache directory '" + dir + "'");
+    }
+
+    val files = dir.listFiles();
+    for (val file : files == null ? new File[0] : files) {
+      if (CACHE_FILE_PATTERN.matcher(file.getName()).matches() && !file.delete()) {
+        log.warn("Failed to delete stale cache file '{}'", file);
+      }
+    }
+
+    log.info("Caching files in '{}' up to {} bytes", dir, maxBytes);
+  }
+
+  private static String getKey(FileStatus status) {
+    return status.getPath() + ":" + status.getLen() + ":" + status.getModificationTime();
+  }
+
+  private static String getFileName(String key) {
+    return Hashing.sha1().hashBytes(key.getBytes(UTF_8)).toString();
+  }
+
+  @Value
+  private static class Entry {
+
+    File file;
+    long length;
+
+  }
+
+}
@@ -19,6 +19,10 @@ package org.icgc.dcc.download.server.config;
 
 import static com.google.common.collect.ImmutableList.copyOf;
 import static com.google.common.collect.Iterables.contains;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+import java.util.concurrent.Executor;
+
 import lombok.NoArgsConstructor;
 import lombok.val;
 
@@ -35,6 +39,8 @@ import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConv
 import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
 import org.springframework.web.client.RestTemplate;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 @Configuration
 @NoArgsConstructor
 public class AuthServiceConfig {
@@ -52,11 +58,18 @@ public class AuthServiceConfig {
   String clientId;
   @Value("${auth.server.clientsecret}")
   String clientSecret;
+  @Value("${auth.cache.size:10000}")
+  long cacheSize;
+  @Value("${auth.cache.ttlSeconds:60}")
+  long cacheTtlSeconds;
+  @Value("${auth.cache.staleSeconds:30}")
+  long cacheStaleSeconds;
 
   @Bean
   public AuthService authService() {
     if (isSecureProfile()) {
-      return new AuthServiceImpl(remoteTokenServices());
+      return new AuthServiceImpl(remoteTokenServices(), cacheSize, cacheTtlSeconds, cacheStaleSeconds,
+          refreshExecutor());
     }
 
     // Using the AuthService interface's default implementaion.
@@ -82,6 +95,13 @@ public class AuthServiceConfig {
     return new DefaultAccessTokenConverter();
   }
 
+  private static Executor refreshExecutor() {
+    return newCachedThreadPool(new ThreadFactoryBuilder()
+        .setNameFormat("auth-refresh-%d")
+        .setDaemon(true)
+        .build());
+  }
+
   private static RestTemplate restTemplate() {
     val restTemplate = new RestTemplate();
     restTemplate.setErrorHandler(new AuthResponseErrorHandler());
@@ -26,6 +26,8 @@ import lombok.val;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.icgc.dcc.download.server.config.Properties.HadoopProperties;
+import org.icgc.dcc.download.server.metrics.FileSystemMetrics;
+import org.icgc.dcc.download.server.metrics.InstrumentedFileSystem;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
@@ -46,11 +48,16 @@ public class HadoopConfig {
   private HadoopProperties hadoop;
 
   @Bean
-  public FileSystem fileSystem() throws IOException {
+  public FileSystem fileSystem(FileSystemMetrics fileSystemMetrics) throws IOException {
     val hadoopConfig = new Configuration();
     setAll(hadoopConfig, hadoop.getProperties());
 
-    return FileSystem.get(hadoopConfig);
+    return new InstrumentedFileSystem(FileSystem.get(hadoopConfig), fileSystemMetrics);
+  }
+
+  @Bean
+  public FileSystemMetrics fileSystemMetrics() {
+    return new FileSystemMetrics();
   }
 
   public static void setAll(@NonNull Configuration conf, @NonNull Map<String, String> properties) {
@@ -17,8 +17,11 @@
  */
 package org.icgc.dcc.download.server.config;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 
+import java.io.File;
+import java.util.List;
 import java.util.Map;
 
 import lombok.Data;
@@ -56,6 +59,36 @@ public class Properties {
     return new JwtConfig();
   }
 
+  @Bean
+  @ConfigurationProperties(prefix = "admission")
+  public AdmissionProperties admissionProperties() {
+    return new AdmissionProperties();
+  }
+
+  @Bean
+  @ConfigurationProperties(prefix = "sharing")
+  public SharingProperties sharingProperties() {
+    return new SharingProperties();
+  }
+
+  @Bean
+  @ConfigurationProperties(prefix = "cache")
+  public CacheProperties cacheProperties() {
+    return new CacheProperties();
+  }
+
+  @Bean
+  @ConfigurationProperties(prefix = "hedging")
+  public HedgingProperties hedgingProperties() {
+    return new HedgingProperties();
+  }
+
+  @Bean
+  @ConfigurationProperties(prefix = "fetch")
+  public FetchProperties fetchProperties() {
+    return new FetchProperties();
+  }
+
   @Data
   public static class JobProperties {
 
@@ -83,4 +116,151 @@ public class Properties {
 
   }
 
+  @Data
+  public static class AdmissionProperties {
+
+    /**
+     * Maximum number of concurrent streams of each class.
+     */
+    private int maxJobStreams = 20;
+    private int maxStaticStreams = 50;
+    private int maxExportStreams = 10;
+
+    /**
+     * Maximum number of requests of each class waiting for a stream. Requests over the limit are rejected with 429.
+     */
+    private int maxQueued = 100;
+
+    /**
+     * Maximum time a request waits for a stream. Requests waiting longer are rejected with 503.
+     */
+    private long maxWaitSeconds = 30;
+
+    /**
+     * {@code Retry-After} of the rejected requests.
+     */
+    private long retryAfterSeconds = 60;
+
+    /**
+     * Bandwidth shared by all the streams. Unlimited if not positive.
+     */
+    private long maxBytesPerSecond;
+
+    /**
+     * Per-user limits by user class. Users not listed in any class belong to {@code defaultUserClass}.
+     */
+    private String defaultUserClass = "default";
+    private Map<String, UserClassProperties> userClasses = newLinkedHashMap();
+
+  }
+
+  @Data
+  public static class UserClassProperties {
+
+    /**
+     * Maximum number of concurrent streams of a user. Requests over the limit are rejected with 429.
+     */
+    private int maxStreams = 4;
+
+    /**
+     * Share of the bandwidth of a user relative to the other active users.
+     */
+    private int weight = 1;
+    private List<String> users = newArrayList();
+
+  }
+
+  @Data
+  public static class SharingProperties {
+
+    /**
+     * Share a single HDFS read between identical concurrent static downloads. Each shared read buffers up to
+     * {@code maxBufferBytes} on the heap.
+     */
+    private boolean enabled;
+
+    /**
+     * Maximum number of shared reads at once. Downloads over the limit read on their own.
+     */
+    private int maxStreams = 20;
+
+    /**
+     * Bytes of a shared read buffered for the slower and the late downloads.
+     */
+    private long maxBufferBytes = 64L * 1024 * 1024;
+
+    /**
+     * Maximum time a shared read waits for its slowest download. The download is then detached and continues on its
+     * own.
+     */
+    private long maxStallSeconds = 10;
+
+    /**
+     * Time after the start of a shared read during which identical downloads can join it. Chunks consumed by all the
+     * downloads are then evicted from the buffer.
+     */
+    private long joinWindowSeconds = 5;
+
+  }
+
+  @Data
+  public static class CacheProperties {
+
+    /**
+     * Read the files streamed to the downloads through a local disk cache.
+     */
+    private boolean enabled;
+    private String dir = new File(System.getProperty("java.io.tmpdir"), "dcc-download-cache").getPath();
+    private long maxBytes = 100L * 1024 * 1024 * 1024;
+
+    /**
+     * Larger files are never cached.
+     */
+    private long maxFileBytes = 1024L * 1024 * 1024;
+
+    /**
+     * A file is cached once it was read {@code minAccesses} times within {@code accessWindowMinutes}.
+     */
+    private int minAccesses = 2;
+    private long accessWindowMinutes = 60;
+
+  }
+
+  @Data
+  public static class HedgingProperties {
+
+    /**
+     * Size of the positional reads of the streamed files when the HDFS client hedges reads.
+     */
+    private int chunkBytes = 1024 * 1024;
+
+  }
+
+  @Data
+  public static class FetchProperties {
+
+    /**
+     * Read the part files of a download concurrently and write them in order.
+     */
+    private boolean enabled;
+
+    /**
+     * Maximum number of concurrent reads of a download. Files larger than {@code chunkBytes} are read in chunks of
+     * positional reads.
+     */
+    private int concurrency = 8;
+    private int chunkBytes = 8 * 1024 * 1024;
+
+    /**
+     * Memory of the read buffers of all downloads. Downloads over the budget read without buffering.
+     */
+    private long maxBufferBytes = 512L * 1024 * 1024;
+
+    /**
+     * Maximum number of reading threads of all downloads. Reads over the limit run on the download thread.
+     */
+    private int poolSize = 64;
+
+  }
+
 }
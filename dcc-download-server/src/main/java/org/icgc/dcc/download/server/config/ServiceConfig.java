@@ -26,17 +26,31 @@ import org.apache.hadoop.fs.Path;
 import org.icgc.dcc.download.core.jwt.DefaultJwtService;
 import org.icgc.dcc.download.core.jwt.JwtConfig;
 import org.icgc.dcc.download.core.jwt.JwtService;
+import org.icgc.dcc.download.server.cache.CachingFileSystem;
+import org.icgc.dcc.download.server.cache.PartFileCache;
+import org.icgc.dcc.download.server.config.Properties.AdmissionProperties;
+import org.icgc.dcc.download.server.config.Properties.CacheProperties;
+import org.icgc.dcc.download.server.config.Properties.FetchProperties;
+import org.icgc.dcc.download.server.config.Properties.HedgingProperties;
 import org.icgc.dcc.download.server.config.Properties.JobProperties;
+import org.icgc.dcc.download.server.config.Properties.SharingProperties;
 import org.icgc.dcc.download.server.fs.DownloadFileSystem;
 import org.icgc.dcc.download.server.fs.DownloadFilesReader;
 import org.icgc.dcc.download.server.fs.PathResolver;
 import org.icgc.dcc.download.server.fs.ReleaseView;
 import org.icgc.dcc.download.server.fs.RootView;
+import org.icgc.dcc.download.server.hedging.HedgedReads;
+import org.icgc.dcc.download.server.hedging.HedgingFileSystem;
+import org.icgc.dcc.download.server.io.ParallelFetcher;
+import org.icgc.dcc.download.server.io.SharedStreams;
 import org.icgc.dcc.download.server.repository.DataFilesRepository;
 import org.icgc.dcc.download.server.repository.JobRepository;
 import org.icgc.dcc.download.server.service.ArchiveDownloadService;
 import org.icgc.dcc.download.server.service.ExportsService;
 import org.icgc.dcc.download.server.service.FileSystemService;
+import org.icgc.dcc.download.server.transfer.AdmissionController;
+import org.icgc.dcc.download.server.transfer.TransferTracker;
+import org.icgc.dcc.download.server.transfer.UserThrottle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -59,14 +73,41 @@ public class ServiceConfig {
   public ArchiveDownloadService archiveDownloadService(
       FileSystemService fileSystemService,
       JobRepository jobRepository,
-      DataFilesRepository dataFilesRepository) {
+      DataFilesRepository dataFilesRepository,
+      PartFileCache partFileCache,
+      HedgedReads hedgedReads,
+      ParallelFetcher parallelFetcher) {
+    // The streamers read the part files through the cache, which fills on misses through the hedged reads of the client
+    FileSystem streamingFileSystem = hedgedReads.isEnabled() ?
+        new HedgingFileSystem(fileSystem, hedgedReads) :
+        fileSystem;
+    streamingFileSystem = partFileCache.isEnabled() ?
+        new CachingFileSystem(streamingFileSystem, partFileCache) :
+        streamingFileSystem;
+
     return new ArchiveDownloadService(
         getRootPath(),
         fileSystemService,
-        fileSystem,
+        streamingFileSystem,
         jobRepository,
         dataFilesRepository,
-        pathResolver);
+        pathResolver,
+        parallelFetcher);
+  }
+
+  @Bean
+  public PartFileCache partFileCache(CacheProperties cacheProperties) {
+    return new PartFileCache(cacheProperties);
+  }
+
+  @Bean
+  public HedgedReads hedgedReads(HedgingProperties hedgingProperties) {
+    return new HedgedReads(fileSystem, hedgingProperties);
+  }
+
+  @Bean
+  public ParallelFetcher parallelFetcher(FetchProperties fetchProperties) {
+    return new ParallelFetcher(fetchProperties);
   }
 
   @Bean
@@ -104,6 +145,26 @@ public class ServiceConfig {
     return new ExportsService(fileSystem, exportsPath, new AtomicReference<>(dataDir));
   }
 
+  @Bean
+  public AdmissionController admissionController(AdmissionProperties admissionProperties) {
+    return new AdmissionController(admissionProperties);
+  }
+
+  @Bean
+  public SharedStreams sharedStreams(SharingProperties sharingProperties) {
+    return new SharedStreams(sharingProperties);
+  }
+
+  @Bean
+  public UserThrottle userThrottle(AdmissionProperties admissionProperties) {
+    return new UserThrottle(admissionProperties);
+  }
+
+  @Bean
+  public TransferTracker transferTracker(AdmissionController admissionController, UserThrottle userThrottle) {
+    return new TransferTracker(admissionController, userThrottle);
+  }
+
   @Bean
   public DownloadFilesReader downloadFilesReader() {
     return new DownloadFilesReader(fileSystem, pathResolver);
@@ -19,8 +19,12 @@ package org.icgc.dcc.download.server.endpoint;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
 import static java.util.Locale.ENGLISH;
 import static org.icgc.dcc.common.core.util.Separators.EMPTY_STRING;
+import static org.icgc.dcc.download.server.transfer.TransferType.JOB;
+import static org.icgc.dcc.download.server.transfer.TransferType.STATIC;
 import static org.icgc.dcc.download.server.utils.Requests.checkArgument;
 import static org.icgc.dcc.download.server.utils.Responses.getFileMimeType;
 import static org.icgc.dcc.download.server.utils.Responses.throwBadRequestException;
@@ -30,6 +34,7 @@ import static org.springframework.web.bind.annotation.RequestMethod.GET;
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Optional;
 
 import javax.servlet.http.HttpServletResponse;
@@ -47,7 +52,10 @@ import org.icgc.dcc.download.core.request.SubmitJobRequest;
 import org.icgc.dcc.download.core.response.DataTypeSizesResponse;
 import org.icgc.dcc.download.core.response.JobResponse;
 import org.icgc.dcc.download.server.io.FileStreamer;
+import org.icgc.dcc.download.server.io.SharedStreams;
 import org.icgc.dcc.download.server.service.ArchiveDownloadService;
+import org.icgc.dcc.download.server.transfer.Transfer;
+import org.icgc.dcc.download.server.transfer.TransferTracker;
 import org.icgc.dcc.download.server.utils.Collections;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -67,6 +75,10 @@ public class DownloadController {
   private final ArchiveDownloadService downloadService;
   @NonNull
   private final JwtService tokenService;
+  @NonNull
+  private final TransferTracker transferTracker;
+  @NonNull
+  private final SharedStreams sharedStreams;
 
   @RequestMapping(method = POST)
   public String submitJob(@RequestBody SubmitJobRequest request) {
@@ -96,13 +108,15 @@ public class DownloadController {
       throwForbiddenException();
     }
 
-    val output = response.getOutputStream();
     val downloadDataType = getDownloadDataType(dataType);
+    val transfer = transferTracker.create(JOB, jobId, user, getDataTypeIds(downloadDataType),
+        response.getOutputStream());
+    val output = transfer.getOutput();
     val streamerOpt = downloadDataType.isPresent() ?
         downloadService.getArchiveStreamer(jobId, output, downloadDataType.get()) :
         downloadService.getArchiveStreamer(jobId, output);
 
-    streamArchive(Optional.of(jobId), streamerOpt, response);
+    streamArchive(Optional.of(jobId), streamerOpt, transfer, response);
   }
 
   @CrossOrigin(origins = "*")
@@ -118,9 +132,11 @@ public class DownloadController {
     val filePath = getFsPath(requestPath);
     log.info("Getting download archive for path '{}'", filePath);
 
-    val output = response.getOutputStream();
-    val streamerOpt = downloadService.getStaticArchiveStreamer(filePath, output);
-    streamArchive(Optional.empty(), streamerOpt, response);
+    val transfer = transferTracker.create(STATIC, filePath, tokenPayload.getUser(), emptyList(),
+        response.getOutputStream());
+    Optional<FileStreamer> streamerOpt = sharedStreams.getStreamer(filePath, transfer.getOutput(),
+        output -> downloadService.getStaticArchiveStreamer(filePath, output));
+    streamArchive(Optional.empty(), streamerOpt, transfer, response);
   }
 
   @RequestMapping(value = "/{jobId:.+}/info", method = GET)
@@ -183,6 +199,10 @@ public class DownloadController {
     return Optional.of(DownloadDataType.valueOf(dataType.toUpperCase(ENGLISH)));
   }
 
+  private static Collection<String> getDataTypeIds(Optional<DownloadDataType> dataType) {
+    return dataType.isPresent() ? singleton(dataType.get().getId()) : emptyList();
+  }
+
   private static void checkJobExistence(String jobId, Optional<?> optional) {
     if (!optional.isPresent()) {
       throw new NotFoundException(format("Job '%s' was not found.", jobId));
@@ -198,7 +218,7 @@ public class DownloadController {
     return fsPath.isEmpty() ? "/" : fsPath;
   }
 
-  private static void streamArchive(Optional<String> jobId, Optional<FileStreamer> streamerOpt,
+  private void streamArchive(Optional<String> jobId, Optional<FileStreamer> streamerOpt, Transfer transfer,
       HttpServletResponse response)
       throws IOException {
     if (jobId.isPresent()) {
@@ -215,8 +235,7 @@ public class DownloadController {
     response.setContentType(getFileMimeType(filename));
     response.addHeader(CONTENT_DISPOSITION, "attachment; filename=" + filename);
 
-    streamer.stream();
-    streamer.close();
+    transferTracker.stream(transfer, streamer);
   }
 
 }
@@ -19,8 +19,10 @@ package org.icgc.dcc.download.server.endpoint;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.lang.String.format;
+import static java.util.Collections.emptyList;
 import static org.icgc.dcc.common.core.util.Separators.EMPTY_STRING;
 import static org.icgc.dcc.download.server.model.Export.DATA_CONTROLLED;
+import static org.icgc.dcc.download.server.transfer.TransferType.EXPORT;
 import static org.icgc.dcc.download.server.utils.Responses.getFileMimeType;
 import static org.icgc.dcc.download.server.utils.Responses.throwBadRequestException;
 import static org.icgc.dcc.download.server.utils.Responses.throwForbiddenException;
@@ -32,7 +34,6 @@ import java.util.Optional;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import lombok.Cleanup;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
@@ -42,6 +43,7 @@ import org.icgc.dcc.download.server.model.Export;
 import org.icgc.dcc.download.server.model.MetadataResponse;
 import org.icgc.dcc.download.server.service.AuthService;
 import org.icgc.dcc.download.server.service.ExportsService;
+import org.icgc.dcc.download.server.transfer.TransferTracker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -59,6 +61,8 @@ public class ExportsController {
   private final ExportsService exportsService;
   @NonNull
   private final AuthService authService;
+  @NonNull
+  private final TransferTracker transferTracker;
 
   @RequestMapping(method = GET)
   public MetadataResponse listMetadata(
@@ -90,14 +94,14 @@ public class ExportsController {
       throwForbiddenException();
     }
 
-    @Cleanup
-    val streamer = exportsService.getExportStreamer(export, response.getOutputStream(), Optional.ofNullable(project));
+    val transfer = transferTracker.create(EXPORT, exportId, null, emptyList(), response.getOutputStream());
+    val streamer = exportsService.getExportStreamer(export, transfer.getOutput(), Optional.ofNullable(project));
     val fileName = streamer.getName();
 
     response.setContentType(getFileMimeType(fileName));
 
     log.info("Streaming export ID '{}'...", exportId);
-    streamer.stream();
+    transferTracker.stream(transfer, streamer);
     log.info("Finished streaming export ID '{}'...", exportId);
   }
 
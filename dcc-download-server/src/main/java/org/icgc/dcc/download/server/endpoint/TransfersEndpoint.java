@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.endpoint;
+
+import java.util.List;
+
+import lombok.NonNull;
+
+import org.icgc.dcc.download.server.transfer.Transfer.TransferInfo;
+import org.icgc.dcc.download.server.transfer.TransferTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lists the active download streams. The aggregates of the finished ones are available on the {@code metrics}
+ * endpoint.
+ */
+@Component
+public class TransfersEndpoint extends AbstractEndpoint<List<TransferInfo>> {
+
+  /**
+   * Constants.
+   */
+  private static final String ENDPOINT_ID = "transfers";
+
+  /**
+   * Dependencies.
+   */
+  private final TransferTracker transferTracker;
+
+  @Autowired
+  public TransfersEndpoint(@NonNull TransferTracker transferTracker) {
+    super(ENDPOINT_ID);
+    this.transferTracker = transferTracker;
+  }
+
+  @Override
+  public List<TransferInfo> invoke() {
+    return transferTracker.getActiveTransfers();
+  }
+
+}
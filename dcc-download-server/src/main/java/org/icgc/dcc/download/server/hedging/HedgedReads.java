@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.hedging;
+
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_DFSCLIENT_HEDGED_READ_THREADPOOL_SIZE;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.hdfs.DFSHedgedReadMetrics;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.icgc.dcc.download.server.config.Properties.HedgingProperties;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Configuration and statistics of the hedged reads of the {@link HedgingFileSystem}. The reads are hedged by the HDFS
+ * client, which is configured by the {@code dfs.client.hedged.read.*} Hadoop properties and enabled by a positive
+ * {@code dfs.client.hedged.read.threadpool.size}. The statistics of the client are exposed on the {@code metrics}
+ * endpoint as {@code hedging.*}.
+ */
+@Getter
+public class HedgedReads implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "hedging.";
+
+  /**
+   * Configuration.
+   */
+  private final boolean enabled;
+  private final int chunkBytes;
+
+  /**
+   * State.
+   */
+  private final DFSHedgedReadMetrics clientMetrics;
+  private final LongAdder reads = new LongAdder();
+
+  public HedgedReads(@NonNull FileSystem fileSystem, @NonNull HedgingProperties properties) {
+    val rawFileSystem = getRawFileSystem(fileSystem);
+    this.enabled = rawFileSystem.getConf().getInt(DFS_DFSCLIENT_HEDGED_READ_THREADPOOL_SIZE, 0) > 0;
+    this.chunkBytes = properties.getChunkBytes();
+    this.clientMetrics = rawFileSystem instanceof DistributedFileSystem ?
+        ((DistributedFileSystem) rawFileSystem).getClient().getHedgedReadMetrics() :
+        new DFSHedgedReadMetrics();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    metrics.add(new Metric<Long>(PREFIX + "reads", reads.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "hedged", clientMetrics.getHedgedReadOps()));
+    metrics.add(new Metric<Long>(PREFIX + "hedgeWins", clientMetrics.getHedgedReadWins()));
+    // Hedged reads run on the reading thread because the pool of the client was full
+    metrics.add(new Metric<Long>(PREFIX + "unhedged", clientMetrics.getHedgedReadOpsInCurThread()));
+
+    return metrics.build();
+  }
+
+  private static FileSystem getRawFileSystem(FileSystem fileSystem) {
+    while (fileSystem instanceof FilterFileSystem) {
+      fileSystem = ((FilterFileSystem) fileSystem).getRawFileSystem();
+    }
+
+    return fileSystem;
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.hedging;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import lombok.NonNull;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+
+/**
+ * Serves the sequential reads of a file with positional reads of up to {@code chunkBytes}, which the HDFS client hedges
+ * against slow DataNodes. Sequential reads are not hedged by the client.
+ * <p>
+ * Reads at least as large as a chunk go straight to the caller's buffer. Smaller ones are served from a single chunk
+ * buffer allocated on the first of them.
+ */
+class PositionalInputStream extends FSInputStream {
+
+  /**
+   * Dependencies.
+   */
+  private final FSDataInputStream input;
+  private final HedgedReads hedgedReads;
+
+  /**
+   * State.
+   */
+  private byte[] chunk;
+  private int chunkPosition;
+  private int chunkLength;
+  private long position;
+
+  PositionalInputStream(@NonNull FSDataInputStream input, @NonNull HedgedReads hedgedReads) {
+    this.input = input;
+    this.hedgedReads = hedgedReads;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+
+    position++;
+
+    return chunk[chunkPosition++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int count) throws IOException {
+    if (count == 0) {
+      return 0;
+    }
+
+    if (chunkPosition == chunkLength && count >= hedgedReads.getChunkBytes()) {
+      int n = readAt(position, buffer, offset, count);
+      if (n > 0) {
+        position += n;
+      }
+
+      return n;
+    }
+
+    if (!fill()) {
+      return -1;
+    }
+
+    int n = Math.min(count, chunkLength - chunkPosition);
+    System.arraycopy(chunk, chunkPosition, buffer, offset, n);
+    chunkPosition += n;
+    position += n;
+
+    return n;
+  }
+
+  @Override
+  public int read(long position, byte[] buffer, int offset, int count) throws IOException {
+    return input.read(position, buffer, offset, count);
+  }
+
+  @Override
+  public void readFully(long position, byte[] buffer, int offset, int count) throws IOException {
+    input.readFully(position, buffer, offset, count);
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0) {
+      return 0;
+    }
+
+    seek(position + n);
+
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return chunkLength - chunkPosition;
+  }
+
+  @Override
+  public void seek(long position) throws IOException {
+    if (position < 0) {
+      throw new EOFException("Cannot seek to " + position);
+    }
+
+    this.chunkPosition = 0;
+    this.chunkLength = 0;
+    this.position = position;
+  }
+
+  @Override
+  public long getPos() throws IOException {
+    return position;
+  }
+
+  @Override
+  public boolean seekToNewSource(long targetPosition) throws IOException {
+    return input.seekToNewSource(targetPosition);
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+
+  private boolean fill() throws IOException {
+    if (chunkPosition < chunkLength) {
+      return true;
+    }
+
+    if (chunk == null) {
+      chunk = new byte[hedgedReads.getChunkBytes()];
+    }
+
+    int n = readAt(position, chunk, 0, chunk.length);
+    chunkPosition = 0;
+    chunkLength = Math.max(n, 0);
+
+    return n > 0;
+  }
+
+  private int readAt(long position, byte[] buffer, int offset, int count) throws IOException {
+    hedgedReads.getReads().increment();
+
+    return input.read(position, buffer, offset, count);
+  }
+
+}
@@ -20,6 +20,7 @@ package org.icgc.dcc.download.server.io;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Optional.empty;
+import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
 import static org.icgc.dcc.download.server.utils.DfsPaths.getFileName;
 
 import java.io.IOException;
@@ -58,6 +59,7 @@ public class GzipStreamer implements FileStreamer {
   private final PathResolver pathResolver;
   private final String release;
   private final Map<DownloadDataType, String> fileNames;
+  private final ParallelFetcher parallelFetcher;
 
   /**
    * State.
@@ -72,7 +74,8 @@ public class GzipStreamer implements FileStreamer {
       @NonNull OutputStream output,
       @NonNull PathResolver pathResolver,
       @NonNull String release,
-      @NonNull Map<DownloadDataType, String> fileNames) {
+      @NonNull Map<DownloadDataType, String> fileNames,
+      @NonNull ParallelFetcher parallelFetcher) {
     this.fileSystem = fileSystem;
     this.downloadFiles = downloadFiles;
     this.fileSizes = fileSizes;
@@ -81,6 +84,7 @@ public class GzipStreamer implements FileStreamer {
     this.pathResolver = pathResolver;
     this.release = release;
     this.fileNames = fileNames;
+    this.parallelFetcher = parallelFetcher;
     checkArguments();
   }
 
@@ -151,6 +155,15 @@ public class GzipStreamer implements FileStreamer {
 
   private void streamCurrentDataType() throws IOException {
     log.debug("Streaming data file '{}'", getCurrentDataFile().getPath());
+    if (parallelFetcher.isEnabled()) {
+      val paths = getPartFiles().stream()
+          .map(Path::new)
+          .collect(toImmutableList());
+      parallelFetcher.copy(fileSystem, paths, output);
+
+      return;
+    }
+
     for (val partFile : getPartFiles()) {
       val path = new Path(partFile); // NOPMD
       log.debug("Streaming path '{}'", path);
@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.io;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import lombok.Cleanup;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.icgc.dcc.download.server.cache.CachingFileSystem;
+import org.icgc.dcc.download.server.config.Properties.FetchProperties;
+import org.icgc.dcc.download.server.metrics.ReadTimes;
+import org.icgc.dcc.download.server.metrics.ReadTimes.Binding;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Copies a sequence of files to an output by reading up to {@code concurrency} chunks at once into a ring of pooled
+ * buffers. The chunks are written strictly in order, so the output is identical to a sequential copy.
+ * <p>
+ * A file no larger than a chunk is read sequentially on its own stream, which keeps the reads going through the
+ * {@link CachingFileSystem} and the {@code HedgingFileSystem}. A larger file is opened once and its chunks are read
+ * with concurrent positional reads. It is served from the cache if it is cached, but not loaded to it on a miss. Its
+ * positional reads are hedged by the HDFS client if hedged reads are enabled.
+ * <p>
+ * The buffers of all downloads are bounded by the memory budget. A download that cannot get a buffer copies its next
+ * chunk without buffering, and a read rejected by the full thread pool runs on the download thread.
+ */
+@Slf4j
+public class ParallelFetcher implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "fetch.";
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Configuration.
+   */
+  @Getter
+  private final boolean enabled;
+  private final int concurrency;
+  private final int chunkBytes;
+  private final int bufferSlots;
+
+  /**
+   * State.
+   */
+  private final ExecutorService executor;
+  private final Semaphore buffers;
+  private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+  private final LongAdder fetches = new LongAdder();
+  private final LongAdder chunks = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder unbuffered = new LongAdder();
+  private final LongAdder callerReads = new LongAdder();
+
+  public ParallelFetcher(@NonNull FetchProperties properties) {
+    this.enabled = properties.isEnabled();
+    this.concurrency = Math.max(1, properties.getConcurrency());
+    this.chunkBytes = properties.getChunkBytes();
+    this.bufferSlots = (int) Math.max(1, properties.getMaxBufferBytes() / chunkBytes);
+    this.buffers = new Semaphore(bufferSlots);
+    this.executor = new ThreadPoolExecutor(0, properties.getPoolSize(), 60, SECONDS, new SynchronousQueue<>(),
+        new ThreadFactoryBuilder().setNameFormat("parallel-fetch-%d").setDaemon(true).build());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  public void copy(@NonNull FileSystem fileSystem, @NonNull List<Path> paths, @NonNull OutputStream output)
+      throws IOException {
+    fetches.increment();
+    val fileChunks = split(fileSystem, paths);
+    log.debug("Fetching {} chunks of {} files with concurrency {}", fileChunks.size(), paths.size(), concurrency);
+
+    // Streams of the files read in chunks
+    val inputs = Maps.<Path, FSDataInputStream> newHashMap();
+    val ring = new ArrayDeque<Fetch>(concurrency);
+    try {
+      int next = 0;
+      while (next < fileChunks.size() || !ring.isEmpty()) {
+        while (next < fileChunks.size() && ring.size() < concurrency) {
+          val buffer = acquireBuffer();
+          if (buffer == null) {
+            break;
+          }
+
+          try {
+            ring.add(submit(fileSystem, fileChunks.get(next++), buffer, inputs));
+          } catch (IOException | RuntimeException e) {
+            releaseBuffer(buffer);
+            throw e;
+          }
+        }
+
+        if (ring.isEmpty()) {
+          // The memory budget is taken by the other downloads
+          unbuffered.increment();
+          val chunk = fileChunks.get(next++);
+          copyUnbuffered(fileSystem, chunk, inputs, output);
+          complete(chunk, inputs);
+          continue;
+        }
+
+        val fetch = ring.getFirst();
+        await(fetch.getTask());
+        ring.removeFirst();
+        try {
+          output.write(fetch.getBuffer(), 0, fetch.getChunk().getLength());
+          bytes.add(fetch.getChunk().getLength());
+        } finally {
+          releaseBuffer(fetch.getBuffer());
+        }
+
+        complete(fetch.getChunk(), inputs);
+      }
+    } finally {
+      // The reads in flight still write to their buffers
+      for (val fetch : ring) {
+        if (awaitQuietly(fetch.getTask())) {
+          releaseBuffer(fetch.getBuffer());
+        } else {
+          // Interrupted. The buffer is left to the read and not pooled again
+          buffers.release();
+        }
+      }
+
+      for (val input : inputs.values()) {
+        input.close();
+      }
+    }
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    metrics.add(new Metric<Long>(PREFIX + "fetches", fetches.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "chunks", chunks.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "bytes", bytes.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "unbuffered", unbuffered.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "callerReads", callerReads.sum()));
+    metrics.add(new Metric<Integer>(PREFIX + "buffers.used", bufferSlots - buffers.availablePermits()));
+    metrics.add(new Metric<Integer>(PREFIX + "buffers.max", bufferSlots));
+
+    return metrics.build();
+  }
+
+  private List<Chunk> split(FileSystem fileSystem, List<Path> paths) throws IOException {
+    val result = ImmutableList.<Chunk> builder();
+    for (val path : paths) {
+      val length = fileSystem.getFileStatus(path).getLen();
+      if (length <= chunkBytes) {
+        result.add(new Chunk(path, 0, (int) length, true, true));
+        continue;
+      }
+
+      for (long offset = 0; offset < length; offset += chunkBytes) {
+        val end = Math.min(offset + chunkBytes, length);
+        result.add(new Chunk(path, offset, (int) (end - offset), false, end == length));
+      }
+    }
+
+    return result.build();
+  }
+
+  private Fetch submit(FileSystem fileSystem, Chunk chunk, byte[] buffer, Map<Path, FSDataInputStream> inputs)
+      throws IOException {
+    chunks.increment();
+    FSDataInputStream input = chunk.isWhole() ? null : getInput(fileSystem, chunk, inputs);
+    // The reads of the pool count towards the read time of the download
+    val readNanos = ReadTimes.current();
+    FutureTask<Void> task = new FutureTask<>(() -> {
+      try (Binding binding = ReadTimes.bind(readNanos)) {
+        read(fileSystem, chunk, input, buffer);
+      }
+
+      return null;
+    });
+
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      callerReads.increment();
+      task.run();
+    }
+
+    return new Fetch(chunk, buffer, task);
+  }
+
+  private static void read(FileSystem fileSystem, Chunk chunk, FSDataInputStream input, byte[] buffer)
+      throws IOException {
+    if (chunk.isWhole()) {
+      @Cleanup
+      val wholeInput = fileSystem.open(chunk.getPath());
+      ByteStreams.readFully(wholeInput, buffer, 0, chunk.getLength());
+    } else {
+      input.readFully(chunk.getOffset(), buffer, 0, chunk.getLength());
+    }
+  }
+
+  private void copyUnbuffered(FileSystem fileSystem, Chunk chunk, Map<Path, FSDataInputStream> inputs,
+      OutputStream output) throws IOException {
+    if (chunk.isWhole()) {
+      @Cleanup
+      val input = fileSystem.open(chunk.getPath());
+      ByteStreams.copy(input, output);
+      bytes.add(chunk.getLength());
+
+      return;
+    }
+
+    val input = getInput(fileSystem, chunk, inputs);
+    val buffer = new byte[COPY_BUFFER_SIZE];
+    val end = chunk.getOffset() + chunk.getLength();
+    for (long position = chunk.getOffset(); position < end; position += buffer.length) {
+      val n = (int) Math.min(buffer.length, end - position);
+      input.readFully(position, buffer, 0, n);
+      output.write(buffer, 0, n);
+    }
+
+    bytes.add(chunk.getLength());
+  }
+
+  private static FSDataInputStream getInput(FileSystem fileSystem, Chunk chunk, Map<Path, FSDataInputStream> inputs)
+      throws IOException {
+    FSDataInputStream input = inputs.get(chunk.getPath());
+    if (input == null) {
+      // Opening through the cache would start loading a file which is never read sequentially
+      input = fileSystem instanceof CachingFileSystem ?
+          ((CachingFileSystem) fileSystem).openPositional(chunk.getPath()) :
+          fileSystem.open(chunk.getPath());
+      inputs.put(chunk.getPath(), input);
+    }
+
+    return input;
+  }
+
+  private static void complete(Chunk chunk, Map<Path, FSDataInputStream> inputs) throws IOException {
+    // The chunks are completed in order, so no read of the file is in flight
+    if (chunk.isLast() && !chunk.isWhole()) {
+      val input = inputs.remove(chunk.getPath());
+      if (input != null) {
+        input.close();
+      }
+    }
+  }
+
+  private byte[] acquireBuffer() {
+    if (!buffers.tryAcquire()) {
+      return null;
+    }
+
+    val buffer = freeBuffers.poll();
+
+    return buffer == null ? new byte[chunkBytes] : buffer;
+  }
+
+  private void releaseBuffer(byte[] buffer) {
+    freeBuffers.offer(buffer);
+    buffers.release();
+  }
+
+  private static void await(FutureTask<Void> task) throws IOException {
+    try {
+      task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while fetching");
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private static boolean awaitQuietly(FutureTask<Void> task) {
+    try {
+      await(task);
+    } catch (IOException | RuntimeException e) {
+      log.debug("Abandoned read failed: {}", e.getMessage());
+    }
+
+    return task.isDone();
+  }
+
+  @Value
+  private static class Chunk {
+
+    Path path;
+    long offset;
+    int length;
+
+    /**
+     * The file fits in a single chunk.
+     */
+    boolean whole;
+    boolean last;
+
+  }
+
+  @Value
+  private static class Fetch {
+
+    Chunk chunk;
+    byte[] buffer;
+    FutureTask<Void> task;
+
+  }
+
+}
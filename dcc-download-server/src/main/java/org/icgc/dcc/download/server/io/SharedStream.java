@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.catalina.connector.ClientAbortException;
+import org.icgc.dcc.download.core.DownloadException;
+import org.icgc.dcc.download.server.metrics.ReadTimes;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Single read of a file shared by the streamers of identical concurrent downloads.
+ * <p>
+ * The read is buffered in chunks and every {@link Subscriber} consumes the buffer at its own pace. The buffer holds at
+ * most {@code maxBufferBytes}. When it is full, the read waits for the slowest subscriber. A subscriber stalling the
+ * read for longer than {@code maxStallMillis} is detached and continues on its own.<br>
+ * <br>
+ * Subscribers can join within {@code joinWindowMillis} of the first bytes read, while the beginning of the file is
+ * still buffered. Once the window has passed, the chunks consumed by all the subscribers are evicted right away. The
+ * read is cancelled when all the subscribers have left.
+ */
+@Slf4j
+class SharedStream {
+
+  /**
+   * Constants.
+   */
+  static final int CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * Configuration.
+   */
+  private final String key;
+  private final int maxChunks;
+  private final long maxStallMillis;
+  private final long joinWindowMillis;
+
+  /**
+   * Name of the download. Set by the {@link SharedStreams} before the read is shared and guarded by it.
+   */
+  private String name;
+
+  /**
+   * State. Guarded by {@code this}.
+   */
+  private final List<byte[]> chunks = Lists.newArrayList();
+  private final Set<Subscriber> subscribers = Sets.newHashSet();
+  private int firstChunk;
+  private long joinDeadline = Long.MAX_VALUE;
+  private long length;
+  private boolean done;
+  private Throwable error;
+
+  SharedStream(@NonNull String key, long maxBufferBytes, long maxStallMillis, long joinWindowMillis) {
+    checkArgument(maxBufferBytes >= CHUNK_SIZE, "The buffer must fit at least one chunk of %s bytes", CHUNK_SIZE);
+    this.key = key;
+    this.maxChunks = (int) Math.min(maxBufferBytes / CHUNK_SIZE, Integer.MAX_VALUE);
+    this.maxStallMillis = maxStallMillis;
+    this.joinWindowMillis = joinWindowMillis;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  void setName(@NonNull String name) {
+    this.name = name;
+  }
+
+  /**
+   * @return the stream the source streamer of the read writes to
+   */
+  OutputStream getOutput() {
+    return new SourceOutputStream();
+  }
+
+  /**
+   * @return a new subscriber starting at the beginning of the file, or empty if the join window has passed or the
+   * beginning is not buffered anymore
+   */
+  synchronized Optional<Subscriber> subscribe() {
+    if (firstChunk > 0 || error != null || isJoinWindowPassed()) {
+      return Optional.empty();
+    }
+
+    Subscriber subscriber = new Subscriber();
+    subscribers.add(subscriber);
+
+    return Optional.of(subscriber);
+  }
+
+  synchronized int getBufferedChunks() {
+    return chunks.size() - firstChunk;
+  }
+
+  synchronized void complete() {
+    done = true;
+    notifyAll();
+  }
+
+  synchronized void fail(@NonNull Throwable error) {
+    this.error = error;
+    notifyAll();
+  }
+
+  private synchronized void append(byte[] buffer, int offset, int count) throws IOException {
+    while (count > 0) {
+      if (subscribers.isEmpty()) {
+        throw new ClientAbortException("All the downloads sharing '" + key + "' have left");
+      }
+
+      if (chunks.isEmpty()) {
+        joinDeadline = System.currentTimeMillis() + joinWindowMillis;
+      }
+
+      int position = (int) (length % CHUNK_SIZE);
+      if (position == 0) {
+        evictConsumed();
+        makeRoom();
+        chunks.add(new byte[CHUNK_SIZE]);
+      }
+
+      int chunkCount = Math.min(count, CHUNK_SIZE - position);
+      System.arraycopy(buffer, offset, chunks.get(chunks.size() - 1), position, chunkCount);
+      length += chunkCount;
+      offset += chunkCount;
+      count -= chunkCount;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Evicts the oldest chunks consumed by all the subscribers until a new chunk fits the buffer. Waits for the slowest
+   * subscribers and detaches them if they stall the read for too long.
+   */
+  private void makeRoom() throws InterruptedIOException {
+    long deadline = System.currentTimeMillis() + maxStallMillis;
+    while (chunks.size() - firstChunk >= maxChunks) {
+      long oldestChunkEnd = (firstChunk + 1L) * CHUNK_SIZE;
+      if (getMinOffset() >= oldestChunkEnd) {
+        chunks.set(firstChunk++, null);
+        continue;
+      }
+
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        detach(oldestChunkEnd);
+        continue;
+      }
+
+      try {
+        wait(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for the downloads sharing '" + key + "'");
+      }
+    }
+  }
+
+  /**
+   * Evicts the chunks consumed by all the subscribers once no subscriber can join anymore.
+   */
+  private void evictConsumed() {
+    if (!isJoinWindowPassed()) {
+      return;
+    }
+
+    long consumed = Math.min(getMinOffset(), length);
+    while ((firstChunk + 1L) * CHUNK_SIZE <= consumed) {
+      chunks.set(firstChunk++, null);
+    }
+  }
+
+  private boolean isJoinWindowPassed() {
+    return System.currentTimeMillis() >= joinDeadline;
+  }
+
+  private void detach(long offset) {
+    for (Subscriber subscriber : Lists.newArrayList(subscribers)) {
+      if (subscriber.offset < offset) {
+        log.info("Detaching download stalling the shared stream '{}' at {} bytes", key, subscriber.offset);
+        subscriber.detached = true;
+        subscribers.remove(subscriber);
+      }
+    }
+
+    notifyAll();
+  }
+
+  private long getMinOffset() {
+    long minOffset = Long.MAX_VALUE;
+    for (Subscriber subscriber : subscribers) {
+      minOffset = Math.min(minOffset, subscriber.offset);
+    }
+
+    return minOffset;
+  }
+
+  private synchronized void unsubscribe(Subscriber subscriber) {
+    subscribers.remove(subscriber);
+    evictConsumed();
+    notifyAll();
+  }
+
+  /**
+   * Consumer of the shared read writing it to the response of a download.
+   */
+  class Subscriber {
+
+    /**
+     * State. Guarded by the {@link SharedStream}.
+     */
+    private long offset;
+    private boolean detached;
+
+    /**
+     * Copies the shared read to {@code output} until the read finishes or the subscriber is detached.
+     *
+     * @return {@code true} if the whole file was copied, {@code false} if the subscriber was detached
+     */
+    boolean copyTo(@NonNull OutputStream output) throws IOException {
+      try {
+        while (true) {
+          byte[] chunk;
+          int from;
+          int count;
+          synchronized (SharedStream.this) {
+            while (!detached && offset >= length && !done && error == null) {
+              waitForRead();
+            }
+
+            if (detached) {
+              return false;
+            }
+
+            if (offset >= length) {
+              if (error != null) {
+                throw new DownloadException("An error occurred while streaming. Please contact the support.", error);
+              }
+
+              return true;
+            }
+
+            int index = (int) (offset / CHUNK_SIZE);
+            chunk = chunks.get(index);
+            from = (int) (offset % CHUNK_SIZE);
+            count = (int) (Math.min((index + 1L) * CHUNK_SIZE, length) - offset);
+          }
+
+          // Written outside of the lock, so a slow client doesn't block the others. The chunk is not evicted meanwhile.
+          output.write(chunk, from, count);
+
+          synchronized (SharedStream.this) {
+            offset += count;
+            evictConsumed();
+            SharedStream.this.notifyAll();
+          }
+        }
+      } finally {
+        unsubscribe(this);
+      }
+    }
+
+    long getOffset() {
+      synchronized (SharedStream.this) {
+        return offset;
+      }
+    }
+
+    /**
+     * Waits for the shared read. The wait counts towards the read time of the download, as the read itself runs on a
+     * thread of its own.
+     */
+    private void waitForRead() throws InterruptedIOException {
+      long start = System.nanoTime();
+      try {
+        SharedStream.this.wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for the shared stream '" + key + "'");
+      } finally {
+        ReadTimes.record(System.nanoTime() - start);
+      }
+    }
+
+  }
+
+  private class SourceOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) throws IOException {
+      append(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int count) throws IOException {
+      append(buffer, offset, count);
+    }
+
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.catalina.connector.ClientAbortException;
+import org.icgc.dcc.download.core.DownloadException;
+
+import com.google.common.io.Closer;
+
+/**
+ * Streamer of a download sharing the read of identical concurrent downloads through {@link SharedStreams}. Reads on its
+ * own if it can't join a shared read, and resumes on its own if it is detached from one.
+ * <p>
+ * The streamers reading on its own are created only when needed. Closing closes all the streamers created.
+ */
+@Slf4j
+public class SharedStreamer implements FileStreamer {
+
+  /**
+   * Dependencies.
+   */
+  private final SharedStreams sharedStreams;
+  private final Function<OutputStream, Optional<FileStreamer>> streamerFactory;
+  private final OutputStream output;
+
+  /**
+   * Configuration.
+   */
+  private final String key;
+  private final String name;
+
+  /**
+   * State.
+   */
+  @Nullable
+  private FileStreamer streamer;
+  @Nullable
+  private FileStreamer resumed;
+
+  SharedStreamer(@NonNull SharedStreams sharedStreams,
+      @NonNull Function<OutputStream, Optional<FileStreamer>> streamerFactory, @NonNull OutputStream output,
+      @NonNull String key, @NonNull String name, @Nullable FileStreamer streamer) {
+    this.sharedStreams = sharedStreams;
+    this.streamerFactory = streamerFactory;
+    this.output = output;
+    this.key = key;
+    this.name = name;
+    this.streamer = streamer;
+  }
+
+  @Override
+  @SneakyThrows
+  public void stream() {
+    val subscriber = sharedStreams.subscribe(key, streamerFactory);
+    if (!subscriber.isPresent()) {
+      if (streamer == null) {
+        streamer = createStreamer(output);
+      }
+
+      streamer.stream();
+      return;
+    }
+
+    try {
+      if (subscriber.get().copyTo(output)) {
+        return;
+      }
+    } catch (ClientAbortException e) {
+      log.info("Archive streaming cancelled by the client.");
+      return;
+    }
+
+    val offset = subscriber.get().getOffset();
+    log.info("Resuming '{}' on its own from {} bytes...", key, offset);
+    sharedStreams.recordDetached();
+    resumed = createStreamer(new SkippingOutputStream(output, offset));
+    resumed.stream();
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try (Closer closer = Closer.create()) {
+      closer.register(output);
+      if (streamer != null) {
+        closer.register(streamer);
+      }
+
+      if (resumed != null) {
+        closer.register(resumed);
+      }
+    }
+  }
+
+  private FileStreamer createStreamer(OutputStream output) {
+    return streamerFactory.apply(output)
+        .orElseThrow(() -> new DownloadException("The file is not available anymore. Please retry."));
+  }
+
+}
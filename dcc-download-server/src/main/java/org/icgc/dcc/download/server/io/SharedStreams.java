@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.io;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.catalina.connector.ClientAbortException;
+import org.icgc.dcc.download.server.config.Properties.SharingProperties;
+import org.icgc.dcc.download.server.io.SharedStream.Subscriber;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Single-flight reads of identical concurrent downloads. The first download of a file starts a {@link SharedStream}
+ * read on a background thread, and the identical downloads arriving while it is in flight join it.
+ * <p>
+ * A download arriving after the join window of the read has passed starts a new shared read. If the
+ * maximum number of shared reads is reached, it reads on its own.
+ * <p>
+ * Streamers are created lazily by the {@code streamerFactory} of a download, only on the path that uses them.
+ */
+@Slf4j
+public class SharedStreams implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "sharing.";
+
+  /**
+   * Configuration.
+   */
+  private final boolean enabled;
+  private final long maxBufferBytes;
+  private final long maxStallMillis;
+  private final long joinWindowMillis;
+
+  /**
+   * State.
+   */
+  private final ExecutorService executor;
+  private final Semaphore slots;
+  private final Map<String, SharedStream> streams = Maps.newHashMap();
+  private final LongAdder started = new LongAdder();
+  private final LongAdder joined = new LongAdder();
+  private final LongAdder unshared = new LongAdder();
+  private final LongAdder detached = new LongAdder();
+
+  public SharedStreams(@NonNull SharingProperties properties) {
+    this.enabled = properties.isEnabled();
+    this.maxBufferBytes = properties.getMaxBufferBytes();
+    this.maxStallMillis = SECONDS.toMillis(properties.getMaxStallSeconds());
+    this.joinWindowMillis = SECONDS.toMillis(properties.getJoinWindowSeconds());
+    // The number of shared reads is limited by the slots, which are taken before creating the source of a read
+    this.executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, SECONDS, new SynchronousQueue<>(),
+        new ThreadFactoryBuilder().setNameFormat("shared-stream-%d").setDaemon(true).build());
+    this.slots = new Semaphore(properties.getMaxStreams());
+  }
+
+  /**
+   * Creates a streamer of the download identified by {@code key} writing to {@code output}. A download which can join
+   * a shared read in flight doesn't create a streamer of its own up front.
+   *
+   * @param streamerFactory creates the streamers of the download. Must produce the same bytes for the same key.
+   */
+  public Optional<FileStreamer> getStreamer(@NonNull String key, @NonNull OutputStream output,
+      @NonNull Function<OutputStream, Optional<FileStreamer>> streamerFactory) {
+    if (!enabled) {
+      return streamerFactory.apply(output);
+    }
+
+    val name = getName(key);
+    if (name.isPresent()) {
+      return Optional.of(new SharedStreamer(this, streamerFactory, output, key, name.get(), null));
+    }
+
+    // Resolves whether the file exists and its name. Used if the download reads on its own, closed otherwise.
+    val streamer = streamerFactory.apply(output);
+    if (!streamer.isPresent()) {
+      return streamer;
+    }
+
+    return Optional.of(new SharedStreamer(this, streamerFactory, output, key, streamer.get().getName(),
+        streamer.get()));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    synchronized (this) {
+      metrics.add(new Metric<Integer>(PREFIX + "active", streams.size()));
+    }
+
+    metrics.add(new Metric<Long>(PREFIX + "started", started.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "joined", joined.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "unshared", unshared.sum()));
+    metrics.add(new Metric<Long>(PREFIX + "detached", detached.sum()));
+
+    return metrics.build();
+  }
+
+  /**
+   * Joins the shared read of {@code key} or starts a new one.
+   *
+   * @return the subscriber to the shared read, or empty if the download must read on its own
+   */
+  Optional<Subscriber> subscribe(String key, Function<OutputStream, Optional<FileStreamer>> streamerFactory)
+      throws IOException {
+    val subscriber = join(key);
+    if (subscriber.isPresent()) {
+      return subscriber;
+    }
+
+    if (!slots.tryAcquire()) {
+      log.debug("Maximum number of shared streams reached. Streaming '{}' on its own...", key);
+      unshared.increment();
+
+      return Optional.empty();
+    }
+
+    boolean reading = false;
+    try {
+      // Created outside of the lock as resolving the files of a download hits the file system
+      val stream = new SharedStream(key, maxBufferBytes, maxStallMillis, joinWindowMillis);
+      val source = streamerFactory.apply(stream.getOutput());
+      if (!source.isPresent()) {
+        return Optional.empty();
+      }
+
+      try {
+        synchronized (this) {
+          val current = join(key);
+          if (current.isPresent()) {
+            return current;
+          }
+
+          val newSubscriber = stream.subscribe();
+          stream.setName(source.get().getName());
+          executor.execute(() -> read(key, stream, source.get()));
+          reading = true;
+
+          log.info("Started shared stream '{}'", key);
+          streams.put(key, stream);
+          started.increment();
+
+          return newSubscriber;
+        }
+      } finally {
+        if (!reading) {
+          Closeables.close(source.get(), true);
+        }
+      }
+    } catch (RejectedExecutionException e) {
+      log.debug("Shared streams are shut down. Streaming '{}' on its own...", key);
+      unshared.increment();
+
+      return Optional.empty();
+    } finally {
+      if (!reading) {
+        slots.release();
+      }
+    }
+  }
+
+  void recordDetached() {
+    detached.increment();
+  }
+
+  private synchronized Optional<String> getName(String key) {
+    val stream = streams.get(key);
+
+    return stream == null ? Optional.empty() : Optional.of(stream.getName());
+  }
+
+  private synchronized Optional<Subscriber> join(String key) {
+    val stream = streams.get(key);
+    if (stream == null) {
+      return Optional.empty();
+    }
+
+    val subscriber = stream.subscribe();
+    if (subscriber.isPresent()) {
+      log.info("Joined shared stream '{}'", key);
+      joined.increment();
+    }
+
+    return subscriber;
+  }
+
+  private void read(String key, SharedStream stream, FileStreamer source) {
+    try {
+      source.stream();
+      source.close();
+      stream.complete();
+    } catch (ClientAbortException e) {
+      log.info("Shared stream '{}' cancelled as all its downloads have left", key);
+      stream.fail(e);
+    } catch (Exception e) { // NOPMD
+      log.error("Failed to read shared stream '{}': ", key, e);
+      stream.fail(e);
+    } finally {
+      synchronized (this) {
+        streams.remove(key, stream);
+      }
+
+      slots.release();
+      log.info("Finished shared stream '{}'", key);
+    }
+  }
+
+}
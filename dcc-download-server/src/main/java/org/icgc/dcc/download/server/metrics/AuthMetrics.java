@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.metrics;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Collection;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import org.icgc.dcc.download.server.service.AuthService;
+import org.icgc.dcc.download.server.service.AuthServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Exposes the token verification cache statistics on the {@code metrics} endpoint.
+ */
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class AuthMetrics implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "auth.cache.";
+  private static final double NANOS_PER_MILLI = MILLISECONDS.toNanos(1);
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final AuthService authService;
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    if (!(authService instanceof AuthServiceImpl)) {
+      return emptyList();
+    }
+
+    val stats = ((AuthServiceImpl) authService).getStats();
+
+    return ImmutableList.<Metric<?>> of(
+        new Metric<Long>(PREFIX + "hits", stats.hitCount()),
+        new Metric<Long>(PREFIX + "misses", stats.missCount()),
+        new Metric<Double>(PREFIX + "hitRatio", stats.hitRate()),
+        new Metric<Long>(PREFIX + "remote.calls", stats.loadCount()),
+        new Metric<Long>(PREFIX + "remote.failures", stats.loadExceptionCount()),
+        new Metric<Double>(PREFIX + "remote.latency.avgMs", stats.averageLoadPenalty() / NANOS_PER_MILLI),
+        new Metric<Long>(PREFIX + "evictions", stats.evictionCount()));
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.metrics;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Statistics of the {@link InstrumentedFileSystem} operations by operation type and calling subsystem. Exposed on the
+ * {@code metrics} endpoint as {@code hdfs.<operation>.<subsystem>.*}.
+ * <p>
+ * The subsystem is the simple name of the nearest server class on the call stack of the operation, e.g.
+ * {@code ReleaseView} or {@code GzipStreamer}.
+ */
+public class FileSystemMetrics implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "hdfs.";
+  private static final String SERVER_PACKAGE = "org.icgc.dcc.download.server.";
+  private static final String METRICS_PACKAGE = FileSystemMetrics.class.getPackage().getName() + ".";
+  private static final String CACHE_PACKAGE = SERVER_PACKAGE + "cache.";
+  private static final String HEDGING_PACKAGE = SERVER_PACKAGE + "hedging.";
+  private static final String UNKNOWN_SUBSYSTEM = "unknown";
+  private static final double NANOS_PER_MILLI = MILLISECONDS.toNanos(1);
+
+  /**
+   * State.
+   */
+  private final ConcurrentMap<String, OperationStats> operations = Maps.newConcurrentMap();
+
+  public OperationStats getStats(@NonNull String operation, @NonNull String subsystem) {
+    return operations.computeIfAbsent(operation + "." + subsystem, key -> new OperationStats());
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    for (val entry : ImmutableSortedMap.copyOf(operations).entrySet()) {
+      val prefix = PREFIX + entry.getKey();
+      val stats = entry.getValue();
+      val count = stats.getCount().sum();
+
+      metrics.add(new Metric<Long>(prefix + ".count", count));
+      metrics.add(new Metric<Long>(prefix + ".errors", stats.getErrors().sum()));
+      metrics.add(new Metric<Long>(prefix + ".bytes", stats.getBytes().sum()));
+      metrics.add(new Metric<Double>(prefix + ".latency.avgMs",
+          count == 0 ? 0.0 : stats.getNanos().sum() / NANOS_PER_MILLI / count));
+      metrics.addAll(stats.getLatency().metrics(prefix + ".latency"));
+    }
+
+    return metrics.build();
+  }
+
+  /**
+   * Resolves the subsystem of the current file system operation from the call stack. Walking the stack costs a few
+   * microseconds, which is negligible compared to a NameNode round trip.
+   */
+  public static String resolveSubsystem() {
+    for (val element : new Throwable().getStackTrace()) {
+      val className = element.getClassName();
+      // File system delegates are not subsystems
+      if (className.startsWith(SERVER_PACKAGE) && !className.startsWith(METRICS_PACKAGE)
+          && !className.startsWith(CACHE_PACKAGE) && !className.startsWith(HEDGING_PACKAGE)) {
+        return getSimpleName(className);
+      }
+    }
+
+    return UNKNOWN_SUBSYSTEM;
+  }
+
+  private static String getSimpleName(String className) {
+    val simpleName = className.substring(className.lastIndexOf('.') + 1);
+    val nested = simpleName.indexOf('$');
+
+    return nested < 0 ? simpleName : simpleName.substring(0, nested);
+  }
+
+  @Getter
+  public static class OperationStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public void record(long nanos, long bytes, boolean error) {
+      this.count.increment();
+      this.nanos.add(nanos);
+      this.latency.record(nanos);
+      if (bytes > 0) {
+        this.bytes.add(bytes);
+      }
+      if (error) {
+        this.errors.increment();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.metrics;
+
+import static org.icgc.dcc.download.server.metrics.FileSystemMetrics.resolveSubsystem;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import lombok.NonNull;
+import lombok.val;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
+
+/**
+ * {@link FileSystem} delegate recording the count, latency and errors of the file system operations, and the bytes
+ * read from the opened files, in {@link FileSystemMetrics}.
+ * <p>
+ * Operations implemented in {@link FileSystem} on top of the ones below (e.g. {@code exists}, {@code globStatus},
+ * {@code listFiles}) are recorded as the underlying operations.
+ */
+public class InstrumentedFileSystem extends FilterFileSystem {
+
+  /**
+   * Constants.
+   */
+  static final String OPEN = "open";
+  static final String READ = "read";
+  static final String CREATE = "create";
+  static final String APPEND = "append";
+  static final String RENAME = "rename";
+  static final String DELETE = "delete";
+  static final String MKDIRS = "mkdirs";
+  static final String LIST_STATUS = "listStatus";
+  static final String LIST_LOCATED_STATUS = "listLocatedStatus";
+  static final String GET_FILE_STATUS = "getFileStatus";
+
+  /**
+   * Dependencies.
+   */
+  private final FileSystemMetrics metrics;
+
+  public InstrumentedFileSystem(@NonNull FileSystem fileSystem, @NonNull FileSystemMetrics metrics) {
+    super(fileSystem);
+    this.metrics = metrics;
+  }
+
+  @Override
+  public FSDataInputStream open(Path path, int bufferSize) throws IOException {
+    val subsystem = resolveSubsystem();
+    val input = record(OPEN, subsystem, () -> fs.open(path, bufferSize));
+
+    return new FSDataInputStream(new InstrumentedInputStream(input, metrics.getStats(READ, subsystem)));
+  }
+
+  @Override
+  public FSDataOutputStream create(Path path, FsPermission permission, boolean overwrite, int bufferSize,
+      short replication, long blockSize, Progressable progress) throws IOException {
+    return record(CREATE, resolveSubsystem(),
+        () -> fs.create(path, permission, overwrite, bufferSize, replication, blockSize, progress));
+  }
+
+  @Override
+  public FSDataOutputStream append(Path path, int bufferSize, Progressable progress) throws IOException {
+    return record(APPEND, resolveSubsystem(), () -> fs.append(path, bufferSize, progress));
+  }
+
+  @Override
+  public boolean rename(Path src, Path dst) throws IOException {
+    return record(RENAME, resolveSubsystem(), () -> fs.rename(src, dst));
+  }
+
+  @Override
+  public boolean delete(Path path, boolean recursive) throws IOException {
+    return record(DELETE, resolveSubsystem(), () -> fs.delete(path, recursive));
+  }
+
+  @Override
+  public boolean mkdirs(Path path, FsPermission permission) throws IOException {
+    return record(MKDIRS, resolveSubsystem(), () -> fs.mkdirs(path, permission));
+  }
+
+  @Override
+  public FileStatus[] listStatus(Path path) throws IOException {
+    return record(LIST_STATUS, resolveSubsystem(), () -> fs.listStatus(path));
+  }
+
+  @Override
+  public RemoteIterator<LocatedFileStatus> listLocatedStatus(Path path) throws IOException {
+    return record(LIST_LOCATED_STATUS, resolveSubsystem(), () -> fs.listLocatedStatus(path));
+  }
+
+  @Override
+  public FileStatus getFileStatus(Path path) throws IOException {
+    return record(GET_FILE_STATUS, resolveSubsystem(), () -> fs.getFileStatus(path));
+  }
+
+  private <T> T record(String operation, String subsystem, Operation<T> operationCall) throws IOException {
+    val stats = metrics.getStats(operation, subsystem);
+    val start = System.nanoTime();
+    boolean error = true;
+    try {
+      T result = operationCall.call();
+      error = false;
+
+      return result;
+    } catch (FileNotFoundException e) {
+      // Not an error: this is how existence checks learn that a path is missing
+      error = false;
+      throw e;
+    } finally {
+      stats.record(System.nanoTime() - start, 0, error);
+    }
+  }
+
+  @FunctionalInterface
+  private interface Operation<T> {
+
+    T call() throws IOException;
+
+  }
+
+}
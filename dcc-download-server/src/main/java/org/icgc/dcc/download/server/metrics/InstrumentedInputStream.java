@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.metrics;
+
+import java.io.IOException;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.icgc.dcc.download.server.metrics.FileSystemMetrics.OperationStats;
+
+/**
+ * Records the latency and the number of bytes of each read of a file opened by the {@link InstrumentedFileSystem}. The
+ * latency is also added to the {@link ReadTimes} of the download the read is for.
+ */
+@RequiredArgsConstructor
+class InstrumentedInputStream extends FSInputStream {
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final FSDataInputStream delegate;
+  @NonNull
+  private final OperationStats stats;
+
+  @Override
+  public int read() throws IOException {
+    long start = System.nanoTime();
+    int value = delegate.read();
+    record(System.nanoTime() - start, value < 0 ? 0 : 1);
+
+    return value;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    long start = System.nanoTime();
+    int n = delegate.read(buffer, offset, length);
+    record(System.nanoTime() - start, n);
+
+    return n;
+  }
+
+  @Override
+  public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+    long start = System.nanoTime();
+    int n = delegate.read(position, buffer, offset, length);
+    record(System.nanoTime() - start, n);
+
+    return n;
+  }
+
+  @Override
+  public void readFully(long position, byte[] buffer, int offset, int length) throws IOException {
+    long start = System.nanoTime();
+    delegate.readFully(position, buffer, offset, length);
+    record(System.nanoTime() - start, length);
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    return delegate.skip(n);
+  }
+
+  @Override
+  public int available() throws IOException {
+    return delegate.available();
+  }
+
+  @Override
+  public void seek(long position) throws IOException {
+    delegate.seek(position);
+  }
+
+  @Override
+  public long getPos() throws IOException {
+    return delegate.getPos();
+  }
+
+  @Override
+  public boolean seekToNewSource(long targetPosition) throws IOException {
+    return delegate.seekToNewSource(targetPosition);
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  private void record(long nanos, long bytes) {
+    stats.record(nanos, bytes, false);
+    ReadTimes.record(nanos);
+  }
+
+}
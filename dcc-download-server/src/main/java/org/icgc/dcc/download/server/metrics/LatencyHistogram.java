@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.metrics;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.val;
+
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Lock-free latency histogram with fixed millisecond buckets.
+ */
+public class LatencyHistogram {
+
+  /**
+   * Constants.
+   */
+  private static final long[] BUCKET_BOUNDS_MS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+  /**
+   * State.
+   */
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+
+  public void record(long nanos) {
+    val millis = NANOSECONDS.toMillis(nanos);
+    int bucket = 0;
+    while (bucket < BUCKET_BOUNDS_MS.length && millis >= BUCKET_BOUNDS_MS[bucket]) {
+      bucket++;
+    }
+
+    counts.incrementAndGet(bucket);
+  }
+
+  /**
+   * @return cumulative counts of the latencies below each bucket bound named {@code <prefix>.lt_<bound>ms}, and the
+   *         total count named {@code <prefix>.lt_inf}
+   */
+  public List<Metric<?>> metrics(String prefix) {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    long cumulative = 0;
+    for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+      cumulative += counts.get(i);
+      metrics.add(new Metric<Long>(prefix + ".lt_" + BUCKET_BOUNDS_MS[i] + "ms", cumulative));
+    }
+
+    cumulative += counts.get(BUCKET_BOUNDS_MS.length);
+    metrics.add(new Metric<Long>(prefix + ".lt_inf", cumulative));
+
+    return metrics.build();
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.metrics;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * Read time of a download, bound to the threads reading for it, i.e. its streaming thread and the threads fetching its
+ * files. The {@link InstrumentedInputStream} records each read of the file system to the download bound to the reading
+ * thread, if any.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class ReadTimes {
+
+  /**
+   * State.
+   */
+  private static final ThreadLocal<LongAdder> CURRENT = new ThreadLocal<>();
+
+  /**
+   * @return the read time bound to the current thread, or {@code null} if none
+   */
+  @Nullable
+  public static LongAdder current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Binds {@code readNanos} to the current thread until the returned binding is closed, which restores the previous
+   * one.
+   */
+  public static Binding bind(@Nullable LongAdder readNanos) {
+    LongAdder previous = CURRENT.get();
+    CURRENT.set(readNanos);
+
+    return () -> CURRENT.set(previous);
+  }
+
+  /**
+   * Adds {@code nanos} to the read time bound to the current thread, if any.
+   */
+  public static void record(long nanos) {
+    LongAdder readNanos = CURRENT.get();
+    if (readNanos != null) {
+      readNanos.add(nanos);
+    }
+  }
+
+  public interface Binding extends AutoCloseable {
+
+    @Override
+    void close();
+
+  }
+
+}
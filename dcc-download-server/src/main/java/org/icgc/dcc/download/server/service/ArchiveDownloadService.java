@@ -60,6 +60,7 @@ import org.icgc.dcc.download.core.response.JobResponse;
 import org.icgc.dcc.download.server.fs.PathResolver;
 import org.icgc.dcc.download.server.io.FileStreamer;
 import org.icgc.dcc.download.server.io.GzipStreamer;
+import org.icgc.dcc.download.server.io.ParallelFetcher;
 import org.icgc.dcc.download.server.io.RealFileStreamer;
 import org.icgc.dcc.download.server.io.TarStreamer;
 import org.icgc.dcc.download.server.model.DataFiles;
@@ -91,6 +92,8 @@ public class ArchiveDownloadService {
   private final DataFilesRepository dataFilesRepository;
   @NonNull
   private final PathResolver pathResolver;
+  @NonNull
+  private final ParallelFetcher parallelFetcher;
 
   public String submitDownloadRequest(SubmitJobRequest request) {
     val downloadFiles = getDataTypeFiles(request);
@@ -303,7 +306,8 @@ public class ArchiveDownloadService {
       OutputStream output,
       String release,
       Map<DownloadDataType, String> fileNames) {
-    return new GzipStreamer(fileSystem, downloadFiles, fileSizes, headers, output, pathResolver, release, fileNames);
+    return new GzipStreamer(fileSystem, downloadFiles, fileSizes, headers, output, pathResolver, release, fileNames,
+        parallelFetcher);
   }
 
   private Map<DownloadDataType, String> resolveHeaders(String release, Collection<DownloadDataType> dataTypes) {
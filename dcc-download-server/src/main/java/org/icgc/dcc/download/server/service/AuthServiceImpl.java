@@ -17,12 +17,18 @@
  */
 package org.icgc.dcc.download.server.service;
 
+import static com.google.common.base.Charsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.icgc.dcc.download.server.utils.Responses.throwForbiddenException;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,8 +36,25 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
 import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Verifies tokens against the remote auth server.
+ * <p>
+ * Both positive and negative verification results are cached for {@code ttlSeconds}. Concurrent checks of the same
+ * token share a single remote call. For {@code staleSeconds} after the TTL the last result is still served while it is
+ * refreshed in the background, so a slow auth server doesn't block exports.
+ * <p>
+ * Results are keyed by the SHA-256 hash of the token, so the cache holds no raw tokens. The refresh uses the token of
+ * the request that found the result stale.
+ */
 @Slf4j
-@RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
 
   /**
@@ -43,24 +66,122 @@ public class AuthServiceImpl implements AuthService {
    * Dependencies.
    */
   private final RemoteTokenServices remoteTokenServices;
+  private final Executor refreshExecutor;
+
+  /**
+   * Configuration.
+   */
+  private final long ttlNanos;
+
+  /**
+   * State.
+   */
+  private final Cache<HashCode, Verification> results;
+
+  public AuthServiceImpl(@NonNull RemoteTokenServices remoteTokenServices, long cacheSize, long ttlSeconds,
+      long staleSeconds, @NonNull Executor refreshExecutor) {
+    this.remoteTokenServices = remoteTokenServices;
+    this.refreshExecutor = refreshExecutor;
+    this.ttlNanos = SECONDS.toNanos(ttlSeconds);
+    this.results = CacheBuilder.newBuilder()
+        .maximumSize(cacheSize)
+        .expireAfterWrite(ttlSeconds + staleSeconds, SECONDS)
+        .recordStats()
+        .build();
+  }
 
   @Override
   public boolean isAuthorized(@NonNull String token) {
+    val result = getResult(token);
+    if (result == AuthResult.INVALID) {
+      throwForbiddenException();
+    }
+
+    return result == AuthResult.AUTHORIZED;
+  }
+
+  /**
+   * Cache statistics. The load statistics describe the remote calls to the auth server.
+   */
+  public CacheStats getStats() {
+    return results.stats();
+  }
+
+  private AuthResult getResult(String token) {
+    val key = Hashing.sha256().hashString(token, UTF_8);
+    Verification verification;
+    try {
+      verification = results.get(key, () -> verify(token));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+
+    if (verification.isStale(ttlNanos)) {
+      refresh(key, token, verification);
+    }
+
+    return verification.getResult();
+  }
+
+  private void refresh(HashCode key, String token, Verification stale) {
+    // A single refresh per stale result
+    if (!stale.getRefreshing().compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          results.put(key, verify(token));
+        } finally {
+          stale.getRefreshing().set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      stale.getRefreshing().set(false);
+    }
+  }
+
+  private Verification verify(String token) {
+    return new Verification(resolveResult(token), System.nanoTime(), new AtomicBoolean());
+  }
+
+  private AuthResult resolveResult(String token) {
     try {
       val auth = remoteTokenServices.loadAuthentication(token);
       val scopes = auth.getOAuth2Request().getScope();
 
-      return isAuthorized(scopes);
+      return isAuthorized(scopes) ? AuthResult.AUTHORIZED : AuthResult.UNAUTHORIZED;
     } catch (AuthenticationException | InvalidTokenException e) {
-      log.warn("Failed to verify token '{}'. Exception:\n{}", token, e);
-      throwForbiddenException();
-    }
+      log.warn("Failed to verify token. Exception:\n{}", e);
 
-    return false;
+      return AuthResult.INVALID;
+    }
   }
 
   private static boolean isAuthorized(Collection<String> scopes) {
     return scopes.contains(VALID_SCOPE);
   }
 
+  @Value
+  private static class Verification {
+
+    AuthResult result;
+    long verifiedNanos;
+    AtomicBoolean refreshing;
+
+    boolean isStale(long ttlNanos) {
+      return System.nanoTime() - verifiedNanos > ttlNanos;
+    }
+
+  }
+
+  private enum AuthResult {
+
+    AUTHORIZED,
+    UNAUTHORIZED,
+    INVALID;
+
+  }
+
 }
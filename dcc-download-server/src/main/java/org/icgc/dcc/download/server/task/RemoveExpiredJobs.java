@@ -18,7 +18,9 @@
 package org.icgc.dcc.download.server.task;
 
 import static java.time.Instant.ofEpochSecond;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
+import static org.springframework.data.domain.Sort.Direction.ASC;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.data.mongodb.core.query.Query.query;
 
@@ -26,6 +28,8 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
@@ -34,56 +38,86 @@ import lombok.extern.slf4j.Slf4j;
 import org.icgc.dcc.download.server.model.DataFiles;
 import org.icgc.dcc.download.server.model.Job;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.google.common.base.Stopwatch;
+
+/**
+ * Removes download jobs and their data files which are older than a day.
+ * <p>
+ * The expired jobs are resolved by the indexed {@code submissionDate} field and removed in bounded batches, so neither
+ * the server nor the database has to hold the whole set of IDs at once.
+ */
 @Slf4j
 @Component
 @Profile("production")
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class RemoveExpiredJobs {
 
+  /**
+   * Constants.
+   */
   private static final String ID_FIELD = "_id";
-
+  private static final String SUBMISSION_DATE_FIELD = "submissionDate";
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * Metrics.
+   */
+  private static final String REMOVED_JOBS_METRIC = "jobs.cleanup.removed.jobs";
+  private static final String REMOVED_DATA_FILES_METRIC = "jobs.cleanup.removed.dataFiles";
+  private static final String DURATION_METRIC = "jobs.cleanup.duration";
+
+  /**
+   * Dependencies.
+   */
   @NonNull
   private final MongoTemplate mongoTemplate;
+  @NonNull
+  private final GaugeService gaugeService;
+
+  @PostConstruct
+  public void ensureIndex() {
+    log.info("Ensuring index on the '{}' field of the jobs collection...", SUBMISSION_DATE_FIELD);
+    mongoTemplate.indexOps(Job.class).ensureIndex(new Index().on(SUBMISSION_DATE_FIELD, ASC));
+  }
 
   // Daily at midnight
   @Scheduled(cron = "0 0 0 * * *")
   public void execute() {
-    val ids = findAllIds();
-    if (ids.isEmpty()) {
-      log.info("No download jobs found. Skipping cleanup...");
-      return;
-    }
-
-    log.info("Data file IDs: {}", ids);
-    val expired = findExpired(ids, getExpirationDate());
-    if (expired.isEmpty()) {
-      log.info("No expired download jobs found. Skipping cleanup...");
-      return;
-    }
-
-    log.info("Expired data file IDs: {}", expired);
-    remove(expired);
+    val watch = Stopwatch.createStarted();
+    val expiration = getExpirationDate();
+    log.info("Removing jobs older than: {}", ofEpochSecond(expiration));
+
+    long removedJobs = 0;
+    long removedDataFiles = 0;
+    List<String> expired;
+    do {
+      expired = findExpired(expiration);
+      if (!expired.isEmpty()) {
+        log.debug("Expired job IDs: {}", expired);
+        removedDataFiles += remove(expired, DataFiles.class);
+        removedJobs += remove(expired, Job.class);
+      }
+    } while (expired.size() == BATCH_SIZE);
+
+    val duration = watch.elapsed(MILLISECONDS);
+    log.info("Removed {} jobs and {} data files in {} ms", removedJobs, removedDataFiles, duration);
+    gaugeService.submit(REMOVED_JOBS_METRIC, removedJobs);
+    gaugeService.submit(REMOVED_DATA_FILES_METRIC, removedDataFiles);
+    gaugeService.submit(DURATION_METRIC, duration);
   }
 
-  private List<String> findAllIds() {
-    val query = new Query();
-    query.fields().include(ID_FIELD);
-    val dataFiles = mongoTemplate.find(query, DataFiles.class);
-
-    return dataFiles.stream()
-        .map(dataFile -> dataFile.getId())
-        .collect(toImmutableList());
-  }
-
-  private List<String> findExpired(List<String> ids, long expiration) {
-    log.info("Looking for jobs older than: {}", ofEpochSecond(expiration));
-    val query = query(where(ID_FIELD).in(ids).and("submissionDate").lt(expiration));
+  /**
+   * Returns at most {@link #BATCH_SIZE} IDs of jobs submitted before the {@code expiration}.
+   */
+  private List<String> findExpired(long expiration) {
+    val query = query(where(SUBMISSION_DATE_FIELD).lt(expiration)).limit(BATCH_SIZE);
     query.fields().include(ID_FIELD);
     val jobs = mongoTemplate.find(query, Job.class);
 
@@ -92,13 +126,14 @@ public class RemoveExpiredJobs {
         .collect(toImmutableList());
   }
 
-  private void remove(List<String> ids) {
+  private int remove(List<String> ids, Class<?> entityClass) {
     val query = query(where(ID_FIELD).in(ids));
-    val result = mongoTemplate.remove(query, DataFiles.class);
-    log.info("Removed {} jobs", result.getN());
+    val result = mongoTemplate.remove(query, entityClass);
+
+    return result.getN();
   }
 
-  private long getExpirationDate() {
+  private static long getExpirationDate() {
     return Instant.now().minus(1, ChronoUnit.DAYS).getEpochSecond();
   }
 
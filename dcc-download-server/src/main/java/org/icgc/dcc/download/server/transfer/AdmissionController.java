@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import static java.lang.String.format;
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.download.server.config.Properties.AdmissionProperties;
+import org.icgc.dcc.download.server.endpoint.RetryLaterException;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Limits the number of concurrent download streams of each {@link TransferType} and the bandwidth shared by all of
+ * them.
+ * <p>
+ * A request over the stream limit of its class waits in a bounded queue. It is rejected with {@code 429} if the queue
+ * is full and with {@code 503} if it waits longer than {@code maxWaitSeconds}. Both carry a {@code Retry-After}.<br>
+ * <br>
+ * The bandwidth limit is a token bucket shared by all the streams. Streams take tokens in small chunks in arrival
+ * order, so the active streams share the bandwidth evenly.
+ */
+@Slf4j
+public class AdmissionController implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "admission.";
+
+  /**
+   * Configuration.
+   */
+  private final int maxQueued;
+  private final long maxWaitMillis;
+  private final long retryAfterSeconds;
+
+  /**
+   * State.
+   */
+  private final Map<TransferType, StreamClass> streamClasses;
+  private final Optional<RateLimiter> bandwidth;
+
+  public AdmissionController(@NonNull AdmissionProperties properties) {
+    this.maxQueued = properties.getMaxQueued();
+    this.maxWaitMillis = SECONDS.toMillis(properties.getMaxWaitSeconds());
+    this.retryAfterSeconds = properties.getRetryAfterSeconds();
+    this.streamClasses = createStreamClasses(properties);
+    this.bandwidth = properties.getMaxBytesPerSecond() > 0 ?
+        Optional.of(RateLimiter.create(properties.getMaxBytesPerSecond())) :
+        Optional.empty();
+  }
+
+  /**
+   * Waits for a stream of the {@code type} class.
+   *
+   * @return permit to be closed when the stream finishes
+   * @throws RetryLaterException if the wait queue is full or the wait times out
+   */
+  public Permit admit(@NonNull TransferType type) {
+    val streamClass = streamClasses.get(type);
+    if (streamClass.tryAcquire(0)) {
+      return new Permit(streamClass.streams::release);
+    }
+
+    if (streamClass.queued.incrementAndGet() > maxQueued) {
+      streamClass.queued.decrementAndGet();
+      streamClass.queueFull.increment();
+      log.warn("Rejecting {} download: {} requests are waiting already", type, maxQueued);
+      throw new RetryLaterException(TOO_MANY_REQUESTS, retryAfterSeconds,
+          format("Too many %s downloads. Please retry later.", getName(type)));
+    }
+
+    try {
+      if (streamClass.tryAcquire(maxWaitMillis)) {
+        return new Permit(streamClass.streams::release);
+      }
+    } finally {
+      streamClass.queued.decrementAndGet();
+    }
+
+    streamClass.timeouts.increment();
+    log.warn("Rejecting {} download: no stream became available in {} ms", type, maxWaitMillis);
+    throw new RetryLaterException(SERVICE_UNAVAILABLE, retryAfterSeconds,
+        format("The server is busy serving %s downloads. Please retry later.", getName(type)));
+  }
+
+  /**
+   * @return the limiter of the bandwidth shared by all the streams, if the bandwidth is limited
+   */
+  public Optional<RateLimiter> getBandwidth() {
+    return bandwidth;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    for (val entry : streamClasses.entrySet()) {
+      val prefix = PREFIX + getName(entry.getKey()) + ".";
+      val streamClass = entry.getValue();
+      metrics.add(new Metric<Integer>(prefix + "maxStreams", streamClass.maxStreams));
+      metrics.add(new Metric<Integer>(prefix + "active", streamClass.maxStreams - streamClass.streams.availablePermits()));
+      metrics.add(new Metric<Integer>(prefix + "queued", streamClass.queued.get()));
+      metrics.add(new Metric<Long>(prefix + "admitted", streamClass.admitted.sum()));
+      metrics.add(new Metric<Long>(prefix + "rejected.queueFull", streamClass.queueFull.sum()));
+      metrics.add(new Metric<Long>(prefix + "rejected.timeout", streamClass.timeouts.sum()));
+    }
+
+    if (bandwidth.isPresent()) {
+      metrics.add(new Metric<Double>(PREFIX + "bandwidth.bytesPerSecond", bandwidth.get().getRate()));
+    }
+
+    return metrics.build();
+  }
+
+  private static Map<TransferType, StreamClass> createStreamClasses(AdmissionProperties properties) {
+    val streamClasses = Maps.<TransferType, StreamClass> newEnumMap(TransferType.class);
+    streamClasses.put(TransferType.JOB, new StreamClass(properties.getMaxJobStreams()));
+    streamClasses.put(TransferType.STATIC, new StreamClass(properties.getMaxStaticStreams()));
+    streamClasses.put(TransferType.EXPORT, new StreamClass(properties.getMaxExportStreams()));
+
+    return streamClasses;
+  }
+
+  private static String getName(TransferType type) {
+    return type.name().toLowerCase(ENGLISH);
+  }
+
+  private static class StreamClass {
+
+    private final int maxStreams;
+    private final Semaphore streams;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    StreamClass(int maxStreams) {
+      this.maxStreams = maxStreams;
+      // Fair to serve the waiting requests in arrival order
+      this.streams = new Semaphore(maxStreams, true);
+    }
+
+    boolean tryAcquire(long timeoutMillis) {
+      try {
+        // Unlike tryAcquire(), the timed version honors the fairness
+        if (streams.tryAcquire(timeoutMillis, MILLISECONDS)) {
+          admitted.increment();
+          return true;
+        }
+
+        return false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+
+        return false;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+import lombok.NonNull;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Admission of a stream. Closing releases it. Closing more than once has no effect.
+ */
+public class Permit implements AutoCloseable {
+
+  /**
+   * Dependencies.
+   */
+  private final Runnable release;
+  @Nullable
+  private final RateLimiter bandwidth;
+
+  /**
+   * State.
+   */
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  Permit(@NonNull Runnable release) {
+    this(release, null);
+  }
+
+  Permit(@NonNull Runnable release, @Nullable RateLimiter bandwidth) {
+    this.release = release;
+    this.bandwidth = bandwidth;
+  }
+
+  /**
+   * @return the limiter of the bandwidth of the admitted stream, if the bandwidth is limited. Valid while the permit is
+   * held.
+   */
+  public Optional<RateLimiter> getBandwidth() {
+    return Optional.ofNullable(bandwidth);
+  }
+
+  @Override
+  public void close() {
+    if (released.compareAndSet(false, true)) {
+      release.run();
+    }
+  }
+
+}
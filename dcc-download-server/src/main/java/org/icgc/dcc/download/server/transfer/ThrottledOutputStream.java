@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import lombok.NonNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Output stream of a {@link Transfer} taking a token per byte from each of its bandwidth limiters, i.e. the limiter
+ * shared by all the transfers and the limiter of the user.
+ * <p>
+ * Large writes are split into chunks, so that the concurrent transfers interleave on the limiter and share the
+ * bandwidth evenly instead of one large write holding back the others.
+ */
+public class ThrottledOutputStream extends FilterOutputStream {
+
+  /**
+   * Constants.
+   */
+  private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * Dependencies.
+   */
+  private volatile List<RateLimiter> limiters;
+
+  /**
+   * State.
+   */
+  private volatile long throttleNanos;
+
+  public ThrottledOutputStream(@NonNull OutputStream delegate, @NonNull List<RateLimiter> limiters) {
+    super(delegate);
+    this.limiters = ImmutableList.copyOf(limiters);
+  }
+
+  /**
+   * Replaces the limiters, e.g. once the transfer is admitted and the limiter of its user is known.
+   */
+  public void setLimiters(@NonNull List<RateLimiter> limiters) {
+    this.limiters = ImmutableList.copyOf(limiters);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    acquire(1);
+    out.write(b);
+  }
+
+  @Override
+  public void write(byte[] buffer, int offset, int length) throws IOException {
+    int written = 0;
+    while (written < length) {
+      int chunkSize = Math.min(length - written, MAX_CHUNK_SIZE);
+      acquire(chunkSize);
+      out.write(buffer, offset + written, chunkSize);
+      written += chunkSize;
+    }
+  }
+
+  /**
+   * @return nanos spent waiting for the bandwidth limiters
+   */
+  public long getThrottleNanos() {
+    return throttleNanos;
+  }
+
+  private void acquire(int bytes) {
+    List<RateLimiter> current = limiters;
+    if (bytes > 0 && !current.isEmpty()) {
+      long start = System.nanoTime();
+      for (RateLimiter limiter : current) {
+        limiter.acquire(bytes);
+      }
+
+      throttleNanos += System.nanoTime() - start;
+    }
+  }
+
+}
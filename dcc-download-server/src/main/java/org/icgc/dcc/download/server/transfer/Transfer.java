@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static lombok.AccessLevel.NONE;
+
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * A download streamed to a client. The clock of the transfer starts once it is admitted. The time spent waiting for
+ * the admission is reported separately.
+ */
+@Getter
+public class Transfer {
+
+  /**
+   * Constants.
+   */
+  private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+  private static final double NANOS_PER_MILLI = MILLISECONDS.toNanos(1);
+  private static final double NANOS_PER_SECOND = SECONDS.toNanos(1);
+
+  /**
+   * Configuration.
+   */
+  private final long id;
+  private final TransferType type;
+
+  /**
+   * Job ID, static file path or export ID.
+   */
+  private final String name;
+  @Nullable
+  private final String user;
+  private final Collection<String> dataTypes;
+  private final long startTime;
+  private final long createNanos;
+
+  /**
+   * State.
+   */
+  private final TransferOutputStream responseOutput;
+  private final ThrottledOutputStream throttledOutput;
+  @Getter(NONE)
+  private final LongAdder readNanos = new LongAdder();
+  private volatile long startNanos = -1;
+  private volatile long endNanos = -1;
+  private volatile TransferOutcome outcome;
+
+  public Transfer(long id, @NonNull TransferType type, @NonNull String name, @Nullable String user,
+      @NonNull Collection<String> dataTypes, @NonNull OutputStream output) {
+    this.id = id;
+    this.type = type;
+    this.name = name;
+    this.user = user;
+    this.dataTypes = ImmutableList.copyOf(dataTypes);
+    this.startTime = System.currentTimeMillis();
+    this.createNanos = System.nanoTime();
+    this.responseOutput = new TransferOutputStream(output);
+    this.throttledOutput = new ThrottledOutputStream(responseOutput, ImmutableList.of());
+  }
+
+  /**
+   * @return stream the streamer of the transfer writes to
+   */
+  public OutputStream getOutput() {
+    return throttledOutput;
+  }
+
+  /**
+   * @return nanos spent waiting for the bandwidth limiters
+   */
+  public long getThrottleNanos() {
+    return throttledOutput.getThrottleNanos();
+  }
+
+  /**
+   * Starts the clock of the transfer once it is admitted, and limits its bandwidth.
+   */
+  void start(@NonNull List<RateLimiter> limiters) {
+    this.startNanos = System.nanoTime();
+    throttledOutput.setLimiters(limiters);
+  }
+
+  /**
+   * @return nanos from the creation of the transfer to its admission, or so far if it is not admitted yet
+   */
+  public long getQueueNanos() {
+    return (startNanos < 0 ? System.nanoTime() : startNanos) - createNanos;
+  }
+
+  /**
+   * @return nanos from the admission of the transfer, or {@code 0} if it is not admitted
+   */
+  public long getElapsedNanos() {
+    if (startNanos < 0) {
+      return 0;
+    }
+
+    return (endNanos < 0 ? System.nanoTime() : endNanos) - startNanos;
+  }
+
+  /**
+   * @return nanos from the admission of the transfer to the first byte written, or {@code -1} if nothing was written
+   */
+  public long getTtfbNanos() {
+    long firstByteNanos = responseOutput.getFirstByteNanos();
+
+    return firstByteNanos < 0 || startNanos < 0 ? -1 : firstByteNanos - startNanos;
+  }
+
+  /**
+   * @return nanos spent in the file system reads of the transfer, summed over the threads reading for it. Concurrent
+   * fetches can make it exceed the elapsed time.
+   */
+  public long getReadNanos() {
+    return readNanos.sum();
+  }
+
+  /**
+   * @return the read time the threads reading for the transfer are bound to
+   * @see org.icgc.dcc.download.server.metrics.ReadTimes#bind(LongAdder)
+   */
+  LongAdder getReadTimer() {
+    return readNanos;
+  }
+
+  void finish(@NonNull TransferOutcome outcome) {
+    this.endNanos = System.nanoTime();
+    this.outcome = outcome;
+  }
+
+  public TransferInfo getInfo() {
+    long elapsedNanos = getElapsedNanos();
+    long bytes = responseOutput.getBytes();
+    long ttfbNanos = getTtfbNanos();
+
+    return new TransferInfo(
+        id,
+        type,
+        name,
+        user,
+        dataTypes,
+        startTime,
+        getQueueNanos() / NANOS_PER_MILLI,
+        elapsedNanos / NANOS_PER_MILLI,
+        bytes,
+        elapsedNanos == 0 ? 0 : bytes / BYTES_PER_MB / (elapsedNanos / NANOS_PER_SECOND),
+        ttfbNanos < 0 ? -1 : ttfbNanos / NANOS_PER_MILLI,
+        getReadNanos() / NANOS_PER_MILLI,
+        responseOutput.getWriteNanos() / NANOS_PER_MILLI,
+        getThrottleNanos() / NANOS_PER_MILLI,
+        outcome);
+  }
+
+  /**
+   * Snapshot of a {@link Transfer} exposed on the {@code transfers} endpoint.
+   */
+  @Value
+  public static class TransferInfo {
+
+    long id;
+    TransferType type;
+    String name;
+    String user;
+    Collection<String> dataTypes;
+    long startTime;
+    double queueMs;
+    double elapsedMs;
+    long bytes;
+    double mbPerSecond;
+    double ttfbMs;
+    double readMs;
+    double writeMs;
+    double throttleMs;
+    TransferOutcome outcome;
+
+  }
+
+}
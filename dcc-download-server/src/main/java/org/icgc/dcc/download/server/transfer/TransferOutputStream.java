@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import lombok.NonNull;
+
+/**
+ * Response output stream of a {@link Transfer} recording the bytes sent, the time of the first byte and the time spent
+ * writing to the client.
+ * <p>
+ * Written by the streaming thread only. The statistics are read concurrently by the {@code transfers} endpoint.
+ */
+public class TransferOutputStream extends OutputStream {
+
+  /**
+   * Dependencies.
+   */
+  private final OutputStream delegate;
+
+  /**
+   * State.
+   */
+  private volatile long bytes;
+  private volatile long firstByteNanos = -1;
+  private volatile long writeNanos;
+  private volatile boolean failed;
+
+  public TransferOutputStream(@NonNull OutputStream delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    long start = System.nanoTime();
+    try {
+      delegate.write(b);
+    } catch (IOException e) {
+      failed = true;
+      throw e;
+    } finally {
+      writeNanos += System.nanoTime() - start;
+    }
+
+    onWritten(start, 1);
+  }
+
+  @Override
+  public void write(byte[] buffer, int offset, int length) throws IOException {
+    long start = System.nanoTime();
+    try {
+      delegate.write(buffer, offset, length);
+    } catch (IOException e) {
+      failed = true;
+      throw e;
+    } finally {
+      writeNanos += System.nanoTime() - start;
+    }
+
+    onWritten(start, length);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    long start = System.nanoTime();
+    try {
+      delegate.flush();
+    } catch (IOException e) {
+      failed = true;
+      throw e;
+    } finally {
+      writeNanos += System.nanoTime() - start;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      delegate.close();
+    } catch (IOException e) {
+      failed = true;
+      throw e;
+    }
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return {@link System#nanoTime()} of the first byte written, or {@code -1} if nothing was written yet
+   */
+  public long getFirstByteNanos() {
+    return firstByteNanos;
+  }
+
+  /**
+   * @return nanos spent writing to the client, i.e. blocked by the network or a slow client
+   */
+  public long getWriteNanos() {
+    return writeNanos;
+  }
+
+  /**
+   * @return {@code true} if writing to the client failed, e.g. the client closed the connection
+   */
+  public boolean isFailed() {
+    return failed;
+  }
+
+  private void onWritten(long start, int length) {
+    if (length > 0 && firstByteNanos < 0) {
+      firstByteNanos = start;
+    }
+
+    bytes += length;
+  }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import static java.util.Comparator.comparing;
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.icgc.dcc.download.server.transfer.TransferOutcome.CLIENT_ABORT;
+import static org.icgc.dcc.download.server.transfer.TransferOutcome.COMPLETE;
+import static org.icgc.dcc.download.server.transfer.TransferOutcome.ERROR;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.download.server.endpoint.RetryLaterException;
+import org.icgc.dcc.download.server.io.FileStreamer;
+import org.icgc.dcc.download.server.metrics.LatencyHistogram;
+import org.icgc.dcc.download.server.metrics.ReadTimes;
+import org.icgc.dcc.download.server.metrics.ReadTimes.Binding;
+import org.icgc.dcc.download.server.transfer.Transfer.TransferInfo;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Tracks the active download streams and aggregates the statistics of the finished ones. The aggregates are exposed on
+ * the {@code metrics} endpoint as {@code transfers.*}.
+ * <p>
+ * Streams are admitted by the {@link UserThrottle} and the {@link AdmissionController}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TransferTracker implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "transfers.";
+  private static final double NANOS_PER_MILLI = MILLISECONDS.toNanos(1);
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final AdmissionController admissionController;
+  @NonNull
+  private final UserThrottle userThrottle;
+
+  /**
+   * State.
+   */
+  private final AtomicLong ids = new AtomicLong();
+  private final Map<Long, Transfer> active = Maps.newConcurrentMap();
+  private final Map<TransferOutcome, LongAdder> outcomes = createCounters();
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder readNanos = new LongAdder();
+  private final LongAdder writeNanos = new LongAdder();
+  private final LongAdder throttleNanos = new LongAdder();
+  private final LatencyHistogram queue = new LatencyHistogram();
+  private final LatencyHistogram ttfb = new LatencyHistogram();
+  private final LatencyHistogram duration = new LatencyHistogram();
+
+  /**
+   * Creates a transfer writing to {@code output}. The streamer of the transfer must write to
+   * {@link Transfer#getOutput()}.
+   */
+  public Transfer create(@NonNull TransferType type, @NonNull String name, @Nullable String user,
+      @NonNull Collection<String> dataTypes, @NonNull OutputStream output) {
+    return new Transfer(ids.incrementAndGet(), type, name, user, dataTypes, output);
+  }
+
+  /**
+   * Streams and closes {@code streamer} tracking it as the active {@code transfer}. Waits for the admission of the
+   * transfer first. The streamer is closed whether or not the transfer is admitted.
+   *
+   * @throws RetryLaterException if the transfer is not admitted
+   */
+  public void stream(@NonNull Transfer transfer, @NonNull FileStreamer streamer) throws IOException {
+    boolean closed = false;
+    try (Permit userPermit = userThrottle.admit(transfer.getUser());
+        Permit permit = admissionController.admit(transfer.getType())) {
+      // The limiter of the user is taken from its permit, as the user might be evicted and recreated otherwise
+      val limiters = ImmutableList.<RateLimiter> builder();
+      admissionController.getBandwidth().ifPresent(limiters::add);
+      userPermit.getBandwidth().ifPresent(limiters::add);
+      transfer.start(limiters.build());
+      queue.record(transfer.getQueueNanos());
+
+      active.put(transfer.getId(), transfer);
+      TransferOutcome outcome = ERROR;
+      try (Binding binding = ReadTimes.bind(transfer.getReadTimer())) {
+        streamer.stream();
+        closed = true;
+        streamer.close();
+        outcome = COMPLETE;
+      } finally {
+        // Streamers swallow client aborts, so a failed write to the client takes precedence
+        finish(transfer, transfer.getResponseOutput().isFailed() ? CLIENT_ABORT : outcome);
+      }
+    } finally {
+      if (!closed) {
+        // Must not hide the rejection or the failure of the stream
+        Closeables.close(streamer, true);
+      }
+    }
+  }
+
+  public List<TransferInfo> getActiveTransfers() {
+    return active.values().stream()
+        .sorted(comparing(Transfer::getId))
+        .map(Transfer::getInfo)
+        .collect(toList());
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    metrics.add(new Metric<Integer>(PREFIX + "active", active.size()));
+    for (val entry : outcomes.entrySet()) {
+      val name = PREFIX + entry.getKey().name().toLowerCase(ENGLISH) + ".count";
+      metrics.add(new Metric<Long>(name, entry.getValue().sum()));
+    }
+
+    metrics.add(new Metric<Long>(PREFIX + "bytes", bytes.sum()));
+    metrics.add(new Metric<Double>(PREFIX + "readMs", readNanos.sum() / NANOS_PER_MILLI));
+    metrics.add(new Metric<Double>(PREFIX + "writeMs", writeNanos.sum() / NANOS_PER_MILLI));
+    metrics.add(new Metric<Double>(PREFIX + "throttleMs", throttleNanos.sum() / NANOS_PER_MILLI));
+    metrics.addAll(queue.metrics(PREFIX + "queue"));
+    metrics.addAll(ttfb.metrics(PREFIX + "ttfb"));
+    metrics.addAll(duration.metrics(PREFIX + "duration"));
+
+    return metrics.build();
+  }
+
+  private void finish(Transfer transfer, TransferOutcome outcome) {
+    transfer.finish(outcome);
+    active.remove(transfer.getId());
+
+    val output = transfer.getResponseOutput();
+    outcomes.get(outcome).increment();
+    bytes.add(output.getBytes());
+    userThrottle.recordBytes(transfer.getUser(), output.getBytes());
+    readNanos.add(transfer.getReadNanos());
+    writeNanos.add(output.getWriteNanos());
+    throttleNanos.add(transfer.getThrottleNanos());
+    duration.record(transfer.getElapsedNanos());
+    if (transfer.getTtfbNanos() >= 0) {
+      ttfb.record(transfer.getTtfbNanos());
+    }
+
+    log.info("Finished transfer {}", transfer.getInfo());
+  }
+
+  private static Map<TransferOutcome, LongAdder> createCounters() {
+    val counters = Maps.<TransferOutcome, LongAdder> newEnumMap(TransferOutcome.class);
+    for (val outcome : TransferOutcome.values()) {
+      counters.put(outcome, new LongAdder());
+    }
+
+    return counters;
+  }
+
+}
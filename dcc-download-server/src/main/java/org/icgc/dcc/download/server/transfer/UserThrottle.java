@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.download.server.config.Properties.AdmissionProperties;
+import org.icgc.dcc.download.server.config.Properties.UserClassProperties;
+import org.icgc.dcc.download.server.endpoint.RetryLaterException;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Limits the concurrent streams of each user and shares the bandwidth between the active users in proportion to the
+ * weights of their user classes.
+ * <p>
+ * The bandwidth of a user is shared by the streams of the user. It is rebalanced whenever a user starts or stops
+ * streaming. Anonymous downloads, i.e. exports, are limited by the {@link AdmissionController} only.
+ */
+@Slf4j
+public class UserThrottle implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "users.";
+  private static final int MAX_USERS = 1000;
+  private static final long USER_EXPIRATION_HOURS = 1;
+
+  /**
+   * Configuration.
+   */
+  private final long maxBytesPerSecond;
+  private final long retryAfterSeconds;
+  private final UserClassProperties defaultUserClass;
+  private final Map<String, UserClassProperties> userClasses;
+
+  /**
+   * State.
+   */
+  private final Map<String, UserState> active = Maps.newHashMap();
+  private final LoadingCache<String, UserState> users = CacheBuilder.newBuilder()
+      .maximumSize(MAX_USERS)
+      .expireAfterAccess(USER_EXPIRATION_HOURS, HOURS)
+      .build(CacheLoader.from(this::createUserState));
+
+  public UserThrottle(@NonNull AdmissionProperties properties) {
+    this.maxBytesPerSecond = properties.getMaxBytesPerSecond();
+    this.retryAfterSeconds = properties.getRetryAfterSeconds();
+    this.defaultUserClass = properties.getUserClasses()
+        .getOrDefault(properties.getDefaultUserClass(), new UserClassProperties());
+    this.userClasses = resolveUserClasses(properties.getUserClasses());
+  }
+
+  /**
+   * Admits a stream of {@code user}.
+   *
+   * @return permit to be closed when the stream finishes. It carries the bandwidth limiter of the user, which is pinned
+   * while any stream of the user is active.
+   * @throws RetryLaterException if the user reached the maximum number of streams
+   */
+  public Permit admit(@Nullable String user) {
+    if (user == null) {
+      return new Permit(() -> {});
+    }
+
+    val userState = acquire(user);
+
+    return new Permit(() -> release(userState), userState.bandwidth);
+  }
+
+  public synchronized void recordBytes(@Nullable String user, long bytes) {
+    if (user != null) {
+      getUserState(user).bytes.add(bytes);
+    }
+  }
+
+  @Override
+  public synchronized Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    metrics.add(new Metric<Integer>(PREFIX + "active", active.size()));
+
+    val userStates = new TreeMap<String, UserState>(users.asMap());
+    userStates.putAll(active);
+    for (val userState : userStates.values()) {
+      val prefix = PREFIX + userState.user + ".";
+      metrics.add(new Metric<Integer>(prefix + "streams", userState.streams));
+      metrics.add(new Metric<Long>(prefix + "admitted", userState.admitted.sum()));
+      metrics.add(new Metric<Long>(prefix + "rejected", userState.rejected.sum()));
+      metrics.add(new Metric<Long>(prefix + "bytes", userState.bytes.sum()));
+      if (userState.bandwidth != null && userState.streams > 0) {
+        metrics.add(new Metric<Double>(prefix + "bytesPerSecond", userState.bandwidth.getRate()));
+      }
+    }
+
+    return metrics.build();
+  }
+
+  private synchronized UserState acquire(String user) {
+    val userState = getUserState(user);
+    val maxStreams = userState.userClass.getMaxStreams();
+    if (userState.streams >= maxStreams) {
+      userState.rejected.increment();
+      log.warn("Rejecting download of user '{}': {} streams are active already", user, maxStreams);
+      throw new RetryLaterException(TOO_MANY_REQUESTS, retryAfterSeconds,
+          format("Too many concurrent downloads. At most %s downloads are allowed at once.", maxStreams));
+    }
+
+    userState.admitted.increment();
+    if (userState.streams++ == 0) {
+      active.put(user, userState);
+      rebalance();
+    }
+
+    return userState;
+  }
+
+  private synchronized void release(UserState userState) {
+    if (--userState.streams == 0) {
+      active.remove(userState.user);
+      rebalance();
+    }
+  }
+
+  /**
+   * Shares {@code maxBytesPerSecond} between the active users in proportion to their weights.
+   */
+  private void rebalance() {
+    if (maxBytesPerSecond <= 0 || active.isEmpty()) {
+      return;
+    }
+
+    long totalWeight = 0;
+    for (val userState : active.values()) {
+      totalWeight += userState.getWeight();
+    }
+
+    for (val userState : active.values()) {
+      userState.bandwidth.setRate((double) maxBytesPerSecond * userState.getWeight() / totalWeight);
+    }
+  }
+
+  private UserState getUserState(String user) {
+    // Active users might have been evicted from the cache
+    val userState = active.get(user);
+
+    return userState == null ? users.getUnchecked(user) : userState;
+  }
+
+  private UserState createUserState(String user) {
+    val userClass = userClasses.getOrDefault(user, defaultUserClass);
+    val bandwidth = maxBytesPerSecond > 0 ? RateLimiter.create(maxBytesPerSecond) : null;
+
+    return new UserState(user, userClass, bandwidth);
+  }
+
+  private static Map<String, UserClassProperties> resolveUserClasses(Map<String, UserClassProperties> userClasses) {
+    val resolved = ImmutableMap.<String, UserClassProperties> builder();
+    for (val userClass : userClasses.values()) {
+      for (val user : userClass.getUsers()) {
+        resolved.put(user, userClass);
+      }
+    }
+
+    return resolved.build();
+  }
+
+  private static class UserState {
+
+    private final String user;
+    private final UserClassProperties userClass;
+    @Nullable
+    private final RateLimiter bandwidth;
+
+    /**
+     * Guarded by the {@link UserThrottle}.
+     */
+    private int streams;
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    UserState(String user, UserClassProperties userClass, @Nullable RateLimiter bandwidth) {
+      this.user = user;
+      this.userClass = userClass;
+      this.bandwidth = bandwidth;
+    }
+
+    int getWeight() {
+      return Math.max(userClass.getWeight(), 1);
+    }
+
+  }
+
+}
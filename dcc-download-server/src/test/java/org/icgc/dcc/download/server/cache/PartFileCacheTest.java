@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.cache;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.hadoop.fs.FileSystems.getDefaultLocalFileSystem;
+import static org.icgc.dcc.download.test.TestUtils.createFile;
+import static org.icgc.dcc.download.test.TestUtils.getMetricValues;
+
+import java.io.File;
+
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import org.apache.hadoop.fs.Path;
+import org.icgc.dcc.download.server.config.Properties.CacheProperties;
+import org.icgc.dcc.download.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class PartFileCacheTest extends AbstractTest {
+
+  CacheProperties properties;
+  PartFileCache cache;
+  CachingFileSystem fileSystem;
+
+  @Before
+  @Override
+  public void setUp() {
+    super.setUp();
+    properties = new CacheProperties();
+    properties.setEnabled(true);
+    properties.setDir(new File(workingDir, "cache").getAbsolutePath());
+    properties.setMinAccesses(2);
+    createCache();
+  }
+
+  @Test
+  public void testOpen_admission() throws Exception {
+    val path = createFile(workingDir, "part-00000.gz", "0123456789");
+
+    assertThat(read(path)).isEqualTo("0123456789");
+    assertThat(getMetricValues(cache).get("cache.loaded")).isEqualTo(0L);
+
+    assertThat(read(path)).isEqualTo("0123456789");
+    assertThat(getMetricValues(cache).get("cache.loaded")).isEqualTo(1L);
+    assertThat(getMetricValues(cache).get("cache.misses")).isEqualTo(2L);
+
+    assertThat(read(path)).isEqualTo("0123456789");
+    assertThat(getMetricValues(cache).get("cache.hits")).isEqualTo(1L);
+    assertThat(getMetricValues(cache).get("cache.bytes")).isEqualTo(10L);
+  }
+
+  @Test
+  public void testOpen_modified() throws Exception {
+    val path = createFile(workingDir, "part-00000.gz", "0123456789");
+    read(path);
+    read(path);
+
+    createFile(workingDir, "part-00000.gz", "abc");
+
+    assertThat(read(path)).isEqualTo("abc");
+    assertThat(getMetricValues(cache).get("cache.hits")).isEqualTo(0L);
+  }
+
+  @Test
+  public void testOpen_partialRead() throws Exception {
+    val path = createFile(workingDir, "part-00000.gz", "0123456789");
+    read(path);
+
+    val input = fileSystem.open(path);
+    input.read(new byte[5]);
+    input.close();
+
+    assertThat(getMetricValues(cache).get("cache.loaded")).isEqualTo(0L);
+    assertThat(getMetricValues(cache).get("cache.loading")).isEqualTo(0);
+  }
+
+  @Test
+  public void testOpen_eviction() throws Exception {
+    properties.setMaxBytes(15);
+    createCache();
+    val first = createFile(workingDir, "part-00000.gz", "0123456789");
+    val second = createFile(workingDir, "part-00001.gz", "abcdefghij");
+
+    read(first);
+    read(first);
+    read(second);
+    read(second);
+
+    val values = getMetricValues(cache);
+    assertThat(values.get("cache.loaded")).isEqualTo(2L);
+    assertThat(values.get("cache.evicted")).isEqualTo(1L);
+    assertThat(values.get("cache.files")).isEqualTo(1);
+    assertThat(values.get("cache.bytes")).isEqualTo(10L);
+  }
+
+  @Test
+  public void testOpen_reserved() throws Exception {
+    properties.setMaxBytes(15);
+    createCache();
+    val first = createFile(workingDir, "part-00000.gz", "0123456789");
+    val second = createFile(workingDir, "part-00001.gz", "abcdefghij");
+    read(first);
+    read(second);
+
+    @Cleanup
+    val firstInput = fileSystem.open(first);
+    assertThat(getMetricValues(cache).get("cache.loadingBytes")).isEqualTo(10L);
+
+    // No room left next to the file loading
+    @Cleanup
+    val secondInput = fileSystem.open(second);
+    assertThat(getMetricValues(cache).get("cache.loading")).isEqualTo(1);
+
+    ByteStreams.toByteArray(firstInput);
+    ByteStreams.toByteArray(secondInput);
+
+    val values = getMetricValues(cache);
+    assertThat(values.get("cache.loaded")).isEqualTo(1L);
+    assertThat(values.get("cache.bytes")).isEqualTo(10L);
+    assertThat(values.get("cache.loadingBytes")).isEqualTo(0L);
+  }
+
+  @Test
+  public void testOpen_tooLarge() throws Exception {
+    properties.setMaxFileBytes(5);
+    createCache();
+    val path = createFile(workingDir, "part-00000.gz", "0123456789");
+
+    read(path);
+    read(path);
+
+    assertThat(getMetricValues(cache).get("cache.loaded")).isEqualTo(0L);
+  }
+
+  private void createCache() {
+    cache = new PartFileCache(properties);
+    fileSystem = new CachingFileSystem(getDefaultLocalFileSystem(), cache);
+  }
+
+  @SneakyThrows
+  private String read(Path path) {
+    @Cleanup
+    val input = fileSystem.open(path);
+
+    return new String(ByteStreams.toByteArray(input), UTF_8);
+  }
+
+}
@@ -41,13 +41,20 @@ import org.icgc.dcc.download.core.model.JobUiInfo;
 import org.icgc.dcc.download.core.model.TokenPayload;
 import org.icgc.dcc.download.core.request.RecordsSizeRequest;
 import org.icgc.dcc.download.core.request.SubmitJobRequest;
+import org.icgc.dcc.download.server.config.Properties.AdmissionProperties;
+import org.icgc.dcc.download.server.config.Properties.SharingProperties;
 import org.icgc.dcc.download.server.io.FileStreamer;
+import org.icgc.dcc.download.server.io.SharedStreams;
 import org.icgc.dcc.download.server.service.ArchiveDownloadService;
+import org.icgc.dcc.download.server.transfer.AdmissionController;
+import org.icgc.dcc.download.server.transfer.TransferTracker;
+import org.icgc.dcc.download.server.transfer.UserThrottle;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -62,6 +69,11 @@ public class DownloadControllerTest {
   JwtService tokenService;
   @Mock
   FileStreamer streamer;
+  @Spy
+  TransferTracker transferTracker = new TransferTracker(new AdmissionController(new AdmissionProperties()),
+      new UserThrottle(new AdmissionProperties()));
+  @Spy
+  SharedStreams sharedStreams = new SharedStreams(new SharingProperties());
 
   @InjectMocks
   DownloadController controller;
@@ -32,16 +32,21 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 import lombok.val;
 
+import org.icgc.dcc.download.server.config.Properties.AdmissionProperties;
 import org.icgc.dcc.download.server.io.FileStreamer;
 import org.icgc.dcc.download.server.model.ExportFile;
 import org.icgc.dcc.download.server.model.MetadataResponse;
 import org.icgc.dcc.download.server.service.AuthService;
 import org.icgc.dcc.download.server.service.ExportsService;
+import org.icgc.dcc.download.server.transfer.AdmissionController;
+import org.icgc.dcc.download.server.transfer.TransferTracker;
+import org.icgc.dcc.download.server.transfer.UserThrottle;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -58,6 +63,9 @@ public class ExportsControllerTest {
   AuthService authService;
   @Mock
   FileStreamer fileStreamer;
+  @Spy
+  TransferTracker transferTracker = new TransferTracker(new AdmissionController(new AdmissionProperties()),
+      new UserThrottle(new AdmissionProperties()));
 
   @InjectMocks
   ExportsController controller;
@@ -17,6 +17,7 @@
  */
 package org.icgc.dcc.download.server.fs;
 
+import static com.google.common.collect.ImmutableList.copyOf;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.icgc.dcc.common.hadoop.fs.FileSystems.getDefaultLocalFileSystem;
 
@@ -32,6 +33,7 @@ import org.icgc.dcc.download.server.config.Properties;
 import org.icgc.dcc.download.server.model.DataTypeFile;
 import org.icgc.dcc.download.server.utils.AbstractFsTest;
 import org.icgc.dcc.download.server.utils.DownloadFsTests;
+import org.icgc.dcc.download.test.io.SyntheticReleaseDirectory;
 import org.junit.Test;
 
 import com.google.common.collect.Table;
@@ -89,6 +91,31 @@ public class DownloadFilesReaderTest extends AbstractFsTest {
     assertRelease21(releaseTable);
   }
 
+  @Test
+  public void testCreateReleaseCache_synthetic() throws Exception {
+    val release = new SyntheticReleaseDirectory("release_22", 3, 5, copyOf(DownloadDataType.values()), 0.5, 2, 10, 1);
+    val rootDir = new File(workingDir, "synthetic");
+    val releaseDir = release.write(rootDir);
+
+    val properties = new Properties.JobProperties();
+    properties.setInputDir(rootDir.getAbsolutePath());
+    val reader = new DownloadFilesReader(fileSystem, new PathResolver(properties));
+    val releaseTable = reader.createReleaseCache(new Path(releaseDir.getAbsolutePath()));
+
+    assertThat(releaseTable.rowKeySet()).hasSize(release.getDonorCount());
+    for (val clinical : DownloadDataType.CLINICAL) {
+      assertThat(releaseTable.column(clinical)).hasSize(release.getDonorCount());
+    }
+
+    for (val dataTypeFile : releaseTable.values()) {
+      assertThat(dataTypeFile.getPartFileIndices()).containsExactly((short) 0, (short) 1);
+    }
+
+    val projectDonors = DownloadFilesReader.createProjectDonors(releaseTable);
+    assertThat(projectDonors.keySet()).containsOnly("P0-SY", "P1-SY", "P2-SY");
+    assertThat(projectDonors.get("P0-SY")).hasSize(5);
+  }
+
   private void assertRelease21(Table<String, DownloadDataType, DataTypeFile> releaseTable) {
     assertThat(releaseTable.size()).isEqualTo(28);
     assertDonor(releaseTable.row("DO001"), (short) 0, 8);
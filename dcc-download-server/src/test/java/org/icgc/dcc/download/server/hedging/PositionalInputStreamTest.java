@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.hedging;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_DFSCLIENT_HEDGED_READ_THREADPOOL_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.hadoop.fs.FileSystems.getDefaultLocalFileSystem;
+import static org.icgc.dcc.download.test.TestUtils.createFile;
+import static org.icgc.dcc.download.test.TestUtils.getMetricValues;
+
+import java.io.IOException;
+
+import lombok.Cleanup;
+import lombok.val;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.icgc.dcc.download.server.config.Properties.HedgingProperties;
+import org.icgc.dcc.download.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PositionalInputStreamTest extends AbstractTest {
+
+  HedgingProperties properties;
+  HedgedReads hedgedReads;
+  HedgingFileSystem fileSystem;
+  Path path;
+
+  @Before
+  @Override
+  public void setUp() {
+    super.setUp();
+    properties = new HedgingProperties();
+    properties.setChunkBytes(4);
+    hedgedReads = new HedgedReads(getDefaultLocalFileSystem(), properties);
+    fileSystem = new HedgingFileSystem(new PositionalOnlyFileSystem(getDefaultLocalFileSystem()), hedgedReads);
+    path = createFile(workingDir, "part-00000.gz", "0123456789");
+  }
+
+  @Test
+  public void testRead() throws Exception {
+    @Cleanup
+    val input = fileSystem.open(path);
+
+    val text = new StringBuilder();
+    for (int b = input.read(); b != -1; b = input.read()) {
+      text.append((char) b);
+    }
+
+    // Served from chunks of 4 bytes, plus the read at the end of the file
+    assertThat(text.toString()).isEqualTo("0123456789");
+    assertThat(getMetricValues(hedgedReads).get("hedging.reads")).isEqualTo(4L);
+  }
+
+  @Test
+  public void testRead_large() throws Exception {
+    @Cleanup
+    val input = fileSystem.open(path);
+
+    // Read straight to the buffer without copying a chunk
+    val buffer = new byte[16];
+    assertThat(input.read(buffer, 0, buffer.length)).isEqualTo(10);
+    assertThat(new String(buffer, 0, 10, UTF_8)).isEqualTo("0123456789");
+    assertThat(input.read(buffer, 0, buffer.length)).isEqualTo(-1);
+    assertThat(input.getPos()).isEqualTo(10);
+  }
+
+  @Test
+  public void testSeek() throws Exception {
+    @Cleanup
+    val input = fileSystem.open(path);
+    input.seek(6);
+    assertThat((char) input.read()).isEqualTo('6');
+    input.seek(1);
+    assertThat(input.skip(2)).isEqualTo(2);
+    assertThat((char) input.read()).isEqualTo('3');
+    assertThat(input.getPos()).isEqualTo(4);
+  }
+
+  @Test
+  public void testIsEnabled() throws Exception {
+    assertThat(hedgedReads.isEnabled()).isFalse();
+
+    val conf = new Configuration();
+    conf.setInt(DFS_DFSCLIENT_HEDGED_READ_THREADPOOL_SIZE, 4);
+    @Cleanup
+    val hedgingFileSystem = FileSystem.newInstanceLocal(conf);
+
+    assertThat(new HedgedReads(hedgingFileSystem, properties).isEnabled()).isTrue();
+  }
+
+  /**
+   * Fails the sequential reads, which the HDFS client doesn't hedge.
+   */
+  private static class PositionalOnlyFileSystem extends FilterFileSystem {
+
+    PositionalOnlyFileSystem(FileSystem fileSystem) {
+      super(fileSystem);
+    }
+
+    @Override
+    public FSDataInputStream open(Path path, int bufferSize) throws IOException {
+      val input = fs.open(path, bufferSize);
+
+      return new FSDataInputStream(new FSInputStream() {
+
+        @Override
+        public int read() throws IOException {
+          throw new IOException("Sequential read of '" + path + "'");
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+          return input.read(position, buffer, offset, length);
+        }
+
+        @Override
+        public void seek(long position) throws IOException {
+          throw new IOException("Seek of '" + path + "'");
+        }
+
+        @Override
+        public long getPos() throws IOException {
+          return 0;
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPosition) throws IOException {
+          return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+          input.close();
+        }
+
+      });
+    }
+
+  }
+
+}
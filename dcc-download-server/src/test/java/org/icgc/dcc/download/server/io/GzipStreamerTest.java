@@ -67,6 +67,7 @@ public class GzipStreamerTest extends AbstractTest {
   GzipStreamer gzipStreamer;
   File testFile;
   PathResolver pathResolver;
+  ParallelFetcher parallelFetcher;
 
   @Before
   @Override
@@ -78,6 +79,7 @@ public class GzipStreamerTest extends AbstractTest {
     val properties = new Properties.JobProperties();
     properties.setInputDir(rootDir);
     pathResolver = new PathResolver(properties);
+    parallelFetcher = new ParallelFetcher(new Properties.FetchProperties());
   }
 
   @Test
@@ -86,7 +88,7 @@ public class GzipStreamerTest extends AbstractTest {
 
     gzipStreamer =
         new GzipStreamer(getDefaultLocalFileSystem(), getDownloadFiles(), getDownloadSizes(), getHeaders(), output,
-            pathResolver, "release_21", emptyMap());
+            pathResolver, "release_21", emptyMap(), parallelFetcher);
 
     try {
       assertThat(gzipStreamer.hasNext()).isTrue();
@@ -107,7 +109,8 @@ public class GzipStreamerTest extends AbstractTest {
     val output = new BufferedOutputStream(new FileOutputStream(testFile));
 
     gzipStreamer = new GzipStreamer(getDefaultLocalFileSystem(), getMultipleDownloadFiles(),
-        getMultipleDownloadSizes(), getMultipleHeaders(), output, pathResolver, "release_21", emptyMap());
+        getMultipleDownloadSizes(), getMultipleHeaders(), output, pathResolver, "release_21", emptyMap(),
+        parallelFetcher);
 
     try {
       assertThat(gzipStreamer.hasNext()).isTrue();
@@ -130,6 +133,32 @@ public class GzipStreamerTest extends AbstractTest {
     assertDonorSampleTestFile();
   }
 
+  @Test
+  public void testRead_parallel() throws Exception {
+    // Small chunks so the part files are read in several concurrent positional reads
+    val fetchProperties = new Properties.FetchProperties();
+    fetchProperties.setEnabled(true);
+    fetchProperties.setConcurrency(3);
+    fetchProperties.setChunkBytes(16);
+    parallelFetcher = new ParallelFetcher(fetchProperties);
+    val output = new BufferedOutputStream(new FileOutputStream(testFile));
+
+    gzipStreamer = new GzipStreamer(getDefaultLocalFileSystem(), getMultipleDownloadFiles(),
+        getMultipleDownloadSizes(), getMultipleHeaders(), output, pathResolver, "release_21", emptyMap(),
+        parallelFetcher);
+
+    try {
+      gzipStreamer.streamEntry();
+      gzipStreamer.streamEntry();
+      assertThat(gzipStreamer.hasNext()).isFalse();
+    } finally {
+      output.close();
+      parallelFetcher.shutdown();
+    }
+
+    assertDonorSampleTestFile();
+  }
+
   @Test
   public void testGetNextEntryName() throws Exception {
     gzipStreamer = new GzipStreamer(
@@ -140,7 +169,8 @@ public class GzipStreamerTest extends AbstractTest {
         mock(OutputStream.class),
         pathResolver,
         "release_21",
-        emptyMap());
+        emptyMap(),
+        parallelFetcher);
     assertThat(gzipStreamer.getName()).isEqualTo("simple_somatic_mutation.open.tsv.gz");
   }
 
@@ -154,7 +184,8 @@ public class GzipStreamerTest extends AbstractTest {
         mock(OutputStream.class),
         pathResolver,
         "release_21",
-        singletonMap(SSM_OPEN, "custom_name"));
+        singletonMap(SSM_OPEN, "custom_name"),
+        parallelFetcher);
     assertThat(gzipStreamer.getName()).isEqualTo("custom_name");
   }
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.io;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.hadoop.fs.FileSystems.getDefaultLocalFileSystem;
+import static org.icgc.dcc.download.test.TestUtils.createFile;
+import static org.icgc.dcc.download.test.TestUtils.getMetricValues;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.icgc.dcc.download.server.cache.CachingFileSystem;
+import org.icgc.dcc.download.server.cache.PartFileCache;
+import org.icgc.dcc.download.server.config.Properties.CacheProperties;
+import org.icgc.dcc.download.server.config.Properties.FetchProperties;
+import org.icgc.dcc.download.test.AbstractTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+public class ParallelFetcherTest extends AbstractTest {
+
+  FetchProperties properties;
+  ParallelFetcher fetcher;
+
+  @Before
+  @Override
+  public void setUp() {
+    super.setUp();
+    properties = new FetchProperties();
+    properties.setEnabled(true);
+    properties.setConcurrency(3);
+    properties.setChunkBytes(4);
+    createFetcher();
+  }
+
+  @After
+  public void tearDown() {
+    fetcher.shutdown();
+  }
+
+  @Test
+  public void testCopy_files() throws Exception {
+    val paths = ImmutableList.of(
+        createFile(workingDir, "part-00000.gz", "012"),
+        createFile(workingDir, "part-00001.gz", ""),
+        createFile(workingDir, "part-00002.gz", "3456"),
+        createFile(workingDir, "part-00003.gz", "789"));
+
+    assertThat(copy(paths)).isEqualTo("0123456789");
+    assertThat(getMetricValues(fetcher).get("fetch.chunks")).isEqualTo(4L);
+    assertThat(getMetricValues(fetcher).get("fetch.bytes")).isEqualTo(10L);
+    assertThat(getMetricValues(fetcher).get("fetch.buffers.used")).isEqualTo(0);
+  }
+
+  @Test
+  public void testCopy_chunks() throws Exception {
+    val paths = ImmutableList.of(
+        createFile(workingDir, "part-00000.gz", "abcdefghij"),
+        createFile(workingDir, "part-00001.gz", "0123456789"));
+
+    assertThat(copy(paths)).isEqualTo("abcdefghij0123456789");
+    assertThat(getMetricValues(fetcher).get("fetch.chunks")).isEqualTo(6L);
+  }
+
+  @Test
+  public void testCopy_budgetExhausted() throws Exception {
+    properties.setMaxBufferBytes(4);
+    createFetcher();
+    val paths = ImmutableList.of(createFile(workingDir, "part-00000.gz", "abcdefghij"));
+
+    // Another download copies while the first holds the only buffer
+    val other = new ByteArrayOutputStream();
+    ByteArrayOutputStream output = new ByteArrayOutputStream() {
+
+      @Override
+      @SneakyThrows
+      public synchronized void write(byte[] bytes, int offset, int length) {
+        if (other.size() == 0) {
+          fetcher.copy(getDefaultLocalFileSystem(), paths, other);
+        }
+
+        super.write(bytes, offset, length);
+      }
+
+    };
+    fetcher.copy(getDefaultLocalFileSystem(), paths, output);
+
+    assertThat(new String(output.toByteArray(), UTF_8)).isEqualTo("abcdefghij");
+    assertThat(new String(other.toByteArray(), UTF_8)).isEqualTo("abcdefghij");
+    assertThat(getMetricValues(fetcher).get("fetch.unbuffered")).isEqualTo(3L);
+    assertThat(getMetricValues(fetcher).get("fetch.buffers.used")).isEqualTo(0);
+  }
+
+  @Test
+  public void testCopy_cached() throws Exception {
+    val cacheProperties = new CacheProperties();
+    cacheProperties.setEnabled(true);
+    cacheProperties.setDir(new File(workingDir, "cache").getAbsolutePath());
+    cacheProperties.setMinAccesses(1);
+    val cache = new PartFileCache(cacheProperties);
+    val fileSystem = new CachingFileSystem(getDefaultLocalFileSystem(), cache);
+    val paths = ImmutableList.of(createFile(workingDir, "part-00000.gz", "abcdefghij"));
+
+    // Files read in chunks are not loaded to the cache
+    assertThat(copy(fileSystem, paths)).isEqualTo("abcdefghij");
+    assertThat(getMetricValues(cache).get("cache.misses")).isEqualTo(0L);
+    assertThat(getMetricValues(cache).get("cache.loading")).isEqualTo(0);
+
+    // But are served from it once loaded by a sequential read
+    try (InputStream input = fileSystem.open(paths.get(0))) {
+      ByteStreams.toByteArray(input);
+    }
+
+    assertThat(getMetricValues(cache).get("cache.loaded")).isEqualTo(1L);
+    assertThat(copy(fileSystem, paths)).isEqualTo("abcdefghij");
+    assertThat(getMetricValues(cache).get("cache.hits")).isEqualTo(1L);
+  }
+
+  private void createFetcher() {
+    if (fetcher != null) {
+      fetcher.shutdown();
+    }
+
+    fetcher = new ParallelFetcher(properties);
+  }
+
+  private String copy(Iterable<Path> paths) {
+    return copy(getDefaultLocalFileSystem(), paths);
+  }
+
+  @SneakyThrows
+  private String copy(FileSystem fileSystem, Iterable<Path> paths) {
+    val output = new ByteArrayOutputStream();
+    fetcher.copy(fileSystem, ImmutableList.copyOf(paths), output);
+
+    return new String(output.toByteArray(), UTF_8);
+  }
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.io;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.download.server.io.SharedStream.CHUNK_SIZE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import org.icgc.dcc.download.server.config.Properties.SharingProperties;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+public class SharedStreamsTest {
+
+  private static final String KEY = "/release_21/Summary/simple_somatic_mutation.aggregated.vcf.gz";
+
+  byte[] content;
+  CountDownLatch started;
+  AtomicInteger streams;
+  AtomicInteger created;
+  AtomicInteger closed;
+  Function<OutputStream, Optional<FileStreamer>> factory;
+
+  SharingProperties properties;
+
+  @Before
+  public void setUp() {
+    content = new byte[10 * CHUNK_SIZE + 123];
+    new Random(1).nextBytes(content);
+    started = new CountDownLatch(1);
+    streams = new AtomicInteger();
+    created = new AtomicInteger();
+    closed = new AtomicInteger();
+    factory = output -> {
+      created.incrementAndGet();
+      return Optional.of(new TestStreamer(output));
+    };
+    properties = new SharingProperties();
+    properties.setEnabled(true);
+  }
+
+  @Test
+  public void testSubscribe_shared() throws Exception {
+    val sharedStreams = new SharedStreams(properties);
+    val first = sharedStreams.subscribe(KEY, factory).get();
+    val second = sharedStreams.subscribe(KEY, factory).get();
+    started.countDown();
+
+    val firstOutput = new ByteArrayOutputStream();
+    val secondOutput = new ByteArrayOutputStream();
+    assertThat(first.copyTo(firstOutput)).isTrue();
+    assertThat(second.copyTo(secondOutput)).isTrue();
+
+    assertThat(firstOutput.toByteArray()).isEqualTo(content);
+    assertThat(secondOutput.toByteArray()).isEqualTo(content);
+    assertThat(streams.get()).isEqualTo(1);
+    assertThat(getMetric(sharedStreams, "sharing.started")).isEqualTo(1L);
+    assertThat(getMetric(sharedStreams, "sharing.joined")).isEqualTo(1L);
+  }
+
+  @Test
+  public void testStream_detached() throws Exception {
+    properties.setMaxBufferBytes(2 * CHUNK_SIZE);
+    properties.setMaxStallSeconds(0);
+    val sharedStreams = new SharedStreams(properties);
+
+    // Never reads, so it is detached once the buffer is full
+    val idle = sharedStreams.subscribe(KEY, factory).get();
+
+    val output = new ByteArrayOutputStream();
+    val streamer = sharedStreams.getStreamer(KEY, output, factory).get();
+    Thread thread = new Thread(streamer::stream);
+    thread.start();
+    while (getMetric(sharedStreams, "sharing.joined") == 0L) {
+      Thread.sleep(10);
+    }
+
+    started.countDown();
+    thread.join(SECONDS.toMillis(10));
+
+    assertThat(output.toByteArray()).isEqualTo(content);
+    assertThat(idle.copyTo(new ByteArrayOutputStream())).isFalse();
+  }
+
+  @Test
+  public void testGetStreamer_joined() throws Exception {
+    val sharedStreams = new SharedStreams(properties);
+    val first = sharedStreams.subscribe(KEY, factory).get();
+
+    val output = new ByteArrayOutputStream();
+    val streamer = sharedStreams.getStreamer(KEY, output, factory).get();
+    assertThat(streamer.getName()).isEqualTo("test");
+    assertThat(created.get()).isEqualTo(1);
+
+    Thread thread = new Thread(streamer::stream);
+    thread.start();
+    while (getMetric(sharedStreams, "sharing.joined") == 0L) {
+      Thread.sleep(10);
+    }
+
+    started.countDown();
+    first.copyTo(new ByteArrayOutputStream());
+    thread.join(SECONDS.toMillis(10));
+    streamer.close();
+
+    assertThat(output.toByteArray()).isEqualTo(content);
+    assertThat(created.get()).isEqualTo(1);
+    assertThat(streams.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testSubscribe_maxStreams() throws Exception {
+    properties.setMaxStreams(1);
+    val sharedStreams = new SharedStreams(properties);
+    val other = sharedStreams.subscribe("other", factory).get();
+
+    assertThat(sharedStreams.subscribe(KEY, factory).isPresent()).isFalse();
+    // No source is created for a shared read which can't start
+    assertThat(created.get()).isEqualTo(1);
+    assertThat(getMetric(sharedStreams, "sharing.unshared")).isEqualTo(1L);
+
+    started.countDown();
+    assertThat(other.copyTo(new ByteArrayOutputStream())).isTrue();
+  }
+
+  @Test
+  public void testClose_unused() throws Exception {
+    val sharedStreams = new SharedStreams(properties);
+
+    // E.g. a download which is not admitted
+    val streamer = sharedStreams.getStreamer(KEY, new ByteArrayOutputStream(), factory).get();
+    streamer.close();
+
+    assertThat(created.get()).isEqualTo(1);
+    assertThat(closed.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testSubscribe_late() throws Exception {
+    properties.setMaxBufferBytes(2 * CHUNK_SIZE);
+    val sharedStreams = new SharedStreams(properties);
+    val first = sharedStreams.subscribe(KEY, factory).get();
+    started.countDown();
+
+    val output = new ByteArrayOutputStream();
+    Thread thread = new Thread(() -> copy(first, output));
+    thread.start();
+    while (output.size() < 4 * CHUNK_SIZE) {
+      Thread.sleep(10);
+    }
+
+    // The beginning of the file is not buffered anymore
+    val late = sharedStreams.subscribe(KEY, factory).get();
+    assertThat(getMetric(sharedStreams, "sharing.started")).isEqualTo(2L);
+
+    val lateOutput = new ByteArrayOutputStream();
+    assertThat(late.copyTo(lateOutput)).isTrue();
+    thread.join(SECONDS.toMillis(10));
+
+    assertThat(lateOutput.toByteArray()).isEqualTo(content);
+    assertThat(output.toByteArray()).isEqualTo(content);
+  }
+
+  @Test
+  public void testStream_evictConsumed() throws Exception {
+    val stream = new SharedStream(KEY, 8 * CHUNK_SIZE, SECONDS.toMillis(10), 0);
+    val subscriber = stream.subscribe().get();
+    val output = new ByteArrayOutputStream();
+    Thread thread = new Thread(() -> copy(subscriber, output));
+    thread.start();
+
+    stream.getOutput().write(content, 0, 2 * CHUNK_SIZE);
+    while (subscriber.getOffset() < 2 * CHUNK_SIZE) {
+      Thread.sleep(10);
+    }
+
+    // Consumed chunks are evicted although the buffer is not full, and no one can join anymore
+    assertThat(stream.getBufferedChunks()).isZero();
+    assertThat(stream.subscribe().isPresent()).isFalse();
+
+    stream.getOutput().write(content, 2 * CHUNK_SIZE, content.length - 2 * CHUNK_SIZE);
+    stream.complete();
+    thread.join(SECONDS.toMillis(10));
+
+    assertThat(output.toByteArray()).isEqualTo(content);
+  }
+
+  @Test
+  public void testGetStreamer_disabled() throws Exception {
+    properties.setEnabled(false);
+    val sharedStreams = new SharedStreams(properties);
+
+    val streamer = sharedStreams.getStreamer(KEY, new ByteArrayOutputStream(), factory).get();
+
+    assertThat(streamer).isInstanceOf(TestStreamer.class);
+  }
+
+  @Test
+  public void testSkippingOutputStream() throws Exception {
+    val output = new ByteArrayOutputStream();
+    val skipping = new SkippingOutputStream(output, 5);
+    skipping.write(new byte[] { 0, 1, 2 });
+    skipping.write(3);
+    skipping.write(new byte[] { 4, 5, 6 });
+    skipping.write(7);
+
+    assertThat(output.toByteArray()).isEqualTo(new byte[] { 5, 6, 7 });
+  }
+
+  @SneakyThrows
+  private static void copy(SharedStream.Subscriber subscriber, OutputStream output) {
+    subscriber.copyTo(output);
+  }
+
+  private static Object getMetric(SharedStreams sharedStreams, String name) {
+    for (Metric<?> metric : sharedStreams.metrics()) {
+      if (metric.getName().equals(name)) {
+        return metric.getValue();
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Writes the {@code content} in small writes once the test starts the streams.
+   */
+  @RequiredArgsConstructor
+  private class TestStreamer implements FileStreamer {
+
+    private final OutputStream output;
+
+    @Override
+    @SneakyThrows
+    public void stream() {
+      streams.incrementAndGet();
+      started.await();
+      for (int offset = 0; offset < content.length; offset += 1000) {
+        output.write(content, offset, Math.min(1000, content.length - offset));
+      }
+    }
+
+    @Override
+    public String getName() {
+      return "test";
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed.incrementAndGet();
+      output.close();
+    }
+
+  }
+
+}
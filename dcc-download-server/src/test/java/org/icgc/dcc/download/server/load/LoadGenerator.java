@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.load;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.download.test.io.SyntheticReleaseDirectory;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Drives a mixed {@code /downloads/static}, {@code /list/**} and {@code /downloads/size} workload against a
+ * {@link LoadTestServer}.
+ * <p>
+ * Each client issues requests back to back. The request sequence of a client is derived from the profile seed, so
+ * runs with the same profile issue the same requests. The first {@code slowReaders} clients throttle reading of
+ * response bodies to simulate slow networks.
+ */
+@Slf4j
+public class LoadGenerator {
+
+  /**
+   * Constants.
+   */
+  private static final String RELEASE = SyntheticReleaseDirectory.DEFAULT_RELEASE_NAME;
+  private static final int CONNECT_TIMEOUT_MS = 10_000;
+  private static final int READ_TIMEOUT_MS = 60_000;
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  /**
+   * Configuration.
+   */
+  private final LoadProfile profile;
+  private final String baseUrl;
+
+  /**
+   * State.
+   */
+  private final List<String> staticUrls;
+  private final List<String> listUrls;
+
+  public LoadGenerator(@NonNull LoadProfile profile, @NonNull LoadTestServer server) {
+    this.profile = profile;
+    this.baseUrl = "http://localhost:" + server.getPort();
+    this.staticUrls = createStaticUrls(server);
+    this.listUrls = createListUrls();
+  }
+
+  public enum RequestType {
+
+    STATIC, LIST, SIZE;
+
+  }
+
+  @Value
+  public static class Sample {
+
+    RequestType type;
+    int status;
+
+    /**
+     * Nanos since the start of the run.
+     */
+    long startNanos;
+    long ttfbNanos;
+    long latencyNanos;
+    long bytes;
+
+    /**
+     * {@code false} if a slow reader stopped reading at the end of the run.
+     */
+    boolean complete;
+
+    public boolean isError() {
+      return status < 200 || status >= 400;
+    }
+
+  }
+
+  /**
+   * Runs the workload for {@code warmupSeconds + durationSeconds}.
+   *
+   * @return samples of all the requests, including the warm-up ones
+   */
+  @SneakyThrows
+  public List<Sample> run(@NonNull Runnable onMeasurementStart) {
+    val samples = new ConcurrentLinkedQueue<Sample>();
+    val start = System.nanoTime();
+    val measurementStart = start + SECONDS.toNanos(profile.getWarmupSeconds());
+    val end = measurementStart + SECONDS.toNanos(profile.getDurationSeconds());
+
+    val executor = Executors.newFixedThreadPool(profile.getConcurrency(),
+        new ThreadFactoryBuilder().setNameFormat("load-client-%d").setDaemon(true).build());
+    for (int i = 0; i < profile.getConcurrency(); i++) {
+      val slow = i < profile.getSlowReaders();
+      val random = new Random(profile.getSeed() + i);
+      executor.execute(() -> runClient(random, slow, start, end, samples));
+    }
+    executor.shutdown();
+
+    MILLISECONDS.sleep(NANOSECONDS.toMillis(measurementStart - System.nanoTime()));
+    log.info("Warm-up finished. Measuring for {} s...", profile.getDurationSeconds());
+    onMeasurementStart.run();
+
+    executor.awaitTermination(profile.getDurationSeconds() + READ_TIMEOUT_MS / 1000, SECONDS);
+    executor.shutdownNow();
+
+    return ImmutableList.copyOf(samples);
+  }
+
+  private void runClient(Random random, boolean slow, long start, long end, ConcurrentLinkedQueue<Sample> samples) {
+    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+      val type = nextType(random);
+      try {
+        samples.add(execute(type, random, slow, start, end));
+      } catch (IOException e) {
+        log.warn("{} request failed: {}", type, e.getMessage());
+        samples.add(new Sample(type, -1, System.nanoTime() - start, -1, -1, 0, true));
+      }
+    }
+  }
+
+  private Sample execute(RequestType type, Random random, boolean slow, long start, long end) throws IOException {
+    val requestStart = System.nanoTime();
+    val connection = openConnection(type, random);
+    val status = connection.getResponseCode();
+
+    long ttfb = -1;
+    long bytes = 0;
+    boolean complete = true;
+    try (InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+      if (input != null) {
+        val buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = input.read(buffer)) != -1) {
+          if (ttfb < 0) {
+            ttfb = System.nanoTime() - requestStart;
+          }
+
+          bytes += n;
+          if (slow) {
+            throttle(requestStart, bytes);
+            if (System.nanoTime() >= end) {
+              complete = false;
+              connection.disconnect();
+              break;
+            }
+          }
+        }
+      }
+    }
+
+    val latency = System.nanoTime() - requestStart;
+
+    return new Sample(type, status, requestStart - start, ttfb < 0 ? latency : ttfb, latency, bytes, complete);
+  }
+
+  private HttpURLConnection openConnection(RequestType type, Random random) throws IOException {
+    switch (type) {
+    case STATIC:
+      return open(pick(staticUrls, random));
+    case LIST:
+      return open(pick(listUrls, random));
+    case SIZE:
+      return openSizeRequest(random);
+    default:
+      throw new IllegalArgumentException("Unknown request type " + type);
+    }
+  }
+
+  private HttpURLConnection openSizeRequest(Random random) throws IOException {
+    val connection = open(baseUrl + "/downloads/size");
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-Type", "application/json");
+    connection.setDoOutput(true);
+    try (OutputStream output = connection.getOutputStream()) {
+      output.write(createSizeRequest(random).getBytes(UTF_8));
+    }
+
+    return connection;
+  }
+
+  private HttpURLConnection open(String url) throws IOException {
+    val connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+    connection.setReadTimeout(READ_TIMEOUT_MS);
+
+    return connection;
+  }
+
+  private RequestType nextType(Random random) {
+    val value = random.nextInt(profile.getTotalWeight());
+    if (value < profile.getStaticWeight()) {
+      return RequestType.STATIC;
+    }
+
+    return value < profile.getStaticWeight() + profile.getListWeight() ? RequestType.LIST : RequestType.SIZE;
+  }
+
+  @SneakyThrows
+  private void throttle(long requestStart, long bytes) {
+    val expectedNanos = SECONDS.toNanos(bytes) / profile.getSlowReaderBytesPerSecond();
+    val aheadNanos = expectedNanos - (System.nanoTime() - requestStart);
+    if (aheadNanos > 0) {
+      NANOSECONDS.sleep(aheadNanos);
+    }
+  }
+
+  private String createSizeRequest(Random random) {
+    val donorCount = profile.getProjects() * profile.getDonorsPerProject();
+    val donorIds = Lists.<String> newArrayListWithCapacity(profile.getSizeDonors());
+    for (int i = 0; i < profile.getSizeDonors(); i++) {
+      donorIds.add('"' + SyntheticReleaseDirectory.getDonorId(random.nextInt(donorCount)) + '"');
+    }
+
+    return "{\"donorIds\":[" + Joiner.on(',').join(donorIds) + "]}";
+  }
+
+  private List<String> createStaticUrls(LoadTestServer server) {
+    val paths = Lists.<String> newArrayList();
+    for (int i = 0; i < profile.getProjects(); i++) {
+      val project = SyntheticReleaseDirectory.getProjectId(i);
+      paths.add("/" + RELEASE + "/Projects/" + project + "/donor." + project + ".tsv.gz");
+      paths.add("/" + RELEASE + "/Projects/" + project + "/simple_somatic_mutation.open." + project + ".tsv.gz");
+    }
+    paths.add("/" + RELEASE + "/Summary/donor.all_projects.tsv.gz");
+    paths.add("/" + RELEASE + "/Summary/simple_somatic_mutation.aggregated.vcf.gz");
+
+    val urls = ImmutableList.<String> builder();
+    for (val path : paths) {
+      urls.add(baseUrl + "/downloads/static?token=" + encode(server.createToken(path)));
+    }
+
+    return urls.build();
+  }
+
+  private List<String> createListUrls() {
+    val urls = Lists.newArrayList(
+        baseUrl + "/list/",
+        baseUrl + "/list/" + RELEASE,
+        baseUrl + "/list/" + RELEASE + "/Projects",
+        baseUrl + "/list/" + RELEASE + "/Summary");
+    for (int i = 0; i < profile.getProjects(); i++) {
+      urls.add(baseUrl + "/list/" + RELEASE + "/Projects/" + SyntheticReleaseDirectory.getProjectId(i));
+    }
+
+    return Collections.unmodifiableList(urls);
+  }
+
+  private static String pick(List<String> values, Random random) {
+    return values.get(random.nextInt(values.size()));
+  }
+
+  @SneakyThrows
+  private static String encode(String value) {
+    return URLEncoder.encode(value, UTF_8.name());
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Value;
+
+/**
+ * Parameters of a load test run. Each parameter may be overridden with a {@code load.<name>} system property, e.g.
+ * {@code -Dload.concurrency=64}.
+ */
+@Value
+public class LoadProfile {
+
+  /**
+   * Constants.
+   */
+  private static final String PREFIX = "load.";
+
+  /**
+   * Number of concurrent clients.
+   */
+  int concurrency;
+
+  /**
+   * Number of the {@code concurrency} clients which read responses at {@code slowReaderBytesPerSecond}.
+   */
+  int slowReaders;
+  int slowReaderBytesPerSecond;
+
+  /**
+   * Warm-up requests are not included in the report.
+   */
+  int warmupSeconds;
+  int durationSeconds;
+
+  /**
+   * Relative weights of the request types in the workload.
+   */
+  int staticWeight;
+  int listWeight;
+  int sizeWeight;
+
+  /**
+   * Number of donors of a {@code /downloads/size} request.
+   */
+  int sizeDonors;
+
+  /**
+   * Maximum number of server request processing threads.
+   */
+  int maxThreads;
+
+  /**
+   * Synthetic release served by the server.
+   */
+  int projects;
+  int donorsPerProject;
+  int partFiles;
+  int rowsPerPartFile;
+
+  /**
+   * Seed of the release and of the request sequence of each client.
+   */
+  long seed;
+
+  public static LoadProfile fromSystemProperties() {
+    return new LoadProfile(
+        getInt("concurrency", 16),
+        getInt("slowReaders", 2),
+        getInt("slowReaderBytesPerSecond", 64 * 1024),
+        getInt("warmupSeconds", 5),
+        getInt("durationSeconds", 30),
+        getInt("staticWeight", 2),
+        getInt("listWeight", 5),
+        getInt("sizeWeight", 3),
+        getInt("sizeDonors", 100),
+        getInt("maxThreads", 200),
+        getInt("projects", 10),
+        getInt("donorsPerProject", 100),
+        getInt("partFiles", 2),
+        getInt("rowsPerPartFile", 1000),
+        Long.getLong(PREFIX + "seed", 1L));
+  }
+
+  public int getTotalWeight() {
+    return staticWeight + listWeight + sizeWeight;
+  }
+
+  public void validate() {
+    checkArgument(concurrency > 0, "concurrency must be positive");
+    checkArgument(slowReaders >= 0 && slowReaders <= concurrency, "slowReaders must be in [0, concurrency]");
+    checkArgument(slowReaderBytesPerSecond > 0, "slowReaderBytesPerSecond must be positive");
+    checkArgument(durationSeconds > 0, "durationSeconds must be positive");
+    checkArgument(getTotalWeight() > 0, "At least one request type weight must be positive");
+  }
+
+  private static int getInt(String name, int defaultValue) {
+    return Integer.getInteger(PREFIX + name, defaultValue);
+  }
+
+}
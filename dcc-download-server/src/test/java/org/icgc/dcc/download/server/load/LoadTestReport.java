@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.load;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.download.server.load.LoadGenerator.RequestType;
+import org.icgc.dcc.download.server.load.LoadGenerator.Sample;
+import org.icgc.dcc.download.server.load.ThreadPoolSampler.ThreadPoolStats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Maps;
+
+/**
+ * Results of a load test run. Only the requests started after the warm-up are reported.
+ */
+@Slf4j
+@Value
+public class LoadTestReport {
+
+  /**
+   * Constants.
+   */
+  private static final double NANOS_PER_MS = 1_000_000.0;
+  private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+  LoadProfile profile;
+  RequestStats total;
+  Map<RequestType, RequestStats> requests;
+  ThreadPoolStats threadPool;
+
+  @Value
+  public static class RequestStats {
+
+    long requests;
+    long errors;
+    long incomplete;
+    double requestsPerSecond;
+    double mbPerSecond;
+    double latencyP50Ms;
+    double latencyP99Ms;
+    double ttfbP50Ms;
+    double ttfbP99Ms;
+
+    public static RequestStats of(@NonNull List<Sample> samples, int durationSeconds) {
+      val successful = samples.stream().filter(sample -> !sample.isError()).collect(Collectors.toList());
+      // Latencies of slow reads cut short at the end of the run are not representative
+      val latencies = successful.stream()
+          .filter(Sample::isComplete)
+          .mapToLong(Sample::getLatencyNanos)
+          .sorted()
+          .toArray();
+      val ttfbs = successful.stream().mapToLong(Sample::getTtfbNanos).sorted().toArray();
+      val bytes = samples.stream().mapToLong(Sample::getBytes).sum();
+
+      return new RequestStats(
+          samples.size(),
+          samples.size() - successful.size(),
+          samples.stream().filter(sample -> !sample.isComplete()).count(),
+          (double) successful.size() / durationSeconds,
+          bytes / BYTES_PER_MB / durationSeconds,
+          percentileMs(latencies, 0.50),
+          percentileMs(latencies, 0.99),
+          percentileMs(ttfbs, 0.50),
+          percentileMs(ttfbs, 0.99));
+    }
+
+  }
+
+  public static LoadTestReport create(@NonNull LoadProfile profile, @NonNull List<Sample> samples,
+      @NonNull ThreadPoolStats threadPool) {
+    val measurementStart = SECONDS.toNanos(profile.getWarmupSeconds());
+    val measured = samples.stream()
+        .filter(sample -> sample.getStartNanos() >= measurementStart)
+        .collect(Collectors.toList());
+
+    val duration = profile.getDurationSeconds();
+    val requests = Maps.<RequestType, RequestStats> newEnumMap(RequestType.class);
+    for (val type : RequestType.values()) {
+      val typeSamples = measured.stream().filter(sample -> sample.getType() == type).collect(Collectors.toList());
+      requests.put(type, RequestStats.of(typeSamples, duration));
+    }
+
+    return new LoadTestReport(profile, RequestStats.of(measured, duration), requests, threadPool);
+  }
+
+  @SneakyThrows
+  public void write(@NonNull File file) {
+    new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, this);
+    log.info("Wrote load test report to '{}'", file.getAbsolutePath());
+  }
+
+  public void logSummary() {
+    log.info("{}", profile);
+    log.info(String.format("%-8s %10s %8s %10s %10s %10s %10s %10s %10s",
+        "Type", "Requests", "Errors", "Req/s", "MB/s", "p50 ms", "p99 ms", "TTFB p50", "TTFB p99"));
+    for (val entry : requests.entrySet()) {
+      logRow(entry.getKey().name(), entry.getValue());
+    }
+    logRow("TOTAL", total);
+    log.info("Request threads: max {}, peak busy {}, mean busy {}, peak queued {}, saturated {}% of the time",
+        threadPool.getMaxThreads(), threadPool.getPeakBusy(), String.format("%.1f", threadPool.getMeanBusy()),
+        threadPool.getPeakQueued(), String.format("%.1f", threadPool.getSaturatedRatio() * 100));
+  }
+
+  private static void logRow(String name, RequestStats stats) {
+    log.info(String.format("%-8s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f",
+        name, stats.getRequests(), stats.getErrors(), stats.getRequestsPerSecond(), stats.getMbPerSecond(),
+        stats.getLatencyP50Ms(), stats.getLatencyP99Ms(), stats.getTtfbP50Ms(), stats.getTtfbP99Ms()));
+  }
+
+  private static double percentileMs(long[] sortedNanos, double percentile) {
+    if (sortedNanos.length == 0) {
+      return 0;
+    }
+
+    val index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+
+    return sortedNanos[Math.max(index, 0)] / NANOS_PER_MS;
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.load;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.icgc.dcc.download.core.jwt.JwtService;
+import org.icgc.dcc.download.server.ServerMain;
+import org.icgc.dcc.download.server.repository.DataFilesRepository;
+import org.icgc.dcc.download.server.repository.JobRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Boots {@link ServerMain} on a random port serving {@code inputDir} from the local file system.
+ * <p>
+ * The Mongo repositories are replaced with mocks. None of the load tested endpoints queries them and no Mongo server
+ * is contacted.
+ */
+@Slf4j
+public class LoadTestServer implements Closeable {
+
+  /**
+   * State.
+   */
+  private final ConfigurableApplicationContext context;
+
+  public LoadTestServer(@NonNull File inputDir, int maxThreads) {
+    log.info("Starting server on '{}' with {} request threads...", inputDir, maxThreads);
+    this.context = new SpringApplicationBuilder(ServerMain.class, FakeRepositoryConfig.class)
+        .properties(
+            "server.port=0",
+            "server.tomcat.max-threads=" + maxThreads,
+            "hadoop.properties.fs.defaultFS=file:///",
+            "job.inputDir=" + inputDir.getAbsolutePath(),
+            "spring.data.mongodb.uri=mongodb://localhost:1/dcc-download-load",
+            "logging.level.org.icgc.dcc.download.server=WARN",
+            "logging.level.org.icgc.dcc.download.server.load=INFO")
+        .run();
+    log.info("Started server on port {}", getPort());
+  }
+
+  public int getPort() {
+    return getContainer().getPort();
+  }
+
+  public String createToken(@NonNull String path) {
+    return context.getBean(JwtService.class).createToken(path);
+  }
+
+  /**
+   * @return executor of the Tomcat request processing threads
+   */
+  public ThreadPoolExecutor getRequestThreadPool() {
+    val connector = getContainer().getTomcat().getService().findConnectors()[0];
+
+    return (ThreadPoolExecutor) connector.getProtocolHandler().getExecutor();
+  }
+
+  @Override
+  public void close() {
+    context.close();
+  }
+
+  private TomcatEmbeddedServletContainer getContainer() {
+    return (TomcatEmbeddedServletContainer) ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer();
+  }
+
+  /**
+   * Not annotated with {@code @Configuration} to avoid being picked up by the component scan of {@link ServerMain}.
+   */
+  public static class FakeRepositoryConfig {
+
+    @Bean
+    @Primary
+    public JobRepository fakeJobRepository() {
+      return mock(JobRepository.class);
+    }
+
+    @Bean
+    @Primary
+    public DataFilesRepository fakeDataFilesRepository() {
+      return mock(DataFilesRepository.class);
+    }
+
+  }
+
+}
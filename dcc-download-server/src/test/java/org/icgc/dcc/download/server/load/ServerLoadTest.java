@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+
+import lombok.Cleanup;
+import lombok.val;
+
+import org.icgc.dcc.common.core.model.DownloadDataType;
+import org.icgc.dcc.download.server.load.LoadGenerator.Sample;
+import org.icgc.dcc.download.test.AbstractTest;
+import org.icgc.dcc.download.test.io.SyntheticReleaseDirectory;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * End-to-end load test of a server booted against a synthetic release on the local file system.
+ * <p>
+ * Skipped unless run with {@code -Dload.test=true}. See {@link LoadProfile} for the workload parameters. The report is
+ * written to {@code target/load-test-report.json} or to the {@code load.report} file. The test fails if more than
+ * {@code load.maxErrorRate} (1% by default) of the measured requests fail or no response body is read completely.
+ */
+public class ServerLoadTest extends AbstractTest {
+
+  /**
+   * Constants.
+   */
+  private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.maxErrorRate", "0.01"));
+
+  @Before
+  @Override
+  public void setUp() {
+    assumeTrue("Load test is disabled. Enable with -Dload.test=true", Boolean.getBoolean("load.test"));
+    super.setUp();
+  }
+
+  @Test
+  public void testLoad() {
+    val profile = LoadProfile.fromSystemProperties();
+    profile.validate();
+
+    val release = new SyntheticReleaseDirectory(SyntheticReleaseDirectory.DEFAULT_RELEASE_NAME,
+        profile.getProjects(), profile.getDonorsPerProject(), ImmutableList.copyOf(DownloadDataType.values()), 0.5,
+        profile.getPartFiles(), profile.getRowsPerPartFile(), profile.getSeed());
+    release.write(workingDir);
+
+    @Cleanup
+    val server = new LoadTestServer(workingDir, profile.getMaxThreads());
+    @Cleanup
+    val sampler = new ThreadPoolSampler(server.getRequestThreadPool());
+
+    val generator = new LoadGenerator(profile, server);
+    val samples = generator.run(sampler::start);
+    val report = LoadTestReport.create(profile, samples, sampler.getStats());
+
+    report.logSummary();
+    report.write(new File(System.getProperty("load.report", "target/load-test-report.json")));
+
+    val total = report.getTotal();
+    assertThat(total.getRequests()).isPositive();
+    assertThat((double) total.getErrors() / total.getRequests())
+        .as("Error rate of %d errors in %d requests", total.getErrors(), total.getRequests())
+        .isLessThanOrEqualTo(MAX_ERROR_RATE);
+
+    val completedBytes = samples.stream()
+        .filter(sample -> sample.isComplete() && !sample.isError())
+        .mapToLong(Sample::getBytes)
+        .sum();
+    assertThat(completedBytes).isPositive();
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.load;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Periodically samples the number of busy and queued request threads of the server.
+ */
+public class ThreadPoolSampler implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final long INTERVAL_MS = 50;
+
+  /**
+   * Dependencies.
+   */
+  private final ThreadPoolExecutor threadPool;
+
+  /**
+   * State.
+   */
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("thread-pool-sampler").setDaemon(true).build());
+  private long samples;
+  private long saturatedSamples;
+  private long busySum;
+  private int peakBusy;
+  private int peakQueued;
+
+  public ThreadPoolSampler(@NonNull ThreadPoolExecutor threadPool) {
+    this.threadPool = threadPool;
+  }
+
+  @Value
+  public static class ThreadPoolStats {
+
+    int maxThreads;
+    int peakBusy;
+    double meanBusy;
+    int peakQueued;
+
+    /**
+     * Fraction of the samples during which all the request threads were busy.
+     */
+    double saturatedRatio;
+
+  }
+
+  public void start() {
+    scheduler.scheduleAtFixedRate(this::sample, 0, INTERVAL_MS, MILLISECONDS);
+  }
+
+  public synchronized ThreadPoolStats getStats() {
+    return new ThreadPoolStats(
+        threadPool.getMaximumPoolSize(),
+        peakBusy,
+        samples == 0 ? 0 : (double) busySum / samples,
+        peakQueued,
+        samples == 0 ? 0 : (double) saturatedSamples / samples);
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  private synchronized void sample() {
+    int busy = threadPool.getActiveCount();
+    int queued = threadPool.getQueue().size();
+
+    samples++;
+    busySum += busy;
+    peakBusy = Math.max(peakBusy, busy);
+    peakQueued = Math.max(peakQueued, queued);
+    if (busy >= threadPool.getMaximumPoolSize()) {
+      saturatedSamples++;
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.metrics;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.hadoop.fs.FileSystems.getDefaultLocalFileSystem;
+import static org.icgc.dcc.download.test.TestUtils.getMetricValues;
+
+import java.io.File;
+
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import org.apache.hadoop.fs.Path;
+import org.icgc.dcc.common.hadoop.fs.HadoopUtils;
+import org.icgc.dcc.download.server.utils.HadoopUtils2;
+import org.icgc.dcc.download.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+public class InstrumentedFileSystemTest extends AbstractTest {
+
+  FileSystemMetrics metrics;
+  InstrumentedFileSystem fileSystem;
+  File testFile;
+
+  @Before
+  @Override
+  @SneakyThrows
+  public void setUp() {
+    super.setUp();
+    metrics = new FileSystemMetrics();
+    fileSystem = new InstrumentedFileSystem(getDefaultLocalFileSystem(), metrics);
+    testFile = new File(workingDir, "test.txt");
+    Files.write("0123456789", testFile, UTF_8);
+  }
+
+  @Test
+  public void testOpen() throws Exception {
+    @Cleanup
+    val input = fileSystem.open(new Path(testFile.getAbsolutePath()));
+    val content = ByteStreams.toByteArray(input);
+
+    assertThat(content).hasSize(10);
+    val values = getMetricValues(metrics);
+    assertThat(values.get("hdfs.open.unknown.count")).isEqualTo(1L);
+    assertThat(values.get("hdfs.read.unknown.bytes")).isEqualTo(10L);
+    assertThat(values.get("hdfs.read.unknown.errors")).isEqualTo(0L);
+  }
+
+  @Test
+  public void testGetFileStatus_subsystem() throws Exception {
+    HadoopUtils2.getFileStatus(fileSystem, new Path(testFile.getAbsolutePath()));
+
+    val values = getMetricValues(metrics);
+    assertThat(values.get("hdfs.getFileStatus.HadoopUtils2.count")).isEqualTo(1L);
+    assertThat(values.get("hdfs.getFileStatus.HadoopUtils2.latency.lt_inf")).isEqualTo(1L);
+  }
+
+  @Test
+  public void testGetFileStatus_missing() throws Exception {
+    assertThat(HadoopUtils.exists(fileSystem, new Path(workingDir.getAbsolutePath(), "missing"))).isFalse();
+
+    val values = getMetricValues(metrics);
+    assertThat(values).containsKey("hdfs.getFileStatus.unknown.count");
+    assertThat(values.get("hdfs.getFileStatus.unknown.errors")).isEqualTo(0L);
+  }
+
+  @Test
+  public void testListStatus() throws Exception {
+    val files = fileSystem.listStatus(new Path(workingDir.getAbsolutePath()));
+
+    assertThat(files).hasSize(1);
+    assertThat(getMetricValues(metrics).get("hdfs.listStatus.unknown.count")).isEqualTo(1L);
+  }
+
+}
@@ -26,7 +26,9 @@ import lombok.val;
 
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.icgc.dcc.download.server.config.Properties.FetchProperties;
 import org.icgc.dcc.download.server.fs.PathResolver;
+import org.icgc.dcc.download.server.io.ParallelFetcher;
 import org.icgc.dcc.download.server.repository.DataFilesRepository;
 import org.icgc.dcc.download.server.repository.JobRepository;
 import org.junit.Before;
@@ -59,7 +61,7 @@ public class ArchiveDownloadServiceTest {
   public void setUp() {
     service =
         new ArchiveDownloadService(rootPath, fileSystemService, fileSystem, jobRepository, dataFilesRepository,
-            pathResolver);
+            pathResolver, new ParallelFetcher(new FetchProperties()));
   }
 
   @Test
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.service;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import lombok.val;
+
+import org.icgc.dcc.download.server.endpoint.ForbiddenException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
+
+import com.google.common.collect.ImmutableSet;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AuthServiceImplTest {
+
+  private static final String TOKEN = "token";
+
+  @Mock
+  RemoteTokenServices remoteTokenServices;
+
+  AuthServiceImpl authService;
+
+  @Before
+  public void setUp() {
+    authService = new AuthServiceImpl(remoteTokenServices, 100, 60, 30, directExecutor());
+  }
+
+  @Test
+  public void testIsAuthorized_cached() throws Exception {
+    when(remoteTokenServices.loadAuthentication(TOKEN)).thenReturn(createAuthentication("portal.export"));
+
+    assertThat(authService.isAuthorized(TOKEN)).isTrue();
+    assertThat(authService.isAuthorized(TOKEN)).isTrue();
+
+    verify(remoteTokenServices, times(1)).loadAuthentication(TOKEN);
+    assertThat(authService.getStats().hitCount()).isEqualTo(1);
+    assertThat(authService.getStats().missCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testIsAuthorized_invalidScope() throws Exception {
+    when(remoteTokenServices.loadAuthentication(TOKEN)).thenReturn(createAuthentication("portal.download"));
+
+    assertThat(authService.isAuthorized(TOKEN)).isFalse();
+    assertThat(authService.isAuthorized(TOKEN)).isFalse();
+
+    verify(remoteTokenServices, times(1)).loadAuthentication(TOKEN);
+  }
+
+  @Test
+  public void testIsAuthorized_invalidToken() throws Exception {
+    when(remoteTokenServices.loadAuthentication(TOKEN)).thenThrow(new InvalidTokenException(TOKEN));
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        authService.isAuthorized(TOKEN);
+        fail("Expected ForbiddenException");
+      } catch (ForbiddenException e) {
+        // Expected
+      }
+    }
+
+    verify(remoteTokenServices, times(1)).loadAuthentication(TOKEN);
+  }
+
+  @Test
+  public void testIsAuthorized_stale() throws Exception {
+    // Every result is stale right away and refreshed on the direct executor
+    authService = new AuthServiceImpl(remoteTokenServices, 100, 0, 30, directExecutor());
+    when(remoteTokenServices.loadAuthentication(TOKEN))
+        .thenReturn(createAuthentication("portal.export"))
+        .thenReturn(createAuthentication("portal.download"));
+
+    assertThat(authService.isAuthorized(TOKEN)).isTrue();
+    assertThat(authService.isAuthorized(TOKEN)).isFalse();
+  }
+
+  private static OAuth2Authentication createAuthentication(String scope) {
+    val request = new OAuth2Request(Collections.emptyMap(), "client", null, true, ImmutableSet.of(scope), null, null,
+        null, null);
+
+    return new OAuth2Authentication(request, null);
+  }
+
+}
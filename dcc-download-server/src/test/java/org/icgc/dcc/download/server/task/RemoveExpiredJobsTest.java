@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.task;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.val;
+
+import org.icgc.dcc.download.server.model.DataFiles;
+import org.icgc.dcc.download.server.model.Job;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.mongodb.DBObject;
+import com.mongodb.WriteResult;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RemoveExpiredJobsTest {
+
+  @Mock
+  MongoTemplate mongoTemplate;
+  @Mock
+  GaugeService gaugeService;
+
+  RemoveExpiredJobs task;
+
+  /**
+   * In-memory collections backing the mocked {@link MongoTemplate}.
+   */
+  Map<String, Job> jobs = Maps.newLinkedHashMap();
+  Set<String> dataFiles = Sets.newHashSet();
+
+  @Before
+  public void setUp() {
+    when(mongoTemplate.find(any(Query.class), eq(Job.class))).thenAnswer(invocation -> {
+      Query query = (Query) invocation.getArguments()[0];
+      long expiration = (Long) getCondition(query, "submissionDate", "$lt");
+
+      return jobs.values().stream()
+          .filter(job -> job.getSubmissionDate() < expiration)
+          .limit(query.getLimit())
+          .collect(toList());
+    });
+    when(mongoTemplate.remove(any(Query.class), eq(Job.class))).thenAnswer(invocation -> {
+      Collection<String> ids = getIds((Query) invocation.getArguments()[0]);
+
+      return createResult(ids.stream().filter(id -> jobs.remove(id) != null).count());
+    });
+    when(mongoTemplate.remove(any(Query.class), eq(DataFiles.class))).thenAnswer(invocation -> {
+      Collection<String> ids = getIds((Query) invocation.getArguments()[0]);
+
+      return createResult(ids.stream().filter(dataFiles::remove).count());
+    });
+
+    task = new RemoveExpiredJobs(mongoTemplate, gaugeService);
+  }
+
+  @Test
+  public void testExecute() throws Exception {
+    val now = Instant.now();
+    val expired = now.minus(2, ChronoUnit.DAYS).getEpochSecond();
+    val live = now.minus(1, ChronoUnit.HOURS).getEpochSecond();
+
+    // More than a batch of expired jobs
+    for (int i = 0; i < 1500; i++) {
+      addJob("expired-" + i, expired);
+    }
+    addJob("live-1", live);
+    addJob("live-2", live);
+
+    task.execute();
+
+    assertThat(jobs.keySet()).containsOnly("live-1", "live-2");
+    assertThat(dataFiles).containsOnly("live-1", "live-2");
+    verify(gaugeService).submit("jobs.cleanup.removed.jobs", 1500);
+    verify(gaugeService).submit("jobs.cleanup.removed.dataFiles", 1500);
+  }
+
+  @Test
+  public void testExecute_noExpired() throws Exception {
+    addJob("live-1", Instant.now().getEpochSecond());
+
+    task.execute();
+
+    assertThat(jobs.keySet()).containsOnly("live-1");
+    assertThat(dataFiles).containsOnly("live-1");
+    verify(gaugeService).submit("jobs.cleanup.removed.jobs", 0);
+  }
+
+  private void addJob(String id, long submissionDate) {
+    jobs.put(id, Job.builder().id(id).submissionDate(submissionDate).build());
+    dataFiles.add(id);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Collection<String> getIds(Query query) {
+    return (Collection<String>) getCondition(query, "_id", "$in");
+  }
+
+  private static Object getCondition(Query query, String field, String operator) {
+    val condition = (DBObject) query.getQueryObject().get(field);
+
+    return condition.get(operator);
+  }
+
+  private static WriteResult createResult(long removed) {
+    return new WriteResult((int) removed, false, null);
+  }
+
+}
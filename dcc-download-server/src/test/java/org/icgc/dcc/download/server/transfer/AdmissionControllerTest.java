@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.icgc.dcc.download.server.transfer.TransferType.EXPORT;
+import static org.icgc.dcc.download.server.transfer.TransferType.JOB;
+import static org.icgc.dcc.download.test.TestUtils.getMetricValues;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import lombok.val;
+
+import org.icgc.dcc.download.server.config.Properties.AdmissionProperties;
+import org.icgc.dcc.download.server.endpoint.RetryLaterException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdmissionControllerTest {
+
+  AdmissionProperties properties;
+  AdmissionController admissionController;
+
+  @Before
+  public void setUp() {
+    properties = new AdmissionProperties();
+    properties.setMaxJobStreams(1);
+    properties.setMaxQueued(0);
+    properties.setMaxWaitSeconds(0);
+    properties.setRetryAfterSeconds(5);
+    admissionController = new AdmissionController(properties);
+  }
+
+  @Test
+  public void testAdmit() throws Exception {
+    try (Permit permit = admissionController.admit(JOB)) {
+      assertThat(getMetricValues(admissionController).get("admission.job.active")).isEqualTo(1);
+    }
+
+    assertThat(getMetricValues(admissionController).get("admission.job.active")).isEqualTo(0);
+    assertThat(getMetricValues(admissionController).get("admission.job.admitted")).isEqualTo(1L);
+  }
+
+  @Test
+  public void testAdmit_queueFull() throws Exception {
+    try (Permit permit = admissionController.admit(JOB)) {
+      admissionController.admit(JOB);
+      fail("Expected the request to be rejected");
+    } catch (RetryLaterException e) {
+      assertThat(e.getStatus()).isEqualTo(TOO_MANY_REQUESTS);
+      assertThat(e.getRetryAfterSeconds()).isEqualTo(5);
+    }
+
+    assertThat(getMetricValues(admissionController).get("admission.job.rejected.queueFull")).isEqualTo(1L);
+  }
+
+  @Test
+  public void testAdmit_timeout() throws Exception {
+    properties.setMaxQueued(1);
+    admissionController = new AdmissionController(properties);
+
+    try (Permit permit = admissionController.admit(JOB)) {
+      admissionController.admit(JOB);
+      fail("Expected the request to be rejected");
+    } catch (RetryLaterException e) {
+      assertThat(e.getStatus()).isEqualTo(SERVICE_UNAVAILABLE);
+    }
+
+    assertThat(getMetricValues(admissionController).get("admission.job.rejected.timeout")).isEqualTo(1L);
+    assertThat(getMetricValues(admissionController).get("admission.job.queued")).isEqualTo(0);
+  }
+
+  @Test
+  public void testAdmit_waiting() throws Exception {
+    properties.setMaxQueued(1);
+    properties.setMaxWaitSeconds(10);
+    admissionController = new AdmissionController(properties);
+
+    val executor = Executors.newSingleThreadExecutor();
+    val admitted = new CountDownLatch(1);
+    try (Permit permit = admissionController.admit(JOB)) {
+      executor.execute(() -> {
+        try (Permit waiting = admissionController.admit(JOB)) {
+          admitted.countDown();
+        }
+      });
+
+      assertThat(admitted.await(100, TimeUnit.MILLISECONDS)).isFalse();
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(admitted.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testAdmit_classes() throws Exception {
+    try (Permit job = admissionController.admit(JOB); Permit export = admissionController.admit(EXPORT)) {
+      assertThat(getMetricValues(admissionController).get("admission.export.active")).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void testAdmit_permitReleasedOnce() throws Exception {
+    val permit = admissionController.admit(JOB);
+    permit.close();
+    permit.close();
+
+    assertThat(getMetricValues(admissionController).get("admission.job.active")).isEqualTo(0);
+  }
+
+}
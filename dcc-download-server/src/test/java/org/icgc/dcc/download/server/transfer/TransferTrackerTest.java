@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.icgc.dcc.common.hadoop.fs.FileSystems.getDefaultLocalFileSystem;
+import static org.icgc.dcc.download.server.transfer.TransferOutcome.CLIENT_ABORT;
+import static org.icgc.dcc.download.server.transfer.TransferOutcome.COMPLETE;
+import static org.icgc.dcc.download.server.transfer.TransferOutcome.ERROR;
+import static org.icgc.dcc.download.server.transfer.TransferType.JOB;
+import static org.icgc.dcc.download.test.TestUtils.createFile;
+import static org.icgc.dcc.download.test.TestUtils.getMetricValues;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import lombok.Cleanup;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import org.icgc.dcc.download.server.config.Properties.AdmissionProperties;
+import org.icgc.dcc.download.server.config.Properties.UserClassProperties;
+import org.icgc.dcc.download.server.endpoint.RetryLaterException;
+import org.icgc.dcc.download.server.io.FileStreamer;
+import org.icgc.dcc.download.server.metrics.FileSystemMetrics;
+import org.icgc.dcc.download.server.metrics.InstrumentedFileSystem;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+
+public class TransferTrackerTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  TransferTracker tracker = createTracker(new AdmissionProperties());
+
+  @Test
+  public void testStream_complete() throws Exception {
+    val output = new ByteArrayOutputStream();
+    val transfer = tracker.create(JOB, "job1", "user1", singleton("donor"), output);
+
+    tracker.stream(transfer, new TestStreamer(transfer.getOutput(), false) {
+
+      @Override
+      @SneakyThrows
+      public void stream() {
+        assertThat(tracker.getActiveTransfers()).hasSize(1);
+        assertThat(tracker.getActiveTransfers().get(0).getName()).isEqualTo("job1");
+        super.stream();
+      }
+
+    });
+
+    assertThat(output.toByteArray()).hasSize(10);
+    assertThat(transfer.getOutcome()).isEqualTo(COMPLETE);
+    assertThat(transfer.getResponseOutput().getBytes()).isEqualTo(10);
+    assertThat(transfer.getTtfbNanos()).isGreaterThanOrEqualTo(0);
+    assertThat(tracker.getActiveTransfers()).isEmpty();
+
+    val values = getMetricValues(tracker);
+    assertThat(values.get("transfers.complete.count")).isEqualTo(1L);
+    assertThat(values.get("transfers.bytes")).isEqualTo(10L);
+    assertThat(values.get("transfers.ttfb.lt_inf")).isEqualTo(1L);
+    assertThat(values.get("transfers.queue.lt_inf")).isEqualTo(1L);
+  }
+
+  @Test
+  public void testStream_clock() throws Exception {
+    val path = createFile(tmp.getRoot(), "part-00000", "0123456789");
+    val fileSystem = new InstrumentedFileSystem(getDefaultLocalFileSystem(), new FileSystemMetrics());
+    val transfer = tracker.create(JOB, "job1", "user1", singleton("donor"), new ByteArrayOutputStream());
+    // Waiting before the admission is not part of the transfer
+    Thread.sleep(100);
+
+    tracker.stream(transfer, new TestStreamer(transfer.getOutput(), false) {
+
+      @Override
+      @SneakyThrows
+      public void stream() {
+        @Cleanup
+        val input = fileSystem.open(path);
+        ByteStreams.toByteArray(input);
+        super.stream();
+      }
+
+    });
+
+    assertThat(transfer.getQueueNanos()).isGreaterThanOrEqualTo(MILLISECONDS.toNanos(100));
+    assertThat(transfer.getElapsedNanos()).isLessThan(transfer.getQueueNanos());
+    assertThat(transfer.getTtfbNanos()).isLessThanOrEqualTo(transfer.getElapsedNanos());
+    assertThat(transfer.getReadNanos()).isPositive().isLessThanOrEqualTo(transfer.getElapsedNanos());
+  }
+
+  @Test
+  public void testStream_clientAbort() throws Exception {
+    val transfer = tracker.create(JOB, "job1", "user1", singleton("donor"), new FailingOutputStream());
+
+    tracker.stream(transfer, new TestStreamer(transfer.getOutput(), true));
+
+    assertThat(transfer.getOutcome()).isEqualTo(CLIENT_ABORT);
+    assertThat(getMetricValues(tracker).get("transfers.client_abort.count")).isEqualTo(1L);
+  }
+
+  @Test
+  public void testStream_error() throws Exception {
+    val transfer = tracker.create(JOB, "job1", "user1", singleton("donor"), new ByteArrayOutputStream());
+
+    try {
+      tracker.stream(transfer, new TestStreamer(transfer.getOutput(), false) {
+
+        @Override
+        public void stream() {
+          throw new IllegalStateException("HDFS failure");
+        }
+
+      });
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    assertThat(transfer.getOutcome()).isEqualTo(ERROR);
+    assertThat(getMetricValues(tracker).get("transfers.error.count")).isEqualTo(1L);
+    assertThat(tracker.getActiveTransfers()).isEmpty();
+  }
+
+  @Test
+  public void testStream_rejected() throws Exception {
+    val userClass = new UserClassProperties();
+    userClass.setMaxStreams(0);
+    val properties = new AdmissionProperties();
+    properties.getUserClasses().put(properties.getDefaultUserClass(), userClass);
+    tracker = createTracker(properties);
+    val transfer = tracker.create(JOB, "job1", "user1", singleton("donor"), new ByteArrayOutputStream());
+    val streamer = new TestStreamer(transfer.getOutput(), false);
+
+    try {
+      tracker.stream(transfer, streamer);
+      fail("Expected the transfer to be rejected");
+    } catch (RetryLaterException e) {
+      // Expected
+    }
+
+    assertThat(streamer.isStreamed()).isFalse();
+    assertThat(streamer.isClosed()).isTrue();
+    assertThat(tracker.getActiveTransfers()).isEmpty();
+  }
+
+  @Test
+  public void testStream_throttled() throws Exception {
+    val properties = new AdmissionProperties();
+    properties.setMaxBytesPerSecond(1024);
+    tracker = createTracker(properties);
+    val output = new ByteArrayOutputStream();
+    val transfer = tracker.create(JOB, "job1", "user1", singleton("donor"), output);
+
+    assertThat(transfer.getOutput()).isInstanceOf(ThrottledOutputStream.class);
+    tracker.stream(transfer, new TestStreamer(transfer.getOutput(), false));
+
+    assertThat(output.toByteArray()).hasSize(10);
+    assertThat(transfer.getOutcome()).isEqualTo(COMPLETE);
+  }
+
+  private static TransferTracker createTracker(AdmissionProperties properties) {
+    return new TransferTracker(new AdmissionController(properties), new UserThrottle(properties));
+  }
+
+  /**
+   * Writes 10 bytes. Swallows client aborts like the {@code GzipStreamer}.
+   */
+  private static class TestStreamer implements FileStreamer {
+
+    private final OutputStream output;
+    private final boolean swallowErrors;
+    @Getter
+    private boolean streamed;
+    @Getter
+    private boolean closed;
+
+    TestStreamer(OutputStream output, boolean swallowErrors) {
+      this.output = output;
+      this.swallowErrors = swallowErrors;
+    }
+
+    @Override
+    @SneakyThrows
+    public void stream() {
+      streamed = true;
+      try {
+        output.write(new byte[10]);
+      } catch (IOException e) {
+        if (!swallowErrors) {
+          throw e;
+        }
+      }
+    }
+
+    @Override
+    public String getName() {
+      return "test";
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      if (!swallowErrors) {
+        output.close();
+      }
+    }
+
+  }
+
+  private static class FailingOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) throws IOException {
+      throw new IOException("Broken pipe");
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      throw new IOException("Broken pipe");
+    }
+
+  }
+
+}
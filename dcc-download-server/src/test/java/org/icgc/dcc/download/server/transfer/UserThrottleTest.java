@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.server.transfer;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.offset;
+import static org.icgc.dcc.download.test.TestUtils.getMetricValues;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+import lombok.val;
+
+import org.icgc.dcc.download.server.config.Properties.AdmissionProperties;
+import org.icgc.dcc.download.server.config.Properties.UserClassProperties;
+import org.icgc.dcc.download.server.endpoint.RetryLaterException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UserThrottleTest {
+
+  UserThrottle userThrottle;
+
+  @Before
+  public void setUp() {
+    val properties = new AdmissionProperties();
+    properties.setMaxBytesPerSecond(1000);
+
+    val defaultClass = new UserClassProperties();
+    defaultClass.setMaxStreams(1);
+    properties.getUserClasses().put("default", defaultClass);
+
+    val internalClass = new UserClassProperties();
+    internalClass.setMaxStreams(2);
+    internalClass.setWeight(3);
+    internalClass.setUsers(singletonList("internal"));
+    properties.getUserClasses().put("internal", internalClass);
+
+    userThrottle = new UserThrottle(properties);
+  }
+
+  @Test
+  public void testAdmit_maxStreams() throws Exception {
+    try (Permit permit = userThrottle.admit("user1")) {
+      userThrottle.admit("user1");
+      fail("Expected the request to be rejected");
+    } catch (RetryLaterException e) {
+      assertThat(e.getStatus()).isEqualTo(TOO_MANY_REQUESTS);
+    }
+
+    val values = getMetricValues(userThrottle);
+    assertThat(values.get("users.user1.admitted")).isEqualTo(1L);
+    assertThat(values.get("users.user1.rejected")).isEqualTo(1L);
+    assertThat(values.get("users.user1.streams")).isEqualTo(0);
+  }
+
+  @Test
+  public void testAdmit_userClass() throws Exception {
+    try (Permit first = userThrottle.admit("internal"); Permit second = userThrottle.admit("internal")) {
+      assertThat(getMetricValues(userThrottle).get("users.internal.streams")).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void testAdmit_anonymous() throws Exception {
+    try (Permit first = userThrottle.admit(null); Permit second = userThrottle.admit(null)) {
+      assertThat(first.getBandwidth().isPresent()).isFalse();
+    }
+  }
+
+  @Test
+  public void testGetBandwidth_weighted() throws Exception {
+    try (Permit permit = userThrottle.admit("user1")) {
+      val user = permit.getBandwidth().get();
+      assertThat(user.getRate()).isEqualTo(1000.0, offset(0.001));
+
+      try (Permit internalPermit = userThrottle.admit("internal")) {
+        val internal = internalPermit.getBandwidth().get();
+        assertThat(user.getRate()).isEqualTo(250.0, offset(0.001));
+        assertThat(internal.getRate()).isEqualTo(750.0, offset(0.001));
+        assertThat(getMetricValues(userThrottle).get("users.active")).isEqualTo(2);
+      }
+
+      assertThat(user.getRate()).isEqualTo(1000.0, offset(0.001));
+    }
+  }
+
+  @Test
+  public void testRecordBytes() throws Exception {
+    userThrottle.recordBytes("user1", 10);
+    userThrottle.recordBytes("user1", 5);
+
+    assertThat(getMetricValues(userThrottle).get("users.user1.bytes")).isEqualTo(15L);
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.test;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.File;
+import java.util.Map;
+
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import org.apache.hadoop.fs.Path;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+/**
+ * Helpers shared by the unit tests of the server components.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class TestUtils {
+
+	/**
+	 * Writes {@code content} to the file {@code name} of {@code dir}.
+	 * 
+	 * @return the Hadoop path of the file
+	 */
+	@SneakyThrows
+	public static Path createFile(@NonNull File dir, @NonNull String name, @NonNull String content) {
+		val file = new File(dir, name);
+		Files.write(content, file, UTF_8);
+
+		return new Path(file.getAbsolutePath());
+	}
+
+	/**
+	 * @return the values of the {@code metrics} by metric name
+	 */
+	public static Map<String, Object> getMetricValues(@NonNull PublicMetrics metrics) {
+		val values = Maps.<String, Object> newHashMap();
+		for (Metric<?> metric : metrics.metrics()) {
+			values.put(metric.getName(), metric.getValue());
+		}
+
+		return values;
+	}
+
+}
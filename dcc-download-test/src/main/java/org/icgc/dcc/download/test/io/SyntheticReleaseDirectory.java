@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.download.test.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Locale.ENGLISH;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.icgc.dcc.common.core.model.DownloadDataType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+/**
+ * Generates a release directory in the layout served by the download server:
+ * 
+ * <pre>
+ * release_21/
+ *   README.txt
+ *   data/&lt;project&gt;/&lt;donor&gt;/&lt;data type&gt;/part-00000.gz
+ *   headers/&lt;data type&gt;.tsv.gz
+ *   projects_files/README.txt
+ *   summary_files/README.txt
+ *   summary_files/simple_somatic_mutation.aggregated.vcf.gz
+ * </pre>
+ * 
+ * Every donor has all the clinical data types of {@code dataTypes} and each of the other ones with the
+ * {@code dataTypeRatio} probability. Each data type file consists of {@code partFiles} gzipped part files of about
+ * {@code rowsPerPartFile} rows.<br>
+ * <br>
+ * The same release is available as a release archive read by the download import, see
+ * {@link #writeArchive(File, String, int, int)}, and in memory, see {@link #getDonorFiles()}.<br>
+ * <br>
+ * The release is generated from {@code seed}, so the same parameters always produce the same files.
+ */
+@Slf4j
+@Value
+public class SyntheticReleaseDirectory {
+
+	/**
+	 * Constants.
+	 */
+	public static final String DEFAULT_RELEASE_NAME = "release_21";
+	private static final int MAX_PROJECTS = 1000;
+	private static final int COLUMNS = 10;
+	private static final int PART_FILE_BUFFER_SIZE = 64 * 1024;
+	private static final String[] DOCUMENT_TYPES = { "donor", "donor-centric", "gene-centric", "mutation-centric" };
+	private static final String[] CONSEQUENCES = { "missense_variant", "synonymous_variant", "frameshift_variant",
+			"stop_gained", "intron_variant" };
+	private static final char[] BASES = { 'A', 'C', 'G', 'T' };
+	private static final String SETTINGS = "{\"index\":{\"number_of_shards\":1,\"number_of_replicas\":0}}";
+	private static final String MAPPING = "{\"%s\":{\"dynamic\":\"false\",\"properties\":{}}}";
+
+	/**
+	 * Configuration.
+	 */
+	@NonNull
+	String releaseName;
+	int projects;
+	int donorsPerProject;
+	@NonNull
+	Collection<DownloadDataType> dataTypes;
+	double dataTypeRatio;
+	int partFiles;
+	int rowsPerPartFile;
+	long seed;
+
+	/**
+	 * Creates a release of all the data types, half of the donors having each non-clinical one, stored in a single
+	 * part file of 100 rows.
+	 */
+	public static SyntheticReleaseDirectory of(int projects, int donorsPerProject) {
+		return new SyntheticReleaseDirectory(DEFAULT_RELEASE_NAME, projects, donorsPerProject,
+				ImmutableList.copyOf(DownloadDataType.values()), 0.5, 1, 100, 1);
+	}
+
+	/**
+	 * @return project code of the {@code i}th project, e.g. {@code P12-SY}
+	 */
+	public static String getProjectId(int i) {
+		return "P" + i + "-SY";
+	}
+
+	/**
+	 * @return identifier of the {@code i}th donor of the release
+	 */
+	public static String getDonorId(int i) {
+		return String.format("DO%d", i);
+	}
+
+	/**
+	 * @return directory of the {@code dataType} files, e.g. {@code ssm_open}
+	 */
+	public static String getDataTypeDirName(@NonNull DownloadDataType dataType) {
+		return dataType.name().toLowerCase(ENGLISH);
+	}
+
+	/**
+	 * @return path of the {@code dataType} files of a donor relative to the {@code data} directory
+	 */
+	public static String getDataTypeFilePath(@NonNull String projectId, @NonNull String donorId,
+			@NonNull DownloadDataType dataType) {
+		return projectId + "/" + donorId + "/" + getDataTypeDirName(dataType);
+	}
+
+	public int getDonorCount() {
+		return projects * donorsPerProject;
+	}
+
+	/**
+	 * @return number of documents of all types in the archive written by {@link #writeArchive(File, String, int, int)}
+	 */
+	public long getArchiveDocumentCount(int genes, int mutationsPerDonor) {
+		long donors = getDonorCount();
+		return donors + donors + genes + donors * mutationsPerDonor;
+	}
+
+	/**
+	 * @return number of documents of the archive written by {@link #writeArchive(File, String, int, int)} which
+	 * reference a single project
+	 */
+	public long getArchiveProjectDocumentCount(int genes, int mutationsPerDonor) {
+		long donors = donorsPerProject;
+		// Every gene references all the projects, mutations are generated per donor
+		return donors + donors + genes + donors * mutationsPerDonor;
+	}
+
+	/**
+	 * Lays out the release without writing it. Donors are assigned to the projects round robin.
+	 * 
+	 * @return data type files of all the donors, ordered by donor
+	 */
+	public List<DonorFile> getDonorFiles() {
+		checkArgument(projects > 0 && projects <= MAX_PROJECTS, "Projects must be between 1 and %s", MAX_PROJECTS);
+		checkArgument(donorsPerProject > 0 && partFiles > 0 && rowsPerPartFile > 0, "Sizes must be positive");
+		checkArgument(!dataTypes.isEmpty(), "No data types");
+
+		val random = new Random(seed);
+		val donorFiles = ImmutableList.<DonorFile> builder();
+		for (int i = 0; i < getDonorCount(); i++) {
+			val projectId = getProjectId(i % projects);
+			val donorId = getDonorId(i);
+			for (val dataType : dataTypes) {
+				if (DownloadDataType.CLINICAL.contains(dataType) || random.nextDouble() < dataTypeRatio) {
+					val partFileRows = ImmutableList.<Integer> builder();
+					for (int part = 0; part < partFiles; part++) {
+						// Vary the part file sizes within 50%-150% of rowsPerPartFile
+						partFileRows.add(Math.max(1, rowsPerPartFile / 2 + random.nextInt(rowsPerPartFile + 1)));
+					}
+
+					donorFiles.add(new DonorFile(projectId, donorId, dataType, partFileRows.build()));
+				}
+			}
+		}
+
+		return donorFiles.build();
+	}
+
+	/**
+	 * Writes the release into {@code rootDir}.
+	 * 
+	 * @return the release directory
+	 */
+	@SneakyThrows
+	public File write(@NonNull File rootDir) {
+		val donorFiles = getDonorFiles();
+		val releaseDir = new File(rootDir, releaseName);
+		log.info("Writing synthetic release '{}' of {} projects and {} donors...", releaseDir, projects, getDonorCount());
+
+		writeText(new File(releaseDir, "README.txt"), "# " + releaseName + " README\n");
+		writeText(new File(releaseDir, "projects_files/README.txt"), "# PROJECTS README\n");
+		writeText(new File(releaseDir, "summary_files/README.txt"), "# SUMMARY README\n");
+		writeAggregatedMutations(new File(releaseDir, "summary_files/simple_somatic_mutation.aggregated.vcf.gz"));
+		for (val dataType : dataTypes) {
+			writeHeader(new File(releaseDir, "headers/" + getDataTypeDirName(dataType) + ".tsv.gz"), dataType);
+		}
+
+		val random = new Random(seed);
+		val dataDir = new File(releaseDir, "data");
+		for (val donorFile : donorFiles) {
+			writeDataTypeFile(new File(dataDir, donorFile.getPath()), random, donorFile);
+		}
+
+		return releaseDir;
+	}
+
+	/**
+	 * Writes the release as an archive in the format read by the download import: a tar of
+	 * {@code <index>_<type>.tar.gz} entries, each containing the index settings, the type mapping and one entry per
+	 * document. There are donor and donor-centric documents of all the donors, {@code genes} gene-centric documents
+	 * and {@code mutationsPerDonor} mutation-centric documents per donor.
+	 * 
+	 * @return {@code releaseFile}
+	 */
+	@SneakyThrows
+	public File writeArchive(@NonNull File releaseFile, @NonNull String indexName, int genes, int mutationsPerDonor) {
+		checkArgument(genes > 0 && mutationsPerDonor >= 0, "Sizes must be positive");
+		log.info("Writing synthetic release archive '{}' of {} documents...", releaseFile,
+				getArchiveDocumentCount(genes, mutationsPerDonor));
+
+		@Cleanup
+		val tarOutput = new TarArchiveOutputStream(new BufferedOutputStream(new FileOutputStream(releaseFile)));
+		tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+		for (val documentType : DOCUMENT_TYPES) {
+			val typeArchive = createTypeArchive(indexName, documentType, genes, mutationsPerDonor);
+			addEntry(tarOutput, indexName + "_" + documentType + ".tar.gz", typeArchive);
+		}
+
+		return releaseFile;
+	}
+
+	private void writeDataTypeFile(File dataTypeDir, Random random, DonorFile donorFile) throws IOException {
+		val partFileRows = donorFile.getPartFileRows();
+		for (int part = 0; part < partFileRows.size(); part++) {
+			try (val writer = openGzip(new File(dataTypeDir, String.format("part-%05d.gz", part)))) {
+				for (int row = 0; row < partFileRows.get(part); row++) {
+					writer.write(donorFile.getDonorId());
+					writer.write('\t');
+					writer.write(donorFile.getProjectId());
+					for (int column = 2; column < COLUMNS; column++) {
+						writer.write('\t');
+						writer.write(Long.toString(random.nextLong() & Long.MAX_VALUE, Character.MAX_RADIX));
+					}
+
+					writer.write('\n');
+				}
+			}
+		}
+	}
+
+	private static void writeHeader(File file, DownloadDataType dataType) throws IOException {
+		val name = getDataTypeDirName(dataType);
+		try (val writer = openGzip(file)) {
+			writer.write("icgc_donor_id\tproject_code");
+			for (int column = 2; column < COLUMNS; column++) {
+				writer.write("\t" + name + "_" + column);
+			}
+
+			writer.write('\n');
+		}
+	}
+
+	private void writeAggregatedMutations(File file) throws IOException {
+		val random = new Random(seed);
+		try (val writer = openGzip(file)) {
+			writer.write("##fileformat=VCFv4.1\n#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+			for (int i = 0; i < getDonorCount(); i++) {
+				writer.write(String.format("%d\t%d\tMU%d\tA\tG\t.\t.\tPROJECT=%s\n", 1 + random.nextInt(22),
+						random.nextInt(100_000_000), i, getProjectId(i % projects)));
+			}
+		}
+	}
+
+	private byte[] createTypeArchive(String indexName, String documentType, int genes, int mutationsPerDonor)
+			throws IOException {
+		val random = new Random(seed + documentType.hashCode());
+		val bytes = new ByteArrayOutputStream();
+		try (val tarOutput = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+			tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+			addEntry(tarOutput, indexName + "/_settings", SETTINGS.getBytes(UTF_8));
+			addEntry(tarOutput, indexName + "/" + documentType + "/_mapping",
+					String.format(MAPPING, documentType).getBytes(UTF_8));
+
+			val documentPrefix = indexName + "/" + documentType + "/";
+			switch (documentType) {
+			case "donor":
+			case "donor-centric":
+				for (int i = 0; i < getDonorCount(); i++) {
+					val donorId = getDonorId(i);
+					val donor = createDonor(random, i, donorId, genes, documentType.equals("donor-centric"));
+					addEntry(tarOutput, documentPrefix + donorId, donor.getBytes(UTF_8));
+				}
+				break;
+			case "gene-centric":
+				for (int g = 0; g < genes; g++) {
+					val geneId = getGeneId(g);
+					addEntry(tarOutput, documentPrefix + geneId, createGene(random, geneId).getBytes(UTF_8));
+				}
+				break;
+			case "mutation-centric":
+				for (int i = 0; i < getDonorCount(); i++) {
+					for (int m = 0; m < mutationsPerDonor; m++) {
+						val mutationId = "MU" + ((long) i * mutationsPerDonor + m);
+						val mutation = createMutation(random, i, mutationId);
+						addEntry(tarOutput, documentPrefix + mutationId, mutation.getBytes(UTF_8));
+					}
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown document type " + documentType);
+			}
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private String createDonor(Random random, int donor, String donorId, int genes, boolean centric) {
+		val json = new StringBuilder()
+				.append("{\"_donor_id\":\"").append(donorId).append('"')
+				.append(",\"_project_id\":\"").append(getProjectId(donor % projects)).append('"')
+				.append(",\"donor_sex\":\"").append(random.nextBoolean() ? "male" : "female").append('"')
+				.append(",\"donor_age_at_diagnosis\":").append(20 + random.nextInt(60))
+				.append(",\"donor_vital_status\":\"").append(random.nextBoolean() ? "alive" : "deceased").append('"');
+
+		if (centric) {
+			json.append(",\"gene\":[");
+			for (int i = 0; i < 10; i++) {
+				if (i > 0) {
+					json.append(',');
+				}
+
+				json.append("{\"_gene_id\":\"").append(getGeneId(random.nextInt(genes))).append('"')
+						.append(",\"ssm\":[{\"consequence_type\":\"").append(pick(random, CONSEQUENCES)).append("\"}]}");
+			}
+
+			json.append(']');
+		}
+
+		return json.append('}').toString();
+	}
+
+	private String createGene(Random random, String geneId) {
+		val json = new StringBuilder()
+				.append("{\"_gene_id\":\"").append(geneId).append('"')
+				.append(",\"symbol\":\"SYN").append(geneId.substring(4)).append('"')
+				.append(",\"chromosome\":\"").append(1 + random.nextInt(22)).append('"')
+				.append(",\"start\":").append(random.nextInt(100_000_000))
+				.append(",\"donor\":[");
+
+		for (int p = 0; p < projects; p++) {
+			if (p > 0) {
+				json.append(',');
+			}
+
+			// Donors are assigned to the projects round robin
+			val donor = random.nextInt(donorsPerProject) * projects + p;
+			json.append("{\"_donor_id\":\"").append(getDonorId(donor)).append('"')
+					.append(",\"project\":{\"_project_id\":\"").append(getProjectId(p)).append("\"}}");
+		}
+
+		return json.append("]}").toString();
+	}
+
+	private String createMutation(Random random, int donor, String mutationId) {
+		return new StringBuilder()
+				.append("{\"_mutation_id\":\"").append(mutationId).append('"')
+				.append(",\"chromosome\":\"").append(1 + random.nextInt(22)).append('"')
+				.append(",\"chromosome_start\":").append(random.nextInt(100_000_000))
+				.append(",\"mutation\":\"").append(pick(random, BASES)).append('>').append(pick(random, BASES))
+				.append('"')
+				.append(",\"ssm_occurrence\":[{\"donor\":{\"_donor_id\":\"").append(getDonorId(donor)).append("\"}")
+				.append(",\"project\":{\"_project_id\":\"").append(getProjectId(donor % projects)).append("\"}}]")
+				.append(",\"transcript\":[{\"consequence\":{\"consequence_type\":\"").append(pick(random, CONSEQUENCES))
+				.append("\"}}]}")
+				.toString();
+	}
+
+	private static void addEntry(TarArchiveOutputStream tarOutput, String name, byte[] content) throws IOException {
+		val entry = new TarArchiveEntry(name);
+		entry.setSize(content.length);
+		tarOutput.putArchiveEntry(entry);
+		tarOutput.write(content);
+		tarOutput.closeArchiveEntry();
+	}
+
+	private static String getGeneId(int gene) {
+		return "ENSG" + gene;
+	}
+
+	private static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static char pick(Random random, char[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static void writeText(File file, String text) throws IOException {
+		Files.createParentDirs(file);
+		Files.write(text, file, UTF_8);
+	}
+
+	private static Writer openGzip(File file) throws IOException {
+		Files.createParentDirs(file);
+		val output = new GZIPOutputStream(new FileOutputStream(file), PART_FILE_BUFFER_SIZE);
+
+		return new BufferedWriter(new OutputStreamWriter(output, UTF_8), PART_FILE_BUFFER_SIZE);
+	}
+
+	/**
+	 * Part files of a data type of a donor, stored in {@code data/<project>/<donor>/<data type>/}.
+	 */
+	@Value
+	public static class DonorFile {
+
+		String projectId;
+		String donorId;
+		DownloadDataType dataType;
+
+		/**
+		 * Number of rows of each part file.
+		 */
+		List<Integer> partFileRows;
+
+		/**
+		 * @return path relative to the {@code data} directory
+		 */
+		public String getPath() {
+			return getDataTypeFilePath(projectId, donorId, dataType);
+		}
+
+	}
+
+}